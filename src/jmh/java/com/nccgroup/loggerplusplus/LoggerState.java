@@ -0,0 +1,68 @@
+package com.nccgroup.loggerplusplus;
+
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import com.nccgroup.loggerplusplus.filter.savedfilter.SavedFilter;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A {@link HeadlessLogger}, and the synthetic traffic of {@link LoadGenerator} both as raw requests and responses
+ * and as processed entries, shared by the benchmarks.
+ */
+@State(Scope.Benchmark)
+public class LoggerState {
+
+    /**
+     * The number of distinct exchanges, a power of two so benchmarks can cycle through them with a mask.
+     */
+    public static final int EXCHANGES = 256;
+    public static final int MASK = EXCHANGES - 1;
+
+    /**
+     * The fields exported by the exporter benchmarks, as by the load generator.
+     */
+    public static final List<LogEntryField> EXPORTED_FIELDS = LoadGenerator.EXPORTED_FIELDS;
+
+    @Param({"512", "16384"})
+    public int bodySize;
+
+    public HeadlessLogger logger;
+    public HttpRequest[] requests;
+    public HttpResponse[] responses;
+    public LogEntry[] entries;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        logger = new HeadlessLogger();
+        //Used by filters which refer to the saved filter by its alias.
+        logger.getLibraryController().addFilter(new SavedFilter("errors", "Response.Status >= 400"));
+
+        Random random = new Random(1);
+        requests = new HttpRequest[EXCHANGES];
+        responses = new HttpResponse[EXCHANGES];
+        entries = new LogEntry[EXCHANGES];
+        for (int i = 0; i < EXCHANGES; i++) {
+            LoadGenerator.Exchange exchange = LoadGenerator.syntheticExchange(i, bodySize, bodySize, random);
+            requests[i] = exchange.request();
+            responses[i] = exchange.response();
+            entries[i] = new LogEntry(ToolType.PROXY, requests[i], responses[i]);
+            entries[i].process();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        logger.shutdown();
+    }
+}
@@ -0,0 +1,62 @@
+package com.nccgroup.loggerplusplus.exports;
+
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.nccgroup.loggerplusplus.LoggerState;
+import com.nccgroup.loggerplusplus.util.Globals;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing a processed entry for each of the CSV, Elastic and HAR exporters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExporterBenchmark {
+
+    private ElasticExporter elasticExporter;
+    private HarSerializer harSerializer;
+    private int next;
+
+    @Setup
+    public void setup(LoggerState state) {
+        //The Elastic exporter takes its fields from the preferences when created.
+        state.logger.getPreferences().setSetting(Globals.PREF_PREVIOUS_ELASTIC_FIELDS, LoggerState.EXPORTED_FIELDS);
+        elasticExporter = new ElasticExporter(state.logger.getExportController(), state.logger.getPreferences());
+        harSerializer = new HarSerializer(String.valueOf(Globals.VERSION), "LoggerPlusPlus");
+    }
+
+    @Benchmark
+    public String entryToCSVString(LoggerState state) {
+        return CSVExporter.entryToCSVString(state.entries[next++ & LoggerState.MASK], LoggerState.EXPORTED_FIELDS);
+    }
+
+    @Benchmark
+    public JsonObject serializeLogEntry(LoggerState state) {
+        return elasticExporter.serializeLogEntry(state.entries[next++ & LoggerState.MASK]);
+    }
+
+    @Benchmark
+    public StringWriter harWrite(LoggerState state) throws IOException {
+        StringWriter writer = new StringWriter();
+        harSerializer.write(new JsonWriter(writer), Collections.singletonList(state.entries[next++ & LoggerState.MASK]));
+        return writer;
+    }
+}
@@ -0,0 +1,55 @@
+package com.nccgroup.loggerplusplus.filter;
+
+import com.nccgroup.loggerplusplus.LoggerState;
+import com.nccgroup.loggerplusplus.filter.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Testing processed entries against filters of each shape, as is done for every entry when the table is filtered.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FilterExpressionBenchmark {
+
+    private static final Map<String, String> FILTERS = Map.of(
+            "NUMERIC", "Response.Status >= 400 AND Response.BodyLength > 1000",
+            "REGEX", "Request.Path MATCHES \"/api/(items|users)/[0-9]+.*\"",
+            "CONTAINS", "Response.Body CONTAINS \"token\"",
+            "ALIAS", "#errors OR Request.Method == \"POST\"",
+            "IN", "Response.Status IN [200, 302, 404, 500]"
+    );
+
+    @Param({"NUMERIC", "REGEX", "CONTAINS", "ALIAS", "IN"})
+    public String shape;
+
+    private FilterExpression expression;
+    private int next;
+
+    //Takes the state so it is set up first, as aliases are resolved against its filter library when parsing.
+    @Setup
+    public void setup(LoggerState state) throws ParseException {
+        expression = new FilterExpression(FILTERS.get(shape));
+    }
+
+    @Benchmark
+    public boolean matches(LoggerState state) {
+        return expression.matches(state.entries[next++ & LoggerState.MASK]);
+    }
+}
@@ -0,0 +1,58 @@
+package com.nccgroup.loggerplusplus.grepper;
+
+import com.nccgroup.loggerplusplus.LoggerState;
+import com.nccgroup.loggerplusplus.regex.LinearRegex;
+import com.nccgroup.loggerplusplus.util.RegexBudget;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Searching the request and response of an entry for a pattern, as the grepper does for each entry searched.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GrepperBenchmark {
+
+    @Param({"token[0-9]+", "\"(user|session|account)\"", "(?i)<title>.*</title>", "absent_[0-9a-f]{8}"})
+    public String regex;
+
+    private Pattern pattern;
+    private LinearRegex linearRegex;
+    private RegexBudget regexBudget;
+    private int next;
+
+    @Setup
+    public void setup() {
+        pattern = Pattern.compile(regex);
+        linearRegex = LinearRegex.compile(pattern);
+    }
+
+    //A search shares one budget across its entries, so each iteration is given a fresh one.
+    @Setup(Level.Iteration)
+    public void setupBudget() {
+        regexBudget = RegexBudget.forQuery();
+    }
+
+    @Benchmark
+    public GrepResults processEntry(LoggerState state) {
+        return GrepperController.processEntry(state.entries[next++ & LoggerState.MASK], pattern, linearRegex,
+                regexBudget, true, true, () -> false);
+    }
+}
@@ -0,0 +1,78 @@
+package com.nccgroup.loggerplusplus.index;
+
+import com.nccgroup.loggerplusplus.LoggerState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Searching every response for a pattern, by matching the pattern against each one and by first excluding those
+ * the trigram index shows cannot match, as the grepper does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrigramIndexBenchmark {
+
+    @Param({"token[0-9]+", "<title>Results</title>", "\"query\":\"[a-z]+[0-9]+", "absent_[0-9a-f]{8}"})
+    public String regex;
+
+    private Pattern pattern;
+    private TrigramIndex index;
+    private String[] messages;
+
+    @Setup
+    public void setup(LoggerState state) {
+        pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        index = new TrigramIndex(Long.MAX_VALUE, Collections::emptyList);
+        messages = new String[LoggerState.EXCHANGES];
+        for (int i = 0; i < LoggerState.EXCHANGES; i++) {
+            byte[] response = state.responses[i].toByteArray().getBytes();
+            index.index(TrigramIndex.Section.RESPONSE, i, response);
+            messages[i] = new String(response, StandardCharsets.ISO_8859_1);
+        }
+        if (scan() != indexed()) throw new IllegalStateException("Index excluded a matching response for " + regex);
+    }
+
+    @TearDown
+    public void tearDown() {
+        index.shutdown();
+    }
+
+    @Benchmark
+    public int scan() {
+        int matches = 0;
+        for (String message : messages) {
+            if (pattern.matcher(message).find()) matches++;
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int indexed() {
+        int matches = 0;
+        CompressedBitmap excluded = index.findExclusions(TrigramIndex.Section.RESPONSE, pattern);
+        for (int i = 0; i < messages.length; i++) {
+            if (excluded != null && excluded.contains(i)) continue;
+            if (pattern.matcher(messages[i]).find()) matches++;
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,37 @@
+package com.nccgroup.loggerplusplus.logentry;
+
+import burp.api.montoya.core.ToolType;
+import com.nccgroup.loggerplusplus.LoggerState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processing a new entry from a request and its response, as the log processor does for each one captured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LogEntryBenchmark {
+
+    private int next;
+
+    @Benchmark
+    public LogEntry process(LoggerState state) {
+        int index = next++ & LoggerState.MASK;
+        LogEntry entry = new LogEntry(ToolType.PROXY, state.requests[index], state.responses[index]);
+        entry.process();
+        return entry;
+    }
+}
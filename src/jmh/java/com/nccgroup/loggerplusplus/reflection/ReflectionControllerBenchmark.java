@@ -0,0 +1,57 @@
+package com.nccgroup.loggerplusplus.reflection;
+
+import burp.api.montoya.http.message.params.HttpParameter;
+import com.nccgroup.loggerplusplus.LoggerState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking whether a parameter is reflected in a response body. A parameter which is not reflected as-is is
+ * checked again after each enabled transformation, so is the slower case.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReflectionControllerBenchmark {
+
+    @Param({"true", "false"})
+    public boolean reflected;
+
+    private ReflectionController reflectionController;
+    private String[] bodies;
+    private HttpParameter[] parameters;
+    private int next;
+
+    @Setup
+    public void setup(LoggerState state) {
+        reflectionController = state.logger.getReflectionController();
+        bodies = new String[LoggerState.EXCHANGES];
+        parameters = new HttpParameter[LoggerState.EXCHANGES];
+        for (int i = 0; i < LoggerState.EXCHANGES; i++) {
+            bodies[i] = state.responses[i].bodyToString();
+            int middle = bodies[i].length() / 2;
+            String value = reflected ? bodies[i].substring(middle, Math.min(middle + 8, bodies[i].length())) : "absent" + i;
+            parameters[i] = HttpParameter.urlParameter("q", value);
+        }
+    }
+
+    @Benchmark
+    public boolean validReflection() {
+        int index = next++ & LoggerState.MASK;
+        return reflectionController.validReflection(bodies[index], parameters[index]);
+    }
+}
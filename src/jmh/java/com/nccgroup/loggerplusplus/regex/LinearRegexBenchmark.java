@@ -0,0 +1,124 @@
+package com.nccgroup.loggerplusplus.regex;
+
+import com.nccgroup.loggerplusplus.LoggerState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Deciding whether a response contains a pattern using {@link Pattern} and using {@link LinearRegex}, for patterns
+ * typical of security testing, and for patterns which backtrack catastrophically on text crafted for them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinearRegexBenchmark {
+
+    @State(Scope.Thread)
+    public static class Responses {
+
+        @Param({"token[0-9]+", "\"(user|session|account)\"", "<title>[^<]*</title>", "[a-z]+[0-9]{2,}",
+                "(?:error|message).*null", "absent_[0-9a-f]{8}"})
+        public String regex;
+
+        private Pattern pattern;
+        private LinearRegex linearRegex;
+        private String[] messages;
+        private int next;
+
+        @Setup
+        public void setup(LoggerState state) {
+            pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            linearRegex = compile(pattern);
+            messages = new String[LoggerState.EXCHANGES];
+            for (int i = 0; i < LoggerState.EXCHANGES; i++) {
+                messages[i] = new String(state.responses[i].toByteArray().getBytes(), StandardCharsets.ISO_8859_1);
+                //The linear engine may give up on a message, leaving it to be searched with the pattern.
+                Boolean found = linearRegex.find(messages[i]);
+                if (found != null && found != pattern.matcher(messages[i]).find()) {
+                    throw new IllegalStateException("Results differ for " + regex);
+                }
+            }
+        }
+
+        private String nextMessage() {
+            return messages[next++ & LoggerState.MASK];
+        }
+    }
+
+    //Patterns which backtrack excessively even with Pattern's optimisations, with text which makes them do so.
+    @State(Scope.Thread)
+    public static class Pathological {
+
+        @Param({"TRAILING_SPACE", "TRAILING_COMMENT", "REPEATED_WILDCARD"})
+        public String shape;
+
+        private Pattern pattern;
+        private LinearRegex linearRegex;
+        private String text;
+
+        @Setup
+        public void setup() {
+            switch (shape) {
+                case "TRAILING_SPACE":
+                    pattern = Pattern.compile("\\s+$");
+                    text = " ".repeat(5000) + "x";
+                    break;
+                case "TRAILING_COMMENT":
+                    pattern = Pattern.compile("\\s*#?\\s*$");
+                    text = "#" + " ".repeat(500) + "x";
+                    break;
+                case "REPEATED_WILDCARD":
+                    pattern = Pattern.compile("(.*a){6}x");
+                    text = "a".repeat(30);
+                    break;
+                default:
+                    throw new IllegalArgumentException(shape);
+            }
+            linearRegex = compile(pattern);
+            if (!Boolean.valueOf(pattern.matcher(text).find()).equals(linearRegex.find(text))) {
+                throw new IllegalStateException("Results differ for " + pattern);
+            }
+        }
+    }
+
+    private static LinearRegex compile(Pattern pattern) {
+        LinearRegex linearRegex = LinearRegex.compile(pattern);
+        if (linearRegex == null) throw new IllegalStateException("Pattern is not supported: " + pattern);
+        return linearRegex;
+    }
+
+    @Benchmark
+    public boolean pattern(Responses responses) {
+        return responses.pattern.matcher(responses.nextMessage()).find();
+    }
+
+    @Benchmark
+    public Boolean linearRegex(Responses responses) {
+        return responses.linearRegex.find(responses.nextMessage());
+    }
+
+    @Benchmark
+    public boolean patternPathological(Pathological pathological) {
+        return pathological.pattern.matcher(pathological.text).find();
+    }
+
+    @Benchmark
+    public Boolean linearRegexPathological(Pathological pathological) {
+        return pathological.linearRegex.find(pathological.text);
+    }
+}
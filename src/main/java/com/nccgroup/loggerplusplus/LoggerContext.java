@@ -0,0 +1,31 @@
+package com.nccgroup.loggerplusplus;
+
+import burp.api.montoya.MontoyaApi;
+import com.coreyd97.BurpExtenderUtilities.Preferences;
+import com.nccgroup.loggerplusplus.filterlibrary.FilterLibraryController;
+import com.nccgroup.loggerplusplus.reflection.ReflectionController;
+
+import static com.nccgroup.loggerplusplus.util.Globals.PREF_RESTRICT_TO_SCOPE;
+
+/**
+ * The services entries are captured, processed and exported with.
+ * Implemented by the extension when loaded into Burp, and by stand-ins so the pipeline can be run without it.
+ */
+public interface LoggerContext {
+
+    MontoyaApi getMontoya();
+
+    Preferences getPreferences();
+
+    FilterLibraryController getLibraryController();
+
+    ReflectionController getReflectionController();
+
+    /**
+     * @return Whether the URL should be logged, respecting the preference to restrict logging to Burp's scope.
+     */
+    default boolean isInScope(String url) {
+        return !(Boolean) getPreferences().getSetting(PREF_RESTRICT_TO_SCOPE)
+                || getMontoya().scope().isInScope(url);
+    }
+}
@@ -5,6 +5,7 @@ import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.core.Registration;
 import com.coreyd97.BurpExtenderUtilities.DefaultGsonProvider;
 import com.coreyd97.BurpExtenderUtilities.IGsonProvider;
+import com.coreyd97.BurpExtenderUtilities.Preferences;
 import com.nccgroup.loggerplusplus.exports.ExportController;
 import com.nccgroup.loggerplusplus.filterlibrary.FilterLibraryController;
 import com.nccgroup.loggerplusplus.grepper.GrepperController;
@@ -25,20 +26,20 @@ import java.awt.*;
 import java.util.Arrays;
 import java.util.List;
 
-import static com.nccgroup.loggerplusplus.util.Globals.PREF_RESTRICT_TO_SCOPE;
-
 /**
  * Created by corey on 07/09/17.
  */
 @Log4j2
 @Getter
-public class LoggerPlusPlus implements BurpExtension {
+public class LoggerPlusPlus implements BurpExtension, LoggerContext {
 
     private static String NAME = "Logger++";
 
     public static LoggingController loggingController;
     public static LoggerPlusPlus instance;
     public static MontoyaApi montoya;
+    //The services used to capture and process entries. The extension itself, unless run without Burp.
+    public static LoggerContext context;
     public static IGsonProvider gsonProvider = new DefaultGsonProvider();
 
     private Registration menuBarRegistration;
@@ -57,6 +58,7 @@ public class LoggerPlusPlus implements BurpExtension {
 
     public LoggerPlusPlus() {
         LoggerPlusPlus.instance = this;
+        LoggerPlusPlus.context = this;
     }
 
     @Override
@@ -82,7 +84,8 @@ public class LoggerPlusPlus implements BurpExtension {
         exportController = new ExportController(preferencesController.getPreferences());
         libraryController = new FilterLibraryController(preferencesController);
         logViewController = new LogViewController(libraryController);
-        logProcessor = new LogProcessor(logViewController.getLogTableController(), exportController);
+        logProcessor = new LogProcessor(this, logViewController.getLogTableController().getLogTableModel(),
+                exportController, SwingUtilities::invokeLater);
         grepperController = new GrepperController(logViewController.getLogTableController(), preferencesController);
         contextMenuFactory = new LoggerContextMenuFactory();
         mainViewController = new MainViewController();
@@ -113,20 +116,33 @@ public class LoggerPlusPlus implements BurpExtension {
 
         //Stop log processor executors and pending tasks.
         logProcessor.shutdown();
+        logViewController.getLogTableController().shutdown();
+        logViewController.getRequestViewerController().shutdown();
+        grepperController.shutdown();
 
         menuBarRegistration.deregister();
 
         //Null out static variables so not leftover.
         LoggerPlusPlus.instance = null;
+        LoggerPlusPlus.context = null;
     }
 
     public static boolean isUrlInScope(String url){
-        return (!(Boolean) instance.getPreferencesController().getPreferences().getSetting(PREF_RESTRICT_TO_SCOPE)
-                || montoya.scope().isInScope(url));
+        return context.isInScope(url);
+    }
+
+    @Override
+    public MontoyaApi getMontoya() {
+        return montoya;
+    }
+
+    @Override
+    public Preferences getPreferences() {
+        return preferencesController != null ? preferencesController.getPreferences() : null;
     }
 
     public List<LogEntry> getLogEntries(){
-        return logViewController.getLogTableController().getLogTableModel().getData();
+        return logViewController.getLogTableController().getLogTableModel().getSnapshot();
     }
 
     public Frame getLoggerFrame() {
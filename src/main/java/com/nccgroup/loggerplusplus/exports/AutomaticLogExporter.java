@@ -1,6 +1,7 @@
 package com.nccgroup.loggerplusplus.exports;
 
 import com.coreyd97.BurpExtenderUtilities.Preferences;
+import com.nccgroup.loggerplusplus.filter.logfilter.LogTableFilter;
 import com.nccgroup.loggerplusplus.logentry.LogEntry;
 
 public abstract class AutomaticLogExporter extends LogExporter {
@@ -33,4 +34,11 @@ public abstract class AutomaticLogExporter extends LogExporter {
      */
     abstract void shutdown() throws Exception;
 
+    /**
+     * @return The filter entries must match to be exported, or null if all entries are exported.
+     */
+    public LogTableFilter getLogFilter() {
+        return null;
+    }
+
 }
@@ -252,7 +252,7 @@ public class CSVExporter extends AutomaticLogExporter implements ContextMenuExpo
         return string;
     }
 
-    private static String entryToCSVString(LogEntry logEntry, List<LogEntryField> fields) {
+    static String entryToCSVString(LogEntry logEntry, List<LogEntryField> fields) {
         StringBuilder result = new StringBuilder();
 
         for (int i = 0; i < fields.size(); i++) {
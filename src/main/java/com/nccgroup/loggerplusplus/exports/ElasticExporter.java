@@ -174,6 +174,11 @@ public class ElasticExporter extends AutomaticLogExporter implements ExportPanel
         this.pendingEntries = null;
     }
 
+    @Override
+    public LogTableFilter getLogFilter() {
+        return logFilter;
+    }
+
     @Override
     public JComponent getExportPanel() {
         return controlPanel;
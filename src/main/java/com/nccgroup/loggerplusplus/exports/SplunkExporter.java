@@ -123,6 +123,11 @@ public class SplunkExporter extends AutomaticLogExporter implements ExportPanelP
         this.pendingEntries = null;
     }
 
+    @Override
+    public LogTableFilter getLogFilter() {
+        return logFilter;
+    }
+
     private void sendPendingEntries() {
         if (pendingEntries == null || pendingEntries.isEmpty()) {
             return;
@@ -158,7 +163,7 @@ public class SplunkExporter extends AutomaticLogExporter implements ExportPanelP
                 splunkEvent.addProperty("requestId", entry.getIdentifier() + "_" + System.currentTimeMillis() + "_" + System.nanoTime());
                 
                 // Add project name
-                String projectName = LoggerPlusPlus.montoya.persistence().preferences().getString("project_name");
+                String projectName = LoggerPlusPlus.context.getMontoya().persistence().preferences().getString("project_name");
                 if (projectName != null && !projectName.isEmpty()) {
                     splunkEvent.addProperty("projectName", projectName);
                 } else {
@@ -2,12 +2,15 @@ package com.nccgroup.loggerplusplus.filter;
 
 import com.nccgroup.loggerplusplus.LoggerPlusPlus;
 import com.nccgroup.loggerplusplus.filter.parser.*;
+import com.nccgroup.loggerplusplus.filterlibrary.FilterLibraryController;
+import com.nccgroup.loggerplusplus.index.CompressedBitmap;
+import com.nccgroup.loggerplusplus.index.EntryIndexes;
 import com.nccgroup.loggerplusplus.logentry.FieldGroup;
 import com.nccgroup.loggerplusplus.logentry.LogEntry;
 import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+import com.nccgroup.loggerplusplus.util.RegexBudget;
 import lombok.Getter;
 
-import java.util.HashMap;
 import java.util.HashSet;
 
 public class FilterExpression {
@@ -21,20 +24,69 @@ public class FilterExpression {
     @Getter
     protected HashSet<FieldGroup> requiredContexts;
 
+    //The fields read by the filter, including those read by the snippets it uses.
+    @Getter
+    protected HashSet<LogEntryField> requiredFields;
+
+    //Described when the filter is compiled and again once it has been evaluated, so showing it doesn't plan the filter.
+    private volatile String evaluationPlan;
+
     public FilterExpression(String filterString) throws ParseException {
         this(null, filterString);
     }
 
     public FilterExpression(String alias, String filterString) throws ParseException {
-        this.ast = FilterParser.parseFilter(filterString);
-        HashMap<String, Object> filterInfo = FilterParser.validateFilterDependencies(LoggerPlusPlus.instance.getLibraryController(), alias, this.ast);
-        snippetDependencies = (HashSet<String>) filterInfo.get("dependencies");
-        requiredContexts = (HashSet<FieldGroup>) filterInfo.get("contexts");
+        setParsedFilter(FilterExpressionCache.parse(alias, filterString));
+    }
+
+    private void setParsedFilter(FilterExpressionCache.ParsedFilter parsedFilter) {
+        //The parsed tree is shared by the cache, so each filter is given a copy to record its own statistics on.
+        this.ast = parsedFilter.ast.copy();
+        this.snippetDependencies = new HashSet<>(parsedFilter.dependencies);
+        this.requiredContexts = new HashSet<>(parsedFilter.contexts);
+        this.requiredFields = new HashSet<>(parsedFilter.fields);
+        refreshEvaluationPlan();
+    }
+
+    /**
+     * @return If the filter reads values which can change without the entry itself changing, such as the tags the
+     * entry matches or whether it is in scope.
+     */
+    public boolean readsDerivedFields() {
+        return requiredFields.contains(LogEntryField.TAGS) || requiredFields.contains(LogEntryField.INSCOPE);
     }
 
     public boolean matches(LogEntry entry){
-        FilterEvaluationVisitor visitor = new FilterEvaluationVisitor(LoggerPlusPlus.instance.getLibraryController());
-        return visitor.visit(ast, entry);
+        return matches(entry, RegexBudget.forEntry());
+    }
+
+    public boolean matches(LogEntry entry, RegexBudget regexBudget){
+        FilterEvaluationVisitor visitor = new FilterEvaluationVisitor(LoggerPlusPlus.context.getLibraryController());
+        return visitor.visit(ast, entry, regexBudget);
+    }
+
+    /**
+     * Describe the order the clauses of this filter will be evaluated in, with their estimated cost, as of when it
+     * was compiled or last refreshed.
+     */
+    public String describeEvaluationPlan() {
+        return evaluationPlan;
+    }
+
+    /**
+     * Describe the plan again, with the statistics gathered since. Should be called off the event dispatch thread.
+     */
+    public void refreshEvaluationPlan() {
+        FilterLibraryController libraryController = LoggerPlusPlus.context != null ? LoggerPlusPlus.context.getLibraryController() : null;
+        this.evaluationPlan = new FilterPlanner(libraryController).describePlan(ast);
+    }
+
+    /**
+     * Find the entries which cannot match this filter using the log table's indexes.
+     * @return The entries which need not be tested, or null if every entry must be tested.
+     */
+    public CompressedBitmap findExclusions(EntryIndexes indexes) {
+        return new FilterPlanner(LoggerPlusPlus.context.getLibraryController()).findExclusions(ast, indexes);
     }
 
     public void addConditionToFilter(LogicalOperator logicalOperator, LogEntryField field,
@@ -46,10 +98,7 @@ public class FilterExpression {
             existing = this.ast.getFilterString();
         }
 
-        this.ast = FilterParser.parseFilter(String.format("%s %s %s %s %s", existing, logicalOperator.toString(), field.toString(), booleanOperator, value));
-        HashMap<String, Object> filterInfo = FilterParser.validateFilterDependencies(LoggerPlusPlus.instance.getLibraryController(), null, this.ast);
-        snippetDependencies = (HashSet<String>) filterInfo.get("dependencies");
-        requiredContexts = (HashSet<FieldGroup>) filterInfo.get("contexts");
+        setParsedFilter(FilterExpressionCache.parse(null, String.format("%s %s %s %s %s", existing, logicalOperator.toString(), field.toString(), booleanOperator, value)));
     }
 
     @Override
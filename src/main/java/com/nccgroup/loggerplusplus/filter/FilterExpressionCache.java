@@ -0,0 +1,115 @@
+package com.nccgroup.loggerplusplus.filter;
+
+import com.nccgroup.loggerplusplus.LoggerPlusPlus;
+import com.nccgroup.loggerplusplus.filter.parser.*;
+import com.nccgroup.loggerplusplus.logentry.FieldGroup;
+import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parsed and checked filters by filter string, so a filter used by several rules, typed again or deserialized
+ * more than once is only parsed once. Each {@link FilterExpression} for the string is given a copy of the parsed
+ * tree, sharing the patterns compiled for it, while the statistics and plans recorded as it is evaluated are its own.
+ * <p>
+ * Which fields a filter needs, and whether it is valid at all, depend on the snippets it refers to.
+ * Entries are therefore discarded whenever a snippet they depend on is added, removed, renamed or changed.
+ * <p>
+ * Filters are parsed and found without locking, as they are looked up by every thread deserializing or evaluating
+ * rules. Once full, the least recently used entries are discarded in a batch, so the cache needn't be ordered.
+ */
+public class FilterExpressionCache {
+
+    private static final int MAX_ENTRIES = 1024;
+    //The number of entries kept when the cache is full.
+    private static final int RETAINED_ENTRIES = MAX_ENTRIES * 3 / 4;
+
+    private static final Map<String, ParsedFilter> cache = new ConcurrentHashMap<>();
+    //Ticks on each lookup, to record when each entry was last used.
+    private static final AtomicLong clock = new AtomicLong();
+    //Incremented on invalidation, so a filter parsed against the old snippets isn't cached afterwards.
+    private static final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * Parse a filter, or find it if already parsed.
+     * @param alias The name of the snippet being parsed, to detect snippets referring to themselves. May be null.
+     */
+    static ParsedFilter parse(String alias, String filterString) throws ParseException {
+        ParsedFilter parsed = cache.get(filterString);
+        //A snippet can't refer to itself, so must be checked again if the cached filter does.
+        if (parsed != null && (alias == null || !parsed.dependencies.contains(alias.toUpperCase()))) {
+            parsed.lastUsed = clock.incrementAndGet();
+            return parsed;
+        }
+
+        int parsedGeneration = generation.get();
+        parsed = parseUncached(alias, filterString);
+        if (parsedGeneration != generation.get()) return parsed;
+        parsed.lastUsed = clock.incrementAndGet();
+        cache.put(filterString, parsed);
+        cache.putIfAbsent(parsed.ast.getFilterString(), parsed);
+        //A snippet may have changed while the filter was added, after its dependents were discarded.
+        if (parsedGeneration != generation.get()) {
+            cache.remove(filterString, parsed);
+            cache.remove(parsed.ast.getFilterString(), parsed);
+        }
+        if (cache.size() > MAX_ENTRIES) evict();
+        return parsed;
+    }
+
+    /**
+     * Discard all but the most recently used entries. Racing threads may both evict, which only discards more.
+     */
+    private static void evict() {
+        List<Long> lastUsed = new ArrayList<>();
+        for (ParsedFilter parsed : cache.values()) lastUsed.add(parsed.lastUsed);
+        if (lastUsed.size() <= RETAINED_ENTRIES) return;
+        Collections.sort(lastUsed);
+        long oldestRetained = lastUsed.get(lastUsed.size() - RETAINED_ENTRIES);
+        cache.values().removeIf(parsed -> parsed.lastUsed < oldestRetained);
+    }
+
+    /**
+     * Discard filters depending on the snippet, as it has changed.
+     */
+    public static void invalidateSnippet(String snippetName) {
+        String dependency = snippetName.toUpperCase();
+        generation.incrementAndGet();
+        cache.values().removeIf(parsed -> parsed.dependencies.contains(dependency));
+    }
+
+    /**
+     * Parse a filter, and check it for patterns which may take too long to match and references to snippets which
+     * don't exist.
+     */
+    private static ParsedFilter parseUncached(String alias, String filterString) throws ParseException {
+        ASTExpression ast = FilterParser.parseFilter(filterString);
+        VisitorData sanityCheck = new SanityCheckVisitor(false).visit(ast);
+        if (!sanityCheck.isSuccess()) {
+            throw new ParseException(sanityCheck.getErrorString());
+        }
+        HashMap<String, Object> filterInfo = FilterParser.validateFilterDependencies(LoggerPlusPlus.context.getLibraryController(), alias, ast);
+        return new ParsedFilter(ast, (HashSet<String>) filterInfo.get("dependencies"), (HashSet<FieldGroup>) filterInfo.get("contexts"),
+                (HashSet<LogEntryField>) filterInfo.get("fields"));
+    }
+
+    static class ParsedFilter {
+        final ASTExpression ast;
+        final HashSet<String> dependencies;
+        final HashSet<FieldGroup> contexts;
+        final HashSet<LogEntryField> fields;
+        //The clock when the filter was last parsed or found.
+        volatile long lastUsed;
+
+        private ParsedFilter(ASTExpression ast, HashSet<String> dependencies, HashSet<FieldGroup> contexts,
+                             HashSet<LogEntryField> fields) {
+            this.ast = ast;
+            this.dependencies = dependencies;
+            this.contexts = contexts;
+            this.fields = fields;
+        }
+    }
+}
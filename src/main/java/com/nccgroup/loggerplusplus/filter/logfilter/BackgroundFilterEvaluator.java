@@ -0,0 +1,310 @@
+package com.nccgroup.loggerplusplus.filter.logfilter;
+
+import com.nccgroup.loggerplusplus.filter.parser.ASTExpression;
+import com.nccgroup.loggerplusplus.filter.parser.FilterRelation;
+import com.nccgroup.loggerplusplus.index.CompressedBitmap;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import com.nccgroup.loggerplusplus.logview.logtable.LogTableModel;
+import com.nccgroup.loggerplusplus.logview.logtable.LogTableRowSorter;
+import com.nccgroup.loggerplusplus.util.RegexBudget;
+import lombok.extern.log4j.Log4j2;
+
+import javax.swing.*;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates filters for the log table on a pool of background threads, so the event dispatch thread only has to
+ * look up each row's precomputed result.
+ * <p>
+ * The log is partitioned across the pool. While the evaluation runs, the rows evaluated so far are periodically
+ * shown: the rows found to match replace the table's view once, and rows found to match afterwards are added to it.
+ * Neither tests the rows of the log which haven't changed on the event dispatch thread. A newer filter, or a call to
+ * {@link #cancel()}, abandons the evaluation in progress, restoring the view the same way.
+ * <p>
+ * The results of recently applied filters are kept, so returning to one of them only evaluates entries added since.
+ * When a filter refines the last one applied (AND'ing further clauses), only the entries it matched are evaluated.
+ * When it relaxes it (OR'ing further clauses), only the entries it didn't match are evaluated.
+ * Regular expressions are matched within the time budget for a search. If any time out, the user is shown which
+ * patterns and entries were responsible once the evaluation completes, and those entries aren't reused.
+ * All methods other than {@link #shutdown()} must be called on the event dispatch thread.
+ */
+@Log4j2
+public class BackgroundFilterEvaluator {
+
+    //How many entries are evaluated by each task before it is no longer split.
+    private static final int BATCH_SIZE = 2048;
+    //The minimum interval between showing partial results, in milliseconds.
+    private static final int REFRESH_INTERVAL = 250;
+    //How many filters' results are kept for reuse.
+    private static final int CACHED_RESULTS = 8;
+
+    private final LogTableRowSorter sorter;
+    private final LogTableModel model;
+    private final ForkJoinPool pool;
+    private final Timer refreshTimer;
+    private final LinkedHashMap<String, CachedResults> resultCache;
+
+    private LogTableFilter appliedFilter;
+    private String appliedKey;
+    private Evaluation evaluation;
+
+    public BackgroundFilterEvaluator(LogTableRowSorter sorter, LogTableModel model) {
+        this.sorter = sorter;
+        this.model = model;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("LPP-FilterEvaluator-Thread-" + threadCount.incrementAndGet());
+            return thread;
+        }, null, false);
+        this.refreshTimer = new Timer(REFRESH_INTERVAL, e -> showProgress());
+        this.resultCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResults> eldest) {
+                return size() > CACHED_RESULTS;
+            }
+        };
+    }
+
+    /**
+     * Begin evaluating a filter in the background. The currently displayed rows remain until the first results are ready.
+     */
+    public void apply(LogTableFilter filter) {
+        cancel();
+        if (filter == null) {
+            appliedFilter = null;
+            appliedKey = null;
+            sorter.setRowFilter(null);
+            return;
+        }
+
+        evaluation = new Evaluation(filter);
+        sorter.beginFilterChange();
+        //Filters using snippets, tags or scope can't be reused, as the snippets, rules or scope may have changed since.
+        if (evaluation.cacheable) {
+            CachedResults cached = resultCache.get(evaluation.key);
+            CachedResults previous = appliedKey != null ? resultCache.get(appliedKey) : null;
+            if (cached != null) {
+                evaluation.seed(cached.results, FilterRelation.EQUIVALENT);
+            } else if (previous != null) {
+                evaluation.seed(previous.results, FilterRelation.between(previous.ast, evaluation.ast));
+            }
+        }
+        pool.execute(evaluation::run);
+        refreshTimer.start();
+    }
+
+    /**
+     * Forget any results for an entry which has changed, so it is tested again.
+     */
+    public void invalidate(LogEntry entry) {
+        if (evaluation != null) evaluation.filter.invalidate(entry);
+        if (appliedFilter != null) appliedFilter.invalidate(entry);
+        for (CachedResults cached : resultCache.values()) {
+            cached.results.invalidate(entry.getSequence());
+        }
+    }
+
+    /**
+     * Forget all results, and evaluate the current filter again.
+     */
+    public void reevaluate() {
+        resultCache.clear();
+        LogTableFilter filter = getFilter();
+        if (filter != null) apply(filter);
+    }
+
+    /**
+     * Abandon the evaluation in progress. If its partial results were already shown, the last complete filter is restored.
+     */
+    public void cancel() {
+        if (evaluation == null) return;
+        evaluation.cancelled = true;
+        refreshTimer.stop();
+        sorter.cancelFilterChange();
+        evaluation = null;
+    }
+
+    public boolean isEvaluating() {
+        return evaluation != null;
+    }
+
+    /**
+     * @return The filter being evaluated, or if there is none, the filter last applied.
+     */
+    public LogTableFilter getFilter() {
+        return evaluation != null ? evaluation.filter : appliedFilter;
+    }
+
+    public void shutdown() {
+        refreshTimer.stop();
+        pool.shutdownNow();
+    }
+
+    private void showProgress() {
+        Evaluation current = this.evaluation;
+        if (current == null || current.results == null) return;
+        int evaluated = current.results.getEvaluatedCount();
+        if (evaluated == current.shownCount) return;
+        current.shownCount = evaluated;
+        show(current);
+    }
+
+    /**
+     * The first time an evaluation is shown, the rows it has matched so far replace the view. After that, only rows
+     * which have been found to match since are added to it.
+     */
+    private void show(Evaluation evaluation) {
+        if (!evaluation.shown) {
+            //Matches recorded after being taken are also in those shown, and are ignored by the sorter next time.
+            evaluation.results.takeNewlyMatched();
+            evaluation.shown = true;
+            sorter.showFilter(evaluation.filter, evaluation.results.getMatched());
+        } else {
+            sorter.rowsIncluded(evaluation.results.takeNewlyMatched());
+        }
+    }
+
+    private void complete(Evaluation completed) {
+        if (completed != this.evaluation) return;
+        refreshTimer.stop();
+        this.evaluation = null;
+        this.appliedFilter = completed.filter;
+        this.appliedKey = completed.key;
+        if (completed.cacheable) {
+            resultCache.put(completed.key, new CachedResults(completed.ast, completed.results));
+        }
+        show(completed);
+        sorter.endFilterChange();
+        completed.regexBudget.showTimeouts("Filter Timed Out");
+    }
+
+    private static class CachedResults {
+        private final ASTExpression ast;
+        private final FilterResults results;
+
+        private CachedResults(ASTExpression ast, FilterResults results) {
+            this.ast = ast;
+            this.results = results;
+        }
+    }
+
+    private class Evaluation {
+        private final LogTableFilter filter;
+        //The filter's expression may be modified in place after it is applied, so its state now is kept.
+        private final ASTExpression ast;
+        private final String key;
+        private final boolean cacheable;
+        private CompressedBitmap knownEvaluated;
+        private CompressedBitmap knownMatched;
+        private volatile boolean cancelled;
+        private volatile FilterResults results;
+        private volatile RegexBudget regexBudget;
+        //Only accessed on the event dispatch thread.
+        private boolean shown;
+        private int shownCount;
+
+        private Evaluation(LogTableFilter filter) {
+            this.filter = filter;
+            this.ast = filter.getFilterExpression().getAst();
+            this.key = ast.getFilterString();
+            this.cacheable = filter.getFilterExpression().getSnippetDependencies().isEmpty()
+                    && !filter.getFilterExpression().readsDerivedFields();
+        }
+
+        /**
+         * Carry over what an earlier evaluation tells us about this filter's results.
+         */
+        private void seed(FilterResults earlier, FilterRelation relation) {
+            switch (relation) {
+                case EQUIVALENT:
+                    knownEvaluated = earlier.getEvaluated();
+                    knownMatched = earlier.getMatched();
+                    break;
+                case REFINEMENT:
+                    //Entries the earlier filter rejected are rejected by this one too.
+                    knownEvaluated = earlier.getEvaluated().andNot(earlier.getMatched());
+                    knownMatched = new CompressedBitmap();
+                    break;
+                case RELAXATION:
+                    //Entries the earlier filter matched are matched by this one too.
+                    knownEvaluated = earlier.getMatched();
+                    knownMatched = knownEvaluated;
+                    break;
+            }
+        }
+
+        private void run() {
+            try {
+                regexBudget = RegexBudget.forQuery();
+                filter.prepare(model);
+                List<LogEntry> entries = model.getSnapshot();
+                CompressedBitmap snapshot = new CompressedBitmap();
+                for (LogEntry entry : entries) {
+                    snapshot.add(entry.getSequence());
+                }
+                FilterResults results = new FilterResults(snapshot);
+                if (knownEvaluated != null) {
+                    results.seed(knownEvaluated, knownMatched);
+                    entries.removeIf(entry -> results.isEvaluated(entry.getSequence()));
+                }
+                this.results = results;
+                filter.setResults(results);
+
+                new EvaluateRange(this, entries, 0, entries.size()).invoke();
+                if (cancelled) return;
+                results.markComplete();
+                filter.getFilterExpression().refreshEvaluationPlan();
+                SwingUtilities.invokeLater(() -> complete(this));
+            } catch (Exception e) {
+                log.error(e);
+            }
+        }
+    }
+
+    private static class EvaluateRange extends RecursiveAction {
+        private final Evaluation evaluation;
+        private final List<LogEntry> entries;
+        private final int start;
+        private final int end;
+
+        private EvaluateRange(Evaluation evaluation, List<LogEntry> entries, int start, int end) {
+            this.evaluation = evaluation;
+            this.entries = entries;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (evaluation.cancelled) return;
+            if (end - start > BATCH_SIZE) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new EvaluateRange(evaluation, entries, start, middle),
+                        new EvaluateRange(evaluation, entries, middle, end));
+                return;
+            }
+
+            int[] sequences = new int[end - start];
+            boolean[] matches = new boolean[end - start];
+            boolean[] timeouts = new boolean[end - start];
+            int count = 0;
+            for (int i = start; i < end && !evaluation.cancelled; i++) {
+                LogEntry entry = entries.get(i);
+                int timeoutCount = evaluation.regexBudget.getTimeoutCount();
+                sequences[count] = entry.getSequence();
+                matches[count] = evaluation.filter.test(entry, evaluation.regexBudget);
+                //Timeouts are counted across the pool, so an entry tested while another timed out is taken to have
+                //timed out too. That only means a later evaluation tests it again.
+                timeouts[count++] = evaluation.regexBudget.getTimeoutCount() != timeoutCount;
+            }
+            evaluation.results.record(sequences, matches, timeouts, count);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.nccgroup.loggerplusplus.filter.logfilter;
+
+import com.nccgroup.loggerplusplus.index.CompressedBitmap;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The outcome of evaluating a filter against a snapshot of the log in the background.
+ * <p>
+ * Entries in the snapshot which have not yet been evaluated are pending. Entries outside the snapshot,
+ * such as those added since it was taken, are neither evaluated nor pending and must be tested directly.
+ * Entries whose regular expressions timed out are evaluated as not matching, but aren't reused by later evaluations.
+ */
+class FilterResults {
+
+    private final CompressedBitmap snapshot;
+    private final CompressedBitmap evaluated;
+    private final CompressedBitmap matched;
+    private final CompressedBitmap timedOut;
+    private final AtomicInteger evaluatedCount;
+    //Entries found to match since they were last taken, so they can be shown without filtering every row again.
+    private int[] newlyMatched;
+    private int newlyMatchedCount;
+    private volatile boolean complete;
+
+    FilterResults(CompressedBitmap snapshot) {
+        this.snapshot = snapshot;
+        this.evaluated = new CompressedBitmap();
+        this.matched = new CompressedBitmap();
+        this.timedOut = new CompressedBitmap();
+        this.evaluatedCount = new AtomicInteger();
+        this.newlyMatched = new int[16];
+    }
+
+    synchronized void record(int[] sequences, boolean[] matches, boolean[] timeouts, int count) {
+        for (int i = 0; i < count; i++) {
+            //Entries which changed while being evaluated may have given a stale result.
+            if (!snapshot.contains(sequences[i])) continue;
+            if (timeouts[i]) timedOut.add(sequences[i]);
+            if (matches[i]) {
+                matched.add(sequences[i]);
+                if (newlyMatchedCount == newlyMatched.length) newlyMatched = Arrays.copyOf(newlyMatched, newlyMatchedCount * 2);
+                newlyMatched[newlyMatchedCount++] = sequences[i];
+            }
+            evaluated.add(sequences[i]);
+        }
+        evaluatedCount.addAndGet(count);
+    }
+
+    /**
+     * Take the results already known from an earlier evaluation, so those entries needn't be evaluated again.
+     *
+     * @param evaluated The entries whose result is known.
+     * @param matched The entries known to match.
+     */
+    synchronized void seed(CompressedBitmap evaluated, CompressedBitmap matched) {
+        CompressedBitmap known = evaluated.and(snapshot);
+        known.forEach(this.evaluated::add);
+        matched.and(known).forEach(this.matched::add);
+        evaluatedCount.addAndGet(known.getCardinality());
+    }
+
+    synchronized void invalidate(int sequence) {
+        evaluated.remove(sequence);
+        matched.remove(sequence);
+        timedOut.remove(sequence);
+        snapshot.remove(sequence);
+    }
+
+    /**
+     * @return The entries recorded as matching since this was last called. Entries seeded from an earlier
+     * evaluation are not included.
+     */
+    synchronized int[] takeNewlyMatched() {
+        int[] taken = Arrays.copyOf(newlyMatched, newlyMatchedCount);
+        newlyMatched = new int[16];
+        newlyMatchedCount = 0;
+        return taken;
+    }
+
+    boolean isEvaluated(int sequence) {
+        return evaluated.contains(sequence);
+    }
+
+    boolean isMatched(int sequence) {
+        return matched.contains(sequence);
+    }
+
+    boolean isPending(int sequence) {
+        return !complete && snapshot.contains(sequence);
+    }
+
+    /**
+     * @return The entries whose result may be reused. Entries whose regular expressions timed out are left out, as
+     * an evaluation with a fresh budget may yet find they match.
+     */
+    synchronized CompressedBitmap getEvaluated() {
+        return evaluated.andNot(timedOut);
+    }
+
+    CompressedBitmap getMatched() {
+        return matched.copy();
+    }
+
+    int getEvaluatedCount() {
+        return evaluatedCount.get();
+    }
+
+    void markComplete() {
+        this.complete = true;
+    }
+}
@@ -9,6 +9,7 @@ import com.nccgroup.loggerplusplus.logentry.LogEntryField;
 import com.nccgroup.loggerplusplus.logview.LogViewController;
 import com.nccgroup.loggerplusplus.logview.logtable.LogTable;
 import com.nccgroup.loggerplusplus.util.Globals;
+import org.apache.commons.text.StringEscapeUtils;
 
 import javax.swing.*;
 import javax.swing.text.Document;
@@ -43,6 +44,9 @@ public class LogFilterController {
                     //Update only when pressing enter after typing
                     setFilter((String) filterField.getEditor().getItem());
                     filterField.getRootPane().requestFocus(true);
+                } else if (logTable.getFilterEvaluator().isEvaluating()) {
+                    //The filter is being edited, so the one being applied is no longer wanted.
+                    logTable.getFilterEvaluator().cancel();
                 }
             }
         });
@@ -54,6 +58,12 @@ public class LogFilterController {
                     fieldMenu.show(filterField, e.getX(), e.getY());
                 }
             }
+
+            @Override
+            public void mouseEntered(MouseEvent e) {
+                //Refresh the displayed plan, since it adapts as the filter is evaluated.
+                ((JComponent) e.getComponent()).setToolTipText(buildPlanTooltip());
+            }
         });
 
         Document filterFieldDoc = ((JTextField) filterField.getEditor().getEditorComponent()).getDocument();
@@ -144,6 +154,13 @@ public class LogFilterController {
         }
     }
 
+    private String buildPlanTooltip() {
+        LogTableFilter currentFilter = logTable.getCurrentFilter();
+        if (currentFilter == null) return null;
+        String plan = currentFilter.getFilterExpression().describeEvaluationPlan();
+        return "<html><b>Evaluation plan</b><pre>" + StringEscapeUtils.escapeHtml4(plan) + "</pre></html>";
+    }
+
     public void clearFilter() {
         logTable.setFilter(null);
         formatFilter("");
@@ -2,8 +2,10 @@ package com.nccgroup.loggerplusplus.filter.logfilter;
 
 import com.nccgroup.loggerplusplus.filter.FilterExpression;
 import com.nccgroup.loggerplusplus.filter.parser.ParseException;
+import com.nccgroup.loggerplusplus.index.CompressedBitmap;
 import com.nccgroup.loggerplusplus.logentry.LogEntry;
 import com.nccgroup.loggerplusplus.logview.logtable.LogTableModel;
+import com.nccgroup.loggerplusplus.util.RegexBudget;
 import lombok.Getter;
 
 import javax.swing.*;
@@ -13,6 +15,8 @@ public class LogTableFilter extends RowFilter<TableModel, Integer> {
 
     @Getter
     private FilterExpression filterExpression;
+    private volatile CompressedBitmap excluded;
+    private volatile FilterResults results;
 
     public LogTableFilter(String filterString) throws ParseException {
         this.filterExpression = new FilterExpression(filterString);
@@ -22,13 +26,49 @@ public class LogTableFilter extends RowFilter<TableModel, Integer> {
         this.filterExpression = filterExpression;
     }
 
+    /**
+     * Use the model's indexes to find entries which need not be tested, before the filter is applied to it.
+     */
+    public void prepare(LogTableModel model) {
+        this.excluded = filterExpression.findExclusions(model.getEntryIndexes());
+    }
+
+    void setResults(FilterResults results) {
+        this.results = results;
+    }
+
+    /**
+     * Forget the precomputed result for an entry which has changed, so it is tested again when next included.
+     */
+    public void invalidate(LogEntry entry) {
+        FilterResults results = this.results;
+        if (results != null) results.invalidate(entry.getSequence());
+    }
+
+    /**
+     * Test an entry against the filter, without using any precomputed results.
+     */
+    boolean test(LogEntry logEntry, RegexBudget regexBudget) {
+        CompressedBitmap excluded = this.excluded;
+        if (excluded != null && excluded.contains(logEntry.getSequence())) {
+            return false;
+        }
+        return filterExpression.matches(logEntry, regexBudget);
+    }
+
     @Override
     public boolean include(RowFilter.Entry entry) {
         int index = (int) entry.getIdentifier();
         TableModel tableModel = (TableModel) entry.getModel();
         if(tableModel instanceof LogTableModel){
             LogEntry logEntry = ((LogTableModel) tableModel).getRow(index);
-            return filterExpression.matches(logEntry);
+            FilterResults results = this.results;
+            if (results != null) {
+                if (results.isEvaluated(logEntry.getSequence())) return results.isMatched(logEntry.getSequence());
+                //Hide entries still awaiting background evaluation, rather than testing them here.
+                if (results.isPending(logEntry.getSequence())) return false;
+            }
+            return test(logEntry, RegexBudget.forEntry());
         }
         return false;
     }
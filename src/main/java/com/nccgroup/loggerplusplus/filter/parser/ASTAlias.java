@@ -21,6 +21,14 @@ class ASTAlias extends SimpleNode {
     return "#" + identifier;
   }
 
+  @Override
+  protected SimpleNode copyNode() {
+    ASTAlias copy = new ASTAlias(id);
+    copy.identifier = identifier;
+    copy.filter = filter;
+    return copy;
+  }
+
   @Override
   public String toString() {
     return String.format("ASTAlias[id=%s]", identifier);
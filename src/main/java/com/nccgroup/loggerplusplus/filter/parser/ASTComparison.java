@@ -5,6 +5,8 @@ package com.nccgroup.loggerplusplus.filter.parser;
 import com.nccgroup.loggerplusplus.filter.ComparisonOperator;
 import com.nccgroup.loggerplusplus.logentry.LogEntryField;
 import com.nccgroup.loggerplusplus.logview.processor.LogProcessor;
+import com.nccgroup.loggerplusplus.regex.LinearRegex;
+import com.nccgroup.loggerplusplus.regex.LiteralMatcher;
 import org.apache.commons.text.StringEscapeUtils;
 
 import java.util.Date;
@@ -17,6 +19,14 @@ class ASTComparison extends SimpleNode {
 
   Object left, right;
   ComparisonOperator comparisonOperator;
+  //Id shared with identical comparisons in other filters. Assigned by the RuleNetwork when first needed.
+  volatile RuleNetwork.Handle sharedHandle;
+  //The linear time equivalent of a pattern on the right, if it has one. Compiled on first use.
+  private volatile LinearRegex linearRegex;
+  private volatile boolean linearRegexCompiled;
+  //Searcher for a string on the right, used for CONTAINS and equality. Compiled on first use.
+  private volatile LiteralMatcher literalMatcher;
+  private volatile boolean literalMatcherCompiled;
 
   public ASTComparison(int id) {
     super(id);
@@ -46,6 +56,44 @@ class ASTComparison extends SimpleNode {
     return right;
   }
 
+  /**
+   * @return An equivalent of the pattern on the right which matches in linear time, or null if there is none.
+   */
+  public LinearRegex getLinearRegex() {
+    if (!linearRegexCompiled) {
+      linearRegex = right instanceof Pattern ? LinearRegex.compile((Pattern) right) : null;
+      linearRegexCompiled = true;
+    }
+    return linearRegex;
+  }
+
+  /**
+   * @return A case insensitive searcher for the string on the right, or null if it isn't a string or can't have one.
+   */
+  public LiteralMatcher getLiteralMatcher() {
+    if (!literalMatcherCompiled) {
+      literalMatcher = right instanceof String ? LiteralMatcher.compile((String) right) : null;
+      literalMatcherCompiled = true;
+    }
+    return literalMatcher;
+  }
+
+  //Anything compiled for the operands is shared with the copy, as it isn't modified once compiled.
+  @Override
+  protected SimpleNode copyNode() {
+    ASTComparison copy = new ASTComparison(id);
+    copy.left = left;
+    copy.right = right;
+    copy.comparisonOperator = comparisonOperator;
+    copy.sharedHandle = sharedHandle;
+    //The flags are read first, as each is set after what it guards.
+    copy.linearRegexCompiled = linearRegexCompiled;
+    copy.linearRegex = linearRegex;
+    copy.literalMatcherCompiled = literalMatcherCompiled;
+    copy.literalMatcher = literalMatcher;
+    return copy;
+  }
+
   @Override
   public String toString() {
     Class<?> leftClass = left instanceof LogEntryField ? ((LogEntryField) left).getType() : left.getClass();
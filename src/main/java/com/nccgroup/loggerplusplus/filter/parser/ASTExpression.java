@@ -4,12 +4,19 @@ package com.nccgroup.loggerplusplus.filter.parser;
 
 import com.nccgroup.loggerplusplus.filter.LogicalOperator;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public
 class ASTExpression extends SimpleNode {
 
     boolean inverse = false;
     LogicalOperator op;
 
+    //Order in which children are evaluated. Maintained by the FilterPlanner, which publishes a new array
+    //rather than modifying the current one, as it is read by every thread evaluating the expression.
+    volatile Node[] plannedOrder;
+    final AtomicInteger evaluationsUntilReplan = new AtomicInteger();
+
     public ASTExpression(int id) {
         super(id);
     }
@@ -41,12 +48,32 @@ class ASTExpression extends SimpleNode {
         return op;
     }
 
+    public boolean isInverse() {
+        return inverse;
+    }
+
     public void addCondition(ASTExpression comparison){
         jjtAddChild(comparison, this.jjtGetNumChildren());
+        plannedOrder = null;
     }
 
     public void addCondition(ASTComparison comparison){
         jjtAddChild(comparison, this.jjtGetNumChildren());
+        plannedOrder = null;
+    }
+
+    @Override
+    public ASTExpression copy() {
+        return (ASTExpression) super.copy();
+    }
+
+    //The plan is left behind, as it was made using the statistics of this node's children.
+    @Override
+    protected SimpleNode copyNode() {
+        ASTExpression copy = new ASTExpression(id);
+        copy.inverse = inverse;
+        copy.op = op;
+        return copy;
     }
 
     @Override
@@ -34,6 +34,7 @@ public class AliasCheckVisitor implements FilterParserVisitor{
     VisitorData visitorData = new VisitorData();
     visitorData.setData("dependencies", new HashSet<String>());
     visitorData.setData("contexts", new HashSet<FieldGroup>());
+    visitorData.setData("fields", new HashSet<LogEntryField>());
     Stack<String> visitStack = new Stack<String>();
     visitorData.setData("aliasVisitList", visitStack);
     if (alias != null) {
@@ -50,8 +51,15 @@ public class AliasCheckVisitor implements FilterParserVisitor{
   @Override
   public VisitorData visit(ASTComparison node, VisitorData visitorData){
     HashSet<FieldGroup> contexts = (HashSet<FieldGroup>) visitorData.getData().get("contexts");
-    if(node.left instanceof LogEntryField) contexts.add(((LogEntryField) node.left).getFieldGroup());
-    if(node.right instanceof LogEntryField) contexts.add(((LogEntryField) node.right).getFieldGroup());
+    HashSet<LogEntryField> fields = (HashSet<LogEntryField>) visitorData.getData().get("fields");
+    if(node.left instanceof LogEntryField) {
+      contexts.add(((LogEntryField) node.left).getFieldGroup());
+      fields.add((LogEntryField) node.left);
+    }
+    if(node.right instanceof LogEntryField) {
+      contexts.add(((LogEntryField) node.right).getFieldGroup());
+      fields.add((LogEntryField) node.right);
+    }
     defaultVisit(node, visitorData);
     return visitorData;
   }
@@ -0,0 +1,44 @@
+package com.nccgroup.loggerplusplus.filter.parser;
+
+import java.util.Arrays;
+
+/**
+ * Results of the shared comparisons already evaluated against a single entry.
+ * Only valid while the entry is in the state given by its stamp.
+ *
+ * @see RuleNetwork
+ */
+public class ComparisonMemo {
+
+    private final Object stamp;
+    //The comparison each result is for, as ids released by the RuleNetwork may be reused while the memo is in use.
+    private RuleNetwork.Handle[] handles;
+    private boolean[] results;
+
+    public ComparisonMemo(Object stamp) {
+        this.stamp = stamp;
+        int count = RuleNetwork.getComparisonCount();
+        this.handles = new RuleNetwork.Handle[count];
+        this.results = new boolean[count];
+    }
+
+    public Object getStamp() {
+        return stamp;
+    }
+
+    synchronized Boolean get(RuleNetwork.Handle handle) {
+        if (handle.id >= handles.length || handles[handle.id] != handle) return null;
+        return results[handle.id];
+    }
+
+    synchronized void put(RuleNetwork.Handle handle, boolean result) {
+        if (handle.id >= handles.length) {
+            //Comparisons may have been given ids since the memo was created.
+            int length = Math.max(handle.id + 1, RuleNetwork.getComparisonCount());
+            handles = Arrays.copyOf(handles, length);
+            results = Arrays.copyOf(results, length);
+        }
+        handles[handle.id] = handle;
+        results[handle.id] = result;
+    }
+}
@@ -0,0 +1,91 @@
+package com.nccgroup.loggerplusplus.filter.parser;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running counters for a single node of a filter expression.
+ * Used by the {@link FilterPlanner} to estimate how selective a clause is.
+ * While profiling is enabled, the time spent evaluating the node and how often its result let the expression
+ * containing it skip its remaining clauses are recorded too.
+ */
+public class EvaluationStatistics {
+
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder profiledEvaluations = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder shortCircuits = new LongAdder();
+
+    void record(boolean result) {
+        evaluations.increment();
+        if (result) matches.increment();
+    }
+
+    void record(boolean result, long elapsedNanos) {
+        record(result);
+        profiledEvaluations.increment();
+        nanos.add(elapsedNanos);
+    }
+
+    void recordShortCircuit() {
+        shortCircuits.increment();
+    }
+
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    public long getMatches() {
+        return matches.sum();
+    }
+
+    /**
+     * @return The observed fraction of evaluations which returned true, smoothed so unseen nodes sit at 0.5.
+     */
+    public double getSelectivity() {
+        return (getMatches() + 1d) / (getEvaluations() + 2d);
+    }
+
+    /**
+     * @return The number of evaluations which were timed, which short-circuit rates and average times are relative to.
+     */
+    public long getProfiledEvaluations() {
+        return profiledEvaluations.sum();
+    }
+
+    /**
+     * @return The total time spent in timed evaluations of this node, including evaluating its children.
+     */
+    public long getNanos() {
+        return nanos.sum();
+    }
+
+    public long getShortCircuits() {
+        return shortCircuits.sum();
+    }
+
+    public double getAverageNanos() {
+        long profiled = getProfiledEvaluations();
+        return profiled == 0 ? 0 : (double) getNanos() / profiled;
+    }
+
+    /**
+     * @return The fraction of timed evaluations after which the remaining clauses of the containing expression were skipped.
+     */
+    public double getShortCircuitRate() {
+        long profiled = getProfiledEvaluations();
+        return profiled == 0 ? 0 : (double) getShortCircuits() / profiled;
+    }
+
+    public void reset() {
+        evaluations.reset();
+        matches.reset();
+        resetProfile();
+    }
+
+    public void resetProfile() {
+        profiledEvaluations.reset();
+        nanos.reset();
+        shortCircuits.reset();
+    }
+}
@@ -1,12 +1,18 @@
 /* Generated By:JavaCC: Do not edit this line. FilterParserDefaultVisitor.java Version 7.0.2 */
 package com.nccgroup.loggerplusplus.filter.parser;
 
+import burp.api.montoya.core.ByteArray;
 import com.nccgroup.loggerplusplus.filter.ComparisonOperator;
 import com.nccgroup.loggerplusplus.filter.LogicalOperator;
 import com.nccgroup.loggerplusplus.filter.savedfilter.SavedFilter;
+import com.nccgroup.loggerplusplus.filter.tag.Tag;
 import com.nccgroup.loggerplusplus.filterlibrary.FilterLibraryController;
 import com.nccgroup.loggerplusplus.logentry.LogEntry;
 import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+import com.nccgroup.loggerplusplus.regex.LinearRegex;
+import com.nccgroup.loggerplusplus.regex.LiteralMatcher;
+import com.nccgroup.loggerplusplus.util.RegexBudget;
+import com.nccgroup.loggerplusplus.util.RegexTimeoutException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateUtils;
 
@@ -20,10 +26,24 @@ import java.util.regex.Pattern;
 public class FilterEvaluationVisitor implements FilterParserVisitor{
 
   private static final String LOG_ENTRY = "logEntry";
+  private static final String REGEX_BUDGET = "regexBudget";
+  //Whether to time the evaluation of each node, for the filter profiler. This applies to every filter evaluated while
+  //enabled, not only those the profiler lists, so all evaluations pay the cost of timing while it is.
+  private static volatile boolean profiling;
   private final FilterLibraryController filterLibraryController;
+  private final FilterPlanner planner;
 
   public FilterEvaluationVisitor(FilterLibraryController filterLibraryController){
     this.filterLibraryController = filterLibraryController;
+    this.planner = new FilterPlanner(filterLibraryController);
+  }
+
+  public static boolean isProfiling() {
+    return profiling;
+  }
+
+  public static void setProfiling(boolean profiling) {
+    FilterEvaluationVisitor.profiling = profiling;
   }
 
   public Boolean visit(SimpleNode node, VisitorData data){
@@ -31,15 +51,35 @@ public class FilterEvaluationVisitor implements FilterParserVisitor{
   }
 
   public Boolean visit(ASTExpression node, LogEntry logEntry){
+    return visit(node, logEntry, RegexBudget.forEntry());
+  }
+
+  /**
+   * Evaluate an expression against an entry, limiting the time spent matching regular expressions.
+   * Any comparisons which run out of time are treated as not matching, and recorded in the budget.
+   */
+  public Boolean visit(ASTExpression node, LogEntry logEntry, RegexBudget regexBudget){
     VisitorData visitorData = new VisitorData();
     visitorData.setData(LOG_ENTRY, logEntry);
-    return visit(node, visitorData);
+    visitorData.setData(REGEX_BUDGET, regexBudget);
+    return visitRoot(node, visitorData);
+  }
+
+  //The root of a filter or snippet isn't evaluated as the child of another node, so is timed here when profiling.
+  private boolean visitRoot(ASTExpression node, VisitorData visitorData){
+    if (!profiling) return visit(node, visitorData);
+    long start = System.nanoTime();
+    boolean result = visit(node, visitorData);
+    node.getStatistics().record(result, System.nanoTime() - start);
+    return result;
   }
 
   public Boolean visit(ASTExpression node, VisitorData visitorData){
 //    System.out.println("Evaluating Node: " + node);
 
-    Node firstNode = node.children[0];
+    //AND and OR children are evaluated in the order chosen by the planner, so cheap selective clauses run first.
+    Node[] children = planner.getEvaluationOrder(node);
+    Node firstNode = children[0];
     boolean result = evaluateNode(firstNode, visitorData);
 
     if(node.op != null) {
@@ -47,12 +87,15 @@ public class FilterEvaluationVisitor implements FilterParserVisitor{
       {
         LogicalOperator op = node.op;
 
-        for (int i = 1; i < node.children.length; i++) {
+        for (int i = 1; i < children.length; i++) {
           //If we're processing an OR expression and the value is true.
           //Or we're processing an AND expression and the value was false. Don't bother evaluating the other nodes.
-          if ((op == LogicalOperator.OR && result) || (op == LogicalOperator.AND && !result)) break compoundEvaluation;
+          if ((op == LogicalOperator.OR && result) || (op == LogicalOperator.AND && !result)) {
+            if (profiling) ((SimpleNode) children[i - 1]).getStatistics().recordShortCircuit();
+            break compoundEvaluation;
+          }
 
-          Node child = node.children[i];
+          Node child = children[i];
           boolean childResult = evaluateNode(child, visitorData);
 
           switch (op) {
@@ -74,13 +117,72 @@ public class FilterEvaluationVisitor implements FilterParserVisitor{
   }
 
   public Boolean visit(ASTComparison node, VisitorData visitorData){
+    //Reuse the result if another rule has already evaluated the same comparison against this entry.
+    ComparisonMemo memo = ((LogEntry) visitorData.getData().get(LOG_ENTRY)).getComparisonMemo();
+    RuleNetwork.Handle handle = memo != null ? RuleNetwork.getHandle(node) : RuleNetwork.UNSHARED;
+    if (handle == RuleNetwork.UNSHARED) memo = null;
+    if (memo != null) {
+      Boolean cached = memo.get(handle);
+      if (cached != null) return cached;
+    }
+
+    boolean result;
+    try {
+      result = evaluateComparison(node, visitorData);
+    } catch (RegexTimeoutException e) {
+      //Not memoized, as another filter with a larger budget may yet complete the match.
+      ((RegexBudget) visitorData.getData().get(REGEX_BUDGET)).recordTimeout((Pattern) node.right, (LogEntry) visitorData.getData().get(LOG_ENTRY));
+      return false;
+    }
+    if (memo != null) memo.put(handle, result);
+    return result;
+  }
+
+  private boolean evaluateComparison(ASTComparison node, VisitorData visitorData){
+    if (node.left == LogEntryField.TAGS && node.comparisonOperator == ComparisonOperator.CONTAINS
+            && node.right instanceof String && filterLibraryController != null) {
+      return hasTag((LogEntry) visitorData.getData().get(LOG_ENTRY), (String) node.right);
+    }
+
+    LiteralMatcher literalMatcher = node.getLiteralMatcher();
+    if (literalMatcher != null && (node.left == LogEntryField.REQUEST_BODY || node.left == LogEntryField.RESPONSE_BODY)) {
+      Boolean result = compareBody((LogEntry) visitorData.getData().get(LOG_ENTRY), (LogEntryField) node.left, node.comparisonOperator, literalMatcher);
+      if (result != null) return result;
+    }
+
     Object left, right;
 
     //Must pull the value from the entry for fields, otherwise the node itself is the value.
     left = node.left instanceof LogEntryField ? getValueForField(visitorData, (LogEntryField) node.left) : node.left;
     right = node.right instanceof LogEntryField ? getValueForField(visitorData, (LogEntryField) node.right) : node.right;
 
-    return compare(node.comparisonOperator, left, right);
+    return compare(node.comparisonOperator, left, right, node.getLinearRegex(), literalMatcher, (RegexBudget) visitorData.getData().get(REGEX_BUDGET));
+  }
+
+  //Bodies are searched as bytes, rather than decoding the whole body to a string for each comparison.
+  private Boolean compareBody(LogEntry logEntry, LogEntryField field, ComparisonOperator op, LiteralMatcher literalMatcher){
+    ByteArray body = logEntry.getBody(field);
+    switch (op) {
+      case CONTAINS:
+        return body != null ? literalMatcher.containedIn(body) : literalMatcher.containedIn("");
+      case EQUAL:
+        return body != null ? literalMatcher.equalTo(body) : literalMatcher.equalTo("");
+      case NOT_EQUAL:
+        return !(body != null ? literalMatcher.equalTo(body) : literalMatcher.equalTo(""));
+      default:
+        return null;
+    }
+  }
+
+  //Entry.Tags CONTAINS "x" is answered from the tag bitmaps rather than building the entry's tag list.
+  private boolean hasTag(LogEntry logEntry, String tagName){
+    for (Tag tag : filterLibraryController.getTags().values()) {
+      if (tag.getName().equalsIgnoreCase(tagName)
+              && filterLibraryController.getTagMembership().contains(tag.getUuid(), logEntry.getSequence())) {
+        return true;
+      }
+    }
+    return false;
   }
 
   private Object getValueForField(VisitorData visitorData, LogEntryField field){
@@ -91,23 +193,50 @@ public class FilterEvaluationVisitor implements FilterParserVisitor{
   public Boolean visit(ASTAlias node, VisitorData data) {
     for (SavedFilter savedFilter : filterLibraryController.getFilterSnippets()) {
       if(node.identifier.equalsIgnoreCase(savedFilter.getName())){
-        return visit(savedFilter.getFilterExpression().getAst(), data);
+        return visitRoot(savedFilter.getFilterExpression().getAst(), data);
       }
     }
      return false;
   }
 
   private boolean evaluateNode(Node node, VisitorData visitorData){
-    if(node instanceof ASTExpression) return visit((ASTExpression) node, visitorData);
-    else if(node instanceof ASTComparison) return visit((ASTComparison) node, visitorData);
-    else if(node instanceof ASTAlias) return visit((ASTAlias) node, visitorData);
+    if (!profiling) {
+      boolean result = evaluateNodeUntimed(node, visitorData);
+      ((SimpleNode) node).getStatistics().record(result);
+      return result;
+    }
+    long start = System.nanoTime();
+    boolean result = evaluateNodeUntimed(node, visitorData);
+    ((SimpleNode) node).getStatistics().record(result, System.nanoTime() - start);
+    return result;
+  }
+
+  private boolean evaluateNodeUntimed(Node node, VisitorData visitorData){
+    boolean result;
+    if(node instanceof ASTExpression) result = visit((ASTExpression) node, visitorData);
+    else if(node instanceof ASTComparison) result = visit((ASTComparison) node, visitorData);
+    else if(node instanceof ASTAlias) result = visit((ASTAlias) node, visitorData);
     else {
       visitorData.addError("Node was not an expression or comparison. This shouldn't happen!");
       return false;
     }
+    return result;
+  }
+
+  /**
+   * Match a pattern using the linear time engine where it can, as it cannot backtrack catastrophically.
+   * Otherwise, or if it can't decide the result for this text, the pattern is matched within the time budget.
+   */
+  private boolean matchRegex(Pattern pattern, LinearRegex linearRegex, String text, boolean wholeText, RegexBudget regexBudget) {
+    if (linearRegex != null) {
+      Boolean matched = wholeText ? linearRegex.matches(text) : linearRegex.find(text);
+      if (matched != null) return matched;
+    }
+    Matcher m = pattern.matcher(regexBudget.limit(text));
+    return wholeText ? m.matches() : m.find();
   }
 
-  private boolean compare(ComparisonOperator op, Object left, Object right) {
+  private boolean compare(ComparisonOperator op, Object left, Object right, LinearRegex linearRegex, LiteralMatcher literalMatcher, RegexBudget regexBudget) {
     if (left == null) left = "";
     if (right == null) right = "";
     try {
@@ -130,11 +259,9 @@ public class FilterEvaluationVisitor implements FilterParserVisitor{
             return leftBigDecimal.compareTo(rightBigDecimal) <= 0;
         }
       } else if (op == ComparisonOperator.MATCHES) {
-        Matcher m = ((Pattern) right).matcher(String.valueOf(left));
-        return m.matches();
+        return matchRegex((Pattern) right, linearRegex, String.valueOf(left), true, regexBudget);
       } else if (right instanceof Pattern) {
-        Matcher m = ((Pattern) right).matcher(String.valueOf(left));
-        return m.find() ^ op == ComparisonOperator.NOT_EQUAL;
+        return matchRegex((Pattern) right, linearRegex, String.valueOf(left), false, regexBudget) ^ op == ComparisonOperator.NOT_EQUAL;
       } else if (left instanceof Date) {
         try {
           Date rightDate = DateUtils.truncate(right, Calendar.SECOND);
@@ -166,11 +293,15 @@ public class FilterEvaluationVisitor implements FilterParserVisitor{
         //Request.Parameters CONTAINS "A"
         Object finalRight = right;
         if (Collection.class.isAssignableFrom(left.getClass())) {
+          if (literalMatcher != null) return ((Collection) left).stream().anyMatch(o -> literalMatcher.equalTo(String.valueOf(o)));
           return ((Collection) left).stream().anyMatch(o -> String.valueOf(o).equalsIgnoreCase(String.valueOf(finalRight)));
+        } else if (literalMatcher != null) {
+          return literalMatcher.containedIn(String.valueOf(left));
         } else {
           return StringUtils.containsIgnoreCase(String.valueOf(left), String.valueOf(right));
         }
       } else if (left instanceof String || right instanceof String) { //String comparison last.
+        if (literalMatcher != null) return literalMatcher.equalTo(String.valueOf(left)) ^ op != ComparisonOperator.EQUAL;
         return String.valueOf(left).equalsIgnoreCase(String.valueOf(right)) ^ op != ComparisonOperator.EQUAL;
       } else {
         switch (op) {
@@ -181,6 +312,8 @@ public class FilterEvaluationVisitor implements FilterParserVisitor{
         }
       }
 
+    }catch (RegexTimeoutException e){
+      throw e;
     }catch (Exception e){
       e.printStackTrace();
       return false;
@@ -0,0 +1,273 @@
+package com.nccgroup.loggerplusplus.filter.parser;
+
+import com.nccgroup.loggerplusplus.filter.ComparisonOperator;
+import com.nccgroup.loggerplusplus.filter.LogicalOperator;
+import com.nccgroup.loggerplusplus.filter.savedfilter.SavedFilter;
+import com.nccgroup.loggerplusplus.filterlibrary.FilterLibraryController;
+import com.nccgroup.loggerplusplus.index.CompressedBitmap;
+import com.nccgroup.loggerplusplus.index.EntryIndexes;
+import com.nccgroup.loggerplusplus.index.FieldIndex;
+import com.nccgroup.loggerplusplus.index.TrigramIndex;
+import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.regex.Pattern;
+
+/**
+ * Chooses the order in which the clauses of a filter are evaluated.
+ * <p>
+ * AND and OR are commutative, so their children may be evaluated in any order without changing the result.
+ * Each clause is given a static cost based on the fields it reads (entry metadata is cheap, headers are more
+ * expensive, bodies more so and regular expressions most of all) which is combined with the observed
+ * selectivity of the clause so the clause most likely to short-circuit the expression for the least work runs first.
+ * XOR expressions are always evaluated in full, so are left in their written order.
+ * Inversion is applied to the result of the whole expression and is unaffected by reordering.
+ */
+public class FilterPlanner {
+
+    //How many evaluations of an expression before its plan is revisited using the latest statistics.
+    static final int REPLAN_INTERVAL = 1000;
+    //Below this many observations a node's selectivity is considered unknown.
+    static final int MIN_OBSERVATIONS = 100;
+
+    private static final double METADATA_COST = 1;
+    private static final double HEADER_COST = 10;
+    private static final double BODY_COST = 100;
+    private static final double REGEX_MULTIPLIER = 5;
+    private static final double CONTAINS_MULTIPLIER = 2;
+    private static final double UNKNOWN_ALIAS_COST = BODY_COST;
+
+    private final FilterLibraryController filterLibraryController;
+
+    public FilterPlanner(FilterLibraryController filterLibraryController) {
+        this.filterLibraryController = filterLibraryController;
+    }
+
+    /**
+     * Get the order the children of the expression should be evaluated in, planning it if required.
+     */
+    Node[] getEvaluationOrder(ASTExpression node) {
+        Node[] order = node.plannedOrder;
+        //Only the evaluation which takes the count to zero replans, so concurrent evaluations don't all replan at once.
+        if (order == null || node.evaluationsUntilReplan.decrementAndGet() == 0) {
+            order = plan(node);
+        }
+        return order;
+    }
+
+    /**
+     * Get the order the children of the expression were last planned to be evaluated in, without planning it.
+     * An expression which hasn't been evaluated yet is given in the order its children were written in.
+     */
+    public Node[] getPlannedOrder(ASTExpression node) {
+        Node[] order = node.plannedOrder;
+        return order != null ? order : node.children;
+    }
+
+    Node[] plan(ASTExpression node) {
+        Node[] order;
+        if (node.op == null || node.op == LogicalOperator.XOR || node.children.length < 2) {
+            order = node.children;
+        } else {
+            final boolean isAnd = node.op == LogicalOperator.AND;
+            order = Arrays.copyOf(node.children, node.children.length);
+            //Stable sort, so clauses with equal rank keep the order they were written in.
+            Arrays.sort(order, Comparator.comparingDouble(child -> rank(child, isAnd)));
+        }
+        node.evaluationsUntilReplan.set(REPLAN_INTERVAL);
+        node.plannedOrder = order;
+        return order;
+    }
+
+    /**
+     * Lower ranked children are evaluated first. The rank is the cost of the child divided by the chance
+     * it will short-circuit the expression (false for AND, true for OR).
+     */
+    private double rank(Node child, boolean isAnd) {
+        double selectivity = estimateSelectivity(child);
+        double shortCircuitChance = isAnd ? 1 - selectivity : selectivity;
+        return estimateCost(child) / Math.max(shortCircuitChance, 0.001);
+    }
+
+    public double estimateSelectivity(Node node) {
+        EvaluationStatistics statistics = ((SimpleNode) node).getStatistics();
+        if (statistics.getEvaluations() < MIN_OBSERVATIONS) return 0.5;
+        return statistics.getSelectivity();
+    }
+
+    /**
+     * Estimate the cost of evaluating a node, taking into account short-circuiting of its children.
+     */
+    public double estimateCost(Node node) {
+        if (node instanceof ASTComparison) {
+            return estimateCost((ASTComparison) node);
+        } else if (node instanceof ASTAlias) {
+            ASTExpression snippet = resolveAlias((ASTAlias) node);
+            return snippet != null ? estimateCost(snippet) : UNKNOWN_ALIAS_COST;
+        } else if (node instanceof ASTExpression) {
+            ASTExpression expression = (ASTExpression) node;
+            Node[] order = expression.plannedOrder != null ? expression.plannedOrder : expression.children;
+            double cost = 0;
+            double reachChance = 1;
+            for (Node child : order) {
+                cost += reachChance * estimateCost(child);
+                if (expression.op == LogicalOperator.AND) reachChance *= estimateSelectivity(child);
+                else if (expression.op == LogicalOperator.OR) reachChance *= 1 - estimateSelectivity(child);
+            }
+            return cost;
+        }
+        return METADATA_COST;
+    }
+
+    private double estimateCost(ASTComparison comparison) {
+        double cost = Math.max(fieldCost(comparison.left), fieldCost(comparison.right));
+        if (comparison.comparisonOperator == ComparisonOperator.MATCHES
+                || comparison.left instanceof Pattern || comparison.right instanceof Pattern) {
+            cost *= REGEX_MULTIPLIER;
+        } else if (comparison.comparisonOperator == ComparisonOperator.CONTAINS) {
+            cost *= CONTAINS_MULTIPLIER;
+        } else if (comparison.comparisonOperator == ComparisonOperator.IN && comparison.right instanceof Collection) {
+            cost *= 1 + ((Collection<?>) comparison.right).size() / 8d;
+        }
+        return cost;
+    }
+
+    private static double fieldCost(Object operand) {
+        if (!(operand instanceof LogEntryField)) return 0;
+        switch ((LogEntryField) operand) {
+            case REQUEST_BODY:
+            case RESPONSE_BODY:
+            case BASE64_REQUEST:
+            case BASE64_RESPONSE:
+            case RESPONSE_HASH:
+                return BODY_COST;
+            case REQUEST_HEADERS:
+            case RESPONSE_HEADERS:
+            case PARAMETERS:
+            case REFLECTED_PARAMS:
+            case NEW_COOKIES:
+            case SENTCOOKIES:
+            case TAGS:
+            case INSCOPE:
+                return HEADER_COST;
+            default:
+                return METADATA_COST;
+        }
+    }
+
+    private ASTExpression resolveAlias(ASTAlias alias) {
+        if (filterLibraryController == null) return null;
+        for (SavedFilter savedFilter : filterLibraryController.getFilterSnippets()) {
+            if (alias.identifier.equalsIgnoreCase(savedFilter.getName()) && savedFilter.getFilterExpression() != null) {
+                return savedFilter.getFilterExpression().getAst();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Use the indexes to find entries which cannot match the expression, so they need not be tested.
+     * Equality and IN comparisons on indexed fields, CONTAINS or equality comparisons on headers and bodies and
+     * regular expressions on bodies, combined by AND and OR, can be answered from the indexes.
+     *
+     * @return Entries known not to match the expression, or null if the indexes cannot rule any out.
+     */
+    public CompressedBitmap findExclusions(Node node, EntryIndexes indexes) {
+        if (node instanceof ASTComparison) {
+            return findExclusions((ASTComparison) node, indexes);
+        } else if (node instanceof ASTAlias) {
+            ASTExpression snippet = resolveAlias((ASTAlias) node);
+            return snippet != null ? findExclusions(snippet, indexes) : null;
+        } else if (node instanceof ASTExpression) {
+            ASTExpression expression = (ASTExpression) node;
+            if (expression.inverse || expression.op == LogicalOperator.XOR) return null;
+            if (expression.op == LogicalOperator.OR) {
+                //Only entries ruled out by every branch are ruled out.
+                CompressedBitmap intersection = null;
+                for (Node child : expression.children) {
+                    CompressedBitmap childExclusions = findExclusions(child, indexes);
+                    if (childExclusions == null) return null;
+                    intersection = intersection == null ? childExclusions : intersection.and(childExclusions);
+                }
+                return intersection;
+            }
+            //AND, or a single wrapped child. Entries ruled out by any clause are ruled out.
+            CompressedBitmap union = null;
+            for (Node child : expression.children) {
+                CompressedBitmap childExclusions = findExclusions(child, indexes);
+                if (childExclusions == null) continue;
+                union = union == null ? childExclusions : union.or(childExclusions);
+            }
+            return union;
+        }
+        return null;
+    }
+
+    private CompressedBitmap findExclusions(ASTComparison comparison, EntryIndexes indexes) {
+        if (!(comparison.left instanceof LogEntryField) || comparison.right instanceof LogEntryField) return null;
+        LogEntryField field = (LogEntryField) comparison.left;
+        if (comparison.right instanceof Pattern) {
+            TrigramIndex.Section section = TrigramIndex.Section.forField(field);
+            if (section == null || (comparison.comparisonOperator != ComparisonOperator.EQUAL
+                    && comparison.comparisonOperator != ComparisonOperator.MATCHES)) return null;
+            return indexes.getTrigramIndex().findExclusions(section, (Pattern) comparison.right);
+        }
+
+        FieldIndex fieldIndex = indexes.getFieldIndex();
+        CompressedBitmap exclusions = null;
+        if (comparison.comparisonOperator == ComparisonOperator.EQUAL) {
+            exclusions = fieldIndex.findExclusionsEqual(field, comparison.right);
+        } else if (comparison.comparisonOperator == ComparisonOperator.IN && comparison.right instanceof Collection) {
+            exclusions = fieldIndex.findExclusionsIn(field, (Collection<?>) comparison.right);
+        }
+        if (exclusions != null) return exclusions;
+
+        //A field equal to the text must also contain it.
+        if ((comparison.comparisonOperator == ComparisonOperator.CONTAINS || comparison.comparisonOperator == ComparisonOperator.EQUAL)
+                && comparison.right instanceof String) {
+            return indexes.getTextIndex().findExclusions(field, (String) comparison.right);
+        }
+        return null;
+    }
+
+    /**
+     * Produce a human readable description of the order clauses of the expression will be evaluated in.
+     * Expressions which haven't been planned yet are planned first.
+     */
+    public String describePlan(ASTExpression root) {
+        StringBuilder sb = new StringBuilder();
+        describe(root, 0, sb);
+        return sb.toString();
+    }
+
+    private void describe(Node node, int depth, StringBuilder sb) {
+        String indent = "  ".repeat(depth);
+        if (node instanceof ASTExpression && ((ASTExpression) node).op != null) {
+            ASTExpression expression = (ASTExpression) node;
+            Node[] order = expression.plannedOrder != null ? expression.plannedOrder : plan(expression);
+            sb.append(indent).append(expression.inverse ? "NOT " : "").append(expression.op.getLabel())
+                    .append(String.format(" (estimated cost %.1f)", estimateCost(expression))).append("\n");
+            for (Node child : order) {
+                describe(child, depth + 1, sb);
+            }
+        } else if (node instanceof ASTExpression) {
+            ASTExpression expression = (ASTExpression) node;
+            if (expression.inverse) {
+                sb.append(indent).append("NOT").append("\n");
+                describe(expression.children[0], depth + 1, sb);
+            } else {
+                describe(expression.children[0], depth, sb);
+            }
+        } else {
+            EvaluationStatistics statistics = ((SimpleNode) node).getStatistics();
+            sb.append(indent).append(node.getFilterString())
+                    .append(String.format("  [cost %.1f", estimateCost(node)));
+            if (statistics.getEvaluations() >= MIN_OBSERVATIONS) {
+                sb.append(String.format(", matched %.0f%%", statistics.getSelectivity() * 100));
+            }
+            sb.append("]\n");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.nccgroup.loggerplusplus.filter.parser;
+
+import com.nccgroup.loggerplusplus.filter.LogicalOperator;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * How the entries matched by one filter relate to those matched by another, judged from their syntax alone.
+ */
+public enum FilterRelation {
+    /**
+     * The filters are equivalent.
+     */
+    EQUIVALENT,
+    /**
+     * The new filter is the previous filter AND'ed with further clauses, so only matches entries the previous one did.
+     */
+    REFINEMENT,
+    /**
+     * The new filter is the previous filter OR'ed with further clauses, so matches every entry the previous one did.
+     */
+    RELAXATION,
+    UNRELATED;
+
+    public static FilterRelation between(ASTExpression previous, ASTExpression next) {
+        Set<String> previousAnd = clauses(previous, LogicalOperator.AND), nextAnd = clauses(next, LogicalOperator.AND);
+        if (nextAnd.containsAll(previousAnd)) {
+            return nextAnd.size() == previousAnd.size() ? EQUIVALENT : REFINEMENT;
+        }
+        if (clauses(next, LogicalOperator.OR).containsAll(clauses(previous, LogicalOperator.OR))) {
+            return RELAXATION;
+        }
+        return UNRELATED;
+    }
+
+    /**
+     * Flatten an expression into the clauses it combines with the given operator.
+     * Anything else, including inverted expressions, is a single clause.
+     */
+    private static Set<String> clauses(Node node, LogicalOperator op) {
+        Set<String> clauses = new HashSet<>();
+        addClauses(node, op, clauses);
+        return clauses;
+    }
+
+    private static void addClauses(Node node, LogicalOperator op, Set<String> clauses) {
+        if (node instanceof ASTExpression && !((ASTExpression) node).inverse) {
+            ASTExpression expression = (ASTExpression) node;
+            if (expression.op == null && expression.children.length == 1) {
+                addClauses(expression.children[0], op, clauses);
+                return;
+            } else if (expression.op == op) {
+                for (Node child : expression.children) {
+                    addClauses(child, op, clauses);
+                }
+                return;
+            }
+        }
+        clauses.add(node.getFilterString());
+    }
+}
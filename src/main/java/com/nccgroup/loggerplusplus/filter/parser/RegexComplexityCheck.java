@@ -0,0 +1,213 @@
+package com.nccgroup.loggerplusplus.filter.parser;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Pattern;
+
+/**
+ * Finds nested quantifiers in a regular expression, the usual cause of catastrophic backtracking.
+ * <p>
+ * A group is flagged when it is repeated without bound, and its contents can end with an unbounded repetition
+ * followed only by optional elements, e.g. {@code (a+)+} or {@code (\w+\s?)*}. Text failing to match such a pattern
+ * can be split between iterations of the group in exponentially many ways, all of which are tried.
+ * Groups whose iterations are separated by a required element, e.g. {@code (\d+\.)+}, are not flagged.
+ * Possessive quantifiers, atomic groups and lookarounds do not backtrack, so are considered safe.
+ */
+final class RegexComplexityCheck {
+
+    private RegexComplexityCheck() {
+    }
+
+    /**
+     * @return The part of the pattern which may backtrack catastrophically, or null if none was found.
+     */
+    static String findNestedQuantifier(Pattern pattern) {
+        if ((pattern.flags() & Pattern.LITERAL) != 0) return null;
+        String regex = pattern.pattern();
+        Deque<Group> groups = new ArrayDeque<>();
+        Group current = new Group(0, false);
+
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            int elementStart = i;
+            boolean elementEndsRepeating = false;
+
+            switch (c) {
+                case '\\':
+                    i = skipEscape(regex, i);
+                    break;
+                case '[':
+                    i = skipClass(regex, i);
+                    break;
+                case '(': {
+                    int bodyStart = i + 1;
+                    boolean safe = false;
+                    if (regex.startsWith("(?", i)) {
+                        char kind = i + 2 < regex.length() ? regex.charAt(i + 2) : ')';
+                        if (kind == ':') {
+                            bodyStart = i + 3;
+                        } else if (kind == '=' || kind == '!' || kind == '>') {
+                            bodyStart = i + 3;
+                            safe = true;
+                        } else if (regex.startsWith("(?<=", i) || regex.startsWith("(?<!", i)) {
+                            bodyStart = i + 4;
+                            safe = true;
+                        } else if (kind == '<') {
+                            bodyStart = regex.indexOf('>', i) + 1;
+                        } else {
+                            //Inline flags, either alone or starting a group.
+                            int end = i + 2;
+                            while (end < regex.length() && regex.charAt(end) != ':' && regex.charAt(end) != ')') end++;
+                            if (end >= regex.length()) return null;
+                            if (regex.charAt(end) == ')') {
+                                i = end + 1;
+                                continue;
+                            }
+                            bodyStart = end + 1;
+                        }
+                    }
+                    if (bodyStart <= 0) return null;
+                    groups.push(current);
+                    current = new Group(i, safe);
+                    i = bodyStart;
+                    continue;
+                }
+                case ')': {
+                    if (groups.isEmpty()) return null;
+                    Group group = current;
+                    current = groups.pop();
+                    elementStart = group.start;
+                    elementEndsRepeating = !group.safe && (group.anyAlternativeEndsRepeating || group.endsRepeating);
+                    i++;
+                    break;
+                }
+                case '|':
+                    current.anyAlternativeEndsRepeating |= current.endsRepeating;
+                    current.endsRepeating = false;
+                    i++;
+                    continue;
+                case '^':
+                case '$':
+                    i++;
+                    continue;
+                default:
+                    i += Character.charCount(regex.codePointAt(i));
+            }
+            if (i < 0) return null;
+
+            //Read any quantifier applied to the element.
+            int min = 1, max = 1;
+            boolean possessive = false;
+            if (i < regex.length()) {
+                char quantifier = regex.charAt(i);
+                if (quantifier == '*' || quantifier == '+' || quantifier == '?') {
+                    min = quantifier == '+' ? 1 : 0;
+                    max = quantifier == '?' ? 1 : -1;
+                    i++;
+                } else if (quantifier == '{') {
+                    int end = regex.indexOf('}', i);
+                    if (end < 0) return null;
+                    String[] bounds = regex.substring(i + 1, end).split(",", -1);
+                    try {
+                        min = Integer.parseInt(bounds[0].trim());
+                        max = bounds.length == 1 ? min : bounds[1].isBlank() ? -1 : Integer.parseInt(bounds[1].trim());
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    i = end + 1;
+                } else {
+                    quantifier = 0;
+                }
+                //Lazy and possessive modifiers.
+                if (quantifier != 0 && i < regex.length() && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+                    possessive = regex.charAt(i++) == '+';
+                }
+            }
+
+            if (possessive) {
+                if (min > 0) current.endsRepeating = false;
+            } else if (max < 0) {
+                if (elementEndsRepeating) return regex.substring(elementStart, i);
+                current.endsRepeating = true;
+            } else if (min == 0) {
+                current.endsRepeating |= elementEndsRepeating;
+            } else {
+                current.endsRepeating = elementEndsRepeating;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The index following the escape sequence starting at the given index, or -1.
+     */
+    private static int skipEscape(String regex, int i) {
+        if (i + 1 >= regex.length()) return -1;
+        char escaped = regex.charAt(i + 1);
+        switch (escaped) {
+            case 'Q': {
+                int end = regex.indexOf("\\E", i);
+                return end < 0 ? regex.length() : end + 2;
+            }
+            case 'x':
+                if (regex.startsWith("{", i + 2)) return closeAfter(regex, '}', i);
+                return i + 4;
+            case 'u':
+                return i + 6;
+            case 'c':
+                return i + 3;
+            case 'p':
+            case 'P':
+            case 'N':
+                if (regex.startsWith("{", i + 2)) return closeAfter(regex, '}', i);
+                return i + 3;
+            case 'k':
+                return closeAfter(regex, '>', i);
+            default:
+                int end = i + 1 + Character.charCount(regex.codePointAt(i + 1));
+                //Octal values and back references are followed by further digits.
+                while (Character.isDigit(escaped) && end < regex.length() && Character.isDigit(regex.charAt(end))) end++;
+                return end;
+        }
+    }
+
+    private static int closeAfter(String regex, char close, int i) {
+        int end = regex.indexOf(close, i);
+        return end < 0 ? -1 : end + 1;
+    }
+
+    /**
+     * @return The index following the character class opened at the given index, or -1.
+     */
+    private static int skipClass(String regex, int i) {
+        int depth = 0;
+        for (; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+                if (regex.startsWith("^", i + 1)) i++;
+                //A closing bracket first in the class is a literal.
+                if (regex.startsWith("]", i + 1)) i++;
+            } else if (c == ']' && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static class Group {
+        private final int start;
+        private final boolean safe;
+        //Whether the alternative being read can end with an unbounded repetition followed only by optional elements.
+        private boolean endsRepeating;
+        private boolean anyAlternativeEndsRepeating;
+
+        private Group(int start, boolean safe) {
+            this.start = start;
+            this.safe = safe;
+        }
+    }
+}
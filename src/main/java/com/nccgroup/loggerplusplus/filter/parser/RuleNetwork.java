@@ -0,0 +1,127 @@
+package com.nccgroup.loggerplusplus.filter.parser;
+
+import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * Shares comparisons between every filter in use.
+ * <p>
+ * Tags, color rules, the do-not-log filter and exporter filters are all evaluated against the same entry while it is
+ * processed, so with a {@link ComparisonMemo} attached to the entry a comparison shared by several of those rules is
+ * only evaluated once per entry, with later rules reading its result from the memo.
+ * <p>
+ * Each distinct comparison (by its canonical filter string) is given an id the first time it is evaluated against a
+ * memo, so filters which are never tested while entries are processed, such as those typed into the filter bar, don't
+ * take one. The id is held by the parsed comparisons, and is released for reuse once none of them are reachable,
+ * so memos are only as large as the comparisons of the rules currently in use.
+ */
+public class RuleNetwork {
+
+    //Given to comparisons whose results cannot be shared.
+    static final Handle UNSHARED = new Handle(-1);
+
+    //Guarded by the class.
+    private static final HashMap<String, HandleReference> handles = new HashMap<>();
+    private static final BitSet usedIds = new BitSet();
+    private static final ReferenceQueue<Handle> released = new ReferenceQueue<>();
+    private static volatile int comparisonCount;
+
+    /**
+     * The id of a comparison, shared by every parsed comparison with the same filter string.
+     */
+    static final class Handle {
+        final int id;
+
+        private Handle(int id) {
+            this.id = id;
+        }
+    }
+
+    private static final class HandleReference extends WeakReference<Handle> {
+        private final String key;
+        private final int id;
+
+        private HandleReference(String key, Handle handle) {
+            super(handle, released);
+            this.key = key;
+            this.id = handle.id;
+        }
+    }
+
+    /**
+     * Get the shared id for the comparison, assigning one if it hasn't been evaluated against a memo before.
+     */
+    static Handle getHandle(ASTComparison comparison) {
+        Handle handle = comparison.sharedHandle;
+        if (handle != null) return handle;
+        if (!isShareable(comparison.left) || !isShareable(comparison.right)) {
+            handle = UNSHARED;
+        } else {
+            handle = acquire(comparison.getFilterString());
+        }
+        comparison.sharedHandle = handle;
+        return handle;
+    }
+
+    private static synchronized Handle acquire(String key) {
+        expungeReleased();
+        HandleReference reference = handles.get(key);
+        Handle handle = reference != null ? reference.get() : null;
+        if (handle == null) {
+            int id = usedIds.nextClearBit(0);
+            usedIds.set(id);
+            handle = new Handle(id);
+            handles.put(key, new HandleReference(key, handle));
+            comparisonCount = usedIds.length();
+        }
+        return handle;
+    }
+
+    /**
+     * @return One more than the largest id in use, which memos are sized to.
+     */
+    public static int getComparisonCount() {
+        HandleReference reference = (HandleReference) released.poll();
+        if (reference != null) {
+            synchronized (RuleNetwork.class) {
+                release(reference);
+                expungeReleased();
+            }
+        }
+        return comparisonCount;
+    }
+
+    //Release the ids of comparisons no longer held by any parsed filter.
+    private static void expungeReleased() {
+        HandleReference reference;
+        while ((reference = (HandleReference) released.poll()) != null) {
+            release(reference);
+        }
+    }
+
+    private static void release(HandleReference reference) {
+        if (handles.get(reference.key) == reference) handles.remove(reference.key);
+        usedIds.clear(reference.id);
+        comparisonCount = usedIds.length();
+    }
+
+    /**
+     * Fields which can change without the entry being reprocessed cannot have their results reused.
+     */
+    private static boolean isShareable(Object operand) {
+        if (!(operand instanceof LogEntryField)) return true;
+        switch ((LogEntryField) operand) {
+            case TAGS:
+            case INSCOPE:
+            case COMMENT:
+            case NUMBER:
+                return false;
+            default:
+                return true;
+        }
+    }
+}
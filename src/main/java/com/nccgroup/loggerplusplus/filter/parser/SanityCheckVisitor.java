@@ -10,6 +10,18 @@ import java.util.regex.Pattern;
 
 public class SanityCheckVisitor implements FilterParserVisitor{
 
+  //CONTAINS is evaluated against the string form of any field, and saved filters rely on it, so when parsing
+  //filters only patterns which may not finish in time are rejected. The parser itself rejects the rest.
+  private final boolean checkTypes;
+
+  public SanityCheckVisitor(){
+    this(true);
+  }
+
+  public SanityCheckVisitor(boolean checkTypes){
+    this.checkTypes = checkTypes;
+  }
+
   public VisitorData defaultVisit(SimpleNode node, VisitorData data){
     node.childrenAccept(this, data);
     return data;
@@ -28,10 +40,25 @@ public class SanityCheckVisitor implements FilterParserVisitor{
   public VisitorData visit(ASTComparison node, VisitorData visitorData) {
     defaultVisit(node, visitorData);
 
+    if (checkTypes) checkTypes(node, visitorData);
+
+    //Patterns matched by the linear time engine can't backtrack, so needn't be checked.
+    if (node.right instanceof Pattern && node.getLinearRegex() == null) {
+      String nestedQuantifier = RegexComplexityCheck.findNestedQuantifier((Pattern) node.right);
+      if (nestedQuantifier != null) {
+        visitorData.addError(String.format("The pattern /%s/ may take exponential time to match, as it repeats \"%s\" which itself ends with a repetition. " +
+                "Consider using a possessive quantifier (e.g. a++) or an atomic group (?>...) instead.", ((Pattern) node.right).pattern(), nestedQuantifier));
+      }
+    }
+
+    return visitorData;
+  }
+
+  private void checkTypes(ASTComparison node, VisitorData visitorData) {
     Class leftType, rightType;
     leftType = (node.left instanceof LogEntryField) ? ((LogEntryField) node.left).getType() : node.left.getClass();
     rightType = (node.right instanceof LogEntryField) ? ((LogEntryField) node.right).getType() : node.right.getClass();
-    if (leftType == null || rightType == null) return visitorData;
+    if (leftType == null || rightType == null) return;
 
     if (node.comparisonOperator == ComparisonOperator.LESS_THAN || node.comparisonOperator == ComparisonOperator.LESS_THAN_EQUAL
             || node.comparisonOperator == ComparisonOperator.GREATER_THAN || node.comparisonOperator == ComparisonOperator.GREATER_THAN_EQUAL) {
@@ -45,13 +72,13 @@ public class SanityCheckVisitor implements FilterParserVisitor{
       visitorData.addError("The left operand of a comparison cannot be a pattern.");
     } else if (node.right instanceof Pattern && !String.class.isAssignableFrom(leftType)) {
       visitorData.addError("Regular expressions can only be used on string elements.");
-    } else if (node.comparisonOperator == ComparisonOperator.CONTAINS && !(String.class.isAssignableFrom(leftType) && String.class.isAssignableFrom(leftType))) {
-      visitorData.addError("The CONTAINS operator can only be used on string elements.");
-    } else if (node.comparisonOperator == ComparisonOperator.IN && Collection.class.isAssignableFrom(rightType)) {
+    } else if (node.comparisonOperator == ComparisonOperator.CONTAINS
+            && (Date.class.isAssignableFrom(leftType) || Boolean.class.isAssignableFrom(leftType))) {
+      visitorData.addError("The CONTAINS operator cannot be used on date or boolean elements.");
+    } else if (node.comparisonOperator == ComparisonOperator.IN
+            && !(node.right instanceof LogEntryField || Collection.class.isAssignableFrom(rightType))) {
       visitorData.addError("The IN operator requires the right-hand object of the comparison to be a collection (e.g. list, set)!");
     }
-
-    return visitorData;
   }
 
   @Override
@@ -9,6 +9,7 @@ public abstract class SimpleNode implements Node {
   protected int id;
   protected Object value;
   protected FilterParser parser;
+  protected final EvaluationStatistics statistics = new EvaluationStatistics();
 
   public SimpleNode(int i) {
     id = i;
@@ -96,6 +97,33 @@ public abstract class SimpleNode implements Node {
   public int getId() {
     return id;
   }
+
+  public EvaluationStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Copy this node and its children. The copy has statistics of its own, so a parsed filter can be given to several
+   * owners without their evaluations being recorded together.
+   */
+  public SimpleNode copy() {
+    SimpleNode copy = copyNode();
+    copy.value = value;
+    copy.parser = parser;
+    if (children != null) {
+      copy.children = new Node[children.length];
+      for (int i = 0; i < children.length; ++i) {
+        copy.children[i] = ((SimpleNode) children[i]).copy();
+        copy.children[i].jjtSetParent(copy);
+      }
+    }
+    return copy;
+  }
+
+  /**
+   * Copy this node's own fields, without its children or statistics.
+   */
+  protected abstract SimpleNode copyNode();
 }
 
 /* JavaCC - OriginalChecksum=dd4a72dc91922f5bdce98b5fa723a79c (do not edit this line) */
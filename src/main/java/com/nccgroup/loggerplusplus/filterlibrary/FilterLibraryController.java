@@ -2,14 +2,18 @@ package com.nccgroup.loggerplusplus.filterlibrary;
 
 import com.coreyd97.BurpExtenderUtilities.Preferences;
 import com.nccgroup.loggerplusplus.filter.FilterExpression;
+import com.nccgroup.loggerplusplus.filter.FilterExpressionCache;
 import com.nccgroup.loggerplusplus.filter.colorfilter.TableColorRule;
 import com.nccgroup.loggerplusplus.filter.colorfilter.ColorFilterListener;
 import com.nccgroup.loggerplusplus.filter.logfilter.LogTableFilter;
 import com.nccgroup.loggerplusplus.filter.savedfilter.SavedFilter;
 import com.nccgroup.loggerplusplus.filter.tag.Tag;
 import com.nccgroup.loggerplusplus.filter.tag.TagListener;
+import com.nccgroup.loggerplusplus.index.RuleMembershipIndex;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
 import com.nccgroup.loggerplusplus.preferences.PreferencesController;
 import com.nccgroup.loggerplusplus.util.Globals;
+import lombok.Getter;
 import lombok.extern.log4j.Log4j2;
 
 import java.awt.*;
@@ -21,13 +25,17 @@ import java.util.UUID;
 public class FilterLibraryController {
 
     private final Preferences preferences;
-    private final FilterLibraryPanel panel;
+    private FilterLibraryPanel panel;
     private final ArrayList<FilterLibraryListener> listeners;
     private final ArrayList<SavedFilter> savedFilters;
     private final HashMap<UUID, TableColorRule> colorFilters;
     private final ArrayList<ColorFilterListener> colorFilterListeners;
     private final HashMap<UUID, Tag> tagFilters;
     private final ArrayList<TagListener> tagListeners;
+    @Getter
+    private final RuleMembershipIndex colorFilterMembership;
+    @Getter
+    private final RuleMembershipIndex tagMembership;
 
     public FilterLibraryController(PreferencesController preferencesController) {
         this.preferences = preferencesController.getPreferences();
@@ -37,10 +45,14 @@ public class FilterLibraryController {
         this.savedFilters = preferences.getSetting(Globals.PREF_SAVED_FILTERS);
         this.colorFilters = preferences.getSetting(Globals.PREF_COLOR_FILTERS);
         this.tagFilters = preferences.getSetting(Globals.PREF_TAG_FILTERS);
-        this.panel = new FilterLibraryPanel(this);
+        this.colorFilterMembership = new RuleMembershipIndex();
+        this.tagMembership = new RuleMembershipIndex();
     }
 
     public FilterLibraryPanel getFilterLibraryPanel() {
+        if (this.panel == null) {
+            this.panel = new FilterLibraryPanel(this);
+        }
         return panel;
     }
 
@@ -54,6 +66,7 @@ public class FilterLibraryController {
             this.savedFilters.add(savedFilter);
             index = this.savedFilters.size()-1;
         }
+        FilterExpressionCache.invalidateSnippet(savedFilter.getName());
         for (FilterLibraryListener listener : this.listeners) {
             try{
                 listener.onFilterAdded(savedFilter, index);
@@ -70,6 +83,7 @@ public class FilterLibraryController {
             index = this.savedFilters.indexOf(filter);
             this.savedFilters.remove(index);
         }
+        FilterExpressionCache.invalidateSnippet(filter.getName());
         for (FilterLibraryListener listener : this.listeners) {
             try{
                 listener.onFilterRemoved(filter, index);
@@ -128,6 +142,7 @@ public class FilterLibraryController {
                 log.error(e);
             }
         }
+        colorFilterMembership.removeRule(tableColorRule.getUuid());
         saveColorFilters();
     }
 
@@ -143,6 +158,21 @@ public class FilterLibraryController {
         saveColorFilters();
     }
 
+    /**
+     * Find the highest priority color filter matching the entry.
+     * @return The color filter, or null if the entry matches none.
+     */
+    public TableColorRule getColorFilterFor(LogEntry entry) {
+        TableColorRule matched = null;
+        for (TableColorRule rule : colorFilters.values()) {
+            if ((matched == null || matched.getPriority() > rule.getPriority())
+                    && colorFilterMembership.contains(rule.getUuid(), entry.getSequence())) {
+                matched = rule;
+            }
+        }
+        return matched;
+    }
+
     public void saveColorFilters(){
         this.preferences.setSetting(Globals.PREF_COLOR_FILTERS, colorFilters);
     }
@@ -183,6 +213,7 @@ public class FilterLibraryController {
                 log.error(error);
             }
         }
+        tagMembership.removeRule(tag.getUuid());
         saveTags();
     }
 
@@ -198,6 +229,14 @@ public class FilterLibraryController {
         saveTags();
     }
 
+    /**
+     * Forget an entry which has been removed from the log.
+     */
+    public void removeEntryMembership(LogEntry entry) {
+        colorFilterMembership.removeEntry(entry.getSequence());
+        tagMembership.removeEntry(entry.getSequence());
+    }
+
     public void saveTags() {
         this.preferences.setSetting(Globals.PREF_TAG_FILTERS, tagFilters);
     }
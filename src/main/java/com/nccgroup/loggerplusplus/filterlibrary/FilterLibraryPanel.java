@@ -62,7 +62,9 @@ public class FilterLibraryPanel extends JPanel {
         controlPanel.add(removeSelectedButton);
 
         JScrollPane tableScrollPane = new JScrollPane(libraryTable);
-        this.add(tableScrollPane, BorderLayout.CENTER);
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, tableScrollPane, new FilterProfilePanel(libraryController));
+        splitPane.setResizeWeight(0.6);
+        this.add(splitPane, BorderLayout.CENTER);
         this.add(controlPanel, BorderLayout.SOUTH);
     }
 }
@@ -1,6 +1,7 @@
 package com.nccgroup.loggerplusplus.filterlibrary;
 
 import com.nccgroup.loggerplusplus.LoggerPlusPlus;
+import com.nccgroup.loggerplusplus.filter.FilterExpressionCache;
 import com.nccgroup.loggerplusplus.filter.parser.ParseException;
 import com.nccgroup.loggerplusplus.filter.savedfilter.SavedFilter;
 import com.nccgroup.loggerplusplus.util.userinterface.dialog.ColorFilterDialog;
@@ -63,21 +64,28 @@ public class FilterLibraryTableModel extends AbstractTableModel implements Filte
         SavedFilter savedFilter = controller.getFilterSnippets().get(row);
         if(savedFilter == null) return;
         if(column == 0) {
+            String previousName = savedFilter.getName();
             savedFilter.setName((String) value);
+            FilterExpressionCache.invalidateSnippet(previousName);
+            FilterExpressionCache.invalidateSnippet(savedFilter.getName());
             if(!((String) value).equalsIgnoreCase(savedFilter.getName())){
                 JOptionPane.showMessageDialog(LoggerPlusPlus.instance.getMainViewController().getUiComponent(), "Alias names may only contain alphanumeric characters and the symbols period (.) and underscore (_)\n" +
                         "Invalid characters have been replaced with an underscore.", "Alias Error", JOptionPane.WARNING_MESSAGE);
             }
         }
         if(column == 1){
+            boolean parsed = false;
             try{
                 savedFilter.parseAndSetFilter((String) value);
-                controller.propagateChangesToSnippetUsers(savedFilter);
+                parsed = true;
             }catch (ParseException e){
                 //Not a valid filter...
                 MoreHelp.showLargeOutputDialog("Filter Exception", "<html>" + e.getMessage().replaceAll("\n", "<br>") + "</html>");
 //                JOptionPane.showMessageDialog(LoggerPlusPlus.instance.getMainViewController().getUiComponent(), "<html><body style=\"max-height: 400px; max-width: 400px;\">" + e.getMessage().replaceAll("\n", "<br>") + "</html>", "Filter Exception", JOptionPane.ERROR_MESSAGE);
             }
+            //Filters using the snippet may now need different fields, or no longer be valid.
+            FilterExpressionCache.invalidateSnippet(savedFilter.getName());
+            if(parsed) controller.propagateChangesToSnippetUsers(savedFilter);
         }
         controller.saveFilters();
     }
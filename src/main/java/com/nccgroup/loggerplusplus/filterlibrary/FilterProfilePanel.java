@@ -0,0 +1,73 @@
+package com.nccgroup.loggerplusplus.filterlibrary;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+
+/**
+ * Shows how long each clause of the filters in use takes to evaluate, how often it matches and how often it
+ * lets the rest of its expression be skipped. The clauses taking the most time overall are highlighted.
+ */
+public class FilterProfilePanel extends JPanel {
+
+    private static final Color EXPENSIVE_COLOR = new Color(221, 70, 57);
+    //How often the statistics are refreshed while profiling.
+    private static final int REFRESH_INTERVAL = 1000;
+
+    private final FilterProfiler profiler;
+    private final FilterProfileTableModel tableModel;
+    private final Timer refreshTimer;
+
+    public FilterProfilePanel(FilterLibraryController libraryController){
+        super(new BorderLayout());
+        this.profiler = new FilterProfiler(libraryController);
+        this.tableModel = new FilterProfileTableModel(profiler);
+
+        JTable profileTable = new JTable(tableModel);
+        profileTable.setFillsViewportHeight(true);
+        profileTable.setDefaultRenderer(Object.class, new ProfileRenderer());
+        profileTable.getColumnModel().getColumn(0).setPreferredWidth(150);
+        profileTable.getColumnModel().getColumn(1).setPreferredWidth(400);
+
+        this.refreshTimer = new Timer(REFRESH_INTERVAL, e -> {
+            if (isShowing()) tableModel.refresh();
+        });
+
+        JCheckBox profileCheckbox = new JCheckBox("Profile Filter Evaluation");
+        profileCheckbox.setToolTipText("Record the time spent evaluating each clause of every filter. Adds a small overhead to all filtering while enabled.");
+        profileCheckbox.addActionListener(e -> {
+            profiler.setEnabled(profileCheckbox.isSelected());
+            if (profileCheckbox.isSelected()) refreshTimer.start();
+            else refreshTimer.stop();
+            tableModel.refresh();
+        });
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> tableModel.refresh());
+        JButton resetButton = new JButton("Reset Timings");
+        resetButton.addActionListener(e -> {
+            profiler.reset();
+            tableModel.refresh();
+        });
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(profileCheckbox);
+        controls.add(refreshButton);
+        controls.add(resetButton);
+
+        this.add(controls, BorderLayout.NORTH);
+        this.add(new JScrollPane(profileTable), BorderLayout.CENTER);
+    }
+
+    private class ProfileRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            FilterProfiler.ProfileRow profileRow = tableModel.getRow(table.convertRowIndexToModel(row));
+            c.setFont(c.getFont().deriveFont(profileRow.getDepth() == 0 ? Font.BOLD : Font.PLAIN));
+            if (!isSelected) c.setForeground(profileRow.isExpensive() ? EXPENSIVE_COLOR : table.getForeground());
+            setToolTipText(profileRow.isExpensive() ? "One of the clauses taking the most time overall" : null);
+            setHorizontalAlignment(column >= 2 ? SwingConstants.RIGHT : SwingConstants.LEFT);
+            return c;
+        }
+    }
+}
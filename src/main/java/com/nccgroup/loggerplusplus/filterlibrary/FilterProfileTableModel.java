@@ -0,0 +1,59 @@
+package com.nccgroup.loggerplusplus.filterlibrary;
+
+import com.nccgroup.loggerplusplus.filter.parser.EvaluationStatistics;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FilterProfileTableModel extends AbstractTableModel {
+
+    private final FilterProfiler profiler;
+    private final String[] columnNames = {"Filter", "Clause", "Evaluations", "Matched", "Short-Circuited", "Total (ms)", "Average (\u00b5s)"};
+    private List<FilterProfiler.ProfileRow> rows;
+
+    public FilterProfileTableModel(FilterProfiler profiler){
+        this.profiler = profiler;
+        this.rows = new ArrayList<>();
+    }
+
+    public void refresh(){
+        this.rows = profiler.collect();
+        fireTableDataChanged();
+    }
+
+    public FilterProfiler.ProfileRow getRow(int row){
+        return rows.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int column) {
+        FilterProfiler.ProfileRow row = rows.get(rowIndex);
+        EvaluationStatistics statistics = row.getStatistics();
+        switch (column){
+            case 0: return row.getDepth() == 0 ? row.getFilterName() : "";
+            case 1: return "    ".repeat(row.getDepth()) + row.getDescription();
+            case 2: return statistics.getEvaluations();
+            case 3: return statistics.getEvaluations() == 0 ? "" : String.format("%.1f%%", 100d * statistics.getMatches() / statistics.getEvaluations());
+            case 4: return row.getDepth() == 0 || statistics.getProfiledEvaluations() == 0 ? "" : String.format("%.1f%%", statistics.getShortCircuitRate() * 100);
+            case 5: return String.format("%.2f", statistics.getNanos() / 1e6);
+            case 6: return statistics.getProfiledEvaluations() == 0 ? "" : String.format("%.2f", statistics.getAverageNanos() / 1e3);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,183 @@
+package com.nccgroup.loggerplusplus.filterlibrary;
+
+import com.nccgroup.loggerplusplus.LoggerPlusPlus;
+import com.nccgroup.loggerplusplus.exports.AutomaticLogExporter;
+import com.nccgroup.loggerplusplus.filter.FilterExpression;
+import com.nccgroup.loggerplusplus.filter.colorfilter.TableColorRule;
+import com.nccgroup.loggerplusplus.filter.logfilter.LogTableFilter;
+import com.nccgroup.loggerplusplus.filter.parser.*;
+import com.nccgroup.loggerplusplus.filter.savedfilter.SavedFilter;
+import com.nccgroup.loggerplusplus.filter.tag.Tag;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.nccgroup.loggerplusplus.util.Globals.PREF_DO_NOT_LOG_IF_MATCH;
+
+/**
+ * Gathers the evaluation statistics of every filter in use: the log table filter, tags, color filters,
+ * the do not log filter, exporter filters and snippets. While profiling is enabled the time spent in each clause
+ * is recorded, and the clauses which took the most time overall are flagged.
+ * <p>
+ * Profiling is enabled for the whole extension rather than per filter, so while enabled every filter evaluated
+ * is timed, not only those listed.
+ */
+public class FilterProfiler {
+
+    //The number of clauses flagged as the most expensive.
+    private static final int FLAGGED_CLAUSES = 5;
+
+    private final FilterLibraryController libraryController;
+    private final FilterPlanner planner;
+
+    public FilterProfiler(FilterLibraryController libraryController) {
+        this.libraryController = libraryController;
+        this.planner = new FilterPlanner(libraryController);
+    }
+
+    public boolean isEnabled() {
+        return FilterEvaluationVisitor.isProfiling();
+    }
+
+    /**
+     * Enable or disable timing the evaluation of every filter, not only those listed by {@link #collect()}.
+     */
+    public void setEnabled(boolean enabled) {
+        FilterEvaluationVisitor.setProfiling(enabled);
+    }
+
+    /**
+     * @return A row for each clause of each filter in use. The clauses of each expression are listed in the order
+     * they are currently planned to be evaluated, which may change as their statistics do.
+     */
+    public List<ProfileRow> collect() {
+        List<ProfileRow> rows = new ArrayList<>();
+        for (ActiveFilter filter : getActiveFilters()) {
+            ASTExpression ast = filter.expression.getAst();
+            rows.add(new ProfileRow(filter.name, ast.getFilterString(), 0, ast.getStatistics(), false));
+            //The root's own operator and negation are summarised by the row for the whole filter.
+            for (Node child : planner.getPlannedOrder(ast)) {
+                addClauses(filter.name, child, 1, rows);
+            }
+        }
+
+        rows.stream().filter(row -> row.isClause() && row.getStatistics().getNanos() > 0)
+                .sorted(Comparator.comparingLong((ProfileRow row) -> row.getStatistics().getNanos()).reversed())
+                .limit(FLAGGED_CLAUSES)
+                .forEach(row -> row.expensive = true);
+        return rows;
+    }
+
+    /**
+     * Discard the recorded times and short-circuits of every filter in use.
+     * Evaluation and match counts are kept, as the planner relies on them.
+     */
+    public void reset() {
+        for (ActiveFilter filter : getActiveFilters()) {
+            reset(filter.expression.getAst());
+        }
+    }
+
+    private void reset(Node node) {
+        ((SimpleNode) node).getStatistics().resetProfile();
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            reset(node.jjtGetChild(i));
+        }
+    }
+
+    /**
+     * @return Every filter in use. Rules are listed individually, as several may share a name or have none.
+     */
+    private List<ActiveFilter> getActiveFilters() {
+        List<ActiveFilter> filters = new ArrayList<>();
+        LoggerPlusPlus loggerPlusPlus = LoggerPlusPlus.instance;
+        if (loggerPlusPlus == null) return filters;
+
+        if (loggerPlusPlus.getLogViewController() != null) {
+            LogTableFilter tableFilter = loggerPlusPlus.getLogViewController().getLogTableController().getLogTable().getCurrentFilter();
+            if (tableFilter != null) filters.add(new ActiveFilter("Log Filter", tableFilter.getFilterExpression()));
+        }
+        if (loggerPlusPlus.getPreferencesController() != null) {
+            FilterExpression doNotLog = loggerPlusPlus.getPreferencesController().getPreferences().getSetting(PREF_DO_NOT_LOG_IF_MATCH);
+            if (doNotLog != null) filters.add(new ActiveFilter("Do Not Log", doNotLog));
+        }
+        for (Tag tag : libraryController.getTags().values()) {
+            if (tag.isEnabled() && tag.getFilterExpression() != null) {
+                filters.add(new ActiveFilter("Tag: " + tag.getName(), tag.getFilterExpression()));
+            }
+        }
+        for (TableColorRule colorRule : libraryController.getColorFilters().values()) {
+            if (colorRule.isEnabled() && colorRule.getFilterExpression() != null) {
+                filters.add(new ActiveFilter("Color Filter: " + colorRule.getName(), colorRule.getFilterExpression()));
+            }
+        }
+        if (loggerPlusPlus.getExportController() != null) {
+            for (AutomaticLogExporter exporter : loggerPlusPlus.getExportController().getEnabledExporters()) {
+                LogTableFilter exportFilter = exporter.getLogFilter();
+                if (exportFilter != null) {
+                    filters.add(new ActiveFilter("Exporter: " + exporter.getClass().getSimpleName(), exportFilter.getFilterExpression()));
+                }
+            }
+        }
+        //A snippet's clauses are evaluated through the aliases referring to it, so combine every use of the snippet.
+        for (SavedFilter snippet : libraryController.getFilterSnippets()) {
+            if (snippet.getFilterExpression() != null) {
+                filters.add(new ActiveFilter("Snippet: #" + snippet.getName(), snippet.getFilterExpression()));
+            }
+        }
+        return filters;
+    }
+
+    private void addClauses(String filterName, Node node, int depth, List<ProfileRow> rows) {
+        if (node instanceof ASTExpression) {
+            ASTExpression expression = (ASTExpression) node;
+            if (expression.getLogicalOperator() != null) {
+                rows.add(new ProfileRow(filterName, (expression.isInverse() ? "NOT " : "") + expression.getLogicalOperator().getLabel(),
+                        depth, expression.getStatistics(), false));
+                for (Node child : planner.getPlannedOrder(expression)) {
+                    addClauses(filterName, child, depth + 1, rows);
+                }
+            } else if (expression.isInverse()) {
+                rows.add(new ProfileRow(filterName, "NOT", depth, expression.getStatistics(), false));
+                addClauses(filterName, expression.jjtGetChild(0), depth + 1, rows);
+            } else {
+                addClauses(filterName, expression.jjtGetChild(0), depth, rows);
+            }
+        } else {
+            rows.add(new ProfileRow(filterName, node.getFilterString(), depth, ((SimpleNode) node).getStatistics(), true));
+        }
+    }
+
+    private static class ActiveFilter {
+        private final String name;
+        private final FilterExpression expression;
+
+        private ActiveFilter(String name, FilterExpression expression) {
+            this.name = name;
+            this.expression = expression;
+        }
+    }
+
+    @Getter
+    public static class ProfileRow {
+        private final String filterName;
+        private final String description;
+        //0 for the row summarising the whole filter.
+        private final int depth;
+        private final EvaluationStatistics statistics;
+        //Whether this is a comparison or alias, rather than a logical operator.
+        private final boolean clause;
+        //Whether this clause is among those which took the most time.
+        private boolean expensive;
+
+        private ProfileRow(String filterName, String description, int depth, EvaluationStatistics statistics, boolean clause) {
+            this.filterName = filterName;
+            this.description = description;
+            this.depth = depth;
+            this.statistics = statistics;
+            this.clause = clause;
+        }
+    }
+}
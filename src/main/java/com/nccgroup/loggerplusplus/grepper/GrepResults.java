@@ -42,6 +42,7 @@ public class GrepResults {
         return responseMatches;
     }
 
+    //The positions of a match are offsets into the bytes of the message, for marking it.
     public static class Match {
         public final String[] groups;
         public final int startIndex;
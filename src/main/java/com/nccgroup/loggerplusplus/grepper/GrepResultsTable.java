@@ -1,6 +1,7 @@
 package com.nccgroup.loggerplusplus.grepper;
 
 import com.nccgroup.loggerplusplus.LoggerPlusPlus;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
 import com.nccgroup.loggerplusplus.logview.logtable.LogTable;
 import org.jdesktop.swingx.JXTree;
 import org.jdesktop.swingx.JXTreeTable;
@@ -14,7 +15,9 @@ import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 public class GrepResultsTable extends JXTreeTable implements GrepperListener {
 
@@ -45,8 +48,8 @@ public class GrepResultsTable extends JXTreeTable implements GrepperListener {
                     } else if (obj instanceof GrepResults.Match) {
                         obj = ((GrepResults) path.getPathComponent(path.getPathCount() - 2)).getLogEntry();
                     }
-                    final int index = controller.getLogTableController()
-                                                    .getLogTable().getModel().getData().indexOf(obj);
+                    final int index = obj instanceof LogEntry ? controller.getLogTableController()
+                                                    .getLogTable().getModel().indexOf((LogEntry) obj) : -1;
                     JMenuItem viewInLogs = new JMenuItem(new AbstractAction("View in Logs") {
                         @Override
                         public void actionPerformed(ActionEvent actionEvent) {
@@ -99,13 +102,13 @@ public class GrepResultsTable extends JXTreeTable implements GrepperListener {
     }
 
     @Override
-    public void onEntryProcessed(GrepResults entryResults) {
-        if(entryResults != null) tableModel.addEntry(entryResults);
+    public void onEntriesProcessed(List<GrepResults> entryResults, int entriesProcessed) {
+        tableModel.addEntries(entryResults);
     }
 
     @Override
     public void onSearchComplete() {
-        tableModel.reload();
+
     }
 
     @Override
@@ -120,7 +123,7 @@ public class GrepResultsTable extends JXTreeTable implements GrepperListener {
 
     @Override
     public void onShutdownComplete() {
-        tableModel.reload();
+
     }
 
 
@@ -139,17 +142,19 @@ public class GrepResultsTable extends JXTreeTable implements GrepperListener {
             ((AbstractTableModel) GrepResultsTable.this.getModel()).fireTableStructureChanged();
         }
 
-        public void addEntry(GrepResults matches){
-            if (matches.getMatches().size() == 0) return;
+        //Results are added as they arrive, so rows already shown keep their expansion and selection.
+        public void addEntries(List<GrepResults> entries){
+            int[] indices;
+            Object[] added;
             synchronized (this.matchingEntries) {
-                this.matchingEntries.add(matches);
-            }
-        }
-
-        public void reload(){
-            synchronized (matchingEntries) {
-                modelSupport.fireNewRoot();
+                int first = this.matchingEntries.size();
+                for (GrepResults matches : entries) {
+                    if (matches.getMatches().size() > 0) this.matchingEntries.add(matches);
+                }
+                indices = IntStream.range(first, this.matchingEntries.size()).toArray();
+                added = this.matchingEntries.subList(first, this.matchingEntries.size()).toArray();
             }
+            if (indices.length > 0) modelSupport.fireChildrenAdded(new TreePath(getRoot()), indices, added);
         }
 
         @Override
@@ -208,7 +213,9 @@ public class GrepResultsTable extends JXTreeTable implements GrepperListener {
             if(parent instanceof GrepResults){
                 return ((GrepResults) parent).getMatches().indexOf(child);
             }
-            return -1;
+            synchronized (matchingEntries) {
+                return this.matchingEntries.indexOf(child);
+            }
         }
 
         public void reset() {
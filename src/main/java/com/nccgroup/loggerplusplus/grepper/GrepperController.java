@@ -1,21 +1,21 @@
 package com.nccgroup.loggerplusplus.grepper;
 
+import burp.api.montoya.core.ByteArray;
 import burp.api.montoya.core.Marker;
-import burp.api.montoya.core.Range;
 import burp.api.montoya.http.message.HttpRequestResponse;
 import com.coreyd97.BurpExtenderUtilities.Preferences;
-import com.nccgroup.loggerplusplus.LoggerPlusPlus;
 import com.nccgroup.loggerplusplus.logentry.LogEntry;
 import com.nccgroup.loggerplusplus.logview.logtable.LogTableController;
 import com.nccgroup.loggerplusplus.preferences.PreferencesController;
-import com.nccgroup.loggerplusplus.util.Globals;
-import com.nccgroup.loggerplusplus.util.NamedThreadFactory;
+import com.nccgroup.loggerplusplus.regex.LinearRegex;
+import com.nccgroup.loggerplusplus.util.ByteArrayCharSequence;
+import com.nccgroup.loggerplusplus.util.RegexBudget;
+import com.nccgroup.loggerplusplus.util.RegexTimeoutException;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,15 +25,13 @@ public class GrepperController {
     private final Preferences preferences;
     private final GrepperPanel grepPanel;
     private final ArrayList<GrepperListener> listeners;
-    private final AtomicInteger remainingEntries;
-
-    private ExecutorService searchExecutor;
+    private final GrepperSearchEngine searchEngine;
 
     public GrepperController(LogTableController logTableController, PreferencesController preferencesController){
         this.logTableController = logTableController;
         this.preferences = preferencesController.getPreferences();
         this.listeners = new ArrayList<>();
-        this.remainingEntries = new AtomicInteger(0);
+        this.searchEngine = new GrepperSearchEngine(this, logTableController, preferences);
         this.grepPanel = new GrepperPanel(this, preferences);
     }
 
@@ -46,17 +44,11 @@ public class GrepperController {
     }
 
     public boolean isSearching(){
-        return remainingEntries.get() > 0;
+        return searchEngine.isSearching();
     }
 
-    public void reset() { //TODO SwingWorker
-        for (GrepperListener listener : this.listeners) {
-            try {
-                listener.onResetRequested();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
+    public void reset() {
+        notifyListeners(GrepperListener::onResetRequested);
     }
 
     public HttpRequestResponse addMarkers(HttpRequestResponse requestResponse, List<GrepResults.Match> matches) {
@@ -71,110 +63,77 @@ public class GrepperController {
     }
 
     public void beginSearch(final Pattern pattern, final boolean inScopeOnly, final boolean searchRequests, final boolean searchResponses) {
-        int searchThreads = this.preferences.getSetting(Globals.PREF_SEARCH_THREADS);
-        this.searchExecutor = Executors.newFixedThreadPool(searchThreads, new NamedThreadFactory("LPP-Grepper"));
-
-        new Thread(() -> {
-            ArrayList<LogEntry> logEntries = new ArrayList<>(LoggerPlusPlus.instance.getLogViewController().getLogTableController().getLogTableModel().getData());
-            remainingEntries.getAndSet(logEntries.size());
-
-            this.listeners.forEach(listener -> {
-                listener.onSearchStarted(pattern, logEntries.size());
-            });
-
-            for (LogEntry logEntry : logEntries) {
-                searchExecutor.submit(createProcessThread(logEntry, pattern, inScopeOnly, searchRequests, searchResponses));
-            }
-        }).start();
+        searchEngine.begin(pattern, inScopeOnly, searchRequests, searchResponses);
     }
 
-    private GrepResults processEntry(LogEntry entry, Pattern pattern, final boolean searchRequests, final boolean searchResponses) {
+    static GrepResults processEntry(LogEntry entry, Pattern pattern, LinearRegex linearRegex, RegexBudget regexBudget, final boolean searchRequests, final boolean searchResponses, BooleanSupplier cancelled) {
         GrepResults grepResults = null;
         if (entry != null) {
             grepResults = new GrepResults(entry);
-            if (entry.getRequestBytes() != null && searchRequests) {
-                processMatches(grepResults, pattern, entry.getRequestBytes(), true);
+            if (entry.getRequest() != null && searchRequests) {
+                processMatches(grepResults, pattern, linearRegex, regexBudget, entry.getRequest().toByteArray(), true, cancelled);
             }
-            if (entry.getResponseBytes() != null && searchResponses) {
-                processMatches(grepResults, pattern, entry.getResponseBytes(), false);
+            if (entry.getResponse() != null && searchResponses) {
+                processMatches(grepResults, pattern, linearRegex, regexBudget, entry.getResponse().toByteArray(), false, cancelled);
             }
         }
         return grepResults;
     }
 
-    private void processMatches(GrepResults grepResults, Pattern pattern, byte[] content, boolean isRequest) {
-        final Matcher respMatcher = pattern.matcher(new String(content));
-        while (respMatcher.find() && !Thread.currentThread().isInterrupted()) {
+    private static void processMatches(GrepResults grepResults, Pattern pattern, LinearRegex linearRegex, RegexBudget regexBudget, ByteArray content, boolean isRequest, BooleanSupplier cancelled) {
+        //The message is read in place rather than copied to a string, so match positions are mapped back to bytes.
+        ByteArrayCharSequence text = ByteArrayCharSequence.of(content);
+        if (linearRegex != null && Boolean.FALSE.equals(linearRegex.find(text))) return;
+        final Matcher respMatcher;
+        try {
+            respMatcher = pattern.matcher(regexBudget.limit(text));
+        } catch (RegexTimeoutException e) {
+            regexBudget.recordTimeout(pattern, grepResults.getLogEntry());
+            return;
+        }
+        //A message may hold many matches, so a cancelled search stops partway through it.
+        while (!cancelled.getAsBoolean()) {
+            try {
+                if (!respMatcher.find()) break;
+            } catch (RegexTimeoutException e) {
+                //Keep the matches found so far, but give up on the rest of the message.
+                regexBudget.recordTimeout(pattern, grepResults.getLogEntry());
+                break;
+            }
             String[] groups = new String[respMatcher.groupCount() + 1];
             for (int i = 0; i < groups.length; i++) {
                 groups[i] = respMatcher.group(i);
             }
 
+            int start = text.byteOffset(respMatcher.start()), end = text.byteOffset(respMatcher.end());
             if (isRequest) {
-                grepResults.addRequestMatch(new GrepResults.Match(groups, true, respMatcher.start(), respMatcher.end()));
+                grepResults.addRequestMatch(new GrepResults.Match(groups, true, start, end));
             } else {
-                grepResults.addResponseMatch(new GrepResults.Match(groups, false, respMatcher.start(), respMatcher.end()));
+                grepResults.addResponseMatch(new GrepResults.Match(groups, false, start, end));
             }
         }
     }
 
-    private Runnable createProcessThread(final LogEntry logEntry, final Pattern pattern,
-                                         final boolean inScopeOnly, final boolean searchRequests, final boolean searchResponses) {
-        return () -> {
-            try {
-                if (Thread.currentThread().isInterrupted()) return;
-                GrepResults grepResults = null;
-                if (!inScopeOnly || LoggerPlusPlus.isUrlInScope(logEntry.getUrlString())) {
-                    grepResults = processEntry(logEntry, pattern, searchRequests, searchResponses);
-                }
-                for (GrepperListener listener : this.listeners) {
-                    try {
-                        listener.onEntryProcessed(grepResults);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-            }finally {
-                int remaining = remainingEntries.decrementAndGet();
-                if (remaining == 0) {
-                    for (GrepperListener listener : listeners) {
-                        try {
-                            listener.onSearchComplete();
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
-                    }
-                }
-            }
-        };
-    }
-
     public void cancelSearch(){
-        new Thread(() -> {
-            for (GrepperListener listener : listeners) {
-                listener.onShutdownInitiated();
-            }
+        searchEngine.cancel();
+    }
 
-            searchExecutor.shutdownNow();
-            while (!searchExecutor.isTerminated()){
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
+    public void shutdown() {
+        searchEngine.shutdown();
+    }
 
-            for (GrepperListener listener : listeners) {
-                try {
-                    listener.onShutdownComplete();
-                }catch (Exception e){
-                    e.printStackTrace();
-                }
+    void notifyListeners(Consumer<GrepperListener> event) {
+        List<GrepperListener> listeners;
+        synchronized (this.listeners) {
+            listeners = new ArrayList<>(this.listeners);
+        }
+        for (GrepperListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (Exception e) {
+                e.printStackTrace();
             }
-
-            remainingEntries.set(0);
-        }).start();
-
+        }
     }
 
     public void addListener(GrepperListener listener){
@@ -1,10 +1,19 @@
 package com.nccgroup.loggerplusplus.grepper;
 
+import java.util.List;
 import java.util.regex.Pattern;
 
+/**
+ * Notified of the progress of searches, always on the event dispatch thread.
+ */
 public interface GrepperListener {
     void onSearchStarted(Pattern pattern, int searchEntries);
-    void onEntryProcessed(GrepResults entryResults);
+
+    /**
+     * @param entryResults The results for entries searched since the last call which matched the pattern.
+     * @param entriesProcessed How many entries were searched since the last call, including those which didn't match.
+     */
+    void onEntriesProcessed(List<GrepResults> entryResults, int entriesProcessed);
     void onResetRequested();
     void onSearchComplete();
     void onShutdownInitiated();
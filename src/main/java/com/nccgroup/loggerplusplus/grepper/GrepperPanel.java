@@ -148,22 +148,18 @@ public class GrepperPanel extends JPanel implements GrepperListener {
 
     @Override
     public void onSearchStarted(Pattern pattern, int totalRequests) {
-        SwingUtilities.invokeLater(() -> {
-            this.searchRequests.setEnabled(false);
-            this.searchResponses.setEnabled(false);
-            this.searchField.setEnabled(false);
-            this.resetButton.setEnabled(false);
-            this.searchButton.setText("Cancel");
-            this.progressBar.setMaximum(totalRequests);
-            this.progressBar.setValue(0);
-        });
+        this.searchRequests.setEnabled(false);
+        this.searchResponses.setEnabled(false);
+        this.searchField.setEnabled(false);
+        this.resetButton.setEnabled(false);
+        this.searchButton.setText("Cancel");
+        this.progressBar.setMaximum(totalRequests);
+        this.progressBar.setValue(0);
     }
 
     @Override
-    public synchronized void onEntryProcessed(GrepResults entryResults) {
-        SwingUtilities.invokeLater(() -> {
-            this.progressBar.setValue(this.progressBar.getValue()+1);
-        });
+    public void onEntriesProcessed(List<GrepResults> entryResults, int entriesProcessed) {
+        this.progressBar.setValue(this.progressBar.getValue() + entriesProcessed);
     }
 
     @Override
@@ -178,9 +174,7 @@ public class GrepperPanel extends JPanel implements GrepperListener {
 
     @Override
     public void onShutdownInitiated() {
-        SwingUtilities.invokeLater(() -> {
-            this.searchButton.setText("Stopping...");
-        });
+        this.searchButton.setText("Stopping...");
     }
 
     @Override
@@ -189,13 +183,11 @@ public class GrepperPanel extends JPanel implements GrepperListener {
     }
 
     private void unlockUI() {
-        SwingUtilities.invokeLater(() -> {
-            this.searchButton.setText("Search");
-            this.progressBar.setValue(0);
-            this.searchField.setEnabled(true);
-            this.resetButton.setEnabled(true);
-            this.searchRequests.setEnabled(true);
-            this.searchResponses.setEnabled(true);
-        });
+        this.searchButton.setText("Search");
+        this.progressBar.setValue(0);
+        this.searchField.setEnabled(true);
+        this.resetButton.setEnabled(true);
+        this.searchRequests.setEnabled(true);
+        this.searchResponses.setEnabled(true);
     }
 }
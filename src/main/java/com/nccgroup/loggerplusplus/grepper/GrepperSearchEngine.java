@@ -0,0 +1,256 @@
+package com.nccgroup.loggerplusplus.grepper;
+
+import com.coreyd97.BurpExtenderUtilities.Preferences;
+import com.nccgroup.loggerplusplus.LoggerPlusPlus;
+import com.nccgroup.loggerplusplus.index.CompressedBitmap;
+import com.nccgroup.loggerplusplus.index.TrigramIndex;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import com.nccgroup.loggerplusplus.logview.logtable.LogTableController;
+import com.nccgroup.loggerplusplus.regex.LinearRegex;
+import com.nccgroup.loggerplusplus.util.Globals;
+import com.nccgroup.loggerplusplus.util.RegexBudget;
+import lombok.extern.log4j.Log4j2;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Searches every entry in the log for a pattern, with the log partitioned across a pool of background threads
+ * which is kept between searches.
+ * <p>
+ * Each task collects the results for its part of the log and adds them to the search once done, and the results
+ * found so far are periodically handed to the listeners together on the event dispatch thread. A search is
+ * cancelled cooperatively, with the tasks checking before each entry and each match whether they should stop. A
+ * search begun while another is running cancels it, and starts once it has stopped.
+ */
+@Log4j2
+class GrepperSearchEngine {
+
+    //How many entries are searched by each task before it is no longer split.
+    private static final int BATCH_SIZE = 64;
+    //The interval between handing results to the listeners, in milliseconds.
+    private static final int DELIVERY_INTERVAL = 100;
+
+    private final GrepperController controller;
+    private final LogTableController logTableController;
+    private final Preferences preferences;
+    private final Timer deliveryTimer;
+    private final AtomicInteger threadCount;
+    //Guarded by this.
+    private ForkJoinPool pool;
+    private volatile Search current;
+    //The search whose tasks are on the pool, which may have been superseded by the current one. Accessed only on the
+    //event dispatch thread.
+    private Search running;
+
+    GrepperSearchEngine(GrepperController controller, LogTableController logTableController, Preferences preferences) {
+        this.controller = controller;
+        this.logTableController = logTableController;
+        this.preferences = preferences;
+        this.deliveryTimer = new Timer(DELIVERY_INTERVAL, e -> deliver());
+        this.threadCount = new AtomicInteger();
+    }
+
+    boolean isSearching() {
+        return current != null;
+    }
+
+    void begin(Pattern pattern, boolean inScopeOnly, boolean searchRequests, boolean searchResponses) {
+        Search search = new Search(pattern, inScopeOnly, searchRequests, searchResponses);
+        current = search;
+        if (running == null) {
+            start(search);
+        } else if (!running.cancelled) {
+            running.cancelled = true;
+            controller.notifyListeners(GrepperListener::onShutdownInitiated);
+        }
+    }
+
+    void cancel() {
+        Search search = current;
+        if (search == null || search.cancelled) return;
+        search.cancelled = true;
+        controller.notifyListeners(GrepperListener::onShutdownInitiated);
+    }
+
+    synchronized void shutdown() {
+        Search search = current;
+        if (search != null) search.cancelled = true;
+        current = null;
+        deliveryTimer.stop();
+        if (pool != null) pool.shutdownNow();
+    }
+
+    //The pool is replaced if the number of search threads has been changed since it was created. Any search
+    //still running on the old pool has been cancelled, so is left to finish.
+    private synchronized ForkJoinPool getPool() {
+        int threads = Math.max(1, preferences.getSetting(Globals.PREF_SEARCH_THREADS));
+        if (pool == null || pool.getParallelism() != threads) {
+            if (pool != null) pool.shutdown();
+            pool = new ForkJoinPool(threads, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("LPP-Grepper-Thread-" + threadCount.incrementAndGet());
+                return thread;
+            }, null, false);
+        }
+        return pool;
+    }
+
+    private void start(Search search) {
+        running = search;
+        getPool().execute(search::run);
+        deliveryTimer.start();
+    }
+
+    private void deliver() {
+        Search search = current;
+        if (search == null) {
+            deliveryTimer.stop();
+            return;
+        }
+        search.deliver();
+    }
+
+    private void complete(Search search) {
+        running = null;
+        if (current != search) {
+            //Superseded by a new search, which waited for this one to stop, unless the engine was shut down.
+            Search next = current;
+            if (next == null) return;
+            controller.notifyListeners(GrepperListener::onShutdownComplete);
+            if (next.cancelled) {
+                current = null;
+                deliveryTimer.stop();
+            } else {
+                start(next);
+            }
+            return;
+        }
+        current = null;
+        deliveryTimer.stop();
+        search.deliver();
+        if (search.cancelled) {
+            controller.notifyListeners(GrepperListener::onShutdownComplete);
+        } else {
+            controller.notifyListeners(GrepperListener::onSearchComplete);
+            search.regexBudget.showTimeouts("Search Timed Out");
+        }
+    }
+
+    private class Search {
+        private final Pattern pattern;
+        private final LinearRegex linearRegex;
+        private final RegexBudget regexBudget;
+        private final boolean inScopeOnly;
+        private final boolean searchRequests;
+        private final boolean searchResponses;
+        private CompressedBitmap requestExclusions;
+        private CompressedBitmap responseExclusions;
+        private volatile boolean cancelled;
+        //The results and number of entries searched since the last delivery. Guarded by this.
+        private List<GrepResults> results;
+        private int processed;
+
+        private Search(Pattern pattern, boolean inScopeOnly, boolean searchRequests, boolean searchResponses) {
+            this.pattern = pattern;
+            //Where the pattern allows, messages are first checked for a match in linear time, so only those
+            //which match are searched with the pattern itself to find where.
+            this.linearRegex = LinearRegex.compile(pattern);
+            this.regexBudget = RegexBudget.forQuery();
+            this.inScopeOnly = inScopeOnly;
+            this.searchRequests = searchRequests;
+            this.searchResponses = searchResponses;
+            this.results = new ArrayList<>();
+        }
+
+        private void run() {
+            try {
+                if (cancelled) return;
+                List<LogEntry> entries = logTableController.getLogTableModel().getSnapshot();
+
+                //Messages which lack a trigram the pattern requires can't match, and needn't be searched.
+                TrigramIndex trigramIndex = logTableController.getLogTableModel().getEntryIndexes().getTrigramIndex();
+                requestExclusions = searchRequests ? trigramIndex.findExclusions(TrigramIndex.Section.REQUEST, pattern) : null;
+                responseExclusions = searchResponses ? trigramIndex.findExclusions(TrigramIndex.Section.RESPONSE, pattern) : null;
+
+                SwingUtilities.invokeLater(() -> {
+                    if (current == this) controller.notifyListeners(listener -> listener.onSearchStarted(pattern, entries.size()));
+                });
+                new SearchRange(this, entries, 0, entries.size()).invoke();
+            } catch (Exception e) {
+                log.error(e);
+            } finally {
+                SwingUtilities.invokeLater(() -> complete(this));
+            }
+        }
+
+        private GrepResults search(LogEntry entry) {
+            if (inScopeOnly && !LoggerPlusPlus.isUrlInScope(entry.getUrlString())) return null;
+            boolean searchRequest = searchRequests && (requestExclusions == null || !requestExclusions.contains(entry.getSequence()));
+            boolean searchResponse = searchResponses && (responseExclusions == null || !responseExclusions.contains(entry.getSequence()));
+            return GrepperController.processEntry(entry, pattern, linearRegex, regexBudget, searchRequest, searchResponse, () -> cancelled);
+        }
+
+        private synchronized void addResults(List<GrepResults> batch, int count) {
+            results.addAll(batch);
+            processed += count;
+        }
+
+        private void deliver() {
+            List<GrepResults> batch;
+            int count;
+            synchronized (this) {
+                batch = results;
+                count = processed;
+                results = new ArrayList<>();
+                processed = 0;
+            }
+            if (count > 0) controller.notifyListeners(listener -> listener.onEntriesProcessed(batch, count));
+        }
+    }
+
+    private static class SearchRange extends RecursiveAction {
+        private final Search search;
+        private final List<LogEntry> entries;
+        private final int start;
+        private final int end;
+
+        private SearchRange(Search search, List<LogEntry> entries, int start, int end) {
+            this.search = search;
+            this.entries = entries;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (search.cancelled) return;
+            if (end - start > BATCH_SIZE) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new SearchRange(search, entries, start, middle), new SearchRange(search, entries, middle, end));
+                return;
+            }
+
+            //Only entries with matches are kept, as there's nothing to show for the rest.
+            List<GrepResults> results = new ArrayList<>();
+            int count = 0;
+            for (int i = start; i < end && !search.cancelled; i++) {
+                //An entry which can't be searched is skipped, rather than abandoning the rest of the range.
+                try {
+                    GrepResults grepResults = search.search(entries.get(i));
+                    if (grepResults != null && !grepResults.getMatches().isEmpty()) results.add(grepResults);
+                } catch (Exception e) {
+                    log.error(e);
+                }
+                count++;
+            }
+            search.addResults(results, count);
+        }
+    }
+}
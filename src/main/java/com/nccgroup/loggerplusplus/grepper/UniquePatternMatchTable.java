@@ -6,6 +6,7 @@ import javax.swing.table.AbstractTableModel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.regex.Pattern;
 
 public class UniquePatternMatchTable extends JTable implements GrepperListener {
@@ -40,12 +41,12 @@ public class UniquePatternMatchTable extends JTable implements GrepperListener {
             synchronized (entryKeys) {
                 for (GrepResults.Match result : entry.getMatches()) {
                     String key = result.groups[0];
-                    int index = entryKeys.indexOf(key);
-                    if (index == -1) {
+                    UniqueMatch uniqueMatch = valueCountMap.get(key);
+                    if (uniqueMatch == null) {
                         entryKeys.add(key);
                         valueCountMap.put(key, new UniqueMatch(result.groups));
                     } else {
-                        valueCountMap.get(key).increment();
+                        uniqueMatch.increment();
                     }
                 }
             }
@@ -60,8 +61,15 @@ public class UniquePatternMatchTable extends JTable implements GrepperListener {
     }
 
     @Override
-    public void onEntryProcessed(GrepResults entryResults) {
-        if(entryResults != null) addEntry(entryResults);
+    public void onEntriesProcessed(List<GrepResults> entryResults, int entriesProcessed) {
+        int existing = entryKeys.size();
+        for (GrepResults entry : entryResults) {
+            addEntry(entry);
+        }
+        UniqueValueTableModel model = (UniqueValueTableModel) this.getModel();
+        //Counts of values already shown may have changed, as well as new values being added.
+        if (existing > 0) model.fireTableRowsUpdated(0, existing - 1);
+        if (entryKeys.size() > existing) model.fireTableRowsInserted(existing, entryKeys.size() - 1);
     }
 
     @Override
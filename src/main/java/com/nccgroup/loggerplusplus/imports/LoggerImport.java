@@ -76,14 +76,18 @@ public class LoggerImport {
     }
 
     public static ArrayList<HttpRequestResponse> importWStalker() {
-        ArrayList<String> lines;
-        ArrayList<HttpRequestResponse> requests = new ArrayList<>();
-        
         String filename = getLoadFile();
         if ( filename.length() == 0 ) { // exit if no file selected
             return new ArrayList<>();
         }
 
+        return importWStalker(filename);
+    }
+
+    public static ArrayList<HttpRequestResponse> importWStalker(String filename) {
+        ArrayList<String> lines;
+        ArrayList<HttpRequestResponse> requests = new ArrayList<>();
+
         lines = readFile(filename);
         Iterator<String> i = lines.iterator();
         
@@ -93,7 +97,7 @@ public class LoggerImport {
                 String[] v = line.split(","); // Format: "base64(request),base64(response),url"
 
                 String url = v[3];
-                Base64Utils b64Decoder = LoggerPlusPlus.montoya.utilities().base64Utils();
+                Base64Utils b64Decoder = LoggerPlusPlus.context.getMontoya().utilities().base64Utils();
                 HttpService httpService = HttpService.httpService(url);
                 HttpRequest httpRequest = HttpRequest.httpRequest(httpService, b64Decoder.decode(v[0], Base64DecodingOptions.URL));
                 HttpResponse httpResponse = HttpResponse.httpResponse(b64Decoder.decode(v[1], Base64DecodingOptions.URL));
@@ -0,0 +1,412 @@
+package com.nccgroup.loggerplusplus.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of non-negative integers, in the style of a Roaring bitmap.
+ * <p>
+ * Values are partitioned on their high 16 bits. Each partition stores its low 16 bits either as a sorted array,
+ * while sparse, or as a fixed 8KB bitset once it holds more than {@value #ARRAY_CONTAINER_MAX} values.
+ * Used to record which entries (by {@link com.nccgroup.loggerplusplus.logentry.LogEntry#getSequence()}) belong to a
+ * rule or an index key. All methods are thread safe.
+ */
+public class CompressedBitmap {
+
+    private static final int ARRAY_CONTAINER_MAX = 4096;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    public CompressedBitmap() {
+        this.keys = new char[4];
+        this.containers = new Container[4];
+    }
+
+    private CompressedBitmap(char[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    /**
+     * @return True if the value was not already present.
+     */
+    public synchronized boolean add(int value) {
+        char high = (char) (value >>> 16);
+        int index = findKey(high);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, high, new ArrayContainer());
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        containers[index] = container.add((char) value);
+        return containers[index].cardinality() != before;
+    }
+
+    /**
+     * @return True if the value was present.
+     */
+    public synchronized boolean remove(int value) {
+        int index = findKey((char) (value >>> 16));
+        if (index < 0) return false;
+        Container container = containers[index];
+        int before = container.cardinality();
+        containers[index] = container.remove((char) value);
+        if (containers[index].cardinality() == 0) {
+            removeContainer(index);
+            return true;
+        }
+        return containers[index].cardinality() != before;
+    }
+
+    public synchronized boolean contains(int value) {
+        int index = findKey((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    public synchronized int getCardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized void clear() {
+        this.keys = new char[4];
+        this.containers = new Container[4];
+        this.size = 0;
+    }
+
+    /**
+     * Visit each value in ascending order. The bitmap is locked for the duration, so the consumer must not block.
+     */
+    public synchronized void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    public int[] toArray() {
+        CompressedBitmap snapshot = copy();
+        int[] values = new int[snapshot.getCardinality()];
+        int[] position = new int[1];
+        snapshot.forEach(value -> values[position[0]++] = value);
+        return values;
+    }
+
+    public synchronized CompressedBitmap copy() {
+        Container[] copiedContainers = new Container[containers.length];
+        for (int i = 0; i < size; i++) {
+            copiedContainers[i] = containers[i].copy();
+        }
+        return new CompressedBitmap(Arrays.copyOf(keys, keys.length), copiedContainers, size);
+    }
+
+    /**
+     * @return A new bitmap containing the values present in both bitmaps.
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap a = this.copy(), b = other.copy();
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) i++;
+            else if (a.keys[i] > b.keys[j]) j++;
+            else {
+                Container container = a.containers[i].and(b.containers[j]);
+                if (container.cardinality() > 0) result.appendContainer(a.keys[i], container);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return A new bitmap containing the values present in either bitmap.
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap a = this.copy(), b = other.copy();
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0, j = 0;
+        while (i < a.size || j < b.size) {
+            if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.appendContainer(a.keys[i], a.containers[i]);
+                i++;
+            } else if (i >= a.size || b.keys[j] < a.keys[i]) {
+                result.appendContainer(b.keys[j], b.containers[j]);
+                j++;
+            } else {
+                result.appendContainer(a.keys[i], a.containers[i].or(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return A new bitmap containing the values of this bitmap which are not present in the other.
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap a = this.copy(), b = other.copy();
+        CompressedBitmap result = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) j++;
+            Container container = a.containers[i];
+            if (j < b.size && b.keys[j] == a.keys[i]) container = container.andNot(b.containers[j]);
+            if (container.cardinality() > 0) result.appendContainer(a.keys[i], container);
+        }
+        return result;
+    }
+
+    /**
+     * Approximate heap usage in bytes.
+     */
+    public synchronized long getSizeInBytes() {
+        long bytes = 32L + keys.length * 2L + containers.length * 4L;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private int findKey(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        ensureCapacity();
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void appendContainer(char key, Container container) {
+        ensureCapacity();
+        keys[size] = key;
+        containers[size] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    private void ensureCapacity() {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+    }
+
+    private abstract static class Container {
+        abstract Container add(char value);
+        abstract Container remove(char value);
+        abstract boolean contains(char value);
+        abstract int cardinality();
+        abstract void forEach(int high, IntConsumer consumer);
+        abstract Container copy();
+        abstract long sizeInBytes();
+        abstract BitmapContainer toBitmap();
+
+        Container and(Container other) {
+            if (this instanceof ArrayContainer) {
+                ArrayContainer result = new ArrayContainer();
+                ArrayContainer array = (ArrayContainer) this;
+                for (int i = 0; i < array.cardinality; i++) {
+                    if (other.contains(array.values[i])) result.append(array.values[i]);
+                }
+                return result;
+            } else if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            BitmapContainer result = this.toBitmap();
+            long[] words = ((BitmapContainer) other).words;
+            for (int i = 0; i < result.words.length; i++) result.words[i] &= words[i];
+            return result.recount();
+        }
+
+        Container or(Container other) {
+            BitmapContainer result = this.toBitmap();
+            long[] words = other.toBitmap().words;
+            for (int i = 0; i < result.words.length; i++) result.words[i] |= words[i];
+            return result.recount();
+        }
+
+        Container andNot(Container other) {
+            if (this instanceof ArrayContainer) {
+                ArrayContainer result = new ArrayContainer();
+                ArrayContainer array = (ArrayContainer) this;
+                for (int i = 0; i < array.cardinality; i++) {
+                    if (!other.contains(array.values[i])) result.append(array.values[i]);
+                }
+                return result;
+            }
+            BitmapContainer result = this.toBitmap();
+            long[] words = other.toBitmap().words;
+            for (int i = 0; i < result.words.length; i++) result.words[i] &= ~words[i];
+            return result.recount();
+        }
+    }
+
+    private static class ArrayContainer extends Container {
+        private char[] values = new char[4];
+        private int cardinality;
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) return this;
+            if (cardinality >= ARRAY_CONTAINER_MAX) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) values = Arrays.copyOf(values, Math.min(cardinality * 2, ARRAY_CONTAINER_MAX));
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        void append(char value) {
+            if (cardinality == values.length) values = Arrays.copyOf(values, cardinality * 2);
+            values[cardinality++] = value;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index < 0) return this;
+            System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+            cardinality--;
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < cardinality; i++) {
+                consumer.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        Container copy() {
+            ArrayContainer copy = new ArrayContainer();
+            copy.values = Arrays.copyOf(values, Math.max(cardinality, 4));
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 24L + values.length * 2L;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.words[values[i] >>> 6] |= 1L << values[i];
+            }
+            bitmap.cardinality = cardinality;
+            return bitmap;
+        }
+    }
+
+    private static class BitmapContainer extends Container {
+        private final long[] words = new long[1024];
+        private int cardinality;
+
+        @Override
+        Container add(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] |= 1L << value;
+            if (before != words[value >>> 6]) cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] &= ~(1L << value);
+            if (before != words[value >>> 6]) cardinality--;
+            return cardinality <= ARRAY_CONTAINER_MAX / 2 ? toArrayContainer() : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(high | (i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        Container copy() {
+            BitmapContainer copy = new BitmapContainer();
+            System.arraycopy(words, 0, copy.words, 0, words.length);
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 24L + words.length * 8L;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            return (BitmapContainer) copy();
+        }
+
+        Container recount() {
+            cardinality = 0;
+            for (long word : words) cardinality += Long.bitCount(word);
+            return cardinality <= ARRAY_CONTAINER_MAX ? toArrayContainer() : this;
+        }
+
+        private ArrayContainer toArrayContainer() {
+            ArrayContainer array = new ArrayContainer();
+            forEach(0, value -> array.append((char) value));
+            return array;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.nccgroup.loggerplusplus.index;
+
+import com.coreyd97.BurpExtenderUtilities.Preferences;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import static com.nccgroup.loggerplusplus.util.Globals.PREF_TEXT_INDEX_MEMORY;
+import static com.nccgroup.loggerplusplus.util.Globals.PREF_TRIGRAM_INDEX_MEMORY;
+
+/**
+ * The secondary indexes kept over the entries in the log table, used to rule out entries before filters are evaluated.
+ */
+@Getter
+public class EntryIndexes {
+
+    private final FieldIndex fieldIndex;
+    private final TextIndex textIndex;
+    private final TrigramIndex trigramIndex;
+
+    public EntryIndexes(Preferences preferences, Supplier<Collection<LogEntry>> liveEntries) {
+        this.fieldIndex = new FieldIndex();
+        this.textIndex = new TextIndex(megabytes(preferences.getSetting(PREF_TEXT_INDEX_MEMORY)), liveEntries);
+        this.trigramIndex = new TrigramIndex(megabytes(preferences.getSetting(PREF_TRIGRAM_INDEX_MEMORY)), liveEntries);
+
+        preferences.addSettingListener((source, settingName, newValue) -> {
+            if (PREF_TEXT_INDEX_MEMORY.equals(settingName)) {
+                textIndex.setMemoryBudget(megabytes(newValue));
+            } else if (PREF_TRIGRAM_INDEX_MEMORY.equals(settingName)) {
+                trigramIndex.setMemoryBudget(megabytes(newValue));
+            }
+        });
+    }
+
+    public void addEntry(LogEntry entry) {
+        fieldIndex.addEntry(entry);
+        textIndex.submit(entry);
+        trigramIndex.submit(entry);
+    }
+
+    public void updateEntry(LogEntry entry) {
+        fieldIndex.addEntry(entry);
+        textIndex.submit(entry);
+        trigramIndex.submit(entry);
+    }
+
+    public void removeEntry(LogEntry entry) {
+        fieldIndex.removeEntry(entry);
+        textIndex.removeEntry(entry);
+        trigramIndex.removeEntry(entry);
+    }
+
+    public void clear() {
+        fieldIndex.clear();
+        textIndex.clear();
+        trigramIndex.clear();
+    }
+
+    public void shutdown() {
+        textIndex.shutdown();
+        trigramIndex.shutdown();
+    }
+
+    private static long megabytes(Object setting) {
+        return ((Integer) setting) * 1024L * 1024L;
+    }
+}
@@ -0,0 +1,168 @@
+package com.nccgroup.loggerplusplus.index;
+
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+import com.nccgroup.loggerplusplus.logentry.Status;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Secondary indexes over the low-cardinality fields of the entries in the log, mapping each field value to
+ * the sequence numbers of the entries holding it.
+ * <p>
+ * Postings are only ever added to while an entry is in the log, so when an entry's value changes (e.g. once its
+ * response arrives) it remains listed under its old value too. Lookups therefore give a superset of the matching
+ * entries, and the full filter must still be evaluated against each candidate. Entries indexed once fully processed
+ * will not change again, so those missing from a lookup are known not to match.
+ */
+public class FieldIndex {
+
+    public static final Set<LogEntryField> INDEXED_FIELDS = EnumSet.of(
+            LogEntryField.HOST, LogEntryField.HOSTNAME, LogEntryField.METHOD, LogEntryField.STATUS,
+            LogEntryField.MIME_TYPE, LogEntryField.INFERRED_TYPE, LogEntryField.EXTENSION,
+            LogEntryField.PROXY_TOOL, LogEntryField.REQUEST_TOOL,
+            LogEntryField.REQUEST_CONTENT_TYPE, LogEntryField.RESPONSE_CONTENT_TYPE);
+
+    //Fields with more distinct values than this are not considered low-cardinality, and stop being indexed.
+    private static final int MAX_DISTINCT_VALUES = 5000;
+    //How many removed entries may linger in the postings before they are compacted.
+    private static final int COMPACTION_THRESHOLD = 10000;
+
+    //The postings, abandoned fields and entry sets are guarded by this, so a lookup never sees an entry as fully
+    //processed without also seeing its postings, or a field part way through being abandoned.
+    private final EnumMap<LogEntryField, HashMap<String, CompressedBitmap>> postings;
+    private final Set<LogEntryField> abandonedFields;
+    private final CompressedBitmap removedEntries;
+    private final CompressedBitmap finalEntries;
+
+    public FieldIndex() {
+        this.postings = new EnumMap<>(LogEntryField.class);
+        for (LogEntryField field : INDEXED_FIELDS) {
+            postings.put(field, new HashMap<>());
+        }
+        this.abandonedFields = EnumSet.noneOf(LogEntryField.class);
+        this.removedEntries = new CompressedBitmap();
+        this.finalEntries = new CompressedBitmap();
+    }
+
+    /**
+     * Index the current values of an entry. Called both when an entry is added and when it is updated.
+     */
+    public void addEntry(LogEntry entry) {
+        //Read the values before locking, as some are derived from the messages.
+        EnumMap<LogEntryField, String> keys = new EnumMap<>(LogEntryField.class);
+        for (LogEntryField field : INDEXED_FIELDS) {
+            keys.put(field, normalise(entry.getValueByKey(field)));
+        }
+        boolean processed = entry.getStatus() == Status.PROCESSED;
+
+        synchronized (this) {
+            for (Map.Entry<LogEntryField, String> key : keys.entrySet()) {
+                LogEntryField field = key.getKey();
+                if (abandonedFields.contains(field)) continue;
+
+                HashMap<String, CompressedBitmap> values = postings.get(field);
+                values.computeIfAbsent(key.getValue(), k -> new CompressedBitmap()).add(entry.getSequence());
+                if (values.size() > MAX_DISTINCT_VALUES) {
+                    abandonedFields.add(field);
+                    values.clear();
+                }
+            }
+            if (processed) {
+                finalEntries.add(entry.getSequence());
+            }
+        }
+    }
+
+    public synchronized void removeEntry(LogEntry entry) {
+        finalEntries.remove(entry.getSequence());
+        removedEntries.add(entry.getSequence());
+        if (removedEntries.getCardinality() > COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    public synchronized void clear() {
+        for (HashMap<String, CompressedBitmap> values : postings.values()) {
+            values.clear();
+        }
+        abandonedFields.clear();
+        removedEntries.clear();
+        finalEntries.clear();
+    }
+
+    public synchronized boolean isIndexed(LogEntryField field) {
+        return INDEXED_FIELDS.contains(field) && !abandonedFields.contains(field);
+    }
+
+    /**
+     * Find the fully processed entries which cannot satisfy {@code field == value}, as evaluated by the filter language.
+     * @return The entries which cannot match, or null if the field is not indexed.
+     */
+    public synchronized CompressedBitmap findExclusionsEqual(LogEntryField field, Object value) {
+        if (!isIndexed(field)) return null;
+        String key;
+        if (field == LogEntryField.STATUS && value instanceof BigDecimal) {
+            //Numeric comparison, the status must equal the number exactly.
+            try {
+                key = ((BigDecimal) value).toBigIntegerExact().toString();
+            } catch (ArithmeticException e) {
+                return finalEntries.copy();
+            }
+        } else {
+            key = normalise(value);
+        }
+        CompressedBitmap posting = postings.get(field).get(key);
+        return posting != null ? finalEntries.andNot(posting) : finalEntries.copy();
+    }
+
+    /**
+     * Find the fully processed entries which cannot satisfy {@code field IN [values]}, as evaluated by the filter language.
+     * @return The entries which cannot match, or null if the field is not indexed.
+     */
+    public synchronized CompressedBitmap findExclusionsIn(LogEntryField field, Collection<?> values) {
+        if (!isIndexed(field)) return null;
+        CompressedBitmap candidates = new CompressedBitmap();
+        for (Object value : values) {
+            CompressedBitmap posting = postings.get(field).get(normalise(value));
+            if (posting != null) candidates = candidates.or(posting);
+        }
+        return finalEntries.andNot(candidates);
+    }
+
+    public synchronized long getSizeInBytes() {
+        long bytes = removedEntries.getSizeInBytes() + finalEntries.getSizeInBytes();
+        for (HashMap<String, CompressedBitmap> values : postings.values()) {
+            for (Map.Entry<String, CompressedBitmap> posting : values.entrySet()) {
+                bytes += 64 + posting.getKey().length() * 2L + posting.getValue().getSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private void compact() {
+        for (HashMap<String, CompressedBitmap> values : postings.values()) {
+            values.replaceAll((key, posting) -> posting.andNot(removedEntries));
+            values.values().removeIf(CompressedBitmap::isEmpty);
+        }
+        removedEntries.clear();
+    }
+
+    /**
+     * Matches the case-insensitive string equality used when evaluating filters.
+     */
+    static String normalise(Object value) {
+        String string = value == null ? "" : String.valueOf(value);
+        char[] chars = string.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+}
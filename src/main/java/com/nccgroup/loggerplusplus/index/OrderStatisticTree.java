@@ -0,0 +1,218 @@
+package com.nccgroup.loggerplusplus.index;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * A sorted collection of distinct values which can also be indexed by position, as a treap whose nodes
+ * record the size of their subtree.
+ * <p>
+ * Adding, removing, finding the value at a position and finding the position of a value all take O(log n) time.
+ * The comparator must order every value in the tree totally and consistently for as long as it is in the tree,
+ * as values are removed and located by comparison. Not thread safe.
+ */
+public class OrderStatisticTree<T> {
+
+    private final Comparator<? super T> comparator;
+    private final SplittableRandom random;
+    private Node<T> root;
+
+    public OrderStatisticTree(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        this.random = new SplittableRandom();
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    /**
+     * Add a value which isn't already in the tree.
+     */
+    public void add(T value) {
+        root = insert(root, new Node<>(value, random.nextInt()));
+    }
+
+    /**
+     * @return True if the value was in the tree.
+     */
+    public boolean remove(T value) {
+        int size = size(root);
+        root = delete(root, value);
+        return size(root) != size;
+    }
+
+    /**
+     * @return The value at the position in sorted order.
+     */
+    public T get(int index) {
+        if (index < 0 || index >= size(root)) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size(root));
+        }
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    /**
+     * @return The position of the value in sorted order, or -1 if it isn't in the tree.
+     */
+    public int indexOf(T value) {
+        Node<T> node = root;
+        int index = 0;
+        while (node != null) {
+            int comparison = comparator.compare(value, node.value);
+            if (comparison < 0) {
+                node = node.left;
+            } else if (comparison > 0) {
+                index += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return index + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replace the contents of the tree with values already sorted by the comparator, in O(n) time.
+     */
+    public void build(List<? extends T> sorted) {
+        //Build the treap as a Cartesian tree: each node becomes the right child of the last on the right spine
+        //with a greater priority, adopting the nodes below it as its left subtree.
+        ArrayDeque<Node<T>> spine = new ArrayDeque<>();
+        for (T value : sorted) {
+            Node<T> node = new Node<>(value, random.nextInt());
+            Node<T> last = null;
+            while (!spine.isEmpty() && spine.peek().priority < node.priority) {
+                last = spine.pop();
+            }
+            node.left = last;
+            if (!spine.isEmpty()) spine.peek().right = node;
+            spine.push(node);
+        }
+        root = spine.peekLast();
+        updateSizes(root);
+    }
+
+    /**
+     * Visit every value in sorted order.
+     */
+    public void forEach(Consumer<? super T> action) {
+        ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> node = root;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            action.accept(node.value);
+            node = node.right;
+        }
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> inserted) {
+        if (node == null) return inserted;
+        if (inserted.priority > node.priority) {
+            split(node, inserted.value, inserted);
+            return update(inserted);
+        }
+        if (comparator.compare(inserted.value, node.value) < 0) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        return update(node);
+    }
+
+    /**
+     * Split the subtree into the values before and after the value, as the children of the target node.
+     */
+    private void split(Node<T> node, T value, Node<T> target) {
+        if (node == null) {
+            target.left = null;
+            target.right = null;
+            return;
+        }
+        if (comparator.compare(value, node.value) < 0) {
+            split(node.left, value, target);
+            node.left = target.right;
+            target.right = update(node);
+        } else {
+            split(node.right, value, target);
+            node.right = target.left;
+            target.left = update(node);
+        }
+    }
+
+    private Node<T> delete(Node<T> node, T value) {
+        if (node == null) return null;
+        int comparison = comparator.compare(value, node.value);
+        if (comparison < 0) {
+            node.left = delete(node.left, value);
+        } else if (comparison > 0) {
+            node.right = delete(node.right, value);
+        } else {
+            return merge(node.left, node.right);
+        }
+        return update(node);
+    }
+
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        } else {
+            right.left = merge(left, right.left);
+            return update(right);
+        }
+    }
+
+    private int updateSizes(Node<T> node) {
+        if (node == null) return 0;
+        node.size = updateSizes(node.left) + updateSizes(node.right) + 1;
+        return node.size;
+    }
+
+    private static <T> Node<T> update(Node<T> node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        return node;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static class Node<T> {
+        private final T value;
+        private final int priority;
+        private int size;
+        private Node<T> left;
+        private Node<T> right;
+
+        private Node(T value, int priority) {
+            this.value = value;
+            this.priority = priority;
+            this.size = 1;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.nccgroup.loggerplusplus.index;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records which entries match each rule (tag or color filter), as one {@link CompressedBitmap} of entry
+ * sequence numbers per rule.
+ */
+public class RuleMembershipIndex {
+
+    private static final CompressedBitmap EMPTY = new CompressedBitmap();
+
+    private final ConcurrentHashMap<UUID, CompressedBitmap> members;
+
+    public RuleMembershipIndex() {
+        this.members = new ConcurrentHashMap<>();
+    }
+
+    public boolean contains(UUID rule, int sequence) {
+        CompressedBitmap bitmap = members.get(rule);
+        return bitmap != null && bitmap.contains(sequence);
+    }
+
+    /**
+     * @return True if the entry was not already a member of the rule.
+     */
+    public boolean add(UUID rule, int sequence) {
+        return members.computeIfAbsent(rule, uuid -> new CompressedBitmap()).add(sequence);
+    }
+
+    /**
+     * @return True if the entry was a member of the rule.
+     */
+    public boolean remove(UUID rule, int sequence) {
+        CompressedBitmap bitmap = members.get(rule);
+        return bitmap != null && bitmap.remove(sequence);
+    }
+
+    /**
+     * Get the entries matching the rule. The returned bitmap must not be modified.
+     */
+    public CompressedBitmap getMembers(UUID rule) {
+        return members.getOrDefault(rule, EMPTY);
+    }
+
+    /**
+     * Forget a rule entirely.
+     * @return The entries which were members of the rule.
+     */
+    public CompressedBitmap removeRule(UUID rule) {
+        CompressedBitmap removed = members.remove(rule);
+        return removed != null ? removed : new CompressedBitmap();
+    }
+
+    /**
+     * Forget an entry which is no longer in the log.
+     */
+    public void removeEntry(int sequence) {
+        for (CompressedBitmap bitmap : members.values()) {
+            bitmap.remove(sequence);
+        }
+    }
+
+    public void clear() {
+        members.clear();
+    }
+
+    public long getSizeInBytes() {
+        long bytes = 0;
+        for (Map.Entry<UUID, CompressedBitmap> entry : members.entrySet()) {
+            bytes += 64 + entry.getValue().getSizeInBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,366 @@
+package com.nccgroup.loggerplusplus.index;
+
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+import com.nccgroup.loggerplusplus.logentry.Status;
+import com.nccgroup.loggerplusplus.util.NamedThreadFactory;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * An inverted index over the tokenized headers and bodies of the entries in the log, built in the background as
+ * entries arrive. Used to rule out entries for {@code CONTAINS} comparisons on those fields without scanning them.
+ * <p>
+ * Tokens are runs of ASCII letters, digits and underscores, case-folded, taken from the same string values the
+ * filters read. Each term's posting list holds entry sequence numbers as zig-zag delta varints. Once the memory budget is reached, further entries are not indexed
+ * and are always left for the filter to test.
+ */
+@Log4j2
+public class TextIndex {
+
+    public enum Section {
+        REQUEST_HEADERS(LogEntryField.REQUEST_HEADERS), REQUEST_BODY(LogEntryField.REQUEST_BODY),
+        RESPONSE_HEADERS(LogEntryField.RESPONSE_HEADERS), RESPONSE_BODY(LogEntryField.RESPONSE_BODY);
+
+        private final LogEntryField field;
+
+        Section(LogEntryField field) {
+            this.field = field;
+        }
+
+        public static Section forField(LogEntryField field) {
+            for (Section section : values()) {
+                if (section.field == field) return section;
+            }
+            return null;
+        }
+
+        boolean isResponse() {
+            return this == RESPONSE_HEADERS || this == RESPONSE_BODY;
+        }
+    }
+
+    //Longer tokens are indexed by their prefix.
+    static final int MAX_TOKEN_LENGTH = 32;
+    //How many removed entries may linger in the postings before the index is rebuilt from the live entries.
+    private static final int REBUILD_THRESHOLD = 50000;
+
+    private final EnumMap<Section, TreeMap<String, PostingList>> terms;
+    //Entries whose section has been indexed, and those with a token which had to be truncated.
+    private final EnumMap<Section, CompressedBitmap> indexedEntries;
+    private final EnumMap<Section, CompressedBitmap> truncatedEntries;
+    private final ReentrantReadWriteLock lock;
+    private final ExecutorService indexExecutor;
+    private final Supplier<Collection<LogEntry>> liveEntries;
+
+    private volatile long memoryBudget;
+    //Guarded by the write lock, but may be read without it.
+    private volatile long estimatedSize;
+    private volatile boolean budgetExceeded;
+    //Guarded by the write lock.
+    private int removedSinceRebuild;
+    private boolean rebuildPending;
+
+    public TextIndex(long memoryBudget, Supplier<Collection<LogEntry>> liveEntries) {
+        this.memoryBudget = memoryBudget;
+        this.liveEntries = liveEntries;
+        this.terms = new EnumMap<>(Section.class);
+        this.indexedEntries = new EnumMap<>(Section.class);
+        this.truncatedEntries = new EnumMap<>(Section.class);
+        for (Section section : Section.values()) {
+            terms.put(section, new TreeMap<>());
+            indexedEntries.put(section, new CompressedBitmap());
+            truncatedEntries.put(section, new CompressedBitmap());
+        }
+        this.lock = new ReentrantReadWriteLock();
+        this.indexExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("LPP-TextIndex"));
+    }
+
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Queue an entry to have any sections which are not yet indexed added to the index.
+     */
+    public void submit(LogEntry entry) {
+        if (budgetExceeded || indexExecutor.isShutdown()) return;
+        indexExecutor.submit(() -> {
+            try {
+                index(entry);
+            } catch (Exception e) {
+                log.error("Could not index entry: " + e.getMessage());
+            }
+        });
+    }
+
+    public void removeEntry(LogEntry entry) {
+        lock.writeLock().lock();
+        try {
+            for (Section section : Section.values()) {
+                indexedEntries.get(section).remove(entry.getSequence());
+                truncatedEntries.get(section).remove(entry.getSequence());
+            }
+            removedSinceRebuild++;
+            if (!rebuildPending && !indexExecutor.isShutdown()
+                    && removedSinceRebuild > Math.max(REBUILD_THRESHOLD, getIndexedEntryCount())) {
+                rebuildPending = true;
+                indexExecutor.submit(this::rebuild);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Section section : Section.values()) {
+                terms.get(section).clear();
+                indexedEntries.get(section).clear();
+                truncatedEntries.get(section).clear();
+            }
+            estimatedSize = 0;
+            removedSinceRebuild = 0;
+            budgetExceeded = false;
+            rebuildPending = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void shutdown() {
+        indexExecutor.shutdownNow();
+    }
+
+    public long getSizeInBytes() {
+        return estimatedSize;
+    }
+
+    /**
+     * Find the indexed entries which cannot contain the text in the given field.
+     * <p>
+     * Each run of token characters in the text must appear in the entry. A run bounded on both sides within the text
+     * is a whole term, one touching only the end of the text is a term prefix, one touching only the start is a term
+     * suffix, and one spanning the whole text may be anywhere within a term.
+     *
+     * @return The excluded entries, or null if the index cannot rule out any entries.
+     */
+    public CompressedBitmap findExclusions(LogEntryField field, String text) {
+        Section section = Section.forField(field);
+        if (section == null) return null;
+        List<Run> runs = findRuns(text);
+        if (runs.isEmpty()) return null;
+
+        lock.readLock().lock();
+        try {
+            TreeMap<String, PostingList> sectionTerms = terms.get(section);
+            CompressedBitmap candidates = null;
+            for (Run run : runs) {
+                CompressedBitmap runCandidates = new CompressedBitmap();
+                if (!run.atStart && !run.atEnd) {
+                    PostingList postings = sectionTerms.get(truncate(run.token));
+                    if (postings != null) postings.decodeInto(runCandidates);
+                } else if (!run.atStart) {
+                    String prefix = truncate(run.token);
+                    for (PostingList postings : sectionTerms.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+                        postings.decodeInto(runCandidates);
+                    }
+                } else {
+                    //Suffix and infix matches can't be checked against truncated terms, so those entries stay candidates.
+                    for (Map.Entry<String, PostingList> term : sectionTerms.entrySet()) {
+                        boolean matches = run.atEnd ? term.getKey().contains(run.token) : term.getKey().endsWith(run.token);
+                        if (matches) term.getValue().decodeInto(runCandidates);
+                    }
+                    runCandidates = runCandidates.or(truncatedEntries.get(section));
+                }
+                candidates = candidates == null ? runCandidates : candidates.and(runCandidates);
+            }
+            return indexedEntries.get(section).andNot(candidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Called on the index executor, or directly by tests.
+    void index(LogEntry entry) {
+        String[] sectionContent = new String[Section.values().length];
+        int sequence = entry.getSequence();
+        synchronized (entry) {
+            if (entry.getRequest() == null) return;
+            if (!indexedEntries.get(Section.REQUEST_BODY).contains(sequence)) {
+                sectionContent[Section.REQUEST_HEADERS.ordinal()] = String.valueOf(entry.getValueByKey(LogEntryField.REQUEST_HEADERS));
+                sectionContent[Section.REQUEST_BODY.ordinal()] = String.valueOf(entry.getValueByKey(LogEntryField.REQUEST_BODY));
+            }
+            //The response may still change until the entry is fully processed.
+            if (entry.getStatus() == Status.PROCESSED && !indexedEntries.get(Section.RESPONSE_BODY).contains(sequence)) {
+                boolean hasResponse = entry.getResponse() != null;
+                sectionContent[Section.RESPONSE_HEADERS.ordinal()] = hasResponse ? String.valueOf(entry.getValueByKey(LogEntryField.RESPONSE_HEADERS)) : "";
+                sectionContent[Section.RESPONSE_BODY.ordinal()] = hasResponse ? String.valueOf(entry.getValueByKey(LogEntryField.RESPONSE_BODY)) : "";
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Section section : Section.values()) {
+                String content = sectionContent[section.ordinal()];
+                //The section may have been indexed since it was read, by a rebuild.
+                if (content == null || indexedEntries.get(section).contains(sequence)) continue;
+                if (estimatedSize > memoryBudget) {
+                    if (!budgetExceeded) log.info("Full text index memory budget reached, new entries will not be indexed.");
+                    budgetExceeded = true;
+                    return;
+                }
+                indexSection(section, sequence, content);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void indexSection(Section section, int sequence, String content) {
+        TreeMap<String, PostingList> sectionTerms = terms.get(section);
+        HashSet<String> entryTerms = new HashSet<>();
+        boolean truncated = false;
+        int start = -1;
+        for (int i = 0; i <= content.length(); i++) {
+            boolean tokenChar = i < content.length() && isTokenChar(fold(content.charAt(i)));
+            if (tokenChar && start == -1) {
+                start = i;
+            } else if (!tokenChar && start != -1) {
+                int length = Math.min(i - start, MAX_TOKEN_LENGTH);
+                truncated |= i - start > MAX_TOKEN_LENGTH;
+                char[] token = new char[length];
+                for (int j = 0; j < length; j++) {
+                    token[j] = fold(content.charAt(start + j));
+                }
+                entryTerms.add(new String(token));
+                start = -1;
+            }
+        }
+
+        for (String term : entryTerms) {
+            PostingList postings = sectionTerms.get(term);
+            if (postings == null) {
+                postings = new PostingList();
+                sectionTerms.put(term, postings);
+                estimatedSize += 120 + term.length() * 2L;
+            }
+            estimatedSize += postings.add(sequence);
+        }
+        if (truncated) truncatedEntries.get(section).add(sequence);
+        indexedEntries.get(section).add(sequence);
+    }
+
+    private void rebuild() {
+        clear();
+        for (LogEntry entry : liveEntries.get()) {
+            try {
+                index(entry);
+            } catch (Exception e) {
+                log.error("Could not index entry: " + e.getMessage());
+            }
+        }
+    }
+
+    private int getIndexedEntryCount() {
+        return indexedEntries.get(Section.REQUEST_BODY).getCardinality();
+    }
+
+    static boolean isTokenChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    /**
+     * Fold case the same way as the case-insensitive comparisons used when evaluating filters,
+     * so characters such as the Kelvin sign are tokenized as the ASCII letter they match.
+     */
+    static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static String truncate(String token) {
+        return token.length() > MAX_TOKEN_LENGTH ? token.substring(0, MAX_TOKEN_LENGTH) : token;
+    }
+
+    private static List<Run> findRuns(String text) {
+        List<Run> runs = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && isTokenChar(fold(text.charAt(i)));
+            if (tokenChar && start == -1) {
+                start = i;
+            } else if (!tokenChar && start != -1) {
+                char[] chars = new char[i - start];
+                for (int j = 0; j < chars.length; j++) chars[j] = fold(text.charAt(start + j));
+                String token = new String(chars);
+                boolean atStart = start == 0, atEnd = i == text.length();
+                //Infix and suffix terms may have been truncated in the index, so long ones can't be searched for.
+                if (!(atStart && token.length() > MAX_TOKEN_LENGTH)) {
+                    runs.add(new Run(token, atStart, atEnd));
+                }
+                start = -1;
+            }
+        }
+        return runs;
+    }
+
+    private static class Run {
+        private final String token;
+        private final boolean atStart;
+        private final boolean atEnd;
+
+        private Run(String token, boolean atStart, boolean atEnd) {
+            this.token = token;
+            this.atStart = atStart;
+            this.atEnd = atEnd;
+        }
+    }
+
+    /**
+     * Entry sequence numbers encoded as zig-zag varint deltas from the previous sequence.
+     * Entries are normally indexed in ascending order, so deltas are small and positive.
+     */
+    private static class PostingList {
+        private byte[] data = new byte[4];
+        private int length;
+        private int last;
+
+        /**
+         * @return The number of bytes the list grew by.
+         */
+        private int add(int sequence) {
+            int delta = sequence - last;
+            last = sequence;
+            int value = (delta << 1) ^ (delta >> 31);
+            int oldCapacity = data.length;
+            if (length + 5 > data.length) data = Arrays.copyOf(data, data.length * 2);
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+            return data.length - oldCapacity;
+        }
+
+        private void decodeInto(CompressedBitmap bitmap) {
+            int position = 0, current = 0;
+            while (position < length) {
+                int value = 0, shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                current += (value >>> 1) ^ -(value & 1);
+                bitmap.add(current);
+            }
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package com.nccgroup.loggerplusplus.index;
+
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+import com.nccgroup.loggerplusplus.logentry.Status;
+import com.nccgroup.loggerplusplus.util.NamedThreadFactory;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * An index of the three byte sequences (trigrams) present in each captured request and response, used to rule out
+ * entries before running a regular expression against them.
+ * <p>
+ * The literal text a pattern requires is broken into trigrams. Only entries containing every one of those trigrams
+ * can match, and only those are given to the real matcher. Trigrams are only taken from ASCII bytes, folded to lower
+ * case, as these decode to the same characters regardless of the charset used to read the message.
+ */
+@Log4j2
+public class TrigramIndex {
+
+    public enum Section {
+        REQUEST, RESPONSE;
+
+        /**
+         * @return The section containing the given field, if the field's value is always a substring of it.
+         */
+        public static Section forField(LogEntryField field) {
+            if (field == LogEntryField.REQUEST_BODY) return REQUEST;
+            if (field == LogEntryField.RESPONSE_BODY) return RESPONSE;
+            return null;
+        }
+    }
+
+    private static final int TRIGRAM_SPACE = 1 << 21;
+    //How many removed entries may linger in the postings before the index is rebuilt from the live entries.
+    private static final int REBUILD_THRESHOLD = 50000;
+
+    private final EnumMap<Section, HashMap<Integer, CompressedBitmap>> postings;
+    private final EnumMap<Section, CompressedBitmap> indexedEntries;
+    private final ReentrantReadWriteLock lock;
+    private final ExecutorService indexExecutor;
+    private final Supplier<Collection<LogEntry>> liveEntries;
+    //Trigrams seen in the content currently being indexed, reused to avoid allocating per entry.
+    private final BitSet entryTrigrams;
+    private int[] distinctTrigrams;
+
+    private long memoryBudget;
+    private long estimatedSize;
+    private int removedSinceRebuild;
+    private boolean budgetExceeded;
+    private boolean rebuildPending;
+
+    public TrigramIndex(long memoryBudget, Supplier<Collection<LogEntry>> liveEntries) {
+        this.memoryBudget = memoryBudget;
+        this.liveEntries = liveEntries;
+        this.postings = new EnumMap<>(Section.class);
+        this.indexedEntries = new EnumMap<>(Section.class);
+        for (Section section : Section.values()) {
+            postings.put(section, new HashMap<>());
+            indexedEntries.put(section, new CompressedBitmap());
+        }
+        this.entryTrigrams = new BitSet(TRIGRAM_SPACE);
+        this.distinctTrigrams = new int[1024];
+        this.lock = new ReentrantReadWriteLock();
+        this.indexExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("LPP-TrigramIndex"));
+    }
+
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Queue an entry to have any sections which are not yet indexed added to the index.
+     */
+    public void submit(LogEntry entry) {
+        if (budgetExceeded || indexExecutor.isShutdown()) return;
+        indexExecutor.submit(() -> {
+            try {
+                index(entry);
+            } catch (Exception e) {
+                log.error("Could not index entry: " + e.getMessage());
+            }
+        });
+    }
+
+    public void removeEntry(LogEntry entry) {
+        lock.writeLock().lock();
+        try {
+            for (CompressedBitmap indexed : indexedEntries.values()) {
+                indexed.remove(entry.getSequence());
+            }
+            removedSinceRebuild++;
+            if (!rebuildPending && removedSinceRebuild > Math.max(REBUILD_THRESHOLD, indexedEntries.get(Section.REQUEST).getCardinality())) {
+                rebuildPending = true;
+                indexExecutor.submit(this::rebuild);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Section section : Section.values()) {
+                postings.get(section).clear();
+                indexedEntries.get(section).clear();
+            }
+            estimatedSize = 0;
+            removedSinceRebuild = 0;
+            budgetExceeded = false;
+            rebuildPending = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void shutdown() {
+        indexExecutor.shutdownNow();
+    }
+
+    public long getSizeInBytes() {
+        return estimatedSize;
+    }
+
+    /**
+     * Find the indexed entries whose section cannot contain a match for the pattern.
+     *
+     * @return The excluded entries, or null if the pattern doesn't require any trigrams.
+     */
+    public CompressedBitmap findExclusions(Section section, Pattern pattern) {
+        Set<Integer> required = requiredTrigrams(pattern);
+        if (required.isEmpty()) return null;
+
+        lock.readLock().lock();
+        try {
+            HashMap<Integer, CompressedBitmap> sectionPostings = postings.get(section);
+            CompressedBitmap candidates = null;
+            for (Integer trigram : required) {
+                CompressedBitmap posting = sectionPostings.get(trigram);
+                if (posting == null) {
+                    candidates = new CompressedBitmap();
+                    break;
+                }
+                candidates = candidates == null ? posting : candidates.and(posting);
+            }
+            return indexedEntries.get(section).andNot(candidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add the content of an entry's section to the index.
+     */
+    public void index(Section section, int sequence, byte[] content) {
+        lock.writeLock().lock();
+        try {
+            if (estimatedSize > memoryBudget) {
+                if (!budgetExceeded) log.info("Trigram index memory budget reached, new entries will not be indexed.");
+                budgetExceeded = true;
+                return;
+            }
+            int distinct = 0;
+            for (int i = 0; i + 2 < content.length; i++) {
+                int trigram = trigram(content[i], content[i + 1], content[i + 2]);
+                if (trigram >= 0 && !entryTrigrams.get(trigram)) {
+                    entryTrigrams.set(trigram);
+                    if (distinct == distinctTrigrams.length) distinctTrigrams = Arrays.copyOf(distinctTrigrams, distinct * 2);
+                    distinctTrigrams[distinct++] = trigram;
+                }
+            }
+
+            HashMap<Integer, CompressedBitmap> sectionPostings = postings.get(section);
+            for (int d = 0; d < distinct; d++) {
+                int trigram = distinctTrigrams[d];
+                entryTrigrams.clear(trigram);
+                CompressedBitmap posting = sectionPostings.get(trigram);
+                if (posting == null) {
+                    posting = new CompressedBitmap();
+                    sectionPostings.put(trigram, posting);
+                    estimatedSize += 96;
+                }
+                if (posting.add(sequence)) estimatedSize += 2;
+            }
+            indexedEntries.get(section).add(sequence);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(LogEntry entry) {
+        byte[] request = null, response = null;
+        int sequence = entry.getSequence();
+        synchronized (entry) {
+            if (entry.getRequest() == null) return;
+            if (!indexedEntries.get(Section.REQUEST).contains(sequence)) {
+                request = entry.getRequestBytes();
+            }
+            //The response may still change until the entry is fully processed.
+            if (entry.getStatus() == Status.PROCESSED && !indexedEntries.get(Section.RESPONSE).contains(sequence)) {
+                response = entry.getResponse() != null ? entry.getResponseBytes() : new byte[0];
+            }
+        }
+        if (request != null) index(Section.REQUEST, sequence, request);
+        if (response != null) index(Section.RESPONSE, sequence, response);
+    }
+
+    private void rebuild() {
+        clear();
+        for (LogEntry entry : liveEntries.get()) {
+            try {
+                index(entry);
+            } catch (Exception e) {
+                log.error("Could not index entry: " + e.getMessage());
+            }
+        }
+    }
+
+    private static int trigram(int a, int b, int c) {
+        if (((a | b | c) & 0x80) != 0) return -1;
+        return fold(a) << 14 | fold(b) << 7 | fold(c);
+    }
+
+    private static int fold(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    /**
+     * Find the trigrams which must be present in any text the pattern can be found in.
+     * <p>
+     * Only literal runs at the top level of the pattern are considered. Anything which can't be decomposed with
+     * certainty (alternation, inline flags, unicode case folding or comment mode) results in no trigrams being required.
+     */
+    public static Set<Integer> requiredTrigrams(Pattern pattern) {
+        Set<Integer> trigrams = new HashSet<>();
+        int flags = pattern.flags();
+        if ((flags & (Pattern.COMMENTS | Pattern.UNICODE_CASE | Pattern.UNICODE_CHARACTER_CLASS | Pattern.CANON_EQ)) != 0) {
+            return trigrams;
+        }
+
+        List<String> runs = (flags & Pattern.LITERAL) != 0
+                ? splitAscii(pattern.pattern()) : findLiteralRuns(pattern.pattern());
+        if (runs == null) return trigrams;
+        for (String run : runs) {
+            for (int i = 0; i + 2 < run.length(); i++) {
+                trigrams.add(trigram(run.charAt(i), run.charAt(i + 1), run.charAt(i + 2)));
+            }
+        }
+        return trigrams;
+    }
+
+    private static List<String> splitAscii(String literal) {
+        List<String> runs = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        for (char c : literal.toCharArray()) {
+            appendLiteral(run, runs, c);
+        }
+        flush(run, runs);
+        return runs;
+    }
+
+    /**
+     * @return The literal runs which must appear in any match, or null if the pattern can't be decomposed.
+     */
+    private static List<String> findLiteralRuns(String regex) {
+        List<String> runs = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (depth > 0) {
+                //Group contents may be optional or alternated, so are skipped entirely.
+                if (c == '\\') i++;
+                else if (c == '[') i = skipClass(regex, i);
+                else if (c == '(') depth++;
+                else if (c == ')') depth--;
+                if (i < 0) return null;
+                continue;
+            }
+            switch (c) {
+                case '|':
+                    return null;
+                case '(':
+                    if (regex.startsWith("(?", i) && i + 2 < regex.length() && ":=!<>".indexOf(regex.charAt(i + 2)) == -1) {
+                        return null; //Inline flags may change how the rest of the pattern is read.
+                    }
+                    flush(run, runs);
+                    depth = 1;
+                    break;
+                case '[':
+                    flush(run, runs);
+                    i = skipClass(regex, i);
+                    if (i < 0) return null;
+                    break;
+                case '*':
+                case '?':
+                    //The preceding character is optional.
+                    dropLast(run);
+                    flush(run, runs);
+                    break;
+                case '{':
+                    dropLast(run);
+                    flush(run, runs);
+                    i = regex.indexOf('}', i);
+                    if (i < 0) return null;
+                    break;
+                case '+':
+                    //The preceding character is required, but may repeat.
+                    flush(run, runs);
+                    break;
+                case '.':
+                case '^':
+                case '$':
+                case ')':
+                    flush(run, runs);
+                    break;
+                case '\\':
+                    if (++i >= regex.length()) return null;
+                    char escaped = regex.charAt(i);
+                    if (escaped == 'Q') {
+                        int end = regex.indexOf("\\E", i);
+                        String quoted = end < 0 ? regex.substring(i + 1) : regex.substring(i + 1, end);
+                        for (char q : quoted.toCharArray()) appendLiteral(run, runs, q);
+                        i = end < 0 ? regex.length() : end + 1;
+                    } else if (Character.isLetterOrDigit(escaped)) {
+                        flush(run, runs);
+                        i = skipEscape(regex, i);
+                        if (i < 0) return null;
+                    } else {
+                        appendLiteral(run, runs, escaped);
+                    }
+                    break;
+                default:
+                    appendLiteral(run, runs, c);
+            }
+        }
+        if (depth > 0) return null;
+        flush(run, runs);
+        return runs;
+    }
+
+    /**
+     * @return The index of the last character of the escape sequence whose letter is at the given index, or -1.
+     */
+    private static int skipEscape(String regex, int i) {
+        char escaped = regex.charAt(i);
+        switch (escaped) {
+            case 'x':
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '{') return regex.indexOf('}', i);
+                return i + 2;
+            case 'u':
+                return i + 4;
+            case 'c':
+                return i + 1;
+            case 'p':
+            case 'P':
+            case 'N':
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '{') return regex.indexOf('}', i);
+                return i + 1;
+            case 'k':
+                return regex.indexOf('>', i);
+            default:
+                //Octal values and back references are followed by further digits.
+                while (Character.isDigit(escaped) && i + 1 < regex.length() && Character.isDigit(regex.charAt(i + 1))) i++;
+                return i;
+        }
+    }
+
+    /**
+     * @return The index of the closing bracket of the character class opened at the given index, or -1.
+     */
+    private static int skipClass(String regex, int i) {
+        int depth = 0;
+        for (; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+                if (regex.startsWith("^", i + 1)) i++;
+                if (regex.startsWith("]", i + 1)) return -1;
+            } else if (c == ']' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void appendLiteral(StringBuilder run, List<String> runs, char c) {
+        if (c < 0x80) run.append(c);
+        else flush(run, runs);
+    }
+
+    private static void dropLast(StringBuilder run) {
+        if (run.length() > 0) run.setLength(run.length() - 1);
+    }
+
+    private static void flush(StringBuilder run, List<String> runs) {
+        if (run.length() >= 3) runs.add(run.toString());
+        run.setLength(0);
+    }
+}
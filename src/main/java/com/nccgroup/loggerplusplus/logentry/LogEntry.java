@@ -13,6 +13,7 @@
 
 package com.nccgroup.loggerplusplus.logentry;
 
+import burp.api.montoya.core.ByteArray;
 import burp.api.montoya.core.ToolType;
 import burp.api.montoya.http.HttpService;
 import burp.api.montoya.http.message.Cookie;
@@ -24,7 +25,10 @@ import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.responses.HttpResponse;
 import com.nccgroup.loggerplusplus.LoggerPlusPlus;
 import com.nccgroup.loggerplusplus.filter.colorfilter.TableColorRule;
+import com.nccgroup.loggerplusplus.filter.parser.ComparisonMemo;
 import com.nccgroup.loggerplusplus.filter.tag.Tag;
+import com.nccgroup.loggerplusplus.filterlibrary.FilterLibraryController;
+import com.nccgroup.loggerplusplus.index.RuleMembershipIndex;
 import com.nccgroup.loggerplusplus.logview.processor.LogProcessor;
 import com.nccgroup.loggerplusplus.reflection.ReflectionController;
 import com.nccgroup.loggerplusplus.util.Globals;
@@ -34,19 +38,32 @@ import lombok.Setter;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 
-import static com.nccgroup.loggerplusplus.LoggerPlusPlus.montoya;
 
 @Getter
 @Setter
 public class LogEntry {
 
+	private static final AtomicInteger nextSequence = new AtomicInteger();
+	private static final VarHandle VERSION;
+
+	static {
+		try {
+			VERSION = MethodHandles.lookup().findVarHandle(LogEntry.class, "version", int.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
 	Status previousStatus;
 	Status status = Status.UNPROCESSED;
 
@@ -96,8 +113,9 @@ public class LogEntry {
 	// private String[] regexAllReq = {"","","","",""};
 	// private String[] regexAllResp = {"","","","",""};
 
-	private List<UUID> matchingColorFilters;
-	private List<Tag> matchingTags;
+	//Identifies the entry in the tag, color filter and field indexes.
+	@Setter(AccessLevel.NONE)
+	private final int sequence;
 	private String formattedRequestTime;
 	private Date responseDateTime = new Date(0); //Zero epoch dates to prevent null. Response date pulled from response headers
 	private Date requestDateTime = new Date(0); //Zero epoch dates to prevent null. Response date pulled from response headers
@@ -106,10 +124,14 @@ public class LogEntry {
 	private List<HttpHeader> requestHeaders;
 	private List<String> parameters;
 	private List<String> reflectedParameters;
+	private transient ComparisonMemo comparisonMemo;
+	//Incremented when the entry, its tags or its color filters change, so values derived from it can be discarded.
+	//Entries may be changed by several threads at once, so it is incremented atomically through VERSION.
+	@Setter(AccessLevel.NONE)
+	private transient volatile int version;
 
 	private LogEntry() {
-		this.matchingColorFilters = Collections.synchronizedList(new ArrayList<>());
-		this.matchingTags = Collections.synchronizedList(new ArrayList<>());
+		this.sequence = nextSequence.getAndIncrement();
 	}
 
 	public LogEntry(ToolType tool, HttpRequest request) {
@@ -161,6 +183,10 @@ public class LogEntry {
 		}
 	}
 
+	public void markChanged() {
+		VERSION.getAndAdd(this, 1);
+	}
+
 	public void reprocess() {
 		this.status = Status.UNPROCESSED;
 		process();
@@ -230,7 +256,7 @@ public class LogEntry {
 						this.sentCookies += ";"; // we need to ad this to search it in cookie Jar!
 
 						// Check to see if it uses cookie Jars!
-						List<Cookie> cookiesInJar = montoya.http().cookieJar().cookies();
+						List<Cookie> cookiesInJar = LoggerPlusPlus.context.getMontoya().http().cookieJar().cookies();
 						boolean oneNotMatched = false;
 						boolean anyParamMatched = false;
 
@@ -333,6 +359,7 @@ public class LogEntry {
 		//So we must store the content separately.
 		this.response = requestResponse;
 //		this.setComment(requestResponse.getComment()); //Update the comment with the current comment
+		markChanged();
 	}
 
 	private Status processResponse() {
@@ -406,7 +433,7 @@ public class LogEntry {
 		 *************BODY PROCESSING**********
 		 **************************************/
 
-		Long maxRespSize = ((Integer) LoggerPlusPlus.instance.getPreferencesController().getPreferences().getSetting(Globals.PREF_MAX_RESP_SIZE)) * 1000000L;
+		Long maxRespSize = ((Integer) LoggerPlusPlus.context.getPreferences().getSetting(Globals.PREF_MAX_RESP_SIZE)) * 1000000L;
 		int bodyOffset = response.bodyOffset();
 		if (responseBodyLength < maxRespSize) {
 			//Only title match HTML files. Prevents expensive regex running on e.g. binary downloads.
@@ -417,7 +444,7 @@ public class LogEntry {
 				}
 			}
 
-			ReflectionController reflectionController = LoggerPlusPlus.instance.getReflectionController();
+			ReflectionController reflectionController = LoggerPlusPlus.context.getReflectionController();
 			reflectedParameters = request.parameters().parallelStream()
 					.filter(parameter -> !reflectionController.isParameterFiltered(parameter) && reflectionController.validReflection(response.bodyToString(), parameter))
 					.map(HttpParameter::name).collect(Collectors.toList());
@@ -425,7 +452,7 @@ public class LogEntry {
 //			this.requestResponse = LoggerPlusPlus.montoya.saveBuffersToTempFiles(requestResponse);
 		} else {
 			//Just look for reflections in the headers.
-			ReflectionController reflectionController = LoggerPlusPlus.instance.getReflectionController();
+			ReflectionController reflectionController = LoggerPlusPlus.context.getReflectionController();
 			reflectedParameters = request.parameters().parallelStream()
 					.filter(parameter -> !reflectionController.isParameterFiltered(parameter)
 							&& reflectionController.validReflection(response.bodyToString(), parameter))
@@ -503,6 +530,16 @@ public class LogEntry {
 		return response.toByteArray().getBytes();
 	}
 
+	/**
+	 * The undecoded body for the request or response body field, so it can be searched without building a string.
+	 * @return The body, or null if the field isn't a body or the message hasn't been received.
+	 */
+	public ByteArray getBody(LogEntryField field) {
+		if (field == LogEntryField.REQUEST_BODY) return request != null ? request.body() : null;
+		if (field == LogEntryField.RESPONSE_BODY) return response != null ? response.body() : null;
+		return null;
+	}
+
 	public void setReqestTime(Date requestTime) {
 		this.requestDateTime = requestTime;
 		this.formattedRequestTime = LogProcessor.LOGGER_DATE_FORMAT.format(this.requestDateTime);
@@ -515,6 +552,7 @@ public class LogEntry {
 
 	public void setComment(String comment) {
 		this.comment = comment;
+		markChanged();
 	}
 
 	public String getComment() {
@@ -527,12 +565,12 @@ public class LogEntry {
 		try {
 			switch (columnName) {
 				case INSCOPE:
-					return montoya.scope().isInScope(urlString);
+					return LoggerPlusPlus.context.getMontoya().scope().isInScope(urlString);
 				case PROXY_TOOL:
 				case REQUEST_TOOL:
 					return tool.toolName();
 				case TAGS:
-					return this.matchingTags.stream().collect(Collectors.toList());
+					return this.getMatchingTags();
 				case URL:
 					return this.urlString;
 				case PATH:
@@ -673,12 +711,31 @@ public class LogEntry {
 		}
 	}
 
+	/**
+	 * Results of shared filter comparisons evaluated against the entry while it is being processed.
+	 * Only returned while the entry is still in the state the results were evaluated for.
+	 */
+	public ComparisonMemo getComparisonMemo() {
+		ComparisonMemo memo = this.comparisonMemo;
+		return memo != null && memo.getStamp() == this.status ? memo : null;
+	}
+
 	public List<UUID> getMatchingColorFilters() {
-		return matchingColorFilters;
+		FilterLibraryController libraryController = LoggerPlusPlus.context.getLibraryController();
+		List<UUID> matching = new ArrayList<>();
+		for (UUID uuid : libraryController.getColorFilters().keySet()) {
+			if (libraryController.getColorFilterMembership().contains(uuid, sequence)) matching.add(uuid);
+		}
+		return matching;
 	}
 
 	public List<Tag> getMatchingTags() {
-		return matchingTags;
+		FilterLibraryController libraryController = LoggerPlusPlus.context.getLibraryController();
+		List<Tag> matching = new ArrayList<>();
+		for (Tag tag : libraryController.getTags().values()) {
+			if (libraryController.getTagMembership().contains(tag.getUuid(), sequence)) matching.add(tag);
+		}
+		return matching;
 	}
 
 	public HttpService getHttpService() {
@@ -708,22 +765,27 @@ public class LogEntry {
 	 * @return If the list of matching color filters was updated
 	 */
 	public boolean testColorFilter(TableColorRule tableColorRule, boolean retest) {
+		RuleMembershipIndex membership = LoggerPlusPlus.context.getLibraryController().getColorFilterMembership();
 		if (!tableColorRule.isEnabled() || tableColorRule.getFilterExpression() == null) {
-			return this.getMatchingColorFilters().remove(tableColorRule.getUuid());
+			boolean removed = membership.remove(tableColorRule.getUuid(), sequence);
+			if (removed) markChanged();
+			return removed;
 		}
 
 		// If we don't already know if the color filter matches (e.g. haven't checked it
 		// before)
-		if (!this.matchingColorFilters.contains(tableColorRule.getUuid())) {
+		if (!membership.contains(tableColorRule.getUuid(), sequence)) {
 			if (tableColorRule.getFilterExpression().matches(this)) {
-				this.matchingColorFilters.add(tableColorRule.getUuid());
+				membership.add(tableColorRule.getUuid(), sequence);
+				markChanged();
 				return true;
 			} else {
 				return false;
 			}
 		} else if (retest) { // Or if we are forcing a retest (e.g. filter was updated)
 			if (!tableColorRule.getFilterExpression().matches(this)) {
-				this.matchingColorFilters.remove(tableColorRule.getUuid());
+				membership.remove(tableColorRule.getUuid(), sequence);
+				markChanged();
 			}
 			return true;
 		} else {
@@ -737,22 +799,27 @@ public class LogEntry {
 	 * @return If the list of matching color filters was updated
 	 */
 	public boolean testTag(Tag tag, boolean retest) {
+		RuleMembershipIndex membership = LoggerPlusPlus.context.getLibraryController().getTagMembership();
 		if (!tag.isEnabled() || tag.getFilterExpression() == null) {
-			return this.getMatchingTags().remove(tag);
+			boolean removed = membership.remove(tag.getUuid(), sequence);
+			if (removed) markChanged();
+			return removed;
 		}
 
 		// If we don't already know if the color filter matches (e.g. haven't checked it
 		// before)
-		if (!this.matchingTags.contains(tag)) {
+		if (!membership.contains(tag.getUuid(), sequence)) {
 			if (tag.getFilterExpression().matches(this)) {
-				this.matchingTags.add(tag);
+				membership.add(tag.getUuid(), sequence);
+				markChanged();
 				return true;
 			} else {
 				return false;
 			}
 		} else if (retest) { // Or if we are forcing a retest (e.g. filter was updated)
 			if (!tag.getFilterExpression().matches(this)) {
-				this.matchingTags.remove(tag);
+				membership.remove(tag.getUuid(), sequence);
+				markChanged();
 			}
 			return true;
 		} else {
@@ -1,6 +1,5 @@
 package com.nccgroup.loggerplusplus.logentry;
 
-import java.net.URL;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -21,7 +20,7 @@ public enum LogEntryField {
     BASE64_REQUEST(FieldGroup.REQUEST, String.class, "The entire request encoded in Base64", "AsBase64"),
     REQUEST_HEADERS(FieldGroup.REQUEST, String.class, "The request line and associated headers.", "Headers", "Header"),
     REQUEST_BODY(FieldGroup.REQUEST, String.class, "The request body.", "Body"),
-    REQUEST_BODY_LENGTH(FieldGroup.REQUEST, String.class, "The request body's length.", "BodyLength"),
+    REQUEST_BODY_LENGTH(FieldGroup.REQUEST, Integer.class, "The request body's length.", "BodyLength"),
     REQUEST_TIME(FieldGroup.REQUEST, Date.class, "Date and time of inital request (as received by L++).", "Time"),
     REQUEST_LENGTH(FieldGroup.REQUEST, Integer.class, "The length of the received request.", "Length"),
     REQUEST_TOOL(FieldGroup.REQUEST, String.class, "The tool used to initiate the request.", "Tool"), //Alias for proxy.tool,
@@ -37,16 +36,16 @@ public enum LogEntryField {
     USES_COOKIE_JAR(FieldGroup.REQUEST, String.class, "Compares the cookies with the cookie jar to see if any of them are in use.", "UsesCookieJar", "CookieJar"),
     HOSTNAME(FieldGroup.REQUEST, String.class, "The hostname component of the requested URL.", "Hostname"),
     HOST(FieldGroup.REQUEST, String.class, "The protocol and hostname of the requested URL.", "Host"),
-    PORT(FieldGroup.REQUEST, Short.class, "The port the request was sent to.", "Port"),
+    PORT(FieldGroup.REQUEST, Integer.class, "The port the request was sent to.", "Port"),
     REQUEST_CONTENT_TYPE(FieldGroup.REQUEST, String.class, "The content-type header sent to the server.", "ContentType", "Content_Type"),
-    REQUEST_HTTP_VERSION(FieldGroup.REQUEST, Short.class, "The HTTP version sent in the request.", "RequestHttpVersion", "RequestHttpVersion"),
+    REQUEST_HTTP_VERSION(FieldGroup.REQUEST, String.class, "The HTTP version sent in the request.", "RequestHttpVersion", "RequestHttpVersion"),
     EXTENSION(FieldGroup.REQUEST, String.class, "The URL extension used in the request.", "Extension"),
     REFERRER(FieldGroup.REQUEST, String.class, "The referrer header value of the request.", "Referrer"),
     HASPARAMS(FieldGroup.REQUEST, Boolean.class, "Did the request contain parameters?", "HasParams"),
     HASGETPARAM(FieldGroup.REQUEST, Boolean.class, "Did the request contain get parameters?", "HasGetParam", "HasGetParams", "HasQueryString"),
     HASPOSTPARAM(FieldGroup.REQUEST, Boolean.class, "Did the request contain post parameters?", "HasPostParam", "HasPayload", "Payload"),
     HASCOOKIEPARAM(FieldGroup.REQUEST, Boolean.class, "Did the request contain cookies?", "HasSentCookies"),
-    SENTCOOKIES(FieldGroup.REQUEST, Boolean.class, "The value of the cookies header sent to the server.", "CookieString", "SentCookies", "Cookies"),
+    SENTCOOKIES(FieldGroup.REQUEST, String.class, "The value of the cookies header sent to the server.", "CookieString", "SentCookies", "Cookies"),
     PARAMETER_COUNT(FieldGroup.REQUEST, Integer.class, "The number of parameters in the request.", "ParameterCount", "ParamCount"),
     PARAMETERS(FieldGroup.REQUEST, String.class, "The parameters in the request.", "Parameters", "Params"),
     ORIGIN(FieldGroup.REQUEST, String.class, "The Origin header", "Origin"),
@@ -55,14 +54,14 @@ public enum LogEntryField {
     BASE64_RESPONSE(FieldGroup.RESPONSE, String.class, "The entire response encoded in Base64", "AsBase64"),
     RESPONSE_HEADERS(FieldGroup.RESPONSE, String.class, "The status line and associated headers.", "Headers", "Header"),
     RESPONSE_BODY(FieldGroup.RESPONSE, String.class, "The response body.", "Body"),
-    RESPONSE_BODY_LENGTH(FieldGroup.RESPONSE, String.class, "The response body's length.", "BodyLength"),
+    RESPONSE_BODY_LENGTH(FieldGroup.RESPONSE, Integer.class, "The response body's length.", "BodyLength"),
     RESPONSE_HASH(FieldGroup.RESPONSE, String.class, "SHA1 Hash of the response", "hash", "sha1"),
     RESPONSE_TIME(FieldGroup.RESPONSE, Date.class, "Date and time of receiving the response (as received by L++).", "Time"),
     RESPONSE_LENGTH(FieldGroup.RESPONSE, Integer.class, "The length of the received response.", "Length"),
-    REDIRECT_URL(FieldGroup.RESPONSE, URL.class, "The URL the response redirects to.", "Redirect", "RedirectURL"),
+    REDIRECT_URL(FieldGroup.RESPONSE, String.class, "The URL the response redirects to.", "Redirect", "RedirectURL"),
     STATUS(FieldGroup.RESPONSE, Short.class, "The status code received in the response.", "Status", "StatusCode"),
-    STATUS_TEXT(FieldGroup.RESPONSE, Short.class, "The status text received in the response.", "StatusText", "StatusText"),
-    RESPONSE_HTTP_VERSION(FieldGroup.RESPONSE, Short.class, "The HTTP version received in the response.", "ResponseHttpVersion", "ResponseHttpVersion"),
+    STATUS_TEXT(FieldGroup.RESPONSE, String.class, "The status text received in the response.", "StatusText", "StatusText"),
+    RESPONSE_HTTP_VERSION(FieldGroup.RESPONSE, String.class, "The HTTP version received in the response.", "ResponseHttpVersion", "ResponseHttpVersion"),
     RTT(FieldGroup.RESPONSE, Integer.class, "The round trip time (as calculated by L++, not 100% accurate).", "RTT", "TimeTaken"),
     TITLE(FieldGroup.RESPONSE, String.class, "The HTTP response title.", "Title"),
     RESPONSE_CONTENT_TYPE(FieldGroup.RESPONSE, String.class, "The content-type header sent by the server.", "ContentType", "Content_Type"),
@@ -1,50 +1,227 @@
 package com.nccgroup.loggerplusplus.logview.entryviewer;
 
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
 import burp.api.montoya.ui.editor.EditorOptions;
 import burp.api.montoya.ui.editor.HttpRequestEditor;
 import burp.api.montoya.ui.editor.HttpResponseEditor;
 import com.coreyd97.BurpExtenderUtilities.Preferences;
 import com.nccgroup.loggerplusplus.LoggerPlusPlus;
 import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
 
+import javax.swing.*;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.nccgroup.loggerplusplus.util.Globals.PREF_VIEWER_PREVIEW_SIZE;
+
+/**
+ * Shows the selected entry's request and response.
+ * <p>
+ * Messages are prepared on a background thread once the selection has settled, so moving quickly through the log
+ * doesn't display every entry passed. Bodies larger than {@link com.nccgroup.loggerplusplus.util.Globals#PREF_VIEWER_PREVIEW_SIZE}
+ * are truncated, leaving their headers as they were so they still describe the full message, and the full messages
+ * are shown on request. The messages of the entries either side of the selection
+ * are prepared in advance, as they are likely to be selected next.
+ */
 @Getter
+@Log4j2
 public class RequestViewerController {
 
+    //How long the selection must be unchanged before it is displayed, in milliseconds.
+    private static final int SELECTION_DELAY = 75;
+    //How many entries' prepared messages are kept.
+    private static final int PREPARED_MESSAGES = 8;
+    //Appended to truncated bodies, with the number of bytes shown and the full length.
+    private static final String TRUNCATION_MARKER = "\r\n\r\n[Logger++: body truncated, showing %d of %d bytes]";
+
     private final Preferences preferences;
     private final HttpRequestEditor requestEditor;
     private final HttpResponseEditor responseEditor;
     private final RequestViewerPanel requestViewerPanel;
 
-    private LogEntry currentEntry;
+    @Getter(AccessLevel.NONE)
+    private final ThreadPoolExecutor loader;
+    @Getter(AccessLevel.NONE)
+    private final Timer selectionTimer;
+    @Getter(AccessLevel.NONE)
+    private final Map<LogEntry, PreparedMessages> prepared;
+
+    private volatile LogEntry currentEntry;
+    @Getter(AccessLevel.NONE)
+    private List<LogEntry> neighbours;
 
     public RequestViewerController(Preferences preferences) {
         this.preferences = preferences;
         this.requestEditor = LoggerPlusPlus.montoya.userInterface().createHttpRequestEditor(EditorOptions.READ_ONLY);
         this.responseEditor = LoggerPlusPlus.montoya.userInterface().createHttpResponseEditor(EditorOptions.READ_ONLY);
         this.requestViewerPanel = new RequestViewerPanel(this);
+        this.loader = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "LPP-RequestViewer-Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.selectionTimer = new Timer(SELECTION_DELAY, e -> load());
+        this.selectionTimer.setRepeats(false);
+        this.prepared = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LogEntry, PreparedMessages> eldest) {
+                return size() > PREPARED_MESSAGES;
+            }
+        });
+        this.neighbours = Collections.emptyList();
     }
 
     public void setDisplayedEntity(LogEntry logEntry) {
+        setDisplayedEntity(logEntry, Collections.emptyList());
+    }
+
+    /**
+     * Display an entry once the selection has settled.
+     * @param neighbours Entries likely to be displayed next, to prepare in advance.
+     */
+    public void setDisplayedEntity(LogEntry logEntry, List<LogEntry> neighbours) {
         // Only update message if it's new. This fixes issue #164 and improves performance during heavy scanning.
         if (this.currentEntry == logEntry) { return; }
 
         this.currentEntry = logEntry;
+        this.neighbours = neighbours;
 
-        if (logEntry == null || logEntry.getRequest() == null) {
-            requestEditor.setRequest(null);
-        }else{
-            requestEditor.setRequest(logEntry.getRequest());
+        if (logEntry == null) {
+            selectionTimer.stop();
+            show(null);
+        } else {
+            selectionTimer.restart();
         }
+    }
 
-        if (logEntry == null || logEntry.getResponse() == null) {
-            responseEditor.setResponse(null);
-        }else{
-            responseEditor.setResponse(logEntry.getResponse());
-        }
+    /**
+     * Replace the truncated messages of the current entry with the full messages.
+     */
+    public void showFullMessages() {
+        LogEntry entry = this.currentEntry;
+        if (entry == null) return;
+        loader.execute(() -> {
+            if (this.currentEntry != entry) return;
+            PreparedMessages full = new PreparedMessages(entry.getVersion(), Integer.MAX_VALUE,
+                    entry.getRequest(), entry.getResponse(), false);
+            SwingUtilities.invokeLater(() -> {
+                if (this.currentEntry == entry) show(full);
+            });
+        });
+    }
+
+    public void shutdown() {
+        selectionTimer.stop();
+        loader.shutdownNow();
     }
 
     public void setMarkers(){
 
     }
+
+    private void load() {
+        LogEntry entry = this.currentEntry;
+        if (entry == null) return;
+        int previewSize = (int) preferences.getSetting(PREF_VIEWER_PREVIEW_SIZE) * 1024;
+
+        PreparedMessages messages = getPrepared(entry, previewSize);
+        if (messages != null) {
+            show(messages);
+        } else {
+            loader.execute(() -> {
+                //Skip entries which were passed over before they could be prepared.
+                if (this.currentEntry != entry) return;
+                PreparedMessages loaded = prepare(entry, previewSize);
+                SwingUtilities.invokeLater(() -> {
+                    if (this.currentEntry == entry) show(loaded);
+                });
+            });
+        }
+
+        List<LogEntry> neighbours = this.neighbours;
+        loader.execute(() -> {
+            for (LogEntry neighbour : neighbours) {
+                if (this.currentEntry != entry) return;
+                prepare(neighbour, previewSize);
+            }
+        });
+    }
+
+    private void show(PreparedMessages messages) {
+        requestEditor.setRequest(messages != null ? messages.request : null);
+        responseEditor.setResponse(messages != null ? messages.response : null);
+        requestViewerPanel.setTruncated(messages != null && messages.truncated);
+    }
+
+    private PreparedMessages getPrepared(LogEntry entry, int previewSize) {
+        PreparedMessages messages = prepared.get(entry);
+        //Messages prepared before the response arrived, or with another preview size, are out of date.
+        if (messages == null || messages.version != entry.getVersion() || messages.previewSize != previewSize) return null;
+        return messages;
+    }
+
+    private PreparedMessages prepare(LogEntry entry, int previewSize) {
+        PreparedMessages messages = getPrepared(entry, previewSize);
+        if (messages != null) return messages;
+
+        int version = entry.getVersion();
+        HttpRequest request = entry.getRequest();
+        HttpResponse response = entry.getResponse();
+        boolean truncated = false;
+        try {
+            if (request != null && request.body().length() > previewSize) {
+                request = HttpRequest.httpRequest(request.httpService(), truncate(request.toByteArray(), request.bodyOffset(), previewSize));
+                truncated = true;
+            }
+            if (response != null && response.body().length() > previewSize) {
+                response = HttpResponse.httpResponse(truncate(response.toByteArray(), response.bodyOffset(), previewSize));
+                truncated = true;
+            }
+        } catch (Exception e) {
+            log.error(e);
+            request = entry.getRequest();
+            response = entry.getResponse();
+            truncated = false;
+        }
+
+        messages = new PreparedMessages(version, previewSize, request, response, truncated);
+        prepared.put(entry, messages);
+        return messages;
+    }
+
+    /**
+     * Cut the body of the message short and mark where it was cut. Setting the body through the message would
+     * rewrite its Content-Length, so the bytes are cut directly and the headers left as they were.
+     */
+    private static ByteArray truncate(ByteArray message, int bodyOffset, int previewSize) {
+        int bodyLength = message.length() - bodyOffset;
+        return message.subArray(0, bodyOffset + previewSize)
+                .withAppended(String.format(TRUNCATION_MARKER, previewSize, bodyLength));
+    }
+
+    private static class PreparedMessages {
+        private final int version;
+        private final int previewSize;
+        private final HttpRequest request;
+        private final HttpResponse response;
+        private final boolean truncated;
+
+        private PreparedMessages(int version, int previewSize, HttpRequest request, HttpResponse response, boolean truncated) {
+            this.version = version;
+            this.previewSize = previewSize;
+            this.request = request;
+            this.response = response;
+            this.truncated = truncated;
+        }
+    }
 }
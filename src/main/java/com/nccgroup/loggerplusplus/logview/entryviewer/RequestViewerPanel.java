@@ -5,10 +5,14 @@ import com.coreyd97.BurpExtenderUtilities.VariableViewPanel;
 import com.nccgroup.loggerplusplus.LoggerPlusPlus;
 import com.nccgroup.loggerplusplus.util.Globals;
 
+import javax.swing.*;
+import java.awt.*;
+
 public class RequestViewerPanel extends PopOutPanel {
 
     private final RequestViewerController controller;
     private final VariableViewPanel variableViewPanel;
+    private final JPanel truncatedNotice;
 
     public RequestViewerPanel(RequestViewerController controller){
         super(LoggerPlusPlus.montoya);
@@ -19,11 +23,26 @@ public class RequestViewerPanel extends PopOutPanel {
                 controller.getResponseEditor().uiComponent(), "Response",
                 VariableViewPanel.View.HORIZONTAL);
 
-        this.setComponent(variableViewPanel);
+        JButton showFullButton = new JButton("Show Full Message");
+        showFullButton.addActionListener(e -> controller.showFullMessages());
+        this.truncatedNotice = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        this.truncatedNotice.add(new JLabel("Large bodies have been truncated for display."));
+        this.truncatedNotice.add(showFullButton);
+        this.truncatedNotice.setVisible(false);
+
+        JPanel wrapper = new JPanel(new BorderLayout());
+        wrapper.add(truncatedNotice, BorderLayout.NORTH);
+        wrapper.add(variableViewPanel, BorderLayout.CENTER);
+
+        this.setComponent(wrapper);
         this.setTitle("Request/Response Viewer");
     }
 
     public VariableViewPanel getVariableViewPanel() {
         return variableViewPanel;
     }
+
+    void setTruncated(boolean truncated) {
+        truncatedNotice.setVisible(truncated);
+    }
 }
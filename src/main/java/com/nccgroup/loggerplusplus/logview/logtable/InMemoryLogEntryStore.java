@@ -0,0 +1,53 @@
+package com.nccgroup.loggerplusplus.logview.logtable;
+
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps every entry of the log in memory.
+ */
+public class InMemoryLogEntryStore implements LogEntryStore {
+
+    private final ArrayList<LogEntry> entries;
+
+    public InMemoryLogEntryStore() {
+        this.entries = new ArrayList<>();
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized LogEntry get(int index) {
+        return entries.get(index);
+    }
+
+    @Override
+    public synchronized int indexOf(LogEntry entry) {
+        return entries.indexOf(entry);
+    }
+
+    @Override
+    public synchronized void add(LogEntry entry) {
+        entries.add(entry);
+    }
+
+    @Override
+    public synchronized LogEntry remove(int index) {
+        return entries.remove(index);
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized List<LogEntry> snapshot() {
+        return new ArrayList<>(entries);
+    }
+}
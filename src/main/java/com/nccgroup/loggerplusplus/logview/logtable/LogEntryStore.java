@@ -0,0 +1,33 @@
+package com.nccgroup.loggerplusplus.logview.logtable;
+
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+
+import java.util.List;
+
+/**
+ * Holds the entries of the log, in the order they were logged. The table reads entries from the store one row at
+ * a time as they are displayed, so a store which doesn't keep every entry in memory should cache those it reads.
+ * All methods must be thread safe.
+ */
+public interface LogEntryStore {
+
+    int size();
+
+    LogEntry get(int index);
+
+    /**
+     * @return The position of the entry, or -1 if it isn't in the store.
+     */
+    int indexOf(LogEntry entry);
+
+    void add(LogEntry entry);
+
+    LogEntry remove(int index);
+
+    void clear();
+
+    /**
+     * @return A copy of every entry, unaffected by later changes to the store.
+     */
+    List<LogEntry> snapshot();
+}
@@ -6,6 +6,7 @@ package com.nccgroup.loggerplusplus.logview.logtable;
 
 import com.coreyd97.BurpExtenderUtilities.Preferences;
 import com.nccgroup.loggerplusplus.filter.colorfilter.TableColorRule;
+import com.nccgroup.loggerplusplus.filter.logfilter.BackgroundFilterEvaluator;
 import com.nccgroup.loggerplusplus.filter.logfilter.LogTableFilter;
 import com.nccgroup.loggerplusplus.logentry.LogEntry;
 import com.nccgroup.loggerplusplus.logentry.LogEntryField;
@@ -14,19 +15,21 @@ import com.nccgroup.loggerplusplus.logview.SingleLogEntryMenu;
 import com.nccgroup.loggerplusplus.logview.entryviewer.RequestViewerController;
 import com.nccgroup.loggerplusplus.util.Globals;
 import com.nccgroup.loggerplusplus.util.userinterface.renderer.BooleanRenderer;
+import com.nccgroup.loggerplusplus.util.userinterface.renderer.DateRenderer;
+import lombok.AccessLevel;
+import lombok.Getter;
 
 import javax.swing.*;
 import javax.swing.event.RowSorterEvent;
 import javax.swing.event.TableModelEvent;
 import javax.swing.table.TableCellRenderer;
-import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -34,7 +37,11 @@ public class LogTable extends JTable
 {
     private final LogTableController controller;
     private final Preferences preferences;
-    private final TableRowSorter<LogTableModel> sorter;
+    private final LogTableRowSorter sorter;
+    @Getter
+    private final BackgroundFilterEvaluator filterEvaluator;
+    @Getter(AccessLevel.PACKAGE)
+    private final RepaintGovernor repaintGovernor;
 
     LogTable(LogTableController controller)
     {
@@ -47,11 +54,12 @@ public class LogTable extends JTable
         this.setRowHeight(20); // As we are not using Burp customised UI, we have to define the row height to make it more pretty
         this.setDefaultRenderer(Boolean.class, new BooleanRenderer()); //Fix grey checkbox background
         ((JComponent) this.getDefaultRenderer(Boolean.class)).setOpaque(true); // to remove the white background of the checkboxes!
+        this.setDefaultRenderer(Date.class, new DateRenderer());
 
-        this.sorter = new TableRowSorter<>(this.getModel());
-        this.sorter.setMaxSortKeys(1);
-        this.sorter.setSortsOnUpdates(true);
+        this.sorter = new LogTableRowSorter(controller.getLogTableModel(), controller.getLogTableColumnModel());
         this.setRowSorter(this.sorter);
+        this.filterEvaluator = new BackgroundFilterEvaluator(this.sorter, controller.getLogTableModel());
+        this.repaintGovernor = new RepaintGovernor(this, this.preferences);
 
         this.sorter.addRowSorterListener(rowSorterEvent -> {
             if(rowSorterEvent.getType() != RowSorterEvent.Type.SORT_ORDER_CHANGED) return;
@@ -84,9 +92,13 @@ public class LogTable extends JTable
                 requestViewerController.setDisplayedEntity(null);
             }else {
                 // Use a relative instead of an absolute index (This prevents an issue when a filter is set)
-                LogEntry logEntry = getModel().getData().get(convertRowIndexToModel(selectedRow));
+                LogEntry logEntry = getModel().getRow(convertRowIndexToModel(selectedRow));
                 if (logEntry != null) {
-                    requestViewerController.setDisplayedEntity(logEntry);
+                    List<LogEntry> neighbours = new ArrayList<>(2);
+                    for (int row : new int[]{selectedRow - 1, selectedRow + 1}) {
+                        if (row >= 0 && row < getRowCount()) neighbours.add(getModel().getRow(convertRowIndexToModel(row)));
+                    }
+                    requestViewerController.setDisplayedEntity(logEntry, neighbours);
                 }
             }
         });
@@ -116,9 +128,7 @@ public class LogTable extends JTable
 
         Component c = super.prepareRenderer(renderer, row, column);
 
-        IntStream selectedRows = IntStream.of(this.getSelectedRows());
-
-        if(selectedRows.anyMatch(i -> i == row)){
+        if(this.getSelectionModel().isSelectedIndex(row)){
             c.setBackground(this.getSelectionBackground());
             c.setForeground(this.getSelectionForeground());
         }else {
@@ -126,24 +136,13 @@ public class LogTable extends JTable
                 System.err.println("Could not convert row index to model. Table entry might not be highlighted properly.");
                 return c;
             }
-            if(entry.getMatchingColorFilters().size() != 0){
-                TableColorRule tableColorRule = null;
-                Map<UUID, TableColorRule> colorFilters = this.preferences.getSetting(Globals.PREF_COLOR_FILTERS);
-                for (UUID uid : entry.getMatchingColorFilters()) {
-                    if(tableColorRule == null || tableColorRule.getPriority() > colorFilters.get(uid).getPriority()){
-                        tableColorRule = colorFilters.get(uid);
-                    }
-                }
-                if (tableColorRule == null) {
-                    c.setForeground(this.getForeground());
-                    c.setBackground(this.getBackground());
-                } else {
-                    c.setForeground(tableColorRule.getForegroundColor());
-                    c.setBackground(tableColorRule.getBackgroundColor());
-                }
-            }else{
+            TableColorRule tableColorRule = this.getModel().getColorRule(entry);
+            if (tableColorRule == null) {
                 c.setForeground(this.getForeground());
                 c.setBackground(this.getBackground());
+            } else {
+                c.setForeground(tableColorRule.getForegroundColor());
+                c.setBackground(tableColorRule.getBackgroundColor());
             }
         }
         return c;
@@ -199,21 +198,56 @@ public class LogTable extends JTable
                 }
             }
         });
+    }
+
 
-        getModel().addTableModelListener(tableModelEvent -> {
-            if(tableModelEvent.getType() == TableModelEvent.INSERT && (boolean) preferences.getSetting(Globals.PREF_AUTO_SCROLL)){
-                LogTable.this.scrollRectToVisible(getCellRect(tableModelEvent.getFirstRow(), tableModelEvent.getColumn(), true));
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        //Changed entries must be tested again, rather than using a result from before the change.
+        if (filterEvaluator != null && e.getType() == TableModelEvent.UPDATE) {
+            if (e.getFirstRow() == TableModelEvent.HEADER_ROW || e.getLastRow() == Integer.MAX_VALUE) {
+                filterEvaluator.reevaluate();
+            } else {
+                LogTableModel model = getModel();
+                for (int row = e.getFirstRow(); row <= e.getLastRow() && row < model.getRowCount(); row++) {
+                    filterEvaluator.invalidate(model.getRow(row));
+                }
             }
-        });
+        }
+        //Rows being added are held back until the table is next updated.
+        if (repaintGovernor != null) e = repaintGovernor.filter(e);
+        if (e != null) super.tableChanged(e);
     }
 
+    /**
+     * Show a change to the model which was held back.
+     */
+    void showModelChange(TableModelEvent e) {
+        super.tableChanged(e);
+    }
+
+    @Override
+    protected void resizeAndRepaint() {
+        if (repaintGovernor != null) {
+            repaintGovernor.requestResize();
+        } else {
+            super.resizeAndRepaint();
+        }
+    }
+
+    void resizeAndRepaintNow() {
+        super.resizeAndRepaint();
+    }
 
+    /**
+     * @return The most recently set filter. It may still be being evaluated.
+     */
     public LogTableFilter getCurrentFilter(){
-        return (LogTableFilter) this.sorter.getRowFilter();
+        return this.filterEvaluator.getFilter();
     }
 
     public void setFilter(LogTableFilter filter){
-        this.sorter.setRowFilter(filter);
+        this.filterEvaluator.apply(filter);
         ((JScrollPane) this.getParent().getParent()).getVerticalScrollBar().setValue(0);
     }
 
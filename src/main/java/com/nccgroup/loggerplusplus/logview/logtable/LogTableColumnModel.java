@@ -62,6 +62,13 @@ public class LogTableColumnModel extends DefaultTableColumnModel {
 
     }
 
+    /**
+     * @return The type of the values of the column's field, regardless of the entries in the log.
+     */
+    public Class<?> getColumnClass(int index) {
+        return ((LogTableColumn) getColumn(index)).getIdentifier().getType();
+    }
+
     @Override
     public int getColumnCount() {
         return tableColumns.size();
@@ -62,6 +62,13 @@ public class LogTableController {
         return preferences.getSetting(Globals.PREF_MAXIMUM_ENTRIES);
     }
 
+    public void shutdown(){
+        logTable.getFilterEvaluator().shutdown();
+        logTable.getRepaintGovernor().shutdown();
+        logTableModel.shutdown();
+        logTableModel.getEntryIndexes().shutdown();
+    }
+
     public void reinitialize(){
         //TODO Reinitialize table model
     }
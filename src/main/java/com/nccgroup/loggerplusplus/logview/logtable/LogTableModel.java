@@ -1,33 +1,48 @@
 package com.nccgroup.loggerplusplus.logview.logtable;
 
+import com.nccgroup.loggerplusplus.LoggerPlusPlus;
 import com.nccgroup.loggerplusplus.filter.colorfilter.TableColorRule;
 import com.nccgroup.loggerplusplus.filter.colorfilter.ColorFilterListener;
+import com.nccgroup.loggerplusplus.filter.logfilter.LogTableFilter;
 import com.nccgroup.loggerplusplus.filter.tag.Tag;
 import com.nccgroup.loggerplusplus.filter.tag.TagListener;
+import com.nccgroup.loggerplusplus.index.CompressedBitmap;
+import com.nccgroup.loggerplusplus.index.EntryIndexes;
 import com.nccgroup.loggerplusplus.logentry.LogEntry;
 import com.nccgroup.loggerplusplus.logentry.LogEntryField;
-import com.nccgroup.loggerplusplus.logview.processor.LogProcessor;
+import com.nccgroup.loggerplusplus.logview.processor.LogEntrySink;
+import lombok.Getter;
 
 import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
+import java.awt.*;
 import java.util.*;
+import java.util.List;
 
-/* Extending AbstractTableModel to design the logTable behaviour based on the array list */
-public class LogTableModel extends AbstractTableModel implements ColorFilterListener, TagListener {
+/* Extending AbstractTableModel to design the logTable behaviour based on the entry store */
+public class LogTableModel extends AbstractTableModel implements ColorFilterListener, TagListener, LogEntrySink {
 
     private final LogTableController controller;
-    private final List<LogEntry> entries;
+    @Getter
+    private final LogEntryStore store;
     private LogTableColumnModel columnModel;
+    @Getter
+    private final EntryIndexes entryIndexes;
+    private final RuleRetester ruleRetester;
+    private final RenderCache renderCache;
 
     public LogTableModel(LogTableController controller, LogTableColumnModel columnModel) {
         this.controller = controller;
         this.columnModel = columnModel;
-        this.entries = Collections.synchronizedList(new ArrayList<>());
+        this.store = new InMemoryLogEntryStore();
+        this.entryIndexes = new EntryIndexes(controller.getPreferences(), store::snapshot);
+        this.ruleRetester = new RuleRetester(this);
+        this.renderCache = new RenderCache();
     }
 
     @Override
     public int getRowCount() {
-        return entries.size();
+        return store.size();
     }
 
     @Override
@@ -42,7 +57,7 @@ public class LogTableModel extends AbstractTableModel implements ColorFilterList
 
     @Override
     public void setValueAt(Object value, int rowModelIndex, int columnModelIndex) {
-        LogEntry logEntry = entries.get(rowModelIndex);
+        LogEntry logEntry = getRow(rowModelIndex);
         if (this.columnModel.getColumn(columnModelIndex).getIdentifier() == LogEntryField.COMMENT) {
             logEntry.setComment(String.valueOf(value));
         }
@@ -51,51 +66,57 @@ public class LogTableModel extends AbstractTableModel implements ColorFilterList
 
     @Override
     public Class<?> getColumnClass(int columnModelIndex) {
-        Object val = getValueAt(0, columnModelIndex);
-        return val == null ? Object.class : val.getClass();
+        return columnModel.getColumnClass(columnModelIndex);
     }
 
     private int getMaxEntries() {
         return this.controller.getMaximumEntries();
     }
 
+    @Override
     public void removeLogEntry(LogEntry logEntry) {
         removeLogEntries(Arrays.asList(logEntry));
     }
 
     public void removeLogEntries(List<LogEntry> logEntry) {
-        synchronized (entries) {
-            for (LogEntry entry : logEntry) {
-                int index = entries.indexOf(entry);
-                removeEntryAtRow(index);
-            }
+        for (LogEntry entry : logEntry) {
+            int index = store.indexOf(entry);
+            if (index >= 0) removeEntryAtRow(index);
         }
     }
 
     public synchronized void removeEntryAtRow(int row) {
-        entries.remove(row);
+        LogEntry removed = store.remove(row);
+        renderCache.remove(removed);
+        LoggerPlusPlus.context.getLibraryController().removeEntryMembership(removed);
+        entryIndexes.removeEntry(removed);
         this.fireTableRowsDeleted(row, row);
     }
 
+    @Override
     public synchronized void addEntry(LogEntry logEntry) {
-        int index = entries.size();
-        entries.add(logEntry);
+        int index = store.size();
+        store.add(logEntry);
+        entryIndexes.addEntry(logEntry);
         this.fireTableRowsInserted(index, index);
 
-        int excess = Math.max(entries.size() - controller.getMaximumEntries(), 0);
+        int excess = Math.max(store.size() - controller.getMaximumEntries(), 0);
         for (int excessIndex = 0; excessIndex < excess; excessIndex++) {
             removeEntryAtRow(0); // Always remove the oldest entry
         }
     }
 
+    @Override
     public synchronized void updateEntry(LogEntry logEntry) {
-        int index = entries.indexOf(logEntry);
-        fireTableRowsUpdated(index, index);
+        entryIndexes.updateEntry(logEntry);
+        logEntry.markChanged();
+        int index = store.indexOf(logEntry);
+        if (index >= 0) fireTableRowsUpdated(index, index);
     }
 
     @Override
     public Object getValueAt(int rowIndex, int colModelIndex) {
-        if (rowIndex >= entries.size())
+        if (rowIndex >= store.size())
             return null;
 
         LogTableColumn column = (LogTableColumn) columnModel.getColumn(colModelIndex);
@@ -104,148 +125,164 @@ public class LogTableModel extends AbstractTableModel implements ColorFilterList
             return rowIndex + 1;
         }
 
-        Object value = entries.get(rowIndex).getValueByKey(column.getIdentifier());
+        return renderCache.getValue(getRow(rowIndex), column.getIdentifier());
+    }
 
-        if (value instanceof Date) {
-            return LogProcessor.LOGGER_DATE_FORMAT.format(value);
-        }
-        return value;
+    /**
+     * @return The highest priority color filter matching the entry, or null if there is none.
+     */
+    TableColorRule getColorRule(LogEntry entry) {
+        return renderCache.getColorRule(entry);
     }
 
-    public List<LogEntry> getData() {
-        return this.entries;
+    /**
+     * @return A copy of every entry in the log, unaffected by later changes to it.
+     */
+    public List<LogEntry> getSnapshot() {
+        return store.snapshot();
     }
 
     public LogEntry getRow(int row) {
-        return this.entries.get(row);
+        return store.get(row);
+    }
+
+    /**
+     * @return The row of the entry in the model, or -1 if it is no longer logged.
+     */
+    public int indexOf(LogEntry entry) {
+        return store.indexOf(entry);
     }
 
     public void reset() {
-        this.entries.clear();
+        this.store.clear();
+        this.entryIndexes.clear();
+        this.renderCache.clear();
+        LoggerPlusPlus.context.getLibraryController().getColorFilterMembership().clear();
+        LoggerPlusPlus.context.getLibraryController().getTagMembership().clear();
         this.fireTableDataChanged();
     }
 
+    /**
+     * Refresh the rows of entries whose tags or color filters changed. If the log is sorted or filtered by its tags,
+     * the rows of the changed entries are found by their sequence and updated in contiguous ranges, so they are sorted
+     * and filtered again. Otherwise only the rows in view are repainted, as the others are rendered with their new
+     * tags and colors when scrolled to.
+     * Must be called on the event dispatch thread.
+     */
+    void refreshEntries(CompressedBitmap sequences) {
+        if (isSortedBy(LogEntryField.TAGS) || isFilteredBy(LogEntryField.TAGS)) {
+            //Entries the sorter hasn't been told of yet are sorted and filtered with their new tags when they are.
+            LogTableRowSorter sorter = (LogTableRowSorter) controller.getLogTable().getRowSorter();
+            int[] rows = new int[sequences.getCardinality()];
+            int[] count = {0};
+            sequences.forEach(sequence -> {
+                int row = sorter.convertSequenceToModel(sequence);
+                if (row >= 0 && count[0] < rows.length) rows[count[0]++] = row;
+            });
+            Arrays.sort(rows, 0, count[0]);
+            for (int i = 0; i < count[0]; ) {
+                int rangeEnd = i;
+                while (rangeEnd + 1 < count[0] && rows[rangeEnd + 1] == rows[rangeEnd] + 1) rangeEnd++;
+                fireTableRowsUpdated(rows[i], rows[rangeEnd]);
+                i = rangeEnd + 1;
+            }
+            return;
+        }
+
+        LogTable table = controller.getLogTable();
+        Rectangle visible = table.getVisibleRect();
+        int first = table.rowAtPoint(visible.getLocation());
+        if (first == -1) return;
+        int last = table.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+        if (last == -1) last = table.getRowCount() - 1;
+
+        int rangeStart = -1;
+        for (int row = first; row <= last + 1; row++) {
+            boolean changed = false;
+            if (row <= last) {
+                int modelRow = table.convertRowIndexToModel(row);
+                changed = modelRow < store.size() && sequences.contains(getRow(modelRow).getSequence());
+            }
+            if (changed && rangeStart == -1) {
+                rangeStart = row;
+            } else if (!changed && rangeStart != -1) {
+                Rectangle top = table.getCellRect(rangeStart, 0, true);
+                Rectangle bottom = table.getCellRect(row - 1, 0, true);
+                table.repaint(0, top.y, table.getWidth(), bottom.y + bottom.height - top.y);
+                rangeStart = -1;
+            }
+        }
+    }
+
+    private boolean isFilteredBy(LogEntryField field) {
+        LogTableFilter filter = controller.getLogTable().getCurrentFilter();
+        return filter != null && filter.getFilterExpression().getRequiredFields().contains(field);
+    }
+
+    private boolean isSortedBy(LogEntryField field) {
+        List<? extends RowSorter.SortKey> sortKeys = controller.getLogTable().getRowSorter().getSortKeys();
+        for (RowSorter.SortKey sortKey : sortKeys) {
+            if (sortKey.getSortOrder() == SortOrder.UNSORTED || sortKey.getColumn() >= columnModel.getColumnCount()) continue;
+            if (((LogTableColumn) columnModel.getColumn(sortKey.getColumn())).getIdentifier() == field) return true;
+        }
+        return false;
+    }
+
+    void shutdown() {
+        ruleRetester.shutdown();
+    }
+
     // FilterListeners
     @Override
     public void onColorFilterChange(final TableColorRule filter) {
-        createFilterTestingWorker(filter, filter.isShouldRetest()).execute();
+        renderCache.invalidateRules();
+        ruleRetester.retest(filter.getUuid(), filter.isShouldRetest(), (entry, retestExisting) -> entry.testColorFilter(filter, retestExisting));
     }
 
     @Override
     public void onColorFilterAdd(final TableColorRule filter) {
         if (!filter.isEnabled() || filter.getFilterExpression() == null)
             return;
-        createFilterTestingWorker(filter, false);
+        ruleRetester.retest(filter.getUuid(), false, (entry, retestExisting) -> entry.testColorFilter(filter, retestExisting));
     }
 
     @Override
     public void onColorFilterRemove(final TableColorRule filter) {
-        if (!filter.isEnabled() || filter.getFilterExpression() == null)
+        //The library drops the rule's bitmap once listeners are notified, so take the members now.
+        final CompressedBitmap formerMembers = LoggerPlusPlus.context.getLibraryController().getColorFilterMembership()
+                .getMembers(filter.getUuid()).copy();
+        if (formerMembers.isEmpty())
             return;
-        new SwingWorker<Void, Integer>() {
-            @Override
-            protected Void doInBackground() {
-                for (int i = 0; i < entries.size(); i++) {
-                    boolean wasPresent = entries.get(i).getMatchingColorFilters().remove(filter.getUuid());
-                    if (wasPresent) {
-                        publish(i);
-                    }
-                }
-                return null;
-            }
-
-            @Override
-            protected void process(List<Integer> rows) {
-                for (Integer row : rows) {
-                    fireTableRowsUpdated(row, row);
-                }
-            }
-        }.execute();
-    }
-
-    private SwingWorker<Void, Integer> createFilterTestingWorker(final TableColorRule filter, boolean retestExisting) {
-        return new SwingWorker<Void, Integer>() {
-
-            @Override
-            protected Void doInBackground() {
-                for (int i = 0; i < entries.size(); i++) {
-                    boolean testResultChanged = entries.get(i).testColorFilter(filter, retestExisting);
-                    if (testResultChanged) {
-                        publish(i);
-                    }
-                }
-
-                return null;
-            }
-
-            @Override
-            protected void process(List<Integer> updatedRows) {
-                for (Integer row : updatedRows) {
-                    fireTableRowsUpdated(row, row);
-                }
-            }
-        };
+        SwingUtilities.invokeLater(() -> {
+            renderCache.invalidateRules();
+            refreshEntries(formerMembers);
+        });
     }
 
     //TagListeners
     @Override
     public void onTagChange(final Tag filter) {
-        createTagTestingWorker(filter, filter.shouldRetest()).execute();
+        renderCache.invalidateRules();
+        ruleRetester.retest(filter.getUuid(), filter.shouldRetest(), (entry, retestExisting) -> entry.testTag(filter, retestExisting));
     }
 
     @Override
     public void onTagAdd(final Tag filter) {
         if (!filter.isEnabled() || filter.getFilterExpression() == null)
             return;
-        createTagTestingWorker(filter, false).execute();
+        ruleRetester.retest(filter.getUuid(), false, (entry, retestExisting) -> entry.testTag(filter, retestExisting));
     }
 
     @Override
     public void onTagRemove(final Tag filter) {
-        if (!filter.isEnabled() || filter.getFilterExpression() == null)
+        //The library drops the rule's bitmap once listeners are notified, so take the members now.
+        final CompressedBitmap formerMembers = LoggerPlusPlus.context.getLibraryController().getTagMembership()
+                .getMembers(filter.getUuid()).copy();
+        if (formerMembers.isEmpty())
             return;
-        new SwingWorker<Void, Integer>() {
-            @Override
-            protected Void doInBackground() {
-                for (int i = 0; i < entries.size(); i++) {
-                    boolean wasPresent = entries.get(i).getMatchingTags().remove(filter);
-                    if (wasPresent) {
-                        publish(i);
-                    }
-                }
-                return null;
-            }
-
-            @Override
-            protected void process(List<Integer> rows) {
-                for (Integer row : rows) {
-                    fireTableRowsUpdated(row, row);
-                }
-            }
-        }.execute();
-    }
-
-    private SwingWorker<Void, Integer> createTagTestingWorker(final Tag filter, boolean retestExisting) {
-        return new SwingWorker<Void, Integer>() {
-
-            @Override
-            protected Void doInBackground() {
-                for (int i = 0; i < entries.size(); i++) {
-                    boolean testResultChanged = entries.get(i).testTag(filter, retestExisting);
-                    if (testResultChanged) {
-                        publish(i);
-                    }
-                }
-
-                return null;
-            }
-
-            @Override
-            protected void process(List<Integer> updatedRows) {
-                for (Integer row : updatedRows) {
-                    fireTableRowsUpdated(row, row);
-                }
-            }
-        };
+        SwingUtilities.invokeLater(() -> {
+            renderCache.invalidateRules();
+            refreshEntries(formerMembers);
+        });
     }
-}
\ No newline at end of file
+}
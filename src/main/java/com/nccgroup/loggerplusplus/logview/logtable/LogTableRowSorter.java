@@ -0,0 +1,635 @@
+package com.nccgroup.loggerplusplus.logview.logtable;
+
+import com.nccgroup.loggerplusplus.index.CompressedBitmap;
+import com.nccgroup.loggerplusplus.index.OrderStatisticTree;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+
+import javax.swing.*;
+import javax.swing.event.EventListenerList;
+import javax.swing.event.RowSorterEvent;
+import javax.swing.event.RowSorterListener;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Sorts and filters the log table, keeping its view up to date as entries are added, changed and removed
+ * without sorting the whole log again.
+ * <p>
+ * Rows are kept in two order statistic trees: one in the order of the model, and one in the order of the view,
+ * holding only the rows included by the filter. Inserting, updating or removing a row, and converting between
+ * model and view indexes, each take O(log n) time. Rows are sorted by the typed values of their entries' fields,
+ * so dates are compared as dates and numbers as numbers, and the values are read once per row rather than once per
+ * comparison. Rows with equal values remain in the order of the model.
+ * <p>
+ * Up to {@link #MAX_SORT_KEYS} sort keys are used, with later keys ordering rows whose earlier keys are equal.
+ * Toggling a column makes it the first key, or switches it between ascending and descending if it already is.
+ * When the log is neither sorted nor
+ * filtered, the view is the model and only the tree in the order of the model is kept. The sorter only shows the
+ * rows of the model it has been told of, so the table can hold back rows appended to the model and show them later
+ * together.
+ * <p>
+ * A filter whose results are found over time can be shown without testing every row on the event dispatch thread.
+ * Once {@link #beginFilterChange()} is called, the rows added or changed are recorded. {@link #showFilter} then
+ * replaces the view with the rows known to match and the rows recorded, {@link #rowsIncluded} adds further matches,
+ * and {@link #cancelFilterChange()} restores the view from before, testing again only the rows changed since.
+ * Listeners are told how the previous view mapped to the model without it being copied, so each of these takes
+ * time in proportion to the rows which changed.
+ * All methods must be called on the event dispatch thread.
+ */
+public class LogTableRowSorter extends RowSorter<LogTableModel> {
+
+    //As for DefaultRowSorter, the number of columns sorted by before falling back to the order of the model.
+    public static final int MAX_SORT_KEYS = 3;
+
+    private final LogTableModel model;
+    private final LogTableColumnModel columnModel;
+    private final Collator collator;
+    private final FilterEntry filterEntry;
+    private final OrderStatisticTree<Row> modelRows;
+    private OrderStatisticTree<Row> viewRows;
+    //The rows of modelRows by the sequence of their entries.
+    private final HashMap<Integer, Row> rowsBySequence;
+    //As the listeners kept by RowSorter can only be sent events it creates itself.
+    private final EventListenerList listeners;
+
+    private List<SortKey> sortKeys;
+    private RowFilter<? super LogTableModel, ? super Integer> rowFilter;
+    //The fields sorted by, and whether each is descending.
+    private LogEntryField[] sortFields;
+    private boolean[] descending;
+    //Assigned to rows as they are added, so rows are ordered as in the model.
+    private long nextOrder;
+    //The rows of the model the sorter has been told of. Rows appended since are not yet shown.
+    private int modelRowCount;
+
+    //The entries added or changed since a filter change began, or null if there is none in progress.
+    private CompressedBitmap changedEntries;
+    //Whether the filter being changed to has been shown, and the filter and view to restore if it is abandoned.
+    //The saved rows are null if the view was the model, or if the rows have been sorted again since.
+    private boolean filterShown;
+    private RowFilter<? super LogTableModel, ? super Integer> savedFilter;
+    private OrderStatisticTree<Row> savedRows;
+
+    public LogTableRowSorter(LogTableModel model, LogTableColumnModel columnModel) {
+        this.model = model;
+        this.columnModel = columnModel;
+        this.collator = Collator.getInstance();
+        this.filterEntry = new FilterEntry();
+        this.modelRows = new OrderStatisticTree<>(Comparator.comparingLong(row -> row.order));
+        this.viewRows = new OrderStatisticTree<>(this::compareRows);
+        this.rowsBySequence = new HashMap<>();
+        this.listeners = new EventListenerList();
+        this.sortKeys = Collections.emptyList();
+        this.sortFields = new LogEntryField[0];
+        this.descending = new boolean[0];
+        this.modelRowCount = model.getRowCount();
+        sort();
+    }
+
+    @Override
+    public LogTableModel getModel() {
+        return model;
+    }
+
+    @Override
+    public void toggleSortOrder(int column) {
+        checkColumn(column);
+        List<SortKey> keys = new ArrayList<>(sortKeys);
+        int index = 0;
+        while (index < keys.size() && keys.get(index).getColumn() != column) index++;
+        if (index == 0 && !keys.isEmpty()) {
+            SortOrder order = keys.get(0).getSortOrder() == SortOrder.ASCENDING ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+            keys.set(0, new SortKey(column, order));
+        } else {
+            if (index < keys.size()) keys.remove(index);
+            keys.add(0, new SortKey(column, SortOrder.ASCENDING));
+        }
+        setSortKeys(keys);
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    /**
+     * Sort by the keys given, in order, or restore the order of the model if there are none. Only the first
+     * {@link #MAX_SORT_KEYS} are used, unsorted keys are ignored, and a column given more than once is sorted by its
+     * first key.
+     */
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> newKeys = new ArrayList<>();
+        if (keys != null) {
+            Set<Integer> columns = new HashSet<>();
+            for (SortKey key : keys) {
+                if (key == null) throw new IllegalArgumentException("Sort key must not be null");
+                checkColumn(key.getColumn());
+                if (newKeys.size() == MAX_SORT_KEYS) continue;
+                if (key.getSortOrder() != SortOrder.UNSORTED && columns.add(key.getColumn())) newKeys.add(key);
+            }
+        }
+        if (newKeys.equals(sortKeys)) return;
+
+        ViewMapping previous = mapView();
+        sortKeys = Collections.unmodifiableList(newKeys);
+        fireSortOrderChanged();
+        sort(previous);
+    }
+
+    public RowFilter<? super LogTableModel, ? super Integer> getRowFilter() {
+        return rowFilter;
+    }
+
+    /**
+     * Show only the rows the filter includes, or every row if it is null.
+     */
+    public void setRowFilter(RowFilter<? super LogTableModel, ? super Integer> filter) {
+        ViewMapping previous = mapView();
+        this.rowFilter = filter;
+        if (isIdentity()) {
+            //Every row is shown in the order of the model, so there is nothing to sort.
+            viewRows = new OrderStatisticTree<>(this::compareRows);
+            fireViewChanged(previous);
+        } else {
+            sort(previous);
+        }
+    }
+
+    /**
+     * Sort and filter every row again.
+     */
+    public void sort() {
+        sort(mapView());
+    }
+
+    private void sort(ViewMapping previous) {
+        int[] previousViewToModel = getViewToModel(previous);
+
+        modelRows.clear();
+        viewRows = new OrderStatisticTree<>(this::compareRows);
+        rowsBySequence.clear();
+        //The rows saved before a filter change are replaced, so the view must be sorted again to restore it.
+        savedRows = null;
+        sortFields = new LogEntryField[sortKeys.size()];
+        descending = new boolean[sortKeys.size()];
+        for (int i = 0; i < sortKeys.size(); i++) {
+            sortFields[i] = ((LogTableColumn) columnModel.getColumn(sortKeys.get(i).getColumn())).getIdentifier();
+            descending[i] = sortKeys.get(i).getSortOrder() == SortOrder.DESCENDING;
+        }
+
+        int rowCount = modelRowCount;
+        nextOrder = rowCount;
+        List<Row> rows = new ArrayList<>(rowCount);
+        List<Row> included = new ArrayList<>(isIdentity() ? 0 : rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            Row row = new Row(model.getRow(i), i);
+            rows.add(row);
+            rowsBySequence.put(row.entry.getSequence(), row);
+            if (!isIdentity()) {
+                readValues(row);
+                if (evaluate(row, i)) included.add(row);
+            }
+        }
+        modelRows.build(rows);
+        if (!isIdentity()) {
+            included.sort(this::compareRows);
+            viewRows.build(included);
+        }
+
+        fireRowSorterChanged(previousViewToModel);
+    }
+
+    /**
+     * Begin recording the rows added or changed, so a filter being evaluated can be shown, or abandoned after it
+     * has been, without testing every row.
+     */
+    public void beginFilterChange() {
+        endFilterChange();
+        changedEntries = new CompressedBitmap();
+    }
+
+    /**
+     * Show the filter being changed to in place of the current view. Rows of the given entries, and rows added or
+     * changed since the filter change began, are tested. All other rows are taken to be excluded until
+     * {@link #rowsIncluded} is told otherwise. The current view is kept, so it can be restored by
+     * {@link #cancelFilterChange()}.
+     *
+     * @param filter The filter being changed to.
+     * @param matched The entries the filter is known to include.
+     */
+    public void showFilter(RowFilter<? super LogTableModel, ? super Integer> filter, CompressedBitmap matched) {
+        if (changedEntries == null) {
+            setRowFilter(filter);
+            return;
+        }
+        ViewMapping previous = mapView();
+        savedFilter = rowFilter;
+        savedRows = isIdentity() ? null : viewRows;
+        rowFilter = filter;
+        viewRows = new OrderStatisticTree<>(this::compareRows);
+        if (!isIdentity()) {
+            List<Row> included = new ArrayList<>();
+            matched.or(changedEntries).forEach(sequence -> {
+                Row row = rowsBySequence.get(sequence);
+                if (row != null && evaluate(row, modelRows.indexOf(row))) included.add(row);
+            });
+            included.sort(this::compareRows);
+            viewRows.build(included);
+        }
+        //From now on, the rows changed are those which must be tested again if the saved view is restored.
+        changedEntries = new CompressedBitmap();
+        filterShown = true;
+        fireViewChanged(previous);
+    }
+
+    /**
+     * Keep the filter which was shown, and stop recording the rows which change.
+     */
+    public void endFilterChange() {
+        changedEntries = null;
+        filterShown = false;
+        savedFilter = null;
+        savedRows = null;
+    }
+
+    /**
+     * Abandon a filter change. If the filter was shown, the view from before it is restored, testing again only the
+     * rows added or changed since.
+     */
+    public void cancelFilterChange() {
+        if (!filterShown) {
+            endFilterChange();
+            return;
+        }
+        RowFilter<? super LogTableModel, ? super Integer> restoredFilter = savedFilter;
+        OrderStatisticTree<Row> restoredRows = savedRows;
+        CompressedBitmap changed = changedEntries;
+        endFilterChange();
+        if (restoredRows == null) {
+            //The view was the model, or has been sorted again since.
+            setRowFilter(restoredFilter);
+            return;
+        }
+        ViewMapping previous = mapView();
+        rowFilter = restoredFilter;
+        viewRows = restoredRows;
+        changed.forEach(sequence -> {
+            Row row = rowsBySequence.get(sequence);
+            if (row != null && viewRows.indexOf(row) < 0 && evaluate(row, modelRows.indexOf(row))) {
+                viewRows.add(row);
+            }
+        });
+        fireViewChanged(previous);
+    }
+
+    /**
+     * Test again rows of the given entries which are currently excluded, as the filter is now known to include them.
+     * Unlike {@link #setRowFilter}, only those rows are tested, so a filter whose results are found over time can be
+     * shown as they arrive. Entries which aren't in the log, or whose rows are already included, are ignored.
+     */
+    public void rowsIncluded(int[] sequences) {
+        if (isIdentity() || rowFilter == null) return;
+        int previousRowCount = viewRows.size();
+        List<Row> added = new ArrayList<>();
+        for (int sequence : sequences) {
+            Row row = rowsBySequence.get(sequence);
+            if (row != null && viewRows.indexOf(row) < 0 && evaluate(row, modelRows.indexOf(row))) {
+                viewRows.add(row);
+                added.add(row);
+            }
+        }
+        if (added.isEmpty()) return;
+
+        //A row of the previous view moved down by one for each row added at or above its new position.
+        int[] addedIndexes = new int[added.size()];
+        for (int i = 0; i < addedIndexes.length; i++) {
+            addedIndexes[i] = viewRows.indexOf(added.get(i));
+        }
+        Arrays.sort(addedIndexes);
+        fireViewChanged(new ViewMapping(previousRowCount, index -> {
+            for (int addedIndex : addedIndexes) {
+                if (addedIndex > index) break;
+                index++;
+            }
+            return modelRows.indexOf(viewRows.get(index));
+        }, null));
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (isIdentity()) {
+            if (index < 0 || index >= modelRowCount) throw new IndexOutOfBoundsException("Invalid index " + index);
+            return index;
+        }
+        return modelRows.indexOf(viewRows.get(index));
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (index >= modelRowCount && index < model.getRowCount()) return -1;
+        if (isIdentity()) {
+            if (index < 0 || index >= modelRowCount) throw new IndexOutOfBoundsException("Invalid index " + index);
+            return index;
+        }
+        return viewRows.indexOf(modelRows.get(index));
+    }
+
+    /**
+     * @return The row in the model of the entry with the sequence, or -1 if the sorter hasn't been told of it.
+     */
+    public int convertSequenceToModel(int sequence) {
+        Row row = rowsBySequence.get(sequence);
+        return row == null ? -1 : modelRows.indexOf(row);
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return isIdentity() ? modelRowCount : viewRows.size();
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return modelRowCount;
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        ViewMapping previous = mapView();
+        modelRowCount = model.getRowCount();
+        List<SortKey> validKeys = new ArrayList<>(sortKeys);
+        validKeys.removeIf(key -> key.getColumn() >= model.getColumnCount());
+        if (validKeys.size() != sortKeys.size()) {
+            sortKeys = Collections.unmodifiableList(validKeys);
+            fireSortOrderChanged();
+        }
+        sort(previous);
+    }
+
+    @Override
+    public void allRowsChanged() {
+        ViewMapping previous = mapView();
+        modelRowCount = model.getRowCount();
+        sort(previous);
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        //Rows are expected to be appended. The order of rows inserted elsewhere can't be kept without renumbering.
+        if (firstRow != modelRows.size()) {
+            ViewMapping previous = mapView();
+            modelRowCount += endRow - firstRow + 1;
+            sort(previous);
+            return;
+        }
+        modelRowCount += endRow - firstRow + 1;
+        for (int i = firstRow; i <= endRow; i++) {
+            Row row = new Row(model.getRow(i), nextOrder++);
+            modelRows.add(row);
+            rowsBySequence.put(row.entry.getSequence(), row);
+            if (changedEntries != null) changedEntries.add(row.entry.getSequence());
+            if (isIdentity()) continue;
+            readValues(row);
+            if (evaluate(row, i)) viewRows.add(row);
+        }
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        modelRowCount -= endRow - firstRow + 1;
+        for (int i = firstRow; i <= endRow; i++) {
+            Row row = modelRows.get(firstRow);
+            modelRows.remove(row);
+            rowsBySequence.remove(row.entry.getSequence());
+            if (!isIdentity()) viewRows.remove(row);
+            if (savedRows != null) savedRows.remove(row);
+        }
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        for (int i = firstRow; i <= endRow; i++) {
+            Row row = modelRows.get(i);
+            if (changedEntries != null) changedEntries.add(row.entry.getSequence());
+            //The row must be removed before its values change, as it is found by them.
+            if (savedRows != null) savedRows.remove(row);
+            if (isIdentity()) continue;
+            viewRows.remove(row);
+            readValues(row);
+            if (evaluate(row, i)) viewRows.add(row);
+        }
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        //While a filter is being changed to, any change may affect it.
+        if (rowFilter == null && !isSortedBy(column) && changedEntries == null) return;
+        rowsUpdated(firstRow, endRow);
+    }
+
+    @Override
+    public void addRowSorterListener(RowSorterListener listener) {
+        listeners.add(RowSorterListener.class, listener);
+    }
+
+    @Override
+    public void removeRowSorterListener(RowSorterListener listener) {
+        listeners.remove(RowSorterListener.class, listener);
+    }
+
+    @Override
+    protected void fireSortOrderChanged() {
+        fireEvent(new RowSorterEvent(this));
+    }
+
+    @Override
+    protected void fireRowSorterChanged(int[] lastRowIndexToModel) {
+        fireViewChanged(new ViewMapping(lastRowIndexToModel.length, index -> lastRowIndexToModel[index], null));
+    }
+
+    private void fireViewChanged(ViewMapping previous) {
+        fireEvent(new ViewChangedEvent(previous));
+    }
+
+    private void fireEvent(RowSorterEvent event) {
+        for (RowSorterListener listener : listeners.getListeners(RowSorterListener.class)) {
+            listener.sorterChanged(event);
+        }
+    }
+
+    private boolean isIdentity() {
+        return sortKeys.isEmpty() && rowFilter == null;
+    }
+
+    private boolean isSortedBy(int column) {
+        for (SortKey key : sortKeys) {
+            if (key.getColumn() == column) return true;
+        }
+        return false;
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= model.getColumnCount()) {
+            throw new IllegalArgumentException("Invalid sort column " + column);
+        }
+    }
+
+    /**
+     * Read the row's values for the sort keys. They must not change while the row is in a view, as it is found by them.
+     */
+    private void readValues(Row row) {
+        Object[] values = new Object[sortFields.length];
+        for (int i = 0; i < sortFields.length; i++) {
+            //Numbers are the position of the row in the log, so follow the order of the model.
+            Object value = sortFields[i] == LogEntryField.NUMBER ? (Object) row.order : row.entry.getValueByKey(sortFields[i]);
+            //Text fields holding lists or enums are compared as displayed, converted once rather than per comparison.
+            if (value != null && sortFields[i].getType() == String.class && !(value instanceof String)) {
+                value = value.toString();
+            }
+            values[i] = value;
+        }
+        row.values = values;
+    }
+
+    /**
+     * @return Whether the row is included by the filter.
+     */
+    private boolean evaluate(Row row, int modelIndex) {
+        if (rowFilter == null) return true;
+        filterEntry.modelIndex = modelIndex;
+        return rowFilter.include(filterEntry);
+    }
+
+    /**
+     * @return How the current view maps to the model, for as long as neither the rows of the model nor those of
+     * the current view's tree change.
+     */
+    private ViewMapping mapView() {
+        if (isIdentity()) return new ViewMapping(modelRowCount, index -> index, null);
+        OrderStatisticTree<Row> rows = viewRows;
+        return new ViewMapping(rows.size(), index -> modelRows.indexOf(rows.get(index)), rows);
+    }
+
+    /**
+     * Map every row of a view to the model, for when the rows are about to be replaced.
+     */
+    private int[] getViewToModel(ViewMapping mapping) {
+        int[] viewToModel = new int[mapping.rowCount];
+        if (mapping.rows == null) {
+            for (int i = 0; i < viewToModel.length; i++) viewToModel[i] = mapping.viewToModel.applyAsInt(i);
+            return viewToModel;
+        }
+        //Numbering the rows once is quicker than finding the position of each.
+        int[] modelIndex = {0};
+        modelRows.forEach(row -> row.modelIndex = modelIndex[0]++);
+        int[] viewIndex = {0};
+        mapping.rows.forEach(row -> viewToModel[viewIndex[0]++] = row.modelIndex);
+        return viewToModel;
+    }
+
+    private int compareRows(Row a, Row b) {
+        for (int i = 0; i < sortFields.length; i++) {
+            int comparison = compareValues(a.values[i], b.values[i]);
+            if (comparison != 0) return descending[i] ? -comparison : comparison;
+        }
+        return Long.compare(a.order, b.order);
+    }
+
+    /**
+     * Nulls are sorted first. Values of different types, such as the empty string returned for a field which
+     * couldn't be read, are grouped by type so the ordering remains consistent.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private int compareValues(Object a, Object b) {
+        if (a == b) return 0;
+        if (a == null) return -1;
+        if (b == null) return 1;
+        if (a.getClass() != b.getClass()) return a.getClass().getName().compareTo(b.getClass().getName());
+        if (a instanceof String) return collator.compare((String) a, (String) b);
+        if (a instanceof Comparable) return ((Comparable) a).compareTo(b);
+        return collator.compare(a.toString(), b.toString());
+    }
+
+    private static class Row {
+        private final LogEntry entry;
+        private final long order;
+        private Object[] values;
+        //Only valid while building the previous view to model mapping.
+        private int modelIndex;
+
+        private Row(LogEntry entry, long order) {
+            this.entry = entry;
+            this.order = order;
+        }
+    }
+
+    /**
+     * The rows of a previous view, mapped to the model on demand. Listeners only convert the indexes they need,
+     * such as those of the selected rows.
+     */
+    private static class ViewMapping {
+        private final int rowCount;
+        private final IntUnaryOperator viewToModel;
+        //The view's rows, if it is a tree still in use, or null.
+        private final OrderStatisticTree<Row> rows;
+
+        private ViewMapping(int rowCount, IntUnaryOperator viewToModel, OrderStatisticTree<Row> rows) {
+            this.rowCount = rowCount;
+            this.viewToModel = viewToModel;
+            this.rows = rows;
+        }
+    }
+
+    private class ViewChangedEvent extends RowSorterEvent {
+        private final ViewMapping previous;
+
+        private ViewChangedEvent(ViewMapping previous) {
+            super(LogTableRowSorter.this, Type.SORTED, null);
+            this.previous = previous;
+        }
+
+        @Override
+        public int getPreviousRowCount() {
+            return previous.rowCount;
+        }
+
+        @Override
+        public int convertPreviousRowIndexToModel(int index) {
+            if (index < 0 || index >= previous.rowCount) return -1;
+            return previous.viewToModel.applyAsInt(index);
+        }
+    }
+
+    private class FilterEntry extends RowFilter.Entry<LogTableModel, Integer> {
+        private int modelIndex;
+
+        @Override
+        public LogTableModel getModel() {
+            return model;
+        }
+
+        @Override
+        public int getValueCount() {
+            return model.getColumnCount();
+        }
+
+        @Override
+        public Object getValue(int index) {
+            return model.getValueAt(modelIndex, index);
+        }
+
+        @Override
+        public Integer getIdentifier() {
+            return modelIndex;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.nccgroup.loggerplusplus.logview.logtable;
+
+import com.nccgroup.loggerplusplus.LoggerPlusPlus;
+import com.nccgroup.loggerplusplus.filter.colorfilter.TableColorRule;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The field values and resolved color filter of recently painted entries, so repainting a row doesn't read its
+ * fields or search the color filters again. Values are kept as their field's type, and formatted by the renderers.
+ * <p>
+ * Each entry's values are stamped with the entry's version and the version of the tags and color filters when
+ * they were read. They are read again once the entry changes, its tags or color filters change, or a rule is
+ * edited or removed.
+ */
+class RenderCache {
+
+    //Enough for every row in view, and those recently scrolled past.
+    private static final int MAX_ENTRIES = 4096;
+    private static final Object UNREAD = new Object();
+    private static final int FIELD_COUNT = LogEntryField.values().length;
+
+    private final LinkedHashMap<LogEntry, RenderedEntry> cache;
+    private volatile int ruleVersion;
+
+    RenderCache() {
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LogEntry, RenderedEntry> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+    }
+
+    synchronized Object getValue(LogEntry entry, LogEntryField field) {
+        RenderedEntry rendered = getRendered(entry);
+        Object value = rendered.values[field.ordinal()];
+        if (value == UNREAD) {
+            value = entry.getValueByKey(field);
+            rendered.values[field.ordinal()] = value;
+        }
+        return value;
+    }
+
+    /**
+     * @return The highest priority color filter matching the entry, or null if there is none.
+     */
+    synchronized TableColorRule getColorRule(LogEntry entry) {
+        RenderedEntry rendered = getRendered(entry);
+        if (!rendered.colorResolved) {
+            rendered.colorRule = LoggerPlusPlus.context.getLibraryController().getColorFilterFor(entry);
+            rendered.colorResolved = true;
+        }
+        return rendered.colorRule;
+    }
+
+    /**
+     * Read every entry again, as a tag or color filter was edited or removed.
+     */
+    void invalidateRules() {
+        ruleVersion++;
+    }
+
+    synchronized void remove(LogEntry entry) {
+        cache.remove(entry);
+    }
+
+    synchronized void clear() {
+        cache.clear();
+    }
+
+    private RenderedEntry getRendered(LogEntry entry) {
+        //The versions are read before the values, so a change made while reading them marks them stale.
+        int entryVersion = entry.getVersion();
+        int ruleVersion = this.ruleVersion;
+        RenderedEntry rendered = cache.get(entry);
+        if (rendered == null) {
+            rendered = new RenderedEntry();
+            cache.put(entry, rendered);
+        } else if (rendered.entryVersion == entryVersion && rendered.ruleVersion == ruleVersion) {
+            return rendered;
+        }
+        rendered.reset(entryVersion, ruleVersion);
+        return rendered;
+    }
+
+    private static class RenderedEntry {
+        private final Object[] values = new Object[FIELD_COUNT];
+        private int entryVersion;
+        private int ruleVersion;
+        private TableColorRule colorRule;
+        private boolean colorResolved;
+
+        private void reset(int entryVersion, int ruleVersion) {
+            this.entryVersion = entryVersion;
+            this.ruleVersion = ruleVersion;
+            Arrays.fill(values, UNREAD);
+            this.colorRule = null;
+            this.colorResolved = false;
+        }
+    }
+}
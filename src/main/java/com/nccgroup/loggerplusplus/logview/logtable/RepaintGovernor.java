@@ -0,0 +1,101 @@
+package com.nccgroup.loggerplusplus.logview.logtable;
+
+import com.coreyd97.BurpExtenderUtilities.Preferences;
+import com.nccgroup.loggerplusplus.util.Globals;
+
+import javax.swing.*;
+import javax.swing.event.TableModelEvent;
+import java.awt.event.HierarchyEvent;
+
+/**
+ * Limits how often the log table is updated while entries arrive faster than they can usefully be shown.
+ * <p>
+ * Entries appended to the model are held back from the table, its sorter and its filter, and shown together at most
+ * {@link Globals#PREF_TABLE_MAX_FPS} times a second, followed by a single scroll to the end if auto-scroll is enabled.
+ * Resizing and repainting the table after rows are added or removed is limited to the same rate.
+ * While the table isn't showing, such as when another tab is selected, nothing is shown until it is shown again,
+ * when everything held back is shown at once.
+ * Must only be used on the event dispatch thread.
+ */
+class RepaintGovernor {
+
+    private final LogTable table;
+    private final Preferences preferences;
+    private final Timer timer;
+    private boolean resizePending;
+
+    RepaintGovernor(LogTable table, Preferences preferences) {
+        this.table = table;
+        this.preferences = preferences;
+        this.timer = new Timer(getInterval(), e -> update());
+        this.timer.setRepeats(false);
+        table.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && table.isShowing()) update();
+        });
+    }
+
+    /**
+     * Hold back rows appended to the model, and the parts of other changes affecting them.
+     * @return The part of the change to pass on to the table now, or null if there is none.
+     */
+    TableModelEvent filter(TableModelEvent e) {
+        if (e.getFirstRow() == TableModelEvent.HEADER_ROW || e.getLastRow() == Integer.MAX_VALUE) {
+            //The whole table changed, so there is nothing left to hold back.
+            return e;
+        }
+
+        int shownRows = table.getRowSorter().getModelRowCount();
+        if (e.getFirstRow() >= shownRows) {
+            //Rows not yet shown are read when they are.
+            if (e.getType() == TableModelEvent.INSERT) start();
+            return null;
+        }
+        if (e.getType() != TableModelEvent.INSERT && e.getLastRow() >= shownRows) {
+            return new TableModelEvent(table.getModel(), e.getFirstRow(), shownRows - 1, e.getColumn(), e.getType());
+        }
+        return e;
+    }
+
+    /**
+     * Resize and repaint the table when it is next updated.
+     */
+    void requestResize() {
+        resizePending = true;
+        start();
+    }
+
+    void shutdown() {
+        timer.stop();
+    }
+
+    private void start() {
+        if (!timer.isRunning() && table.isShowing()) {
+            timer.setInitialDelay(getInterval());
+            timer.start();
+        }
+    }
+
+    private void update() {
+        if (!table.isShowing()) return;
+
+        int shownRows = table.getRowSorter().getModelRowCount();
+        int modelRows = table.getModel().getRowCount();
+        boolean added = modelRows > shownRows;
+        if (added) {
+            table.showModelChange(new TableModelEvent(table.getModel(), shownRows, modelRows - 1,
+                    TableModelEvent.ALL_COLUMNS, TableModelEvent.INSERT));
+        }
+        if (resizePending) {
+            resizePending = false;
+            table.resizeAndRepaintNow();
+        }
+        if (added && (boolean) preferences.getSetting(Globals.PREF_AUTO_SCROLL) && table.getRowCount() > 0) {
+            table.scrollRectToVisible(table.getCellRect(table.getRowCount() - 1, 0, true));
+        }
+    }
+
+    private int getInterval() {
+        Integer fps = preferences.getSetting(Globals.PREF_TABLE_MAX_FPS);
+        return 1000 / Math.max(1, fps != null ? fps : 30);
+    }
+}
@@ -0,0 +1,172 @@
+package com.nccgroup.loggerplusplus.logview.logtable;
+
+import com.nccgroup.loggerplusplus.index.CompressedBitmap;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import lombok.extern.log4j.Log4j2;
+
+import javax.swing.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests tags and color filters against every entry in the log after they are added or changed, with the log
+ * partitioned across a pool of background threads.
+ * <p>
+ * The entries whose membership changed are collected, and periodically handed to the model to refresh together.
+ * Requests to retest a rule which is already being retested are coalesced: a retest which hasn't started yet
+ * absorbs the new request, and one in progress is abandoned in favour of a new one.
+ */
+@Log4j2
+class RuleRetester {
+
+    //How many entries are tested by each task before it is no longer split.
+    private static final int BATCH_SIZE = 2048;
+    //The minimum interval between refreshing changed rows, in milliseconds.
+    private static final int REFRESH_INTERVAL = 250;
+
+    interface RuleTest {
+        /**
+         * @return Whether the entry's membership of the rule changed.
+         */
+        boolean test(LogEntry entry, boolean retestExisting);
+    }
+
+    private final LogTableModel model;
+    private final ForkJoinPool pool;
+    private final Timer refreshTimer;
+    //Guarded by this.
+    private final Map<UUID, Retest> retests;
+    //The sequences of entries changed since the last refresh. Guarded by this.
+    private CompressedBitmap changed;
+
+    RuleRetester(LogTableModel model) {
+        this.model = model;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("LPP-RuleRetester-Thread-" + threadCount.incrementAndGet());
+            return thread;
+        }, null, false);
+        this.refreshTimer = new Timer(REFRESH_INTERVAL, e -> refresh());
+        this.retests = new HashMap<>();
+        this.changed = new CompressedBitmap();
+    }
+
+    /**
+     * Test a rule against every entry in the log.
+     * @param retestExisting Whether entries already matching the rule must be tested again, as the rule has changed.
+     */
+    synchronized void retest(UUID rule, boolean retestExisting, RuleTest test) {
+        Retest existing = retests.get(rule);
+        if (existing != null) {
+            if (!existing.started) {
+                existing.retestExisting |= retestExisting;
+                existing.test = test;
+                return;
+            }
+            //Entries the abandoned retest didn't reach must still be tested as it would have.
+            existing.cancelled = true;
+            retestExisting |= existing.retestExisting;
+        }
+
+        Retest retest = new Retest(rule, retestExisting, test);
+        retests.put(rule, retest);
+        pool.execute(retest::run);
+        refreshTimer.start();
+    }
+
+    void shutdown() {
+        refreshTimer.stop();
+        pool.shutdownNow();
+    }
+
+    private synchronized void recordChanged(int[] sequences, int count) {
+        for (int i = 0; i < count; i++) {
+            changed.add(sequences[i]);
+        }
+    }
+
+    private void refresh() {
+        CompressedBitmap batch;
+        synchronized (this) {
+            batch = changed;
+            changed = new CompressedBitmap();
+            if (retests.isEmpty()) refreshTimer.stop();
+        }
+        if (!batch.isEmpty()) model.refreshEntries(batch);
+    }
+
+    private synchronized void complete(Retest retest) {
+        if (retests.get(retest.rule) == retest) retests.remove(retest.rule);
+    }
+
+    private class Retest {
+        private final UUID rule;
+        //Only modified before the retest starts.
+        private boolean retestExisting;
+        private RuleTest test;
+        private boolean started;
+        private volatile boolean cancelled;
+
+        private Retest(UUID rule, boolean retestExisting, RuleTest test) {
+            this.rule = rule;
+            this.retestExisting = retestExisting;
+            this.test = test;
+        }
+
+        private void run() {
+            try {
+                synchronized (RuleRetester.this) {
+                    if (cancelled) return;
+                    started = true;
+                }
+                List<LogEntry> entries = model.getSnapshot();
+                new TestRange(this, entries, 0, entries.size()).invoke();
+            } catch (Exception e) {
+                log.error(e);
+            } finally {
+                complete(this);
+            }
+        }
+    }
+
+    private class TestRange extends RecursiveAction {
+        private final Retest retest;
+        private final List<LogEntry> entries;
+        private final int start;
+        private final int end;
+
+        private TestRange(Retest retest, List<LogEntry> entries, int start, int end) {
+            this.retest = retest;
+            this.entries = entries;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (retest.cancelled) return;
+            if (end - start > BATCH_SIZE) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new TestRange(retest, entries, start, middle), new TestRange(retest, entries, middle, end));
+                return;
+            }
+
+            int[] changedSequences = new int[end - start];
+            int count = 0;
+            for (int i = start; i < end && !retest.cancelled; i++) {
+                LogEntry entry = entries.get(i);
+                if (retest.test.test(entry, retest.retestExisting)) {
+                    changedSequences[count++] = entry.getSequence();
+                }
+            }
+            if (count > 0) recordChanged(changedSequences, count);
+        }
+    }
+}
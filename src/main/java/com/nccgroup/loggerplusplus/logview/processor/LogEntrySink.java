@@ -0,0 +1,23 @@
+package com.nccgroup.loggerplusplus.logview.processor;
+
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+
+/**
+ * Receives entries once they have been processed, such as the log table, or a plain store when the processor
+ * is run without it. Called by the processor's dispatcher, so the table is only ever changed on the event
+ * dispatch thread.
+ */
+public interface LogEntrySink {
+
+    void addEntry(LogEntry logEntry);
+
+    /**
+     * The entry has been processed again, usually as its response has arrived.
+     */
+    void updateEntry(LogEntry logEntry);
+
+    /**
+     * The entry was filtered out once its response was processed.
+     */
+    void removeLogEntry(LogEntry logEntry);
+}
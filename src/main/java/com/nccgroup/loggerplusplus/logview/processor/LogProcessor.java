@@ -7,15 +7,15 @@ import burp.api.montoya.http.message.responses.HttpResponse;
 import burp.api.montoya.proxy.ProxyHttpRequestResponse;
 import burp.api.montoya.proxy.http.*;
 import com.coreyd97.BurpExtenderUtilities.Preferences;
-import com.nccgroup.loggerplusplus.LoggerPlusPlus;
+import com.nccgroup.loggerplusplus.LoggerContext;
 import com.nccgroup.loggerplusplus.exports.ExportController;
 import com.nccgroup.loggerplusplus.filter.FilterExpression;
 import com.nccgroup.loggerplusplus.filter.colorfilter.TableColorRule;
+import com.nccgroup.loggerplusplus.filter.parser.ComparisonMemo;
 import com.nccgroup.loggerplusplus.filter.tag.Tag;
 import com.nccgroup.loggerplusplus.logentry.FieldGroup;
 import com.nccgroup.loggerplusplus.logentry.LogEntry;
 import com.nccgroup.loggerplusplus.logentry.Status;
-import com.nccgroup.loggerplusplus.logview.logtable.LogTableController;
 import com.nccgroup.loggerplusplus.util.NamedThreadFactory;
 import com.nccgroup.loggerplusplus.util.PausableThreadPoolExecutor;
 import lombok.Getter;
@@ -23,7 +23,6 @@ import lombok.extern.log4j.Log4j2;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javax.swing.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.*;
@@ -35,10 +34,13 @@ import static com.nccgroup.loggerplusplus.util.Globals.*;
  */
 @Log4j2
 public class LogProcessor {
-    public static final SimpleDateFormat LOGGER_DATE_FORMAT = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
+    public static final String LOGGER_DATE_PATTERN = "yyyy/MM/dd HH:mm:ss";
+    public static final SimpleDateFormat LOGGER_DATE_FORMAT = new SimpleDateFormat(LOGGER_DATE_PATTERN);
     public static final SimpleDateFormat SERVER_DATE_FORMAT = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz");
-    private final LogTableController logTableController;
+    private final LoggerContext context;
+    private final LogEntrySink sink;
     private final ExportController exportController;
+    private final Executor dispatcher;
     private final Preferences preferences;
     private final ConcurrentHashMap<Integer, LogEntry> entriesPendingProcessing;
     private final ConcurrentHashMap<Integer, Future<LogEntry>> entryProcessingFutures;
@@ -57,11 +59,19 @@ public class LogProcessor {
      * Capture incoming requests and responses.
      * Logic to allow requests independently and match them to responses once received.
      * TODO SQLite integration
+     *
+     * @param context The services entries are captured and processed with.
+     * @param sink Receives entries once processed.
+     * @param exportController Exports entries to the enabled automatic exporters.
+     * @param dispatcher Runs the tasks handing entries to the sink and exporters,
+     *                   such as {@link javax.swing.SwingUtilities#invokeLater} when the sink is the log table.
      */
-    public LogProcessor(LogTableController logTableController, ExportController exportController) {
-        this.logTableController = logTableController;
+    public LogProcessor(LoggerContext context, LogEntrySink sink, ExportController exportController, Executor dispatcher) {
+        this.context = context;
+        this.sink = sink;
         this.exportController = exportController;
-        this.preferences = LoggerPlusPlus.instance.getPreferencesController().getPreferences();
+        this.dispatcher = dispatcher;
+        this.preferences = context.getPreferences();
 
         this.entriesPendingProcessing = new ConcurrentHashMap<>();
         this.entryProcessingFutures = new ConcurrentHashMap<>();
@@ -84,7 +94,7 @@ public class LogProcessor {
             @Override
             public RequestToBeSentAction handleHttpRequestToBeSent(HttpRequestToBeSent requestToBeSent) {
                 if (!(Boolean) preferences.getSetting(PREF_ENABLED) || !isValidTool(requestToBeSent.toolSource().toolType())
-                        || !LoggerPlusPlus.isUrlInScope(requestToBeSent.url())){
+                        || !context.isInScope(requestToBeSent.url())){
                     return RequestToBeSentAction.continueWith(requestToBeSent);
                 }
                 Date arrivalTime = new Date();
@@ -108,7 +118,7 @@ public class LogProcessor {
             @Override
             public ResponseReceivedAction handleHttpResponseReceived(HttpResponseReceived responseReceived) {
                 if (!(Boolean) preferences.getSetting(PREF_ENABLED) || !isValidTool(responseReceived.toolSource().toolType())
-                        || !LoggerPlusPlus.isUrlInScope(responseReceived.initiatingRequest().url())){
+                        || !context.isInScope(responseReceived.initiatingRequest().url())){
                     return ResponseReceivedAction.continueWith(responseReceived);
                 }
                 Date arrivalTime = new Date();
@@ -143,7 +153,7 @@ public class LogProcessor {
             @Override
             public ProxyResponseToBeSentAction handleResponseToBeSent(InterceptedResponse interceptedResponse) {
                 if(!((boolean) preferences.getSetting(PREF_ENABLED)) || !((boolean) preferences.getSetting(PREF_LOG_PROXY))
-                        || !LoggerPlusPlus.isUrlInScope(interceptedResponse.initiatingRequest().url())) {
+                        || !context.isInScope(interceptedResponse.initiatingRequest().url())) {
                     return ProxyResponseToBeSentAction.continueWith(interceptedResponse);
                 }
 
@@ -262,15 +272,20 @@ public class LogProcessor {
      */
     LogEntry processEntry(final LogEntry logEntry){
         synchronized (logEntry) {
+            logEntry.setComparisonMemo(null);
             logEntry.process();
 
             //If the status has been changed
             if (logEntry.getStatus() != logEntry.getPreviousStatus()) {
+                //All rules are tested against the same memo, so comparisons shared between rules are evaluated once.
+                //It is kept until the entry has been sent to the exporters, whose filters share it too.
+                logEntry.setComparisonMemo(new ComparisonMemo(logEntry.getStatus()));
                 FilterExpression doNotLogExpression = preferences.getSetting(PREF_DO_NOT_LOG_IF_MATCH);
                 if(doNotLogExpression != null){
                     if (logEntry.getStatus() == Status.PROCESSED || !doNotLogExpression.getRequiredContexts().contains(FieldGroup.RESPONSE)) {
                         //If we're dealing with a complete entry, or if the filter doesn't need the response.
                         if(doNotLogExpression.matches(logEntry)){
+                            logEntry.setComparisonMemo(null);
                             return null;
                         }
                     }
@@ -360,7 +375,7 @@ public class LogProcessor {
         //TODO Remove to more suitable UI class and show dialog
 
         //Build list of entries to import
-        List<ProxyHttpRequestResponse> proxyHistory = LoggerPlusPlus.montoya.proxy().history();
+        List<ProxyHttpRequestResponse> proxyHistory = context.getMontoya().proxy().history();
         int maxEntries = preferences.getSetting(PREF_MAXIMUM_ENTRIES);
         int startIndex = Math.max(proxyHistory.size() - maxEntries, 0);
         List<ProxyHttpRequestResponse> entriesToImport = proxyHistory.subList(startIndex, proxyHistory.size());
@@ -398,22 +413,24 @@ public class LogProcessor {
 
     void addNewEntry(LogEntry logEntry, boolean sendToAutoExporters) {
         FilterExpression doNotLogExpression = preferences.getSetting(PREF_DO_NOT_LOG_IF_MATCH);
-        SwingUtilities.invokeLater(() -> {
+        dispatcher.execute(() -> {
             if (sendToAutoExporters) exportController.exportNewEntry(logEntry);
-            logTableController.getLogTableModel().addEntry(logEntry);
+            logEntry.setComparisonMemo(null);
+            sink.addEntry(logEntry);
         });
     }
 
     void updateExistingEntry(LogEntry logEntry) {
         exportController.exportUpdatedEntry(logEntry);
-        SwingUtilities.invokeLater(() -> {
-            logTableController.getLogTableModel().updateEntry(logEntry);
+        logEntry.setComparisonMemo(null);
+        dispatcher.execute(() -> {
+            sink.updateEntry(logEntry);
         });
     }
 
     void removeExistingEntry(LogEntry logEntry){
-        SwingUtilities.invokeLater(() -> {
-            logTableController.getLogTableModel().removeLogEntry(logEntry);
+        dispatcher.execute(() -> {
+            sink.removeLogEntry(logEntry);
         });
     }
 
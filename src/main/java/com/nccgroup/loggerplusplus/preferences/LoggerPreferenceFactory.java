@@ -99,6 +99,12 @@ public class LoggerPreferenceFactory extends PreferenceFactory {
         prefs.registerSetting(PREF_RESPONSE_TIMEOUT, Integer.class, 60);
         prefs.registerSetting(PREF_MAXIMUM_ENTRIES, Integer.class, 1000000);
         prefs.registerSetting(PREF_SEARCH_THREADS, Integer.class, 5);
+        prefs.registerSetting(PREF_TEXT_INDEX_MEMORY, Integer.class, 64); //Default 64MB
+        prefs.registerSetting(PREF_TRIGRAM_INDEX_MEMORY, Integer.class, 64); //Default 64MB
+        prefs.registerSetting(PREF_REGEX_ENTRY_TIMEOUT, Integer.class, 1000); //Default 1 second
+        prefs.registerSetting(PREF_REGEX_QUERY_TIMEOUT, Integer.class, 120); //Default 2 minutes
+        prefs.registerSetting(PREF_TABLE_MAX_FPS, Integer.class, 30);
+        prefs.registerSetting(PREF_VIEWER_PREVIEW_SIZE, Integer.class, 1024); //Default 1MB
         prefs.registerSetting(PREF_AUTO_IMPORT_PROXY_HISTORY, Boolean.class, false);
         prefs.registerSetting(PREF_LOG_OTHER_LIVE, Boolean.class, true);
         prefs.registerSetting(PREF_ELASTIC_ADDRESS, String.class, "127.0.0.1");
@@ -250,6 +250,42 @@ public class PreferencesPanel extends JScrollPane {
         ((SpinnerNumberModel) maxResponseSize.getModel()).setMaximum(1000000);
         ((SpinnerNumberModel) maxResponseSize.getModel()).setStepSize(1);
 
+        JSpinner textIndexMemory = otherPanel.addPreferenceComponent(preferences, PREF_TEXT_INDEX_MEMORY,
+                "Text Index Memory (MB): ");
+        ((SpinnerNumberModel) textIndexMemory.getModel()).setMinimum(0);
+        ((SpinnerNumberModel) textIndexMemory.getModel()).setMaximum(4096);
+        ((SpinnerNumberModel) textIndexMemory.getModel()).setStepSize(16);
+
+        JSpinner trigramIndexMemory = otherPanel.addPreferenceComponent(preferences, PREF_TRIGRAM_INDEX_MEMORY,
+                "Trigram Index Memory (MB): ");
+        ((SpinnerNumberModel) trigramIndexMemory.getModel()).setMinimum(0);
+        ((SpinnerNumberModel) trigramIndexMemory.getModel()).setMaximum(4096);
+        ((SpinnerNumberModel) trigramIndexMemory.getModel()).setStepSize(16);
+
+        JSpinner regexEntryTimeout = otherPanel.addPreferenceComponent(preferences, PREF_REGEX_ENTRY_TIMEOUT,
+                "Regex Timeout Per Entry (ms): ");
+        ((SpinnerNumberModel) regexEntryTimeout.getModel()).setMinimum(10);
+        ((SpinnerNumberModel) regexEntryTimeout.getModel()).setMaximum(60000);
+        ((SpinnerNumberModel) regexEntryTimeout.getModel()).setStepSize(100);
+
+        JSpinner regexQueryTimeout = otherPanel.addPreferenceComponent(preferences, PREF_REGEX_QUERY_TIMEOUT,
+                "Regex Timeout Per Search (Seconds): ");
+        ((SpinnerNumberModel) regexQueryTimeout.getModel()).setMinimum(1);
+        ((SpinnerNumberModel) regexQueryTimeout.getModel()).setMaximum(3600);
+        ((SpinnerNumberModel) regexQueryTimeout.getModel()).setStepSize(10);
+
+        JSpinner tableMaxFps = otherPanel.addPreferenceComponent(preferences, PREF_TABLE_MAX_FPS,
+                "Maximum Table Updates Per Second: ");
+        ((SpinnerNumberModel) tableMaxFps.getModel()).setMinimum(1);
+        ((SpinnerNumberModel) tableMaxFps.getModel()).setMaximum(120);
+        ((SpinnerNumberModel) tableMaxFps.getModel()).setStepSize(5);
+
+        JSpinner viewerPreviewSize = otherPanel.addPreferenceComponent(preferences, PREF_VIEWER_PREVIEW_SIZE,
+                "Message Viewer Body Preview Size (KB): ");
+        ((SpinnerNumberModel) viewerPreviewSize.getModel()).setMinimum(16);
+        ((SpinnerNumberModel) viewerPreviewSize.getModel()).setMaximum(1000000);
+        ((SpinnerNumberModel) viewerPreviewSize.getModel()).setStepSize(256);
+
         JCheckBox tagStyle = otherPanel.addPreferenceComponent(preferences, PREF_TABLE_PILL_STYLE, "Display matching tags as pill components");
 
         preferences.addSettingListener((source, settingName, newValue) -> {
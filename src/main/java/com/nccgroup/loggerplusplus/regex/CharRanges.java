@@ -0,0 +1,107 @@
+package com.nccgroup.loggerplusplus.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable set of code points, stored as sorted, disjoint, inclusive ranges.
+ */
+final class CharRanges {
+
+    static final CharRanges EMPTY = new CharRanges(new int[0]);
+    static final CharRanges ALL = range(0, Character.MAX_CODE_POINT);
+    static final CharRanges DIGIT = range('0', '9');
+    static final CharRanges WORD = range('a', 'z').union(range('A', 'Z')).union(DIGIT).union(single('_'));
+    static final CharRanges SPACE = single(' ').union(range('\t', '\r'));
+    //Characters matched by . without DOTALL, i.e. all but line terminators.
+    static final CharRanges NOT_LINE_TERMINATOR = single('\n').union(single('\r'))
+            .union(single('\u0085')).union(range('\u2028', '\u2029')).complement();
+
+    //Pairs of start and end code points.
+    private final int[] bounds;
+
+    private CharRanges(int[] bounds) {
+        this.bounds = bounds;
+    }
+
+    static CharRanges single(int codePoint) {
+        return range(codePoint, codePoint);
+    }
+
+    static CharRanges range(int start, int end) {
+        return new CharRanges(new int[]{start, end});
+    }
+
+    boolean contains(int codePoint) {
+        //Find the last range starting at or before the code point.
+        int low = 0, high = bounds.length / 2 - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (bounds[middle * 2] <= codePoint) low = middle + 1;
+            else high = middle - 1;
+        }
+        return high >= 0 && codePoint <= bounds[high * 2 + 1];
+    }
+
+    CharRanges union(CharRanges other) {
+        int[][] ranges = new int[(bounds.length + other.bounds.length) / 2][];
+        int count = 0;
+        for (int i = 0; i < bounds.length; i += 2) ranges[count++] = new int[]{bounds[i], bounds[i + 1]};
+        for (int i = 0; i < other.bounds.length; i += 2) ranges[count++] = new int[]{other.bounds[i], other.bounds[i + 1]};
+        Arrays.sort(ranges, (a, b) -> Integer.compare(a[0], b[0]));
+
+        List<int[]> merged = new ArrayList<>();
+        for (int[] range : ranges) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1] + 1) last[1] = Math.max(last[1], range[1]);
+            else merged.add(range);
+        }
+        int[] result = new int[merged.size() * 2];
+        for (int i = 0; i < merged.size(); i++) {
+            result[i * 2] = merged.get(i)[0];
+            result[i * 2 + 1] = merged.get(i)[1];
+        }
+        return new CharRanges(result);
+    }
+
+    CharRanges complement() {
+        List<Integer> result = new ArrayList<>();
+        int next = 0;
+        for (int i = 0; i < bounds.length; i += 2) {
+            if (bounds[i] > next) {
+                result.add(next);
+                result.add(bounds[i] - 1);
+            }
+            next = bounds[i + 1] + 1;
+        }
+        if (next <= Character.MAX_CODE_POINT) {
+            result.add(next);
+            result.add(Character.MAX_CODE_POINT);
+        }
+        return new CharRanges(result.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Add the other case of any ASCII letters, as {@link java.util.regex.Pattern#CASE_INSENSITIVE} does
+     * without {@link java.util.regex.Pattern#UNICODE_CASE}.
+     */
+    CharRanges caseInsensitive() {
+        CharRanges result = this;
+        for (int c = 'a'; c <= 'z'; c++) {
+            int upper = c - ('a' - 'A');
+            if (contains(c) != contains(upper)) result = result.union(single(contains(c) ? upper : c));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CharRanges && Arrays.equals(bounds, ((CharRanges) o).bounds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bounds);
+    }
+}
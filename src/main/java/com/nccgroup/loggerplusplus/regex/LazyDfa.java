@@ -0,0 +1,249 @@
+package com.nccgroup.loggerplusplus.regex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Simulates an {@link Nfa} one character at a time, building the equivalent DFA states as they are reached.
+ * <p>
+ * Each DFA state is the set of NFA states awaiting the next character, together with whether the previous character
+ * was the start of the input or a word character, which zero width assertions depend on. Transitions are cached
+ * per state, by class of equivalent characters for Latin-1 and by code point otherwise. The number of DFA states
+ * is bounded; once reached, the cache is discarded and rebuilt from the current state.
+ * <p>
+ * Instances are not thread safe.
+ */
+final class LazyDfa {
+
+    //Flags of the character before a state.
+    private static final int AT_START = 1;
+    private static final int AFTER_WORD = 2;
+
+    private static final int MAX_STATES = 4096;
+    //The most transitions cached per state for characters outside Latin-1.
+    private static final int MAX_WIDE_TRANSITIONS = 256;
+
+    //Returned by a transition when searching and a match ends before the character.
+    private static final State MATCHED = new State(new int[0], 0, 0);
+
+    private final Nfa nfa;
+    //Whether to find a match anywhere in the text, rather than matching the whole text.
+    private final boolean search;
+    private final byte[] classes;
+    private final int classCount;
+    private final boolean unicodeWordBoundaries;
+    private final Map<State, State> states;
+    private State startState;
+
+    //Scratch space, reused between transitions.
+    private final int[] stack;
+    private final int[] visited;
+    private int visitGeneration;
+    private final int[] consuming;
+    private int consumingCount;
+    private final int[] kernel;
+
+    LazyDfa(Nfa nfa, boolean search, byte[] classes, int classCount, boolean unicodeWordBoundaries) {
+        this.nfa = nfa;
+        this.search = search;
+        this.classes = classes;
+        this.classCount = classCount;
+        this.unicodeWordBoundaries = unicodeWordBoundaries;
+        this.states = new HashMap<>();
+        this.stack = new int[nfa.size() * 3];
+        this.visited = new int[nfa.size()];
+        this.consuming = new int[nfa.size()];
+        this.kernel = new int[nfa.size()];
+    }
+
+    /**
+     * @return Whether the text matches, or null if it contains characters whose handling by Pattern this can't reproduce.
+     */
+    Boolean run(CharSequence text) {
+        if (startState == null) startState = intern(new int[]{nfa.start}, AT_START);
+        State state = startState;
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            int c = Character.codePointAt(text, i);
+            int width = Character.charCount(c);
+
+            State next;
+            if (search && width == 2) {
+                //Whether Matcher.find() tries matches starting between the halves of a surrogate pair depends on
+                //how Pattern optimised the pattern, so can't be decided here.
+                return null;
+            } else if (nfa.usesWordBoundaries && c >= 0x300 && Character.getType(c) == Character.NON_SPACING_MARK) {
+                //Pattern treats combining marks as part of the word before them.
+                return null;
+            } else if (nfa.usesFinalTerminator && i + width >= length - 1 && isFinalTerminator(text, i, c)) {
+                next = transition(state, c, true);
+            } else {
+                next = step(state, c);
+            }
+            if (next == MATCHED) return true;
+
+            if (next.kernel.length == 0) return false;
+            if (states.size() > MAX_STATES) {
+                states.clear();
+                startState = null;
+                next = intern(next.kernel, next.flags);
+            }
+            state = next;
+            i += width;
+        }
+
+        if (state.acceptsAtEnd == 0) {
+            state.acceptsAtEnd = (byte) (closure(state, false, true, true) ? 2 : 1);
+        }
+        return state.acceptsAtEnd == 2;
+    }
+
+    private State step(State state, int c) {
+        State next;
+        if (c < classes.length) {
+            int equivalenceClass = classes[c] & 0xFF;
+            next = state.next[equivalenceClass];
+            if (next == null) state.next[equivalenceClass] = next = transition(state, c, false);
+        } else {
+            if (state.wideNext == null) state.wideNext = new HashMap<>();
+            next = state.wideNext.get(c);
+            if (next == null) {
+                next = transition(state, c, false);
+                if (state.wideNext.size() < MAX_WIDE_TRANSITIONS) state.wideNext.put(c, next);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Pattern's $ and \Z match before a line terminator ending the text, as well as at its end.
+     */
+    private static boolean isFinalTerminator(CharSequence text, int i, int c) {
+        int remaining = text.length() - i;
+        if (remaining == 2) return c == '\r' && text.charAt(i + 1) == '\n';
+        if (c == '\n') return i == 0 || text.charAt(i - 1) != '\r';
+        return c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private State transition(State state, int c, boolean beforeFinalTerminator) {
+        boolean word = nfa.usesWordBoundaries && isWord(c, unicodeWordBoundaries);
+        boolean matched = closure(state, word, false, beforeFinalTerminator);
+        if (search && matched) return MATCHED;
+
+        int count = 0;
+        visitGeneration++;
+        for (int i = 0; i < consumingCount; i++) {
+            int target = nfa.next[consuming[i]];
+            if (nfa.ranges[consuming[i]].contains(c) && visited[target] != visitGeneration) {
+                visited[target] = visitGeneration;
+                kernel[count++] = target;
+            }
+        }
+        //Searching allows a match to begin at any position.
+        if (search && visited[nfa.start] != visitGeneration) kernel[count++] = nfa.start;
+
+        int[] nextKernel = Arrays.copyOf(kernel, count);
+        Arrays.sort(nextKernel);
+        return intern(nextKernel, word ? AFTER_WORD : 0);
+    }
+
+    /**
+     * Follow the empty transitions from a state's kernel, collecting the states which consume a character.
+     * @return Whether the match state was reached.
+     */
+    private boolean closure(State state, boolean nextIsWord, boolean atEnd, boolean beforeFinalTerminator) {
+        visitGeneration++;
+        consumingCount = 0;
+        int depth = 0;
+        boolean matched = false;
+        for (int s : state.kernel) {
+            stack[depth++] = s;
+        }
+        while (depth > 0) {
+            int s = stack[--depth];
+            if (visited[s] == visitGeneration) continue;
+            visited[s] = visitGeneration;
+            switch (nfa.types[s]) {
+                case Nfa.CHAR:
+                    consuming[consumingCount++] = s;
+                    break;
+                case Nfa.MATCH:
+                    matched = true;
+                    break;
+                case Nfa.SPLIT:
+                    stack[depth++] = nfa.alternative[s];
+                    stack[depth++] = nfa.next[s];
+                    break;
+                case Nfa.EMPTY:
+                    stack[depth++] = nfa.next[s];
+                    break;
+                case Nfa.ASSERT:
+                    if (holds(nfa.assertions[s], state.flags, nextIsWord, atEnd, beforeFinalTerminator)) {
+                        stack[depth++] = nfa.next[s];
+                    }
+                    break;
+            }
+        }
+        return matched;
+    }
+
+    private static boolean holds(int assertion, int flags, boolean nextIsWord, boolean atEnd, boolean beforeFinalTerminator) {
+        boolean afterWord = (flags & AFTER_WORD) != 0;
+        switch (assertion) {
+            case Nfa.BEGIN:
+                return (flags & AT_START) != 0;
+            case Nfa.END:
+                return atEnd;
+            case Nfa.END_OR_FINAL_TERMINATOR:
+                return atEnd || beforeFinalTerminator;
+            case Nfa.WORD_BOUNDARY:
+                return afterWord != nextIsWord;
+            case Nfa.NOT_WORD_BOUNDARY:
+                return afterWord == nextIsWord;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param unicode Whether Pattern's word boundaries consider all letters and digits, as they did before Java 19.
+     */
+    static boolean isWord(int c, boolean unicode) {
+        if (unicode) return c == '_' || Character.isLetterOrDigit(c);
+        return CharRanges.WORD.contains(c);
+    }
+
+    private State intern(int[] kernel, int flags) {
+        State key = new State(kernel, flags, classCount);
+        State existing = states.putIfAbsent(key, key);
+        return existing != null ? existing : key;
+    }
+
+    private static final class State {
+        private final int[] kernel;
+        private final int flags;
+        private final int hash;
+        private final State[] next;
+        private Map<Integer, State> wideNext;
+        //0 if unknown, 1 if the text may not end in this state, 2 if it may.
+        private byte acceptsAtEnd;
+
+        private State(int[] kernel, int flags, int classCount) {
+            this.kernel = kernel;
+            this.flags = flags;
+            this.hash = Arrays.hashCode(kernel) * 31 + flags;
+            this.next = new State[classCount];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof State && ((State) o).flags == flags && Arrays.equals(((State) o).kernel, kernel);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.nccgroup.loggerplusplus.regex;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a regular expression matches in time linear in the length of the text, by simulating an automaton
+ * rather than backtracking. Pathological patterns such as (a+)+$ therefore cannot hang a search.
+ * <p>
+ * Only patterns without back references, lookarounds, atomic groups, possessive quantifiers or inline flags are
+ * supported, see {@link #compile(Pattern)}. For those, the results are the same as {@link Pattern}'s.
+ * No match positions or groups are found, so where these are needed the engine serves to rule out
+ * text which doesn't match before using {@link Pattern}.
+ * <p>
+ * Instances are thread safe. Each match borrows an automaton from a pool, so concurrent matches needn't contend.
+ */
+public final class LinearRegex {
+
+    //Pattern's \b considered all letters and digits to be word characters before Java 19, but only ASCII after.
+    private static final boolean UNICODE_WORD_BOUNDARIES = Pattern.compile("\\b").matcher("\u00e9").find();
+    //The most automatons kept for reuse for each kind of match.
+    private static final int MAX_POOLED = 16;
+
+    private final Pattern pattern;
+    private final Nfa nfa;
+    private final byte[] classes;
+    private final int classCount;
+    private final Queue<LazyDfa> searchers;
+    private final Queue<LazyDfa> matchers;
+
+    private LinearRegex(Pattern pattern, Nfa nfa) {
+        this.pattern = pattern;
+        this.nfa = nfa;
+        this.classes = new byte[256];
+        this.classCount = computeClasses(nfa, classes);
+        this.searchers = new ConcurrentLinkedQueue<>();
+        this.matchers = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * @return The linear time equivalent of the pattern, or null if it uses syntax which isn't supported.
+     */
+    public static LinearRegex compile(Pattern pattern) {
+        try {
+            return new LinearRegex(pattern, NfaCompiler.compile(pattern));
+        } catch (UnsupportedPatternException e) {
+            return null;
+        }
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Equivalent to {@link java.util.regex.Matcher#find()}.
+     * @return Whether the pattern is found in the text, or null if this can't be decided without {@link Pattern}.
+     */
+    public Boolean find(CharSequence text) {
+        return run(searchers, true, text);
+    }
+
+    /**
+     * Equivalent to {@link java.util.regex.Matcher#matches()}.
+     * @return Whether the pattern matches the whole text, or null if this can't be decided without {@link Pattern}.
+     */
+    public Boolean matches(CharSequence text) {
+        return run(matchers, false, text);
+    }
+
+    private Boolean run(Queue<LazyDfa> pool, boolean search, CharSequence text) {
+        LazyDfa dfa = pool.poll();
+        if (dfa == null) dfa = new LazyDfa(nfa, search, classes, classCount, UNICODE_WORD_BOUNDARIES);
+        try {
+            return dfa.run(text);
+        } finally {
+            if (pool.size() < MAX_POOLED) pool.offer(dfa);
+        }
+    }
+
+    /**
+     * Group the Latin-1 characters which no state of the automaton can tell apart, so the DFA's transitions
+     * need only be computed once for each group.
+     * @return The number of groups.
+     */
+    private static int computeClasses(Nfa nfa, byte[] classes) {
+        List<CharRanges> distinctRanges = new ArrayList<>(new LinkedHashSet<>(Arrays.asList(nfa.ranges)));
+        distinctRanges.remove(null);
+
+        Map<BitSet, Integer> signatures = new HashMap<>();
+        for (int c = 0; c < classes.length; c++) {
+            BitSet signature = new BitSet();
+            for (int i = 0; i < distinctRanges.size(); i++) {
+                if (distinctRanges.get(i).contains(c)) signature.set(i);
+            }
+            if (nfa.usesWordBoundaries && LazyDfa.isWord(c, UNICODE_WORD_BOUNDARIES)) signature.set(distinctRanges.size());
+            Integer equivalenceClass = signatures.get(signature);
+            if (equivalenceClass == null) {
+                equivalenceClass = signatures.size();
+                signatures.put(signature, equivalenceClass);
+            }
+            classes[c] = (byte) (int) equivalenceClass;
+        }
+        return signatures.size();
+    }
+}
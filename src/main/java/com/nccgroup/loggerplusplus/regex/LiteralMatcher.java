@@ -0,0 +1,154 @@
+package com.nccgroup.loggerplusplus.regex;
+
+import burp.api.montoya.core.ByteArray;
+
+import java.util.Arrays;
+
+/**
+ * Finds a literal string in text ignoring case, using Boyer-Moore-Horspool so most characters of the text
+ * needn't be examined. The results are the same as {@link String#equalsIgnoreCase(String)} and
+ * {@link org.apache.commons.lang3.StringUtils#containsIgnoreCase(CharSequence, CharSequence)}.
+ * <p>
+ * Message bytes can be searched directly, without decoding them to a string first. Burp decodes each byte of a
+ * message to the character with the same value, so the bytes are folded as those characters would be.
+ * <p>
+ * Instances are immutable and thread safe.
+ */
+public final class LiteralMatcher {
+
+    //The folded form of each Latin-1 character, so bytes and common characters needn't be folded when searching.
+    private static final int[] LATIN1_FOLD = new int[256];
+
+    static {
+        for (int c = 0; c < LATIN1_FOLD.length; c++) {
+            LATIN1_FOLD[c] = computeFold((char) c);
+        }
+    }
+
+    private final String literal;
+    private final int[] folded;
+    //How far the literal can be moved along the text, by the low byte of the folded character under its end.
+    private final int[] shifts;
+
+    private LiteralMatcher(String literal) {
+        this.literal = literal;
+        this.folded = new int[literal.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = fold(literal.charAt(i));
+        }
+
+        this.shifts = new int[256];
+        Arrays.fill(shifts, Math.max(folded.length, 1));
+        //Characters sharing a low byte share a shift, so later characters must win as they allow the smaller shift.
+        for (int i = 0; i < folded.length - 1; i++) {
+            shifts[folded[i] & 0xFF] = folded.length - 1 - i;
+        }
+    }
+
+    /**
+     * @return A matcher for the literal, or null if it contains surrogates, whose case folding depends on
+     * the characters around them.
+     */
+    public static LiteralMatcher compile(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (Character.isSurrogate(literal.charAt(i))) return null;
+        }
+        return new LiteralMatcher(literal);
+    }
+
+    public String getLiteral() {
+        return literal;
+    }
+
+    /**
+     * Equivalent to {@link org.apache.commons.lang3.StringUtils#containsIgnoreCase(CharSequence, CharSequence)}.
+     */
+    public boolean containedIn(CharSequence text) {
+        return indexIn(text) >= 0;
+    }
+
+    /**
+     * Whether the literal is found in the message bytes, as if they had been decoded by Burp.
+     */
+    public boolean containedIn(ByteArray bytes) {
+        return indexIn(bytes) >= 0;
+    }
+
+    /**
+     * Equivalent to {@link String#equalsIgnoreCase(String)}.
+     */
+    public boolean equalTo(CharSequence text) {
+        if (text.length() != folded.length) return false;
+        for (int i = 0; i < folded.length; i++) {
+            if (fold(text.charAt(i)) != folded[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether the message bytes are equal to the literal ignoring case, as if they had been decoded by Burp.
+     */
+    public boolean equalTo(ByteArray bytes) {
+        if (bytes.length() != folded.length) return false;
+        for (int i = 0; i < folded.length; i++) {
+            if (LATIN1_FOLD[bytes.getByte(i) & 0xFF] != folded[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return The index of the first occurrence of the literal in the text ignoring case, or -1 if there is none.
+     */
+    public int indexIn(CharSequence text) {
+        int last = folded.length - 1;
+        if (last < 0) return 0;
+        int end = text.length() - last;
+        for (int start = 0; start < end; ) {
+            int c = fold(text.charAt(start + last));
+            if (c == folded[last] && regionMatches(text, start, last)) return start;
+            start += shifts[c & 0xFF];
+        }
+        return -1;
+    }
+
+    /**
+     * @return The index of the first occurrence of the literal in the bytes ignoring case, or -1 if there is none.
+     */
+    public int indexIn(ByteArray bytes) {
+        int last = folded.length - 1;
+        if (last < 0) return 0;
+        int end = bytes.length() - last;
+        for (int start = 0; start < end; ) {
+            int c = LATIN1_FOLD[bytes.getByte(start + last) & 0xFF];
+            if (c == folded[last] && regionMatches(bytes, start, last)) return start;
+            start += shifts[c & 0xFF];
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(CharSequence text, int start, int length) {
+        for (int i = 0; i < length; i++) {
+            if (fold(text.charAt(start + i)) != folded[i]) return false;
+        }
+        return true;
+    }
+
+    private boolean regionMatches(ByteArray bytes, int start, int length) {
+        for (int i = 0; i < length; i++) {
+            if (LATIN1_FOLD[bytes.getByte(start + i) & 0xFF] != folded[i]) return false;
+        }
+        return true;
+    }
+
+    private static int fold(char c) {
+        return c < LATIN1_FOLD.length ? LATIN1_FOLD[c] : computeFold(c);
+    }
+
+    /**
+     * String's case insensitive comparisons consider characters equal if their upper cases are equal,
+     * or the lower cases of their upper cases are. The first implies the second, so only the second need be compared.
+     */
+    private static int computeFold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
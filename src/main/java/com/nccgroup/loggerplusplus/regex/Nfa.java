@@ -0,0 +1,95 @@
+package com.nccgroup.loggerplusplus.regex;
+
+import java.util.Arrays;
+
+/**
+ * A Thompson NFA, stored as parallel arrays indexed by state.
+ */
+final class Nfa {
+
+    //State types.
+    static final int CHAR = 0;
+    static final int SPLIT = 1;
+    static final int EMPTY = 2;
+    static final int ASSERT = 3;
+    static final int MATCH = 4;
+
+    //Zero width assertions.
+    static final int BEGIN = 0;
+    static final int END = 1;
+    static final int END_OR_FINAL_TERMINATOR = 2;
+    static final int WORD_BOUNDARY = 3;
+    static final int NOT_WORD_BOUNDARY = 4;
+
+    final int[] types;
+    //The state following each state, and the alternative following a split.
+    final int[] next;
+    final int[] alternative;
+    //The characters consumed by each CHAR state, or the assertion made by each ASSERT state.
+    final CharRanges[] ranges;
+    final int[] assertions;
+    final int start;
+    final boolean usesWordBoundaries;
+    final boolean usesFinalTerminator;
+
+    private Nfa(Builder builder, int start) {
+        this.types = Arrays.copyOf(builder.types, builder.size);
+        this.next = Arrays.copyOf(builder.next, builder.size);
+        this.alternative = Arrays.copyOf(builder.alternative, builder.size);
+        this.ranges = Arrays.copyOf(builder.ranges, builder.size);
+        this.assertions = Arrays.copyOf(builder.assertions, builder.size);
+        this.start = start;
+        boolean wordBoundaries = false, finalTerminator = false;
+        for (int state = 0; state < builder.size; state++) {
+            if (types[state] != ASSERT) continue;
+            wordBoundaries |= assertions[state] == WORD_BOUNDARY || assertions[state] == NOT_WORD_BOUNDARY;
+            finalTerminator |= assertions[state] == END_OR_FINAL_TERMINATOR;
+        }
+        this.usesWordBoundaries = wordBoundaries;
+        this.usesFinalTerminator = finalTerminator;
+    }
+
+    int size() {
+        return types.length;
+    }
+
+    static final class Builder {
+        private final int maxSize;
+        private int[] types = new int[64];
+        private int[] next = new int[64];
+        private int[] alternative = new int[64];
+        private CharRanges[] ranges = new CharRanges[64];
+        private int[] assertions = new int[64];
+        private int size;
+
+        Builder(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        int add(int type, int next, int alternative, CharRanges ranges, int assertion) {
+            if (size == maxSize) throw new UnsupportedPatternException("Pattern is too large.");
+            if (size == types.length) {
+                int capacity = size * 2;
+                types = Arrays.copyOf(types, capacity);
+                this.next = Arrays.copyOf(this.next, capacity);
+                this.alternative = Arrays.copyOf(this.alternative, capacity);
+                this.ranges = Arrays.copyOf(this.ranges, capacity);
+                assertions = Arrays.copyOf(assertions, capacity);
+            }
+            types[size] = type;
+            this.next[size] = next;
+            this.alternative[size] = alternative;
+            this.ranges[size] = ranges;
+            assertions[size] = assertion;
+            return size++;
+        }
+
+        void setNext(int state, int next) {
+            this.next[state] = next;
+        }
+
+        Nfa build(int start) {
+            return new Nfa(this, start);
+        }
+    }
+}
@@ -0,0 +1,509 @@
+package com.nccgroup.loggerplusplus.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles the subset of {@link Pattern} syntax which can be matched without backtracking into an {@link Nfa}.
+ * <p>
+ * Supported are literals and escapes, character classes (without nesting or intersection), the predefined
+ * classes \d \s \w and their negations, ., alternation, capturing and non-capturing groups, greedy and lazy
+ * quantifiers, and the assertions ^ $ \A \z \Z \b \B. Of the flags, only CASE_INSENSITIVE, DOTALL and LITERAL are.
+ * Anything else, notably back references, lookarounds, atomic groups, possessive quantifiers and inline flags,
+ * throws an {@link UnsupportedPatternException}.
+ */
+final class NfaCompiler {
+
+    private static final int SUPPORTED_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.DOTALL | Pattern.LITERAL;
+    private static final int MAX_STATES = 10000;
+    private static final int MAX_REPETITIONS = 1000;
+
+    private final String regex;
+    private final boolean caseInsensitive;
+    private final boolean dotAll;
+    private int position;
+
+    private NfaCompiler(Pattern pattern) {
+        this.regex = pattern.pattern();
+        this.caseInsensitive = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+        this.dotAll = (pattern.flags() & Pattern.DOTALL) != 0;
+    }
+
+    static Nfa compile(Pattern pattern) {
+        if ((pattern.flags() & ~SUPPORTED_FLAGS) != 0) throw new UnsupportedPatternException("Unsupported flags.");
+        NfaCompiler compiler = new NfaCompiler(pattern);
+        Node root;
+        if ((pattern.flags() & Pattern.LITERAL) != 0) {
+            root = compiler.literal(pattern.pattern());
+        } else {
+            root = compiler.parseAlternation();
+            if (compiler.position < compiler.regex.length()) throw new UnsupportedPatternException("Unbalanced group.");
+        }
+
+        Nfa.Builder builder = new Nfa.Builder(MAX_STATES);
+        int match = builder.add(Nfa.MATCH, -1, -1, null, -1);
+        return builder.build(root.compile(builder, match));
+    }
+
+    private Node parseAlternation() {
+        List<Node> alternatives = new ArrayList<>();
+        alternatives.add(parseConcatenation());
+        while (peek() == '|') {
+            position++;
+            alternatives.add(parseConcatenation());
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : new Alternation(alternatives);
+    }
+
+    private Node parseConcatenation() {
+        List<Node> elements = new ArrayList<>();
+        while (position < regex.length() && peek() != '|' && peek() != ')') {
+            elements.add(parseRepetition());
+        }
+        return new Concatenation(elements);
+    }
+
+    private Node parseRepetition() {
+        Node atom = parseAtom();
+        int c = peek();
+        int min, max;
+        if (c == '*') {
+            min = 0;
+            max = -1;
+        } else if (c == '+') {
+            min = 1;
+            max = -1;
+        } else if (c == '?') {
+            min = 0;
+            max = 1;
+        } else if (c == '{') {
+            int end = regex.indexOf('}', position);
+            if (end < 0) throw new UnsupportedPatternException("Unterminated repetition.");
+            String[] bounds = regex.substring(position + 1, end).split(",", -1);
+            try {
+                min = Integer.parseInt(bounds[0]);
+                max = bounds.length == 1 ? min : bounds[1].isEmpty() ? -1 : Integer.parseInt(bounds[1]);
+            } catch (NumberFormatException e) {
+                throw new UnsupportedPatternException("Invalid repetition.");
+            }
+            if (bounds.length > 2 || min > MAX_REPETITIONS || max > MAX_REPETITIONS) {
+                throw new UnsupportedPatternException("Repetition is too large.");
+            }
+            position = end;
+        } else {
+            return atom;
+        }
+        position++;
+
+        //Laziness doesn't change whether a pattern matches, but possessive quantifiers may prevent a match.
+        if (peek() == '?') position++;
+        else if (peek() == '+') throw new UnsupportedPatternException("Possessive quantifiers are not supported.");
+        c = peek();
+        if (c == '*' || c == '+' || c == '?' || c == '{') throw new UnsupportedPatternException("Repeated quantifier.");
+
+        //Pattern ends a repetition once an iteration matches nothing, even if a later iteration could have matched
+        //something. That can only change the result when an assertion decides whether the iteration matches nothing.
+        if ((max < 0 || max > 1) && atom.isNullable() && atom.hasAssertions()) {
+            throw new UnsupportedPatternException("Repeated assertions are not supported.");
+        }
+        //A quantifier following a quotation applies to its last character only.
+        if (atom instanceof Quotation) {
+            List<Node> elements = new ArrayList<>(((Quotation) atom).elements);
+            if (elements.isEmpty()) throw new UnsupportedPatternException("Quantified empty quotation.");
+            elements.set(elements.size() - 1, new Repetition(elements.get(elements.size() - 1), min, max));
+            return new Concatenation(elements);
+        }
+        return new Repetition(atom, min, max);
+    }
+
+    private Node parseAtom() {
+        int c = regex.codePointAt(position);
+        position += Character.charCount(c);
+        switch (c) {
+            case '(': {
+                if (regex.startsWith("?:", position)) {
+                    position += 2;
+                } else if (regex.startsWith("?<", position) && position + 2 < regex.length()
+                        && Character.isLetter(regex.charAt(position + 2))) {
+                    position = regex.indexOf('>', position) + 1;
+                } else if (peek() == '?') {
+                    throw new UnsupportedPatternException("Special groups are not supported.");
+                }
+                Node group = parseAlternation();
+                if (peek() != ')') throw new UnsupportedPatternException("Unbalanced group.");
+                position++;
+                return group;
+            }
+            case '[':
+                return new Chars(parseClass());
+            case '.':
+                return new Chars(dotAll ? CharRanges.ALL : CharRanges.NOT_LINE_TERMINATOR);
+            case '^':
+                return new Assertion(Nfa.BEGIN);
+            case '$':
+                return new Assertion(Nfa.END_OR_FINAL_TERMINATOR);
+            case '\\':
+                return parseEscape();
+            case '*':
+            case '+':
+            case '?':
+            case '{':
+                throw new UnsupportedPatternException("Dangling quantifier.");
+            default:
+                return literal(c);
+        }
+    }
+
+    private Node parseEscape() {
+        if (position >= regex.length()) throw new UnsupportedPatternException("Trailing backslash.");
+        char c = regex.charAt(position);
+        switch (c) {
+            case 'b':
+                position++;
+                return new Assertion(Nfa.WORD_BOUNDARY);
+            case 'B':
+                position++;
+                return new Assertion(Nfa.NOT_WORD_BOUNDARY);
+            case 'A':
+                position++;
+                return new Assertion(Nfa.BEGIN);
+            case 'z':
+                position++;
+                return new Assertion(Nfa.END);
+            case 'Z':
+                position++;
+                return new Assertion(Nfa.END_OR_FINAL_TERMINATOR);
+            case 'Q': {
+                int end = regex.indexOf("\\E", position);
+                String quoted = regex.substring(position + 1, end < 0 ? regex.length() : end);
+                position = end < 0 ? regex.length() : end + 2;
+                return new Quotation(literal(quoted).elements);
+            }
+            default:
+                CharRanges predefined = parsePredefinedClass();
+                if (predefined != null) return new Chars(predefined);
+                return literal(parseEscapedCharacter());
+        }
+    }
+
+    /**
+     * @return The class for a predefined class escape at the current position, or null if it is not one.
+     */
+    private CharRanges parsePredefinedClass() {
+        CharRanges ranges;
+        switch (regex.charAt(position)) {
+            case 'd': ranges = CharRanges.DIGIT; break;
+            case 'D': ranges = CharRanges.DIGIT.complement(); break;
+            case 's': ranges = CharRanges.SPACE; break;
+            case 'S': ranges = CharRanges.SPACE.complement(); break;
+            case 'w': ranges = CharRanges.WORD; break;
+            case 'W': ranges = CharRanges.WORD.complement(); break;
+            default: return null;
+        }
+        position++;
+        return ranges;
+    }
+
+    /**
+     * @return The code point given by the escape at the current position, following the backslash.
+     */
+    private int parseEscapedCharacter() {
+        char c = regex.charAt(position++);
+        switch (c) {
+            case 't': return '\t';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 'f': return '\f';
+            case 'a': return '\u0007';
+            case 'e': return '\u001B';
+            case 'c':
+                if (position >= regex.length()) throw new UnsupportedPatternException("Invalid control character.");
+                return regex.charAt(position++) ^ 64;
+            case '0': {
+                //Up to three octal digits, the first of which must be at most 3 for a three digit value.
+                int value = 0, digits = 0, maxDigits = peek() >= '0' && peek() <= '3' ? 3 : 2;
+                while (digits < maxDigits && peek() >= '0' && peek() <= '7') {
+                    value = value * 8 + (regex.charAt(position++) - '0');
+                    digits++;
+                }
+                if (digits == 0) throw new UnsupportedPatternException("Invalid octal escape.");
+                return value;
+            }
+            case 'x': {
+                if (peek() == '{') {
+                    int end = regex.indexOf('}', position);
+                    if (end < 0) throw new UnsupportedPatternException("Invalid hexadecimal escape.");
+                    int value = parseHex(position + 1, end);
+                    position = end + 1;
+                    return value;
+                }
+                position += 2;
+                return parseHex(position - 2, position);
+            }
+            case 'u': {
+                position += 4;
+                int value = parseHex(position - 4, position);
+                if (Character.isSurrogate((char) value)) throw new UnsupportedPatternException("Escaped surrogates are not supported.");
+                return value;
+            }
+            default:
+                if (Character.isLetterOrDigit(c)) {
+                    throw new UnsupportedPatternException("Unsupported escape \\" + c + ".");
+                }
+                position--;
+                int codePoint = regex.codePointAt(position);
+                position += Character.charCount(codePoint);
+                return codePoint;
+        }
+    }
+
+    private int parseHex(int start, int end) {
+        if (end > regex.length()) throw new UnsupportedPatternException("Invalid hexadecimal escape.");
+        try {
+            return Integer.parseInt(regex.substring(start, end), 16);
+        } catch (NumberFormatException e) {
+            throw new UnsupportedPatternException("Invalid hexadecimal escape.");
+        }
+    }
+
+    /**
+     * Parse a character class, following its opening bracket.
+     */
+    private CharRanges parseClass() {
+        boolean negated = peek() == '^';
+        if (negated) position++;
+        if (peek() == ']') throw new UnsupportedPatternException("Leading ] in class.");
+
+        CharRanges ranges = CharRanges.EMPTY;
+        boolean first = true;
+        while (true) {
+            if (position >= regex.length()) throw new UnsupportedPatternException("Unterminated class.");
+            int c = regex.codePointAt(position);
+            if (c == ']') break;
+            if (c == '[' || regex.startsWith("&&", position)) {
+                throw new UnsupportedPatternException("Nested classes and intersections are not supported.");
+            }
+            //A hyphen is only literal at either end of the class.
+            if (c == '-' && !first && !regex.startsWith("-]", position)) {
+                throw new UnsupportedPatternException("Ambiguous hyphen in class.");
+            }
+            first = false;
+
+            if (c == '\\') {
+                position++;
+                if (position >= regex.length()) throw new UnsupportedPatternException("Trailing backslash.");
+                CharRanges predefined = parsePredefinedClass();
+                if (predefined != null) {
+                    ranges = ranges.union(predefined);
+                    continue;
+                }
+                if (regex.charAt(position) == 'Q') throw new UnsupportedPatternException("Quoting within a class.");
+                c = parseEscapedCharacter();
+            } else {
+                position += Character.charCount(c);
+            }
+
+            int end = c;
+            if (peek() == '-' && position + 1 < regex.length() && regex.charAt(position + 1) != ']') {
+                position++;
+                end = regex.codePointAt(position);
+                if (end == '[') throw new UnsupportedPatternException("Nested classes are not supported.");
+                if (end == '\\') {
+                    position++;
+                    if (position >= regex.length() || parsePredefinedClass() != null) {
+                        throw new UnsupportedPatternException("Invalid range.");
+                    }
+                    end = parseEscapedCharacter();
+                } else {
+                    position += Character.charCount(end);
+                }
+                if (end < c) throw new UnsupportedPatternException("Invalid range.");
+            }
+            ranges = ranges.union(CharRanges.range(c, end));
+        }
+        position++;
+
+        if (caseInsensitive) ranges = ranges.caseInsensitive();
+        return negated ? ranges.complement() : ranges;
+    }
+
+    private Node literal(int codePoint) {
+        CharRanges ranges = CharRanges.single(codePoint);
+        return new Chars(caseInsensitive ? ranges.caseInsensitive() : ranges);
+    }
+
+    private Concatenation literal(String text) {
+        List<Node> elements = new ArrayList<>();
+        text.codePoints().forEach(c -> elements.add(literal(c)));
+        return new Concatenation(elements);
+    }
+
+    private int peek() {
+        return position < regex.length() ? regex.charAt(position) : -1;
+    }
+
+    private interface Node {
+        /**
+         * Add the states for this node.
+         * @param next The state to continue to once this node has matched.
+         * @return The first state of this node.
+         */
+        int compile(Nfa.Builder builder, int next);
+
+        /**
+         * @return Whether this node can match without consuming any characters.
+         */
+        boolean isNullable();
+
+        boolean hasAssertions();
+    }
+
+    private static class Chars implements Node {
+        private final CharRanges ranges;
+
+        private Chars(CharRanges ranges) {
+            this.ranges = ranges;
+        }
+
+        @Override
+        public int compile(Nfa.Builder builder, int next) {
+            return builder.add(Nfa.CHAR, next, -1, ranges, -1);
+        }
+
+        @Override
+        public boolean isNullable() {
+            return false;
+        }
+
+        @Override
+        public boolean hasAssertions() {
+            return false;
+        }
+    }
+
+    private static class Assertion implements Node {
+        private final int assertion;
+
+        private Assertion(int assertion) {
+            this.assertion = assertion;
+        }
+
+        @Override
+        public int compile(Nfa.Builder builder, int next) {
+            return builder.add(Nfa.ASSERT, next, -1, null, assertion);
+        }
+
+        @Override
+        public boolean isNullable() {
+            return true;
+        }
+
+        @Override
+        public boolean hasAssertions() {
+            return true;
+        }
+    }
+
+    private static class Concatenation implements Node {
+        protected final List<Node> elements;
+
+        private Concatenation(List<Node> elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public int compile(Nfa.Builder builder, int next) {
+            for (int i = elements.size() - 1; i >= 0; i--) {
+                next = elements.get(i).compile(builder, next);
+            }
+            return next;
+        }
+
+        @Override
+        public boolean isNullable() {
+            return elements.stream().allMatch(Node::isNullable);
+        }
+
+        @Override
+        public boolean hasAssertions() {
+            return elements.stream().anyMatch(Node::hasAssertions);
+        }
+    }
+
+    private static class Quotation extends Concatenation {
+        private Quotation(List<Node> elements) {
+            super(elements);
+        }
+    }
+
+    private static class Alternation implements Node {
+        private final List<Node> alternatives;
+
+        private Alternation(List<Node> alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        public int compile(Nfa.Builder builder, int next) {
+            int state = alternatives.get(alternatives.size() - 1).compile(builder, next);
+            for (int i = alternatives.size() - 2; i >= 0; i--) {
+                state = builder.add(Nfa.SPLIT, alternatives.get(i).compile(builder, next), state, null, -1);
+            }
+            return state;
+        }
+
+        @Override
+        public boolean isNullable() {
+            return alternatives.stream().anyMatch(Node::isNullable);
+        }
+
+        @Override
+        public boolean hasAssertions() {
+            return alternatives.stream().anyMatch(Node::hasAssertions);
+        }
+    }
+
+    private static class Repetition implements Node {
+        private final Node node;
+        private final int min;
+        private final int max;
+
+        private Repetition(Node node, int min, int max) {
+            this.node = node;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public int compile(Nfa.Builder builder, int next) {
+            int state;
+            if (max < 0) {
+                //Loop back to a split which either repeats the node again or continues.
+                int loop = builder.add(Nfa.SPLIT, -1, next, null, -1);
+                builder.setNext(loop, node.compile(builder, loop));
+                state = loop;
+            } else {
+                //Nested optional copies, each skipping straight to the end.
+                state = next;
+                for (int i = min; i < max; i++) {
+                    state = builder.add(Nfa.SPLIT, node.compile(builder, state), next, null, -1);
+                }
+            }
+            for (int i = 0; i < min; i++) {
+                state = node.compile(builder, state);
+            }
+            return state;
+        }
+
+        @Override
+        public boolean isNullable() {
+            return min == 0 || node.isNullable();
+        }
+
+        @Override
+        public boolean hasAssertions() {
+            return node.hasAssertions();
+        }
+    }
+}
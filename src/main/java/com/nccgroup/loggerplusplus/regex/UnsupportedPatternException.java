@@ -0,0 +1,11 @@
+package com.nccgroup.loggerplusplus.regex;
+
+/**
+ * Thrown while compiling a pattern using syntax the linear time engine does not support.
+ */
+class UnsupportedPatternException extends RuntimeException {
+
+    UnsupportedPatternException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,234 @@
+package com.nccgroup.loggerplusplus.util;
+
+import burp.api.montoya.core.ByteArray;
+
+/**
+ * Reads the bytes of a message as text without copying them, so a regular expression can be matched against it.
+ * <p>
+ * Messages which are valid UTF-8 and contain multi-byte characters are decoded as UTF-8, and anything else is
+ * read as Latin-1, one character per byte. As a character may then span several bytes, {@link #byteOffset(int)}
+ * gives the position in the message of a character, such as where a match starts or ends.
+ */
+public abstract class ByteArrayCharSequence implements CharSequence {
+
+    protected final ByteArray bytes;
+
+    private ByteArrayCharSequence(ByteArray bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * @param bytes The message to read.
+     * @return A view of the message as UTF-8 if it is valid UTF-8 with multi-byte characters, otherwise as Latin-1.
+     */
+    public static ByteArrayCharSequence of(ByteArray bytes) {
+        //The message is classified and, once it is found to have multi-byte characters, indexed in the same pass.
+        int length = bytes.length();
+        int[] checkpointChars = null;
+        int[] checkpointBytes = null;
+        int checkpoints = 0;
+        int charIndex = 0;
+        for (int i = 0; i < length; ) {
+            int lead = bytes.getByte(i) & 0xFF;
+            int sequenceLength = lead < 0x80 ? 1 : Utf8.sequenceLength(bytes, i, length);
+            if (sequenceLength == 0) return new Latin1(bytes);
+            if (sequenceLength > 1 && checkpointChars == null) {
+                checkpointChars = new int[(length >> Utf8.CHECKPOINT_SHIFT) + 1];
+                checkpointBytes = new int[checkpointChars.length];
+                //Every character so far was a single byte, so each checkpoint passed is at the same character and byte.
+                while (checkpoints << Utf8.CHECKPOINT_SHIFT < charIndex) {
+                    checkpointChars[checkpoints] = checkpointBytes[checkpoints] = checkpoints << Utf8.CHECKPOINT_SHIFT;
+                    checkpoints++;
+                }
+            }
+            int width = sequenceLength == 4 ? 2 : 1;
+            if (checkpointChars != null) {
+                while (checkpoints << Utf8.CHECKPOINT_SHIFT < charIndex + width) {
+                    checkpointChars[checkpoints] = charIndex;
+                    checkpointBytes[checkpoints] = i;
+                    checkpoints++;
+                }
+            }
+            charIndex += width;
+            i += sequenceLength;
+        }
+        return checkpointChars != null ? new Utf8(bytes, charIndex, checkpointChars, checkpointBytes) : new Latin1(bytes);
+    }
+
+    /**
+     * @param index The index of a character, or the length of the sequence for the end of the message.
+     * @return The offset of the first byte of that character in the message.
+     */
+    public abstract int byteOffset(int index);
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length() || start > end) throw new IndexOutOfBoundsException();
+        char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = charAt(start + i);
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length()).toString();
+    }
+
+    private static final class Latin1 extends ByteArrayCharSequence {
+
+        private final int length;
+
+        private Latin1(ByteArray bytes) {
+            super(bytes);
+            this.length = bytes.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes.getByte(index) & 0xFF);
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public int byteOffset(int index) {
+            return index;
+        }
+    }
+
+    /**
+     * Decodes characters as they are read. Matching mostly reads forwards, so the character last read is kept, decoded,
+     * along with its position to continue from, and the position of every {@link #CHECKPOINT_INTERVAL}th character is
+     * recorded up front for reads elsewhere.
+     */
+    private static final class Utf8 extends ByteArrayCharSequence {
+
+        private static final int CHECKPOINT_SHIFT = 6;
+        private static final int CHECKPOINT_INTERVAL = 1 << CHECKPOINT_SHIFT;
+
+        private final int length;
+        //For each interval, the first character starting at or before its start, and the byte that character starts at.
+        private final int[] checkpointChars;
+        private final int[] checkpointBytes;
+
+        //The character last read, the byte it starts at and its length in bytes. Characters outside the basic
+        //multilingual plane are read as two, so both halves of the pair share a position.
+        private int cursorChar;
+        private int cursorByte;
+        private int cursorLength;
+        //The code point of the character last read, or -1 if it hasn't been decoded yet.
+        private int cursorCodePoint;
+
+        //The message must be well-formed UTF-8, as checked by ByteArrayCharSequence.of.
+        private Utf8(ByteArray bytes, int length, int[] checkpointChars, int[] checkpointBytes) {
+            super(bytes);
+            this.length = length;
+            this.checkpointChars = checkpointChars;
+            this.checkpointBytes = checkpointBytes;
+            this.cursorLength = leadLength(bytes.getByte(0) & 0xFF);
+            this.cursorCodePoint = -1;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+            seek(index);
+            if (cursorCodePoint < 0) cursorCodePoint = decode(cursorByte);
+            if (cursorCodePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) return (char) cursorCodePoint;
+            return index == cursorChar ? Character.highSurrogate(cursorCodePoint) : Character.lowSurrogate(cursorCodePoint);
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public int byteOffset(int index) {
+            if (index >= length) return bytes.length();
+            seek(index);
+            //A match may end between the halves of a pair, in which case it ends after the character.
+            return index == cursorChar ? cursorByte : cursorByte + 4;
+        }
+
+        //Moves the cursor to the character containing the given index.
+        private void seek(int index) {
+            if (index < cursorChar || index - cursorChar > CHECKPOINT_INTERVAL) {
+                int checkpoint = index >> CHECKPOINT_SHIFT;
+                cursorChar = checkpointChars[checkpoint];
+                cursorByte = checkpointBytes[checkpoint];
+                cursorLength = leadLength(bytes.getByte(cursorByte) & 0xFF);
+                cursorCodePoint = -1;
+            }
+            while (index >= cursorChar + (cursorLength == 4 ? 2 : 1)) {
+                cursorChar += cursorLength == 4 ? 2 : 1;
+                cursorByte += cursorLength;
+                cursorLength = leadLength(bytes.getByte(cursorByte) & 0xFF);
+                cursorCodePoint = -1;
+            }
+        }
+
+        private int decode(int offset) {
+            int lead = bytes.getByte(offset) & 0xFF;
+            if (lead < 0x80) {
+                return lead;
+            } else if (lead < 0xE0) {
+                return (lead & 0x1F) << 6 | continuation(offset + 1);
+            } else if (lead < 0xF0) {
+                return (lead & 0x0F) << 12 | continuation(offset + 1) << 6 | continuation(offset + 2);
+            } else {
+                return (lead & 0x07) << 18 | continuation(offset + 1) << 12 | continuation(offset + 2) << 6 | continuation(offset + 3);
+            }
+        }
+
+        //The length of a sequence already known to be well-formed, from its first byte.
+        private static int leadLength(int lead) {
+            if (lead < 0x80) return 1;
+            if (lead < 0xE0) return 2;
+            if (lead < 0xF0) return 3;
+            return 4;
+        }
+
+        private int continuation(int offset) {
+            return bytes.getByte(offset) & 0x3F;
+        }
+
+        /**
+         * @return The number of bytes in the well-formed UTF-8 sequence starting at the given offset, or 0 if the
+         * bytes there aren't one.
+         */
+        private static int sequenceLength(ByteArray bytes, int offset, int length) {
+            int lead = bytes.getByte(offset) & 0xFF;
+            if (lead < 0x80) return 1;
+            int sequenceLength;
+            //The range of the second byte narrows for some leads, ruling out overlong forms and surrogates.
+            int min = 0x80, max = 0xBF;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                sequenceLength = 2;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                sequenceLength = 3;
+                if (lead == 0xE0) min = 0xA0;
+                else if (lead == 0xED) max = 0x9F;
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                sequenceLength = 4;
+                if (lead == 0xF0) min = 0x90;
+                else if (lead == 0xF4) max = 0x8F;
+            } else {
+                return 0;
+            }
+            if (offset + sequenceLength > length) return 0;
+            int second = bytes.getByte(offset + 1) & 0xFF;
+            if (second < min || second > max) return 0;
+            for (int i = 2; i < sequenceLength; i++) {
+                int next = bytes.getByte(offset + i) & 0xFF;
+                if (next < 0x80 || next > 0xBF) return 0;
+            }
+            return sequenceLength;
+        }
+    }
+}
@@ -77,6 +77,12 @@ public class Globals {
     public static final String PREF_COLUMNS_VERSION = "columnsVersion";
     public static final String PREF_MAX_RESP_SIZE = "maxRespBodySize";
     public static final String PREF_TABLE_PILL_STYLE = "tagsStyle";
+    public static final String PREF_TEXT_INDEX_MEMORY = "textIndexMemory";
+    public static final String PREF_TRIGRAM_INDEX_MEMORY = "trigramIndexMemory";
+    public static final String PREF_REGEX_ENTRY_TIMEOUT = "regexEntryTimeout";
+    public static final String PREF_REGEX_QUERY_TIMEOUT = "regexQueryTimeout";
+    public static final String PREF_TABLE_MAX_FPS = "tableMaxFps";
+    public static final String PREF_VIEWER_PREVIEW_SIZE = "viewerPreviewSize";
     //Splunk Exporter
     public static final String PREF_SPLUNK_URL = "splunkUrl";
     public static final String PREF_SPLUNK_HEC_TOKEN = "splunkHecToken";
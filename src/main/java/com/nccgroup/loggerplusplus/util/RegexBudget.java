@@ -0,0 +1,152 @@
+package com.nccgroup.loggerplusplus.util;
+
+import com.coreyd97.BurpExtenderUtilities.Preferences;
+import com.nccgroup.loggerplusplus.LoggerPlusPlus;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import lombok.extern.log4j.Log4j2;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static com.nccgroup.loggerplusplus.util.Globals.PREF_REGEX_ENTRY_TIMEOUT;
+import static com.nccgroup.loggerplusplus.util.Globals.PREF_REGEX_QUERY_TIMEOUT;
+
+/**
+ * Limits the time spent matching regular expressions, so a catastrophically backtracking pattern cannot hang a search.
+ * <p>
+ * Each match against an entry is limited to the per-entry timeout. A budget for a query, such as evaluating a filter
+ * over the whole log, also limits the total time taken, after which any further matches fail immediately.
+ * Matches which time out are treated as not matching, and are recorded so the user can be told which pattern
+ * and entries were responsible.
+ */
+@Log4j2
+public class RegexBudget {
+
+    //How many timeouts are kept to show the user.
+    private static final int MAX_RECORDED_TIMEOUTS = 10;
+    //Patterns already reported in the log, so a pattern timing out on many entries is only reported once.
+    private static final Set<String> loggedPatterns = ConcurrentHashMap.newKeySet();
+    private static final int MAX_LOGGED_PATTERNS = 100;
+
+    private static final int DEFAULT_ENTRY_TIMEOUT = 1000;
+    private static final int DEFAULT_QUERY_TIMEOUT = 120;
+
+    private final long entryTimeout;
+    private final long queryDeadline;
+    private final boolean queryLimited;
+    private final List<Timeout> timeouts;
+    private final AtomicInteger timeoutCount;
+
+    private RegexBudget(long entryTimeout, long queryTimeout) {
+        this.entryTimeout = entryTimeout;
+        this.queryLimited = queryTimeout > 0;
+        this.queryDeadline = System.nanoTime() + queryTimeout;
+        this.timeouts = new ArrayList<>();
+        this.timeoutCount = new AtomicInteger();
+    }
+
+    /**
+     * @return A budget limiting only the time spent matching against each entry.
+     */
+    public static RegexBudget forEntry() {
+        return new RegexBudget(TimeUnit.MILLISECONDS.toNanos(getSetting(PREF_REGEX_ENTRY_TIMEOUT, DEFAULT_ENTRY_TIMEOUT)), 0);
+    }
+
+    /**
+     * @return A budget limiting the time spent matching against each entry, and in total from now.
+     */
+    public static RegexBudget forQuery() {
+        return new RegexBudget(TimeUnit.MILLISECONDS.toNanos(getSetting(PREF_REGEX_ENTRY_TIMEOUT, DEFAULT_ENTRY_TIMEOUT)),
+                TimeUnit.SECONDS.toNanos(getSetting(PREF_REGEX_QUERY_TIMEOUT, DEFAULT_QUERY_TIMEOUT)));
+    }
+
+    private static int getSetting(String setting, int defaultValue) {
+        Preferences preferences = LoggerPlusPlus.context != null ? LoggerPlusPlus.context.getPreferences() : null;
+        if (preferences == null) return defaultValue;
+        Object value = preferences.getSetting(setting);
+        return value instanceof Integer ? (Integer) value : defaultValue;
+    }
+
+    /**
+     * Wrap text to be matched against, limiting the match to what remains of the budget.
+     *
+     * @throws RegexTimeoutException If the query's budget is already spent.
+     */
+    public CharSequence limit(CharSequence text) {
+        long now = System.nanoTime();
+        long deadline = now + entryTimeout;
+        if (queryLimited) {
+            if (now - queryDeadline > 0) throw new RegexTimeoutException();
+            if (deadline - queryDeadline > 0) deadline = queryDeadline;
+        }
+        return new TimeLimitedCharSequence(text, deadline);
+    }
+
+    public void recordTimeout(Pattern pattern, LogEntry entry) {
+        if (timeoutCount.incrementAndGet() <= MAX_RECORDED_TIMEOUTS) {
+            synchronized (timeouts) {
+                timeouts.add(new Timeout(pattern.pattern(), describe(entry)));
+            }
+        }
+        if (loggedPatterns.size() < MAX_LOGGED_PATTERNS && loggedPatterns.add(pattern.pattern())) {
+            log.warn("Regular expression /" + pattern.pattern() + "/ exceeded its time budget matching " + describe(entry)
+                    + " and was treated as not matching.");
+        }
+    }
+
+    public int getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public boolean isQueryExpired() {
+        return queryLimited && System.nanoTime() - queryDeadline > 0;
+    }
+
+    /**
+     * If any matches timed out, tell the user which patterns and entries were responsible.
+     */
+    public void showTimeouts(String title) {
+        if (timeoutCount.get() == 0) return;
+        StringBuilder message = new StringBuilder();
+        message.append(String.format("Regular expressions exceeded their time budget on %d %s, which were treated as not matching.\n",
+                timeoutCount.get(), timeoutCount.get() == 1 ? "entry" : "entries"));
+        if (isQueryExpired()) {
+            message.append("The time budget for the whole search was spent, so later entries were not fully tested.\n");
+        }
+        message.append("\n");
+        synchronized (timeouts) {
+            for (Timeout timeout : timeouts) {
+                message.append("/").append(timeout.pattern).append("/ on ").append(timeout.entry).append("\n");
+            }
+        }
+        if (timeoutCount.get() > MAX_RECORDED_TIMEOUTS) {
+            message.append(String.format("...and %d more.\n", timeoutCount.get() - MAX_RECORDED_TIMEOUTS));
+        }
+        message.append("\nConsider simplifying the pattern, or increasing the regex timeouts in the preferences.");
+
+        SwingUtilities.invokeLater(() -> {
+            JOptionPane.showMessageDialog(JOptionPane.getFrameForComponent(LoggerPlusPlus.instance.getMainViewController().getUiComponent()),
+                    message.toString(), title, JOptionPane.WARNING_MESSAGE);
+        });
+    }
+
+    private static String describe(LogEntry entry) {
+        return entry == null ? "unknown entry" : entry.getMethod() + " " + entry.getUrlString();
+    }
+
+    private static class Timeout {
+        private final String pattern;
+        private final String entry;
+
+        private Timeout(String pattern, String entry) {
+            this.pattern = pattern;
+            this.entry = entry;
+        }
+    }
+}
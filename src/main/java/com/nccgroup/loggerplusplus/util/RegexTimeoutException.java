@@ -0,0 +1,12 @@
+package com.nccgroup.loggerplusplus.util;
+
+/**
+ * Thrown from within a regular expression match which has run past its deadline.
+ */
+public class RegexTimeoutException extends RuntimeException {
+
+    public RegexTimeoutException() {
+        //The stack trace is never used, and may be very deep inside a backtracking match.
+        super("Regular expression exceeded its time budget.", null, false, false);
+    }
+}
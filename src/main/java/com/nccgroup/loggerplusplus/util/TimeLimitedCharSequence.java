@@ -0,0 +1,49 @@
+package com.nccgroup.loggerplusplus.util;
+
+/**
+ * Wraps the text given to a regular expression matcher so the match can be abandoned once a deadline passes.
+ * <p>
+ * {@link java.util.regex.Matcher} offers no way to interrupt a match, but every step of one reads the text,
+ * so the deadline is checked periodically from {@link #charAt(int)}.
+ */
+public class TimeLimitedCharSequence implements CharSequence {
+
+    //How many characters are read between checks of the clock.
+    private static final int CHECK_INTERVAL_MASK = 0x3FF;
+
+    private final CharSequence inner;
+    private final long deadline;
+    private int reads;
+
+    /**
+     * @param inner The text to match against.
+     * @param deadline The {@link System#nanoTime()} after which reading the text throws a {@link RegexTimeoutException}.
+     */
+    public TimeLimitedCharSequence(CharSequence inner, long deadline) {
+        this.inner = inner;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if ((++reads & CHECK_INTERVAL_MASK) == 0 && System.nanoTime() - deadline > 0) {
+            throw new RegexTimeoutException();
+        }
+        return inner.charAt(index);
+    }
+
+    @Override
+    public int length() {
+        return inner.length();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new TimeLimitedCharSequence(inner.subSequence(start, end), deadline);
+    }
+
+    @Override
+    public String toString() {
+        return inner.toString();
+    }
+}
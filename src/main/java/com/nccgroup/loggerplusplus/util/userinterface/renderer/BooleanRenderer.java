@@ -28,7 +28,7 @@ public class BooleanRenderer extends JCheckBox implements TableCellRenderer, UIR
             this.setBackground(var1.getBackground());
         }
 
-        this.setSelected(var2 != null && ((Boolean)var2).booleanValue());
+        this.setSelected(var2 instanceof Boolean && ((Boolean)var2).booleanValue());
         if(var4) {
             this.setBorder(UIManager.getBorder("LogTable.focusCellHighlightBorder"));
         } else {
@@ -0,0 +1,21 @@
+package com.nccgroup.loggerplusplus.util.userinterface.renderer;
+
+import com.nccgroup.loggerplusplus.logview.processor.LogProcessor;
+
+import javax.swing.table.DefaultTableCellRenderer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Formats dates as they are painted, in the same format used throughout the log.
+ * Each renderer has its own format, as the shared one is used by other threads and SimpleDateFormat isn't thread safe.
+ */
+public class DateRenderer extends DefaultTableCellRenderer {
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat(LogProcessor.LOGGER_DATE_PATTERN);
+
+    @Override
+    protected void setValue(Object value) {
+        super.setValue(value instanceof Date ? dateFormat.format((Date) value) : value);
+    }
+}
@@ -0,0 +1,197 @@
+package com.nccgroup.loggerplusplus;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import com.coreyd97.BurpExtenderUtilities.Preferences;
+import com.nccgroup.loggerplusplus.exports.ExportController;
+import com.nccgroup.loggerplusplus.fake.FakeHttpRequest;
+import com.nccgroup.loggerplusplus.fake.FakeHttpResponse;
+import com.nccgroup.loggerplusplus.fake.FakeMontoya;
+import com.nccgroup.loggerplusplus.fake.FakeValues;
+import com.nccgroup.loggerplusplus.filterlibrary.FilterLibraryController;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import com.nccgroup.loggerplusplus.logview.logtable.InMemoryLogEntryStore;
+import com.nccgroup.loggerplusplus.logview.logtable.LogEntryStore;
+import com.nccgroup.loggerplusplus.logview.processor.LogEntrySink;
+import com.nccgroup.loggerplusplus.logview.processor.LogProcessor;
+import com.nccgroup.loggerplusplus.preferences.PreferencesController;
+import com.nccgroup.loggerplusplus.reflection.ReflectionController;
+
+import javax.swing.*;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The capture pipeline of the extension, from Burp's HTTP handlers through processing, tags, color filters and
+ * exporters to the store of entries, run against {@link FakeMontoya} without Burp or the user interface.
+ * <p>
+ * Entries are handed to the store on the event dispatch thread, as they are in the extension, although no table is shown.
+ * Creating one replaces the context of the extension, so only one should exist at a time.
+ * <p>
+ * Usage: HeadlessLogger [requests]
+ */
+public class HeadlessLogger implements LoggerContext {
+
+    private final FakeMontoya fakeMontoya;
+    private final PreferencesController preferencesController;
+    private final ReflectionController reflectionController;
+    private final FilterLibraryController libraryController;
+    private final ExportController exportController;
+    private final LogEntryStore store;
+    private final LogProcessor logProcessor;
+    private volatile Consumer<LogEntry> entryListener;
+
+    public HeadlessLogger() {
+        this.fakeMontoya = new FakeMontoya();
+        LoggerPlusPlus.context = this;
+        this.preferencesController = new PreferencesController(fakeMontoya.getApi());
+        this.reflectionController = new ReflectionController(getPreferences());
+        this.libraryController = new FilterLibraryController(preferencesController);
+        this.exportController = new ExportController(getPreferences());
+        this.store = new InMemoryLogEntryStore();
+        this.logProcessor = new LogProcessor(this, new StoreSink(), exportController, SwingUtilities::invokeLater);
+
+        MontoyaApi montoya = fakeMontoya.getApi();
+        montoya.http().registerHttpHandler(logProcessor.getHttpHandler());
+        montoya.proxy().registerResponseHandler(logProcessor.getProxyResponseHandler());
+    }
+
+    /**
+     * Send a request and its response through the pipeline, as if made by the tool.
+     */
+    public void send(ToolType tool, HttpRequest request, HttpResponse response) {
+        fakeMontoya.send(tool, request, response);
+    }
+
+    /**
+     * Be told of each entry as it is added to the store or updated, on the event dispatch thread.
+     */
+    public void setEntryListener(Consumer<LogEntry> entryListener) {
+        this.entryListener = entryListener;
+    }
+
+    /**
+     * Wait until every entry sent so far has been processed and handed to the store.
+     * @return False if the pipeline was still busy when the timeout elapsed.
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws Exception {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        ThreadPoolExecutor executor = logProcessor.getEntryProcessExecutor();
+        while (System.nanoTime() < deadline) {
+            long completed = executor.getCompletedTaskCount();
+            if (executor.getTaskCount() == completed) {
+                //Entries are dispatched before their processing task completes, so drain the event queue afterwards.
+                //A task handed to a new worker is not counted until it starts, so wait briefly for any such task.
+                SwingUtilities.invokeAndWait(() -> {});
+                Thread.sleep(5);
+                if (executor.getTaskCount() == completed && executor.getCompletedTaskCount() == completed) return true;
+            }
+            Thread.sleep(1);
+        }
+        return false;
+    }
+
+    public void shutdown() {
+        logProcessor.shutdown();
+        fakeMontoya.unload();
+        if (LoggerPlusPlus.context == this) LoggerPlusPlus.context = null;
+    }
+
+    public FakeMontoya getFakeMontoya() {
+        return fakeMontoya;
+    }
+
+    public LogEntryStore getStore() {
+        return store;
+    }
+
+    public LogProcessor getLogProcessor() {
+        return logProcessor;
+    }
+
+    public ExportController getExportController() {
+        return exportController;
+    }
+
+    public PreferencesController getPreferencesController() {
+        return preferencesController;
+    }
+
+    @Override
+    public MontoyaApi getMontoya() {
+        return fakeMontoya.getApi();
+    }
+
+    @Override
+    public Preferences getPreferences() {
+        return preferencesController.getPreferences();
+    }
+
+    @Override
+    public FilterLibraryController getLibraryController() {
+        return libraryController;
+    }
+
+    @Override
+    public ReflectionController getReflectionController() {
+        return reflectionController;
+    }
+
+    private class StoreSink implements LogEntrySink {
+        @Override
+        public void addEntry(LogEntry logEntry) {
+            store.add(logEntry);
+            notifyListener(logEntry);
+        }
+
+        @Override
+        public void updateEntry(LogEntry logEntry) {
+            logEntry.markChanged();
+            notifyListener(logEntry);
+        }
+
+        @Override
+        public void removeLogEntry(LogEntry logEntry) {
+            int index = store.indexOf(logEntry);
+            if (index >= 0) store.remove(index);
+            libraryController.removeEntryMembership(logEntry);
+        }
+
+        private void notifyListener(LogEntry logEntry) {
+            Consumer<LogEntry> listener = entryListener;
+            if (listener != null) listener.accept(logEntry);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        HeadlessLogger logger = new HeadlessLogger();
+        logger.getFakeMontoya().setCookie("session", "abc123", "example.com", "/");
+        ToolType[] tools = {ToolType.PROXY, ToolType.REPEATER, ToolType.INTRUDER};
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            HttpRequest request = FakeHttpRequest.of(FakeValues.service("example.com", 443, true),
+                    "GET /api/items/" + i + "?q=item" + i + " HTTP/1.1\r\nHost: example.com\r\nCookie: session=abc123\r\n\r\n");
+            String body = "{\"id\":" + i + ",\"name\":\"item" + i + "\"}";
+            HttpResponse response = FakeHttpResponse.of("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: "
+                    + body.length() + "\r\n\r\n" + body);
+            logger.send(tools[i % tools.length], request, response);
+        }
+        boolean idle = logger.awaitIdle(60, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("Logged %d of %d requests in %d ms%s%n", logger.getStore().size(), requests,
+                elapsed / 1000000, idle ? "" : " (timed out waiting for processing)");
+        if (logger.getStore().size() > 0) {
+            LogEntry entry = logger.getStore().get(0);
+            System.out.printf("First entry: %s %s, status %d, cookie jar %s%n", entry.getMethod(), entry.getUrlString(),
+                    entry.getResponseStatus(), entry.getUsesCookieJar());
+        }
+        logger.shutdown();
+    }
+}
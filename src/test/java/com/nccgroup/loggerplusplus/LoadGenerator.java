@@ -0,0 +1,442 @@
+package com.nccgroup.loggerplusplus;
+
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.nccgroup.loggerplusplus.exports.SerializingExporter;
+import com.nccgroup.loggerplusplus.filter.FilterExpression;
+import com.nccgroup.loggerplusplus.filter.colorfilter.TableColorRule;
+import com.nccgroup.loggerplusplus.filter.tag.Tag;
+import com.nccgroup.loggerplusplus.filterlibrary.FilterLibraryController;
+import com.nccgroup.loggerplusplus.imports.LoggerImport;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+import com.nccgroup.loggerplusplus.logentry.Status;
+import com.nccgroup.loggerplusplus.util.NamedThreadFactory;
+
+import javax.swing.*;
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays synthetic or recorded traffic through the capture pipeline of a {@link HeadlessLogger} at a target rate,
+ * then reports the sustained rate entries were logged at, how long each took from being sent to reaching the store,
+ * how long tasks given to the event dispatch thread waited to run, and how much the heap grew.
+ * <p>
+ * Recorded traffic is read from a HAR file, or from a CSV file in the WStalker format read by {@link LoggerImport},
+ * and is sent again from the start once exhausted.
+ * <p>
+ * Usage: LoadGenerator [--source synthetic|har:FILE|wstalker:FILE] [--requests N] [--rate PER_SECOND]
+ * [--threads N] [--body-size BYTES|MIN-MAX] [--tags N] [--color-rules N] [--exporters csv,elastic,har] [--tool TOOL]
+ * <p>
+ * A rate of 0 sends as fast as the sending threads are able to.
+ */
+public class LoadGenerator {
+
+    /**
+     * Added to each request sent so its entry can be matched with when it was sent.
+     */
+    private static final String LOAD_HEADER = "X-LPP-Load";
+    private static final long PROBE_INTERVAL_MILLIS = 10;
+
+    static final List<LogEntryField> EXPORTED_FIELDS = Arrays.asList(
+            LogEntryField.PROXY_TOOL, LogEntryField.TAGS, LogEntryField.REQUEST_TIME, LogEntryField.METHOD,
+            LogEntryField.URL, LogEntryField.REQUEST_HEADERS, LogEntryField.REQUEST_BODY, LogEntryField.PARAMETERS,
+            LogEntryField.STATUS, LogEntryField.RESPONSE_TIME, LogEntryField.RTT, LogEntryField.MIME_TYPE,
+            LogEntryField.RESPONSE_HEADERS, LogEntryField.RESPONSE_BODY, LogEntryField.RESPONSE_HASH,
+            LogEntryField.REFLECTED_PARAMS);
+
+    private static final String[] WORDS = {
+            "the", "user", "session", "request", "value", "account", "order", "id", "name", "status", "items",
+            "price", "total", "cart", "product", "search", "results", "page", "next", "previous", "data",
+            "error", "message", "success", "true", "false", "null", "content", "created", "updated", "version"
+    };
+
+    private static final String[] RESOURCES = {"items", "users", "orders", "search", "cart"};
+
+    private final int requests;
+    private final int rate;
+    private final int threads;
+    private final ToolType tool;
+    private final HeadlessLogger logger;
+    private final List<Exchange> traffic;
+    private final List<SerializingExporter> exporters;
+    private final ConcurrentHashMap<Integer, Long> sendTimes;
+    private final AtomicInteger sent;
+    private final MemoryMXBean memory;
+
+    //Only used by the event dispatch thread until the pipeline is idle.
+    private final long[] latencies;
+    private long[] lags;
+    private int lagCount;
+    private volatile int logged;
+    private volatile long lastLoggedTime;
+    private long startTime;
+
+    //Only used by the probe thread until it is stopped.
+    private long peakHeap;
+    private int peakBacklog;
+
+    public LoadGenerator(Options options) throws Exception {
+        this.requests = options.requests;
+        this.rate = options.rate;
+        this.threads = options.threads;
+        this.tool = options.tool;
+        this.logger = new HeadlessLogger();
+        this.traffic = loadTraffic(options);
+        this.exporters = new ArrayList<>();
+        this.sendTimes = new ConcurrentHashMap<>();
+        this.sent = new AtomicInteger();
+        this.memory = ManagementFactory.getMemoryMXBean();
+        this.latencies = new long[requests];
+        this.lags = new long[1024];
+
+        addRules(logger.getLibraryController(), options.tags, options.colorRules);
+        for (SerializingExporter.Format format : options.exporters) {
+            SerializingExporter exporter = new SerializingExporter(logger.getExportController(),
+                    logger.getPreferences(), format, EXPORTED_FIELDS);
+            logger.getExportController().enableExporter(exporter);
+            exporters.add(exporter);
+        }
+        logger.setEntryListener(this::onEntry);
+    }
+
+    public void run() throws Exception {
+        System.gc();
+        long baselineHeap = memory.getHeapMemoryUsage().getUsed();
+        peakHeap = baselineHeap;
+
+        ScheduledExecutorService probe = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("LPP-Load-Probe"));
+        probe.scheduleAtFixedRate(this::probe, PROBE_INTERVAL_MILLIS, PROBE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+        long start = startTime = System.nanoTime();
+        long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        AtomicInteger next = new AtomicInteger();
+        List<Thread> senders = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread sender = new Thread(() -> {
+                int id;
+                while ((id = next.getAndIncrement()) < requests) {
+                    long due = start + id * interval;
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) LockSupport.parkNanos(wait);
+                    send(id);
+                }
+            }, "LPP-Load-Sender-" + i);
+            sender.start();
+            senders.add(sender);
+        }
+        for (Thread sender : senders) sender.join();
+        long sendTime = System.nanoTime() - start;
+
+        boolean idle = logger.awaitIdle(10, TimeUnit.MINUTES);
+        long idleTime = System.nanoTime() - start;
+        while (exporters.stream().anyMatch(exporter -> exporter.getBacklog() > 0)) {
+            Thread.sleep(1);
+        }
+        long exportedTime = System.nanoTime() - start;
+
+        probe.shutdown();
+        probe.awaitTermination(1, TimeUnit.SECONDS);
+        System.gc();
+        long retainedHeap = memory.getHeapMemoryUsage().getUsed();
+
+        report(idle, sendTime, idleTime, exportedTime, baselineHeap, retainedHeap);
+        for (SerializingExporter exporter : exporters) {
+            logger.getExportController().disableExporter(exporter);
+        }
+        logger.shutdown();
+    }
+
+    private void send(int id) {
+        Exchange exchange = traffic.get(id % traffic.size());
+        HttpRequest request = exchange.request.withAddedHeader(LOAD_HEADER, String.valueOf(id));
+        sendTimes.put(id, System.nanoTime());
+        sent.incrementAndGet();
+        logger.send(tool, request, exchange.response);
+    }
+
+    /**
+     * Called on the event dispatch thread as entries are added to the store or updated.
+     */
+    private void onEntry(LogEntry entry) {
+        if (entry.getStatus() != Status.PROCESSED) return;
+        Integer id = loadId(entry.getRequest());
+        Long sendTime = id != null ? sendTimes.remove(id) : null;
+        if (sendTime == null) return;
+        long now = System.nanoTime();
+        latencies[logged] = now - sendTime;
+        lastLoggedTime = now;
+        logged++;
+    }
+
+    private static Integer loadId(HttpRequest request) {
+        for (HttpHeader header : request.headers()) {
+            if (header.name().equalsIgnoreCase(LOAD_HEADER)) return Integer.valueOf(header.value());
+        }
+        return null;
+    }
+
+    /**
+     * Sample the heap and backlog, and time how long the event dispatch thread takes to run a task given to it now,
+     * behind the entries queued for it.
+     */
+    private void probe() {
+        peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+        peakBacklog = Math.max(peakBacklog, sent.get() - logged);
+        long submitted = System.nanoTime();
+        SwingUtilities.invokeLater(() -> {
+            if (lagCount == lags.length) lags = Arrays.copyOf(lags, lags.length * 2);
+            lags[lagCount++] = System.nanoTime() - submitted;
+        });
+    }
+
+    private void report(boolean idle, long sendTime, long idleTime, long exportedTime, long baselineHeap, long retainedHeap) {
+        int logged = this.logged;
+        System.out.printf("Sent %d requests from %d threads in %d ms, %.0f/s (target %s)%n", sent.get(), threads,
+                sendTime / 1000000, sent.get() / (sendTime / 1e9), rate > 0 ? rate + "/s" : "unlimited");
+        System.out.printf("Logged %d entries in %d ms%s, sustained %.0f/s, peak backlog %d%n", logged,
+                idleTime / 1000000, idle ? "" : " (timed out waiting for processing)",
+                logged / ((lastLoggedTime - startTime) / 1e9), peakBacklog);
+        if (logged > 0) {
+            long[] sorted = Arrays.copyOf(latencies, logged);
+            Arrays.sort(sorted);
+            System.out.printf("Latency (ms)     p50 %8.2f   p99 %8.2f   p999 %8.2f   max %8.2f%n",
+                    percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999), sorted[logged - 1] / 1e6);
+        }
+        if (lagCount > 0) {
+            long[] sorted = Arrays.copyOf(lags, lagCount);
+            Arrays.sort(sorted);
+            System.out.printf("EDT lag (ms)     p50 %8.2f   p99 %8.2f   p999 %8.2f   max %8.2f%n",
+                    percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999), sorted[lagCount - 1] / 1e6);
+        }
+        for (SerializingExporter exporter : exporters) {
+            System.out.printf("%-7s exporter: %d entries, %d KB, drained after %d ms%n", exporter.getFormat(),
+                    exporter.getExported(), exporter.getExportedChars() / 1024, exportedTime / 1000000);
+        }
+        System.out.printf("Heap (MB)        baseline %.1f   peak %.1f   retained %.1f, %d bytes per entry%n",
+                baselineHeap / 1048576.0, peakHeap / 1048576.0, retainedHeap / 1048576.0,
+                logged > 0 ? (retainedHeap - baselineHeap) / logged : 0);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    /**
+     * Add enabled tags and color rules, each matching a small share of the synthetic traffic.
+     */
+    private static void addRules(FilterLibraryController libraryController, int tags, int colorRules) throws Exception {
+        for (int i = 0; i < tags; i++) {
+            Tag tag = new Tag("Load Tag " + i, new FilterExpression(ruleFilter(i)));
+            tag.setEnabled(true);
+            libraryController.addTag(tag);
+        }
+        for (int i = 0; i < colorRules; i++) {
+            TableColorRule colorRule = new TableColorRule("Load Rule " + i, new FilterExpression(ruleFilter(i)));
+            colorRule.setEnabled(true);
+            libraryController.addColorFilter(colorRule);
+        }
+    }
+
+    private static String ruleFilter(int index) {
+        switch (index % 3) {
+            case 0: return "Response.Body CONTAINS \"token" + index + "\"";
+            case 1: return "Request.Path CONTAINS \"/items/" + index + "\"";
+            default: return "Response.Status == " + (400 + index % 100);
+        }
+    }
+
+    private static List<Exchange> loadTraffic(Options options) throws Exception {
+        List<Exchange> traffic = new ArrayList<>();
+        if (options.source.startsWith("har:")) {
+            traffic.addAll(readHar(options.source.substring(4)));
+        } else if (options.source.startsWith("wstalker:")) {
+            for (HttpRequestResponse requestResponse : LoggerImport.importWStalker(options.source.substring(9))) {
+                traffic.add(new Exchange(requestResponse.request(), requestResponse.response()));
+            }
+        } else {
+            Random random = new Random(1);
+            for (int i = 0; i < Math.min(options.requests, 512); i++) {
+                traffic.add(syntheticExchange(i, options.minBodySize, options.maxBodySize, random));
+            }
+        }
+        if (traffic.isEmpty()) throw new IllegalArgumentException("No traffic could be read from " + options.source);
+        return traffic;
+    }
+
+    /**
+     * Generate a GET or form POST, answered with a JSON or HTML body which sometimes reflects a parameter
+     * or contains a token one of the rules looks for.
+     */
+    static Exchange syntheticExchange(int index, int minBodySize, int maxBodySize, Random random) {
+        String resource = RESOURCES[index % RESOURCES.length];
+        String query = WORDS[random.nextInt(WORDS.length)] + index;
+        boolean post = random.nextInt(4) == 0;
+        String requestBody = post ? "name=" + WORDS[random.nextInt(WORDS.length)] + "&value=" + index : "";
+        String request = (post ? "POST" : "GET") + " /api/" + resource + "/" + index + "?q=" + query + "&page=" + random.nextInt(10)
+                + " HTTP/1.1\r\nHost: app.example.com\r\nUser-Agent: Mozilla/5.0\r\nAccept: */*\r\nCookie: session=abc123\r\n"
+                + (post ? "Content-Type: application/x-www-form-urlencoded\r\nContent-Length: " + requestBody.length() + "\r\n" : "")
+                + "\r\n" + requestBody;
+
+        boolean json = random.nextBoolean();
+        int size = minBodySize + (maxBodySize > minBodySize ? random.nextInt(maxBodySize - minBodySize + 1) : 0);
+        StringBuilder body = new StringBuilder(size + 64);
+        body.append(json ? "{\"query\":\"" : "<html><head><title>Results</title></head><body><p>");
+        if (random.nextInt(4) == 0) body.append(query);
+        if (random.nextInt(8) == 0) body.append(" token").append(random.nextInt(64));
+        while (body.length() < size) {
+            body.append(json ? "\",\"" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        body.append(json ? "\"}" : "</p></body></html>");
+
+        int status = random.nextInt(10) == 0 ? 400 + random.nextInt(100) : 200;
+        String response = "HTTP/1.1 " + status + " " + (status == 200 ? "OK" : "Error") + "\r\n"
+                + "Content-Type: " + (json ? "application/json" : "text/html; charset=utf-8") + "\r\n"
+                + (random.nextInt(16) == 0 ? "Set-Cookie: tracking=" + index + "; Path=/\r\n" : "")
+                + "Content-Length: " + body.length() + "\r\n\r\n" + body;
+
+        HttpService service = HttpService.httpService("app.example.com", 443, true);
+        return new Exchange(HttpRequest.httpRequest(service, request), HttpResponse.httpResponse(response));
+    }
+
+    /**
+     * Read the requests and responses of a HAR file. Bodies are stored decoded, so the content encoding and length
+     * headers are replaced to match.
+     */
+    static List<Exchange> readHar(String filename) throws Exception {
+        JsonObject har;
+        try (Reader reader = Files.newBufferedReader(Paths.get(filename), StandardCharsets.UTF_8)) {
+            har = JsonParser.parseReader(reader).getAsJsonObject();
+        }
+        List<Exchange> exchanges = new ArrayList<>();
+        for (JsonElement element : har.getAsJsonObject("log").getAsJsonArray("entries")) {
+            JsonObject entry = element.getAsJsonObject();
+            JsonObject request = entry.getAsJsonObject("request");
+            JsonObject response = entry.getAsJsonObject("response");
+            String url = request.get("url").getAsString();
+            int pathStart = url.indexOf('/', url.indexOf("://") + 3);
+
+            JsonObject postData = request.getAsJsonObject("postData");
+            byte[] requestBody = postData != null && postData.has("text")
+                    ? postData.get("text").getAsString().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            byte[] rawRequest = rawMessage(request.get("method").getAsString() + " " + (pathStart < 0 ? "/" : url.substring(pathStart))
+                    + " " + httpVersion(request), request.getAsJsonArray("headers"), requestBody);
+
+            byte[] responseBody = new byte[0];
+            JsonObject content = response.getAsJsonObject("content");
+            if (content != null && content.has("text")) {
+                String text = content.get("text").getAsString();
+                responseBody = content.has("encoding") && "base64".equals(content.get("encoding").getAsString())
+                        ? Base64.getMimeDecoder().decode(text) : text.getBytes(StandardCharsets.UTF_8);
+            }
+            byte[] rawResponse = rawMessage(httpVersion(response) + " " + response.get("status").getAsInt() + " "
+                    + response.get("statusText").getAsString(), response.getAsJsonArray("headers"), responseBody);
+
+            exchanges.add(new Exchange(HttpRequest.httpRequest(HttpService.httpService(url), new String(rawRequest, StandardCharsets.ISO_8859_1)),
+                    HttpResponse.httpResponse(new String(rawResponse, StandardCharsets.ISO_8859_1))));
+        }
+        return exchanges;
+    }
+
+    private static String httpVersion(JsonObject message) {
+        String version = message.has("httpVersion") ? message.get("httpVersion").getAsString() : "";
+        return version.toUpperCase().startsWith("HTTP/1") ? version.toUpperCase() : "HTTP/1.1";
+    }
+
+    private static byte[] rawMessage(String startLine, JsonArray headers, byte[] body) {
+        StringBuilder head = new StringBuilder(startLine).append("\r\n");
+        if (headers != null) {
+            for (JsonElement element : headers) {
+                String name = element.getAsJsonObject().get("name").getAsString();
+                if (name.startsWith(":") || name.equalsIgnoreCase("Content-Length")
+                        || name.equalsIgnoreCase("Content-Encoding") || name.equalsIgnoreCase("Transfer-Encoding")) continue;
+                head.append(name).append(": ").append(element.getAsJsonObject().get("value").getAsString()).append("\r\n");
+            }
+        }
+        if (body.length > 0) head.append("Content-Length: ").append(body.length).append("\r\n");
+        head.append("\r\n");
+
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(head.length() + body.length);
+        raw.writeBytes(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        raw.writeBytes(body);
+        return raw.toByteArray();
+    }
+
+    record Exchange(HttpRequest request, HttpResponse response) {}
+
+    static class Options {
+        String source = "synthetic";
+        int requests = 20000;
+        int rate = 2000;
+        int threads = 4;
+        int minBodySize = 2048;
+        int maxBodySize = 2048;
+        int tags = 0;
+        int colorRules = 0;
+        List<SerializingExporter.Format> exporters = new ArrayList<>();
+        ToolType tool = ToolType.PROXY;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--source": options.source = value; break;
+                    case "--requests": options.requests = Integer.parseInt(value); break;
+                    case "--rate": options.rate = Integer.parseInt(value); break;
+                    case "--threads": options.threads = Integer.parseInt(value); break;
+                    case "--body-size": {
+                        String[] range = value.split("-");
+                        options.minBodySize = Integer.parseInt(range[0]);
+                        options.maxBodySize = Integer.parseInt(range[range.length - 1]);
+                        break;
+                    }
+                    case "--tags": options.tags = Integer.parseInt(value); break;
+                    case "--color-rules": options.colorRules = Integer.parseInt(value); break;
+                    case "--exporters": {
+                        for (String format : value.split(",")) {
+                            if (!format.isBlank()) options.exporters.add(SerializingExporter.Format.valueOf(format.trim().toUpperCase()));
+                        }
+                        break;
+                    }
+                    case "--tool": options.tool = ToolType.valueOf(value.toUpperCase()); break;
+                    default: throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            return options;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        System.out.printf("Source %s, %d requests at %s, bodies of %d-%d bytes, %d tags, %d color rules, exporters %s%n",
+                options.source, options.requests, options.rate > 0 ? options.rate + "/s" : "an unlimited rate",
+                options.minBodySize, options.maxBodySize, options.tags, options.colorRules, options.exporters);
+        new LoadGenerator(options).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.nccgroup.loggerplusplus.exports;
+
+import com.coreyd97.BurpExtenderUtilities.Preferences;
+import com.google.gson.stream.JsonWriter;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+import com.nccgroup.loggerplusplus.logentry.Status;
+import com.nccgroup.loggerplusplus.util.Globals;
+
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An automatic exporter which serializes entries as the CSV, Elastic or HAR exporters would, but discards the
+ * result instead of writing it to a file or sending it to a server. Like the CSV exporter, entries are queued
+ * and serialized on a thread of its own.
+ */
+public class SerializingExporter extends AutomaticLogExporter {
+
+    public enum Format {CSV, ELASTIC, HAR}
+
+    private final Format format;
+    private final List<LogEntryField> fields;
+    private final ElasticExporter elasticExporter;
+    private final HarSerializer harSerializer;
+    private final AtomicLong exported;
+    private final AtomicLong exportedChars;
+    private LinkedBlockingQueue<LogEntry> awaitingExport;
+    private Thread exporterThread;
+
+    public SerializingExporter(ExportController exportController, Preferences preferences, Format format, List<LogEntryField> fields) {
+        super(exportController, preferences);
+        this.format = format;
+        this.fields = fields;
+        if (format == Format.ELASTIC) {
+            //The Elastic exporter takes its fields from the preferences when created.
+            preferences.setSetting(Globals.PREF_PREVIOUS_ELASTIC_FIELDS, fields);
+            this.elasticExporter = new ElasticExporter(exportController, preferences);
+        } else {
+            this.elasticExporter = null;
+        }
+        this.harSerializer = new HarSerializer(String.valueOf(Globals.VERSION), "LoggerPlusPlus");
+        this.exported = new AtomicLong();
+        this.exportedChars = new AtomicLong();
+    }
+
+    @Override
+    void setup() throws Exception {
+        awaitingExport = new LinkedBlockingQueue<>();
+        exporterThread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    LogEntry logEntry = awaitingExport.take();
+                    exportedChars.addAndGet(serialize(logEntry));
+                    exported.incrementAndGet();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "LPP-" + format + "-Serializer");
+        exporterThread.setDaemon(true);
+        exporterThread.start();
+    }
+
+    private int serialize(LogEntry logEntry) throws Exception {
+        switch (format) {
+            case CSV:
+                return CSVExporter.entryToCSVString(logEntry, fields).length();
+            case ELASTIC:
+                return elasticExporter.serializeLogEntry(logEntry).toString().length();
+            default:
+                StringWriter writer = new StringWriter();
+                harSerializer.write(new JsonWriter(writer), Collections.singletonList(logEntry));
+                return writer.getBuffer().length();
+        }
+    }
+
+    @Override
+    void exportNewEntry(LogEntry logEntry) {
+        if (logEntry.getStatus() == Status.PROCESSED) awaitingExport.add(logEntry);
+    }
+
+    @Override
+    void exportUpdatedEntry(LogEntry logEntry) {
+        if (logEntry.getStatus() == Status.PROCESSED) awaitingExport.add(logEntry);
+    }
+
+    @Override
+    void shutdown() throws Exception {
+        exporterThread.interrupt();
+        exporterThread = null;
+        awaitingExport.clear();
+        awaitingExport = null;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * @return The number of entries waiting to be serialized.
+     */
+    public int getBacklog() {
+        LinkedBlockingQueue<LogEntry> queue = awaitingExport;
+        return queue != null ? queue.size() : 0;
+    }
+
+    public long getExported() {
+        return exported.get();
+    }
+
+    public long getExportedChars() {
+        return exportedChars.get();
+    }
+}
@@ -0,0 +1,176 @@
+package com.nccgroup.loggerplusplus.fake;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.Range;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Bytes held in an array. Converted to and from strings one byte per character, as Burp does.
+ */
+public class FakeByteArray {
+
+    private byte[] bytes;
+
+    private FakeByteArray(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public static ByteArray of(byte[] bytes) {
+        return Fakes.implement(ByteArray.class, new FakeByteArray(bytes));
+    }
+
+    public static ByteArray of(String string) {
+        return of(string.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * @return The bytes of the array, without copying them if it is one of these fakes.
+     */
+    static byte[] bytesOf(ByteArray array) {
+        FakeByteArray fake = Fakes.unwrap(array, FakeByteArray.class);
+        return fake != null ? fake.bytes : array.getBytes();
+    }
+
+    public byte getByte(int index) {
+        return bytes[index];
+    }
+
+    public void setByte(int index, byte value) {
+        bytes[index] = value;
+    }
+
+    public void setByte(int index, int value) {
+        bytes[index] = (byte) value;
+    }
+
+    public void setBytes(int index, byte... values) {
+        System.arraycopy(values, 0, bytes, index, values.length);
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    public ByteArray subArray(int startIndexInclusive, int endIndexExclusive) {
+        return of(Arrays.copyOfRange(bytes, startIndexInclusive, endIndexExclusive));
+    }
+
+    public ByteArray subArray(Range range) {
+        return subArray(range.startIndexInclusive(), range.endIndexExclusive());
+    }
+
+    public ByteArray copy() {
+        return of(bytes.clone());
+    }
+
+    public ByteArray copyToTempFile() {
+        return copy();
+    }
+
+    public int indexOf(String searchTerm) {
+        return indexOf(searchTerm, true);
+    }
+
+    public int indexOf(ByteArray searchTerm) {
+        return indexOf(searchTerm, true);
+    }
+
+    public int indexOf(String searchTerm, boolean caseSensitive) {
+        return indexOf(searchTerm, caseSensitive, 0, bytes.length);
+    }
+
+    public int indexOf(ByteArray searchTerm, boolean caseSensitive) {
+        return indexOf(searchTerm, caseSensitive, 0, bytes.length);
+    }
+
+    public int indexOf(String searchTerm, boolean caseSensitive, int startIndexInclusive, int endIndexExclusive) {
+        return indexOf(searchTerm.getBytes(StandardCharsets.ISO_8859_1), caseSensitive, startIndexInclusive, endIndexExclusive);
+    }
+
+    public int indexOf(ByteArray searchTerm, boolean caseSensitive, int startIndexInclusive, int endIndexExclusive) {
+        return indexOf(bytesOf(searchTerm), caseSensitive, startIndexInclusive, endIndexExclusive);
+    }
+
+    public int countMatches(String searchTerm) {
+        return countMatches(searchTerm, true);
+    }
+
+    public int countMatches(String searchTerm, boolean caseSensitive) {
+        byte[] term = searchTerm.getBytes(StandardCharsets.ISO_8859_1);
+        int count = 0;
+        int index = indexOf(term, caseSensitive, 0, bytes.length);
+        while (index >= 0 && term.length > 0) {
+            count++;
+            index = indexOf(term, caseSensitive, index + term.length, bytes.length);
+        }
+        return count;
+    }
+
+    public ByteArray withAppended(byte... appended) {
+        byte[] combined = Arrays.copyOf(bytes, bytes.length + appended.length);
+        System.arraycopy(appended, 0, combined, bytes.length, appended.length);
+        return of(combined);
+    }
+
+    public ByteArray withAppended(String appended) {
+        return withAppended(appended.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    public ByteArray withAppended(ByteArray appended) {
+        return withAppended(bytesOf(appended));
+    }
+
+    public Iterator<Byte> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < bytes.length;
+            }
+
+            @Override
+            public Byte next() {
+                if (index >= bytes.length) throw new NoSuchElementException();
+                return bytes[index++];
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FakeByteArray other && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private int indexOf(byte[] term, boolean caseSensitive, int from, int to) {
+        outer:
+        for (int i = Math.max(from, 0); i <= to - term.length; i++) {
+            for (int j = 0; j < term.length; j++) {
+                byte a = bytes[i + j], b = term[j];
+                if (a != b && (caseSensitive || Character.toLowerCase((char) (a & 0xff)) != Character.toLowerCase((char) (b & 0xff)))) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,140 @@
+package com.nccgroup.loggerplusplus.fake;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.Marker;
+import burp.api.montoya.http.message.HttpHeader;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The start line, headers and body of a raw HTTP/1 message, parsed when the message is created.
+ * Messages are immutable: methods changing the message return a new one.
+ */
+abstract class FakeHttpMessage {
+
+    protected final byte[] raw;
+    protected final String startLine;
+    protected final List<HttpHeader> headers;
+    protected final int bodyOffset;
+
+    protected FakeHttpMessage(byte[] raw) {
+        this.raw = raw;
+        int lineStart = 0;
+        String first = null;
+        List<HttpHeader> parsedHeaders = new ArrayList<>();
+        int offset = raw.length;
+        while (lineStart < raw.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < raw.length && raw[lineEnd] != '\n') lineEnd++;
+            int contentEnd = lineEnd > lineStart && raw[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            String line = new String(raw, lineStart, Math.max(contentEnd - lineStart, 0), StandardCharsets.ISO_8859_1);
+            lineStart = Math.min(lineEnd + 1, raw.length);
+            if (first == null) {
+                first = line;
+            } else if (line.isEmpty()) {
+                offset = lineStart;
+                break;
+            } else {
+                int colon = line.indexOf(':');
+                if (colon < 0) {
+                    parsedHeaders.add(FakeValues.header(line, ""));
+                } else {
+                    parsedHeaders.add(FakeValues.header(line.substring(0, colon).trim(), line.substring(colon + 1).trim()));
+                }
+            }
+        }
+        this.startLine = first != null ? first : "";
+        this.headers = Collections.unmodifiableList(parsedHeaders);
+        this.bodyOffset = Math.min(offset, raw.length);
+    }
+
+    /**
+     * Assemble a raw message, updating its Content-Length header if it has one.
+     */
+    protected static byte[] assemble(String startLine, List<HttpHeader> headers, byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + 256);
+        writeLine(out, startLine);
+        for (HttpHeader header : headers) {
+            String value = header.name().equalsIgnoreCase("Content-Length") ? String.valueOf(body.length) : header.value();
+            writeLine(out, header.name() + ": " + value);
+        }
+        writeLine(out, "");
+        out.writeBytes(body);
+        return out.toByteArray();
+    }
+
+    private static void writeLine(ByteArrayOutputStream out, String line) {
+        out.writeBytes(line.getBytes(StandardCharsets.ISO_8859_1));
+        out.write('\r');
+        out.write('\n');
+    }
+
+    /**
+     * @return The value of the first header with the name, or null if there is none.
+     */
+    protected String headerValue(String name) {
+        for (HttpHeader header : headers) {
+            if (header.name().equalsIgnoreCase(name)) return header.value();
+        }
+        return null;
+    }
+
+    protected byte[] bodyBytes() {
+        byte[] body = new byte[raw.length - bodyOffset];
+        System.arraycopy(raw, bodyOffset, body, 0, body.length);
+        return body;
+    }
+
+    protected List<HttpHeader> withHeader(String name, String value, boolean replace) {
+        List<HttpHeader> updated = new ArrayList<>(headers);
+        if (replace) {
+            for (int i = 0; i < updated.size(); i++) {
+                if (updated.get(i).name().equalsIgnoreCase(name)) {
+                    updated.set(i, FakeValues.header(name, value));
+                    return updated;
+                }
+            }
+        }
+        updated.add(FakeValues.header(name, value));
+        return updated;
+    }
+
+    protected List<HttpHeader> withoutHeader(String name) {
+        List<HttpHeader> updated = new ArrayList<>(headers);
+        updated.removeIf(header -> header.name().equalsIgnoreCase(name));
+        return updated;
+    }
+
+    public List<HttpHeader> headers() {
+        return headers;
+    }
+
+    public ByteArray body() {
+        return FakeByteArray.of(bodyBytes());
+    }
+
+    public String bodyToString() {
+        return new String(raw, bodyOffset, raw.length - bodyOffset, StandardCharsets.ISO_8859_1);
+    }
+
+    public int bodyOffset() {
+        return bodyOffset;
+    }
+
+    public List<Marker> markers() {
+        return Collections.emptyList();
+    }
+
+    public ByteArray toByteArray() {
+        return FakeByteArray.of(raw);
+    }
+
+    @Override
+    public String toString() {
+        return new String(raw, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,232 @@
+package com.nccgroup.loggerplusplus.fake;
+
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.HighlightColor;
+import burp.api.montoya.core.ToolSource;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.message.ContentType;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A raw HTTP/1 request sent to a service. If no service is given, it is taken from the Host header.
+ */
+public class FakeHttpRequest extends FakeHttpMessage {
+
+    private final HttpService service;
+    private List<ParsedHttpParameter> parameters;
+
+    protected FakeHttpRequest(HttpService service, byte[] raw) {
+        super(raw);
+        this.service = service != null ? service : serviceFromHost(headerValue("Host"));
+    }
+
+    public static HttpRequest of(HttpService service, byte[] raw) {
+        return Fakes.implement(HttpRequest.class, new FakeHttpRequest(service, raw));
+    }
+
+    public static HttpRequest of(HttpService service, String raw) {
+        return of(service, raw.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    public static HttpRequest fromUrl(String url) {
+        boolean secure = url.startsWith("https://");
+        String rest = url.substring(url.indexOf("://") + 3);
+        int slash = rest.indexOf('/');
+        String authority = slash < 0 ? rest : rest.substring(0, slash);
+        String path = slash < 0 ? "/" : rest.substring(slash);
+        HttpService service = serviceFromAuthority(authority, secure);
+        return of(service, "GET " + path + " HTTP/1.1\r\nHost: " + authority + "\r\n\r\n");
+    }
+
+    /**
+     * The request as seen by an HTTP handler, as it is about to be sent by a tool.
+     */
+    public static HttpRequestToBeSent toBeSent(HttpRequest request, ToolType tool, int messageId, Annotations annotations) {
+        FakeHttpRequest fake = Fakes.unwrap(request, FakeHttpRequest.class);
+        byte[] raw = fake != null ? fake.raw : request.toByteArray().getBytes();
+        return Fakes.implement(HttpRequestToBeSent.class,
+                new ToBeSent(request.httpService(), raw, FakeValues.toolSource(tool), messageId, annotations));
+    }
+
+    private static HttpService serviceFromHost(String host) {
+        if (host == null) return FakeValues.service("localhost", 80, false);
+        return serviceFromAuthority(host, false);
+    }
+
+    private static HttpService serviceFromAuthority(String authority, boolean secure) {
+        int colon = authority.lastIndexOf(':');
+        if (colon > 0 && authority.indexOf(']') < colon) {
+            int port = Integer.parseInt(authority.substring(colon + 1));
+            return FakeValues.service(authority.substring(0, colon), port, port == 443 || secure);
+        }
+        return FakeValues.service(authority, secure ? 443 : 80, secure);
+    }
+
+    public HttpService httpService() {
+        return service;
+    }
+
+    public String url() {
+        boolean defaultPort = service.secure() ? service.port() == 443 : service.port() == 80;
+        return (service.secure() ? "https://" : "http://") + service.host() + (defaultPort ? "" : ":" + service.port()) + path();
+    }
+
+    public String method() {
+        int space = startLine.indexOf(' ');
+        return space < 0 ? startLine : startLine.substring(0, space);
+    }
+
+    public String path() {
+        String[] tokens = startLine.split(" ");
+        return tokens.length > 1 ? tokens[1] : "/";
+    }
+
+    public String httpVersion() {
+        String[] tokens = startLine.split(" ");
+        return tokens.length > 2 ? tokens[tokens.length - 1] : "HTTP/1.1";
+    }
+
+    public ContentType contentType() {
+        String contentType = headerValue("Content-Type");
+        if (contentType == null) return raw.length > bodyOffset ? ContentType.UNKNOWN : ContentType.NONE;
+        contentType = contentType.toLowerCase();
+        if (contentType.contains("x-www-form-urlencoded")) return ContentType.URL_ENCODED;
+        if (contentType.contains("multipart")) return ContentType.MULTIPART;
+        if (contentType.contains("json")) return ContentType.JSON;
+        if (contentType.contains("xml")) return ContentType.XML;
+        if (contentType.contains("amf")) return ContentType.AMF;
+        return ContentType.UNKNOWN;
+    }
+
+    public synchronized List<ParsedHttpParameter> parameters() {
+        if (parameters == null) {
+            List<ParsedHttpParameter> parsed = new ArrayList<>();
+            String path = path();
+            int query = path.indexOf('?');
+            if (query >= 0) parseEncoded(path.substring(query + 1), HttpParameterType.URL, parsed);
+            if (contentType() == ContentType.URL_ENCODED) parseEncoded(bodyToString(), HttpParameterType.BODY, parsed);
+            for (HttpHeader header : headers) {
+                if (!header.name().equalsIgnoreCase("Cookie")) continue;
+                for (String cookie : header.value().split(";")) {
+                    int equals = cookie.indexOf('=');
+                    if (equals > 0) {
+                        parsed.add(FakeValues.parameter(cookie.substring(0, equals).trim(), cookie.substring(equals + 1).trim(), HttpParameterType.COOKIE));
+                    }
+                }
+            }
+            parameters = Collections.unmodifiableList(parsed);
+        }
+        return parameters;
+    }
+
+    private static void parseEncoded(String encoded, HttpParameterType type, List<ParsedHttpParameter> parsed) {
+        for (String pair : encoded.split("&")) {
+            if (pair.isEmpty()) continue;
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            try {
+                parsed.add(FakeValues.parameter(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8), type));
+            } catch (IllegalArgumentException e) {
+                parsed.add(FakeValues.parameter(name, value, type));
+            }
+        }
+    }
+
+    public HttpRequest copyToTempFile() {
+        return of(service, raw);
+    }
+
+    public HttpRequest withService(HttpService service) {
+        return of(service, raw);
+    }
+
+    public HttpRequest withPath(String path) {
+        return of(service, assemble(method() + " " + path + " " + httpVersion(), headers, bodyBytes()));
+    }
+
+    public HttpRequest withMethod(String method) {
+        return of(service, assemble(method + " " + path() + " " + httpVersion(), headers, bodyBytes()));
+    }
+
+    public HttpRequest withBody(String body) {
+        return withBody(FakeByteArray.of(body));
+    }
+
+    public HttpRequest withBody(ByteArray body) {
+        return of(service, assemble(startLine, headers, FakeByteArray.bytesOf(body)));
+    }
+
+    public HttpRequest withAddedHeader(String name, String value) {
+        return of(service, assemble(startLine, withHeader(name, value, false), bodyBytes()));
+    }
+
+    public HttpRequest withAddedHeader(HttpHeader header) {
+        return withAddedHeader(header.name(), header.value());
+    }
+
+    public HttpRequest withHeader(String name, String value) {
+        return withUpdatedHeader(name, value);
+    }
+
+    public HttpRequest withHeader(HttpHeader header) {
+        return withUpdatedHeader(header.name(), header.value());
+    }
+
+    public HttpRequest withUpdatedHeader(String name, String value) {
+        return of(service, assemble(startLine, withHeader(name, value, true), bodyBytes()));
+    }
+
+    public HttpRequest withUpdatedHeader(HttpHeader header) {
+        return withUpdatedHeader(header.name(), header.value());
+    }
+
+    public HttpRequest withRemovedHeader(String name) {
+        return of(service, assemble(startLine, withoutHeader(name), bodyBytes()));
+    }
+
+    public HttpRequest withRemovedHeader(HttpHeader header) {
+        return withRemovedHeader(header.name());
+    }
+
+    public HttpRequest withDefaultHeaders() {
+        return of(service, raw);
+    }
+
+    public static class ToBeSent extends FakeHttpRequest {
+        private final ToolSource toolSource;
+        private final int messageId;
+        private final Annotations annotations;
+
+        private ToBeSent(HttpService service, byte[] raw, ToolSource toolSource, int messageId, Annotations annotations) {
+            super(service, raw);
+            this.toolSource = toolSource;
+            this.messageId = messageId;
+            this.annotations = annotations != null ? annotations : FakeValues.annotations(null, HighlightColor.NONE);
+        }
+
+        public ToolSource toolSource() {
+            return toolSource;
+        }
+
+        public int messageId() {
+            return messageId;
+        }
+
+        public Annotations annotations() {
+            return annotations;
+        }
+    }
+}
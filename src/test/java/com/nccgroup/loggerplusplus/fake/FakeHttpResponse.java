@@ -0,0 +1,213 @@
+package com.nccgroup.loggerplusplus.fake;
+
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.HighlightColor;
+import burp.api.montoya.core.ToolSource;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.handler.HttpResponseReceived;
+import burp.api.montoya.http.message.Cookie;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.MimeType;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.proxy.http.InterceptedResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A raw HTTP/1 response. Its stated MIME type is taken from its Content-Type header,
+ * and its inferred MIME type from the first characters of its body.
+ */
+public class FakeHttpResponse extends FakeHttpMessage {
+
+    protected FakeHttpResponse(byte[] raw) {
+        super(raw);
+    }
+
+    public static HttpResponse of(byte[] raw) {
+        return Fakes.implement(HttpResponse.class, new FakeHttpResponse(raw));
+    }
+
+    public static HttpResponse of(String raw) {
+        return of(raw.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * The response as seen by an HTTP handler, once received by a tool.
+     */
+    public static HttpResponseReceived received(HttpResponse response, HttpRequest initiatingRequest, ToolType tool,
+                                                int messageId, Annotations annotations) {
+        return Fakes.implement(HttpResponseReceived.class,
+                new Received(rawOf(response), initiatingRequest, FakeValues.toolSource(tool), messageId, annotations));
+    }
+
+    /**
+     * The response as seen by a proxy response handler, before it is returned to the client.
+     */
+    public static InterceptedResponse intercepted(HttpResponse response, HttpRequest initiatingRequest,
+                                                  int messageId, Annotations annotations) {
+        return Fakes.implement(InterceptedResponse.class,
+                new Received(rawOf(response), initiatingRequest, FakeValues.toolSource(ToolType.PROXY), messageId, annotations));
+    }
+
+    private static byte[] rawOf(HttpResponse response) {
+        FakeHttpResponse fake = Fakes.unwrap(response, FakeHttpResponse.class);
+        return fake != null ? fake.raw : response.toByteArray().getBytes();
+    }
+
+    public short statusCode() {
+        String[] tokens = startLine.split(" ", 3);
+        try {
+            return tokens.length > 1 ? Short.parseShort(tokens[1]) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public String reasonPhrase() {
+        String[] tokens = startLine.split(" ", 3);
+        return tokens.length > 2 ? tokens[2] : "";
+    }
+
+    public String httpVersion() {
+        int space = startLine.indexOf(' ');
+        return space < 0 ? startLine : startLine.substring(0, space);
+    }
+
+    public List<Cookie> cookies() {
+        List<Cookie> cookies = new ArrayList<>();
+        for (HttpHeader header : headers) {
+            if (!header.name().equalsIgnoreCase("Set-Cookie")) continue;
+            String[] attributes = header.value().split(";");
+            int equals = attributes[0].indexOf('=');
+            if (equals <= 0) continue;
+            String domain = null, path = null;
+            for (int i = 1; i < attributes.length; i++) {
+                String attribute = attributes[i].trim();
+                if (attribute.regionMatches(true, 0, "domain=", 0, 7)) domain = attribute.substring(7);
+                if (attribute.regionMatches(true, 0, "path=", 0, 5)) path = attribute.substring(5);
+            }
+            cookies.add(FakeValues.cookie(attributes[0].substring(0, equals).trim(), attributes[0].substring(equals + 1).trim(), domain, path));
+        }
+        return cookies;
+    }
+
+    public MimeType statedMimeType() {
+        String contentType = headerValue("Content-Type");
+        if (contentType == null) return MimeType.NONE;
+        contentType = contentType.toLowerCase();
+        if (contentType.contains("html")) return MimeType.HTML;
+        if (contentType.contains("json")) return MimeType.JSON;
+        if (contentType.contains("javascript") || contentType.contains("ecmascript")) return MimeType.SCRIPT;
+        if (contentType.contains("css")) return MimeType.CSS;
+        if (contentType.contains("svg")) return MimeType.IMAGE_SVG_XML;
+        if (contentType.contains("xml")) return MimeType.XML;
+        if (contentType.contains("text/plain")) return MimeType.PLAIN_TEXT;
+        if (contentType.contains("image/png")) return MimeType.IMAGE_PNG;
+        if (contentType.contains("image/jpeg")) return MimeType.IMAGE_JPEG;
+        if (contentType.contains("image/gif")) return MimeType.IMAGE_GIF;
+        if (contentType.startsWith("image/")) return MimeType.IMAGE_UNKNOWN;
+        if (contentType.startsWith("application/")) return MimeType.APPLICATION_UNKNOWN;
+        return MimeType.UNRECOGNIZED;
+    }
+
+    public MimeType inferredMimeType() {
+        int start = bodyOffset;
+        while (start < raw.length && Character.isWhitespace(raw[start])) start++;
+        if (start >= raw.length) return MimeType.NONE;
+        String prefix = new String(raw, start, Math.min(raw.length - start, 64), StandardCharsets.ISO_8859_1).toLowerCase();
+        if (prefix.startsWith("<!doctype html") || prefix.startsWith("<html")) return MimeType.HTML;
+        if (prefix.startsWith("<?xml")) return MimeType.XML;
+        if (prefix.startsWith("{") || prefix.startsWith("[")) return MimeType.JSON;
+        if (prefix.startsWith("\u0089png")) return MimeType.IMAGE_PNG;
+        if (prefix.startsWith("gif8")) return MimeType.IMAGE_GIF;
+        MimeType stated = statedMimeType();
+        return stated == MimeType.NONE ? MimeType.PLAIN_TEXT : stated;
+    }
+
+    public HttpResponse copyToTempFile() {
+        return of(raw);
+    }
+
+    public HttpResponse withStatusCode(short statusCode) {
+        return of(assemble(httpVersion() + " " + statusCode + " " + reasonPhrase(), headers, bodyBytes()));
+    }
+
+    public HttpResponse withReasonPhrase(String reasonPhrase) {
+        return of(assemble(httpVersion() + " " + statusCode() + " " + reasonPhrase, headers, bodyBytes()));
+    }
+
+    public HttpResponse withHttpVersion(String httpVersion) {
+        return of(assemble(httpVersion + " " + statusCode() + " " + reasonPhrase(), headers, bodyBytes()));
+    }
+
+    public HttpResponse withBody(String body) {
+        return withBody(FakeByteArray.of(body));
+    }
+
+    public HttpResponse withBody(ByteArray body) {
+        return of(assemble(startLine, headers, FakeByteArray.bytesOf(body)));
+    }
+
+    public HttpResponse withAddedHeader(String name, String value) {
+        return of(assemble(startLine, withHeader(name, value, false), bodyBytes()));
+    }
+
+    public HttpResponse withAddedHeader(HttpHeader header) {
+        return withAddedHeader(header.name(), header.value());
+    }
+
+    public HttpResponse withUpdatedHeader(String name, String value) {
+        return of(assemble(startLine, withHeader(name, value, true), bodyBytes()));
+    }
+
+    public HttpResponse withUpdatedHeader(HttpHeader header) {
+        return withUpdatedHeader(header.name(), header.value());
+    }
+
+    public HttpResponse withRemovedHeader(String name) {
+        return of(assemble(startLine, withoutHeader(name), bodyBytes()));
+    }
+
+    public HttpResponse withRemovedHeader(HttpHeader header) {
+        return withRemovedHeader(header.name());
+    }
+
+    public static class Received extends FakeHttpResponse {
+        private final HttpRequest initiatingRequest;
+        private final ToolSource toolSource;
+        private final int messageId;
+        private final Annotations annotations;
+
+        private Received(byte[] raw, HttpRequest initiatingRequest, ToolSource toolSource, int messageId, Annotations annotations) {
+            super(raw);
+            this.initiatingRequest = initiatingRequest;
+            this.toolSource = toolSource;
+            this.messageId = messageId;
+            this.annotations = annotations != null ? annotations : FakeValues.annotations(null, HighlightColor.NONE);
+        }
+
+        public HttpRequest initiatingRequest() {
+            return initiatingRequest;
+        }
+
+        public ToolSource toolSource() {
+            return toolSource;
+        }
+
+        public int messageId() {
+            return messageId;
+        }
+
+        public Annotations annotations() {
+            return annotations;
+        }
+
+        public String listenerInterface() {
+            return "127.0.0.1:8080";
+        }
+    }
+}
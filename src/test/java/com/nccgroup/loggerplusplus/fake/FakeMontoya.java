@@ -0,0 +1,416 @@
+package com.nccgroup.loggerplusplus.fake;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.HighlightColor;
+import burp.api.montoya.core.Marker;
+import burp.api.montoya.core.Registration;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.extension.Extension;
+import burp.api.montoya.extension.ExtensionUnloadingHandler;
+import burp.api.montoya.http.Http;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.handler.HttpHandler;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import burp.api.montoya.http.handler.ResponseReceivedAction;
+import burp.api.montoya.http.message.ContentType;
+import burp.api.montoya.http.message.Cookie;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.http.sessions.CookieJar;
+import burp.api.montoya.logging.Logging;
+import burp.api.montoya.persistence.PersistedObject;
+import burp.api.montoya.persistence.Persistence;
+import burp.api.montoya.persistence.Preferences;
+import burp.api.montoya.proxy.Proxy;
+import burp.api.montoya.proxy.ProxyHttpRequestResponse;
+import burp.api.montoya.proxy.http.ProxyResponseHandler;
+import burp.api.montoya.proxy.http.ProxyResponseReceivedAction;
+import burp.api.montoya.proxy.http.ProxyResponseToBeSentAction;
+import burp.api.montoya.scope.Scope;
+import burp.api.montoya.ui.UserInterface;
+import burp.api.montoya.utilities.Base64DecodingOptions;
+import burp.api.montoya.utilities.Base64EncodingOptions;
+import burp.api.montoya.utilities.Base64Utils;
+import burp.api.montoya.utilities.Utilities;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A stand-in for Burp's Montoya API, so the extension's capture pipeline can be run without Burp.
+ * <p>
+ * Handlers registered with it are given requests and responses through {@link #send}, in the order Burp would
+ * call them. The cookie jar, scope and persisted settings are held in memory. Proxy traffic is recorded in the
+ * proxy history. The user interface is inert, and anything else fails with an {@link UnsupportedOperationException}.
+ */
+public class FakeMontoya {
+
+    private final MontoyaApi api;
+    private final List<HttpHandler> httpHandlers;
+    private final List<ProxyResponseHandler> proxyResponseHandlers;
+    private final List<ProxyHttpRequestResponse> proxyHistory;
+    private final List<Cookie> cookies;
+    private final List<String> includedPrefixes;
+    private final List<String> excludedPrefixes;
+    private final List<ExtensionUnloadingHandler> unloadingHandlers;
+    private final PersistedObject extensionData;
+    private final Preferences preferences;
+    private final AtomicInteger nextMessageId;
+
+    public FakeMontoya() {
+        FakeObjectFactory.install();
+        this.httpHandlers = new CopyOnWriteArrayList<>();
+        this.proxyResponseHandlers = new CopyOnWriteArrayList<>();
+        this.proxyHistory = Collections.synchronizedList(new ArrayList<>());
+        this.cookies = new CopyOnWriteArrayList<>();
+        this.includedPrefixes = new CopyOnWriteArrayList<>();
+        this.excludedPrefixes = new CopyOnWriteArrayList<>();
+        this.unloadingHandlers = new CopyOnWriteArrayList<>();
+        this.extensionData = Fakes.persisted(PersistedObject.class);
+        this.preferences = Fakes.persisted(Preferences.class);
+        this.nextMessageId = new AtomicInteger();
+        this.api = Fakes.implement(MontoyaApi.class, new Api());
+    }
+
+    public MontoyaApi getApi() {
+        return api;
+    }
+
+    /**
+     * Send a request from a tool and receive its response, passing both through the registered HTTP handlers,
+     * and for the proxy, the registered proxy response handlers.
+     *
+     * @param response The response to receive, or null if the request goes unanswered.
+     * @return The response as changed by the handlers.
+     */
+    public HttpResponse send(ToolType tool, HttpRequest request, HttpResponse response) {
+        int messageId = nextMessageId.incrementAndGet();
+        Annotations annotations = FakeValues.annotations(null, HighlightColor.NONE);
+        for (HttpHandler handler : httpHandlers) {
+            RequestToBeSentAction action = handler.handleHttpRequestToBeSent(FakeHttpRequest.toBeSent(request, tool, messageId, annotations));
+            request = action.request();
+            annotations = action.annotations();
+        }
+        if (response == null) return null;
+
+        for (HttpHandler handler : httpHandlers) {
+            ResponseReceivedAction action = handler.handleHttpResponseReceived(FakeHttpResponse.received(response, request, tool, messageId, annotations));
+            response = action.response();
+            annotations = action.annotations();
+        }
+
+        if (tool == ToolType.PROXY) {
+            for (ProxyResponseHandler handler : proxyResponseHandlers) {
+                ProxyResponseReceivedAction action = handler.handleResponseReceived(FakeHttpResponse.intercepted(response, request, messageId, annotations));
+                response = action.response();
+                annotations = action.annotations();
+            }
+            for (ProxyResponseHandler handler : proxyResponseHandlers) {
+                ProxyResponseToBeSentAction action = handler.handleResponseToBeSent(FakeHttpResponse.intercepted(response, request, messageId, annotations));
+                response = action.response();
+                annotations = action.annotations();
+            }
+            proxyHistory.add(Fakes.implement(ProxyHttpRequestResponse.class, new RequestResponse(request, response, annotations)));
+        }
+        return response;
+    }
+
+    /**
+     * Include URLs starting with the prefix in scope. While nothing is included, every URL is in scope.
+     */
+    public void includeInScope(String urlPrefix) {
+        includedPrefixes.add(urlPrefix);
+    }
+
+    public void excludeFromScope(String urlPrefix) {
+        excludedPrefixes.add(urlPrefix);
+    }
+
+    public void setCookie(String name, String value, String domain, String path) {
+        cookies.removeIf(cookie -> cookie.name().equals(name) && cookie.domain().equals(domain));
+        cookies.add(FakeValues.cookie(name, value, domain, path));
+    }
+
+    /**
+     * Call the handlers registered to be told of the extension unloading.
+     */
+    public void unload() {
+        for (ExtensionUnloadingHandler handler : unloadingHandlers) {
+            handler.extensionUnloaded();
+        }
+    }
+
+    private static <T> Registration register(List<T> registered, T item) {
+        registered.add(item);
+        return Fakes.implement(Registration.class, new HandlerRegistration<>(registered, item));
+    }
+
+    public record HandlerRegistration<T>(List<T> registered, T item) {
+        public boolean isRegistered() {
+            return registered.contains(item);
+        }
+
+        public void deregister() {
+            registered.remove(item);
+        }
+    }
+
+    /**
+     * A request and its response, as both an {@link HttpRequestResponse} and a {@link ProxyHttpRequestResponse}.
+     */
+    public record RequestResponse(HttpRequest request, HttpResponse response, Annotations annotations) {
+        public HttpRequest finalRequest() {
+            return request;
+        }
+
+        public HttpResponse originalResponse() {
+            return response;
+        }
+
+        public String url() {
+            return request.url();
+        }
+
+        public HttpService httpService() {
+            return request.httpService();
+        }
+
+        public ContentType contentType() {
+            return request.contentType();
+        }
+
+        public short statusCode() {
+            return response != null ? response.statusCode() : 0;
+        }
+
+        public boolean hasResponse() {
+            return response != null;
+        }
+
+        public List<Marker> requestMarkers() {
+            return Collections.emptyList();
+        }
+
+        public List<Marker> responseMarkers() {
+            return Collections.emptyList();
+        }
+
+        public HttpRequestResponse copyToTempFile() {
+            return Fakes.implement(HttpRequestResponse.class, this);
+        }
+
+        public HttpRequestResponse withAnnotations(Annotations annotations) {
+            return Fakes.implement(HttpRequestResponse.class, new RequestResponse(request, response, annotations));
+        }
+    }
+
+    public class Api {
+        private final Http http = Fakes.implement(Http.class, new FakeHttp());
+        private final Proxy proxy = Fakes.implement(Proxy.class, new FakeProxy());
+        private final Scope scope = Fakes.implement(Scope.class, new FakeScope());
+        private final Persistence persistence = Fakes.implement(Persistence.class, new FakePersistence());
+        private final Extension extension = Fakes.implement(Extension.class, new FakeExtension());
+        private final Logging logging = Fakes.implement(Logging.class, new FakeLogging());
+        private final UserInterface userInterface = Fakes.inert(UserInterface.class);
+        private final Utilities utilities = Fakes.implement(Utilities.class, new FakeUtilities());
+
+        public Http http() {
+            return http;
+        }
+
+        public Proxy proxy() {
+            return proxy;
+        }
+
+        public Scope scope() {
+            return scope;
+        }
+
+        public Persistence persistence() {
+            return persistence;
+        }
+
+        public Extension extension() {
+            return extension;
+        }
+
+        public Logging logging() {
+            return logging;
+        }
+
+        public UserInterface userInterface() {
+            return userInterface;
+        }
+
+        public Utilities utilities() {
+            return utilities;
+        }
+    }
+
+    public class FakeHttp {
+        private final CookieJar cookieJar = Fakes.implement(CookieJar.class, new FakeCookieJar());
+
+        public Registration registerHttpHandler(HttpHandler handler) {
+            return register(httpHandlers, handler);
+        }
+
+        public CookieJar cookieJar() {
+            return cookieJar;
+        }
+    }
+
+    public class FakeCookieJar {
+        public void setCookie(String name, String value, String path, String domain, ZonedDateTime expiration) {
+            FakeMontoya.this.setCookie(name, value, domain, path);
+        }
+
+        public List<Cookie> cookies() {
+            return new ArrayList<>(cookies);
+        }
+    }
+
+    public class FakeProxy {
+        public List<ProxyHttpRequestResponse> history() {
+            synchronized (proxyHistory) {
+                return new ArrayList<>(proxyHistory);
+            }
+        }
+
+        public Registration registerResponseHandler(ProxyResponseHandler handler) {
+            return register(proxyResponseHandlers, handler);
+        }
+    }
+
+    public class FakeScope {
+        public boolean isInScope(String url) {
+            for (String prefix : excludedPrefixes) {
+                if (url.startsWith(prefix)) return false;
+            }
+            if (includedPrefixes.isEmpty()) return true;
+            for (String prefix : includedPrefixes) {
+                if (url.startsWith(prefix)) return true;
+            }
+            return false;
+        }
+
+        public void includeInScope(String url) {
+            FakeMontoya.this.includeInScope(url);
+        }
+
+        public void excludeFromScope(String url) {
+            FakeMontoya.this.excludeFromScope(url);
+        }
+    }
+
+    public class FakePersistence {
+        public PersistedObject extensionData() {
+            return extensionData;
+        }
+
+        public Preferences preferences() {
+            return preferences;
+        }
+    }
+
+    public class FakeExtension {
+        public void setName(String name) {}
+
+        public String filename() {
+            return "logger-plus-plus.jar";
+        }
+
+        public boolean isBapp() {
+            return false;
+        }
+
+        public void unload() {
+            FakeMontoya.this.unload();
+        }
+
+        public Registration registerUnloadingHandler(ExtensionUnloadingHandler handler) {
+            return register(unloadingHandlers, handler);
+        }
+    }
+
+    public static class FakeUtilities {
+        private final Base64Utils base64Utils = Fakes.implement(Base64Utils.class, new FakeBase64Utils());
+
+        public Base64Utils base64Utils() {
+            return base64Utils;
+        }
+    }
+
+    public static class FakeBase64Utils {
+        public ByteArray encode(ByteArray data, Base64EncodingOptions... options) {
+            return FakeByteArray.of(encoder(options).encode(data.getBytes()));
+        }
+
+        public ByteArray encode(String data, Base64EncodingOptions... options) {
+            return encode(FakeByteArray.of(data), options);
+        }
+
+        public String encodeToString(ByteArray data, Base64EncodingOptions... options) {
+            return new String(encoder(options).encode(data.getBytes()), StandardCharsets.ISO_8859_1);
+        }
+
+        public String encodeToString(String data, Base64EncodingOptions... options) {
+            return encodeToString(FakeByteArray.of(data), options);
+        }
+
+        public ByteArray decode(ByteArray data, Base64DecodingOptions... options) {
+            return decode(data.toString(), options);
+        }
+
+        public ByteArray decode(String data, Base64DecodingOptions... options) {
+            //Accepts either alphabet, ignoring line breaks and missing padding.
+            return FakeByteArray.of(Base64.getMimeDecoder().decode(data.trim().replace('-', '+').replace('_', '/')));
+        }
+
+        private static Base64.Encoder encoder(Base64EncodingOptions... options) {
+            List<Base64EncodingOptions> selected = Arrays.asList(options);
+            Base64.Encoder encoder = selected.contains(Base64EncodingOptions.URL) ? Base64.getUrlEncoder() : Base64.getEncoder();
+            return selected.contains(Base64EncodingOptions.NO_PADDING) ? encoder.withoutPadding() : encoder;
+        }
+    }
+
+    public static class FakeLogging {
+        public PrintStream output() {
+            return System.out;
+        }
+
+        public PrintStream error() {
+            return System.err;
+        }
+
+        public void logToOutput(String message) {
+            System.out.println(message);
+        }
+
+        public void logToError(String message) {
+            System.err.println(message);
+        }
+
+        public void raiseDebugEvent(String message) {}
+
+        public void raiseInfoEvent(String message) {}
+
+        public void raiseErrorEvent(String message) {
+            System.err.println(message);
+        }
+
+        public void raiseCriticalEvent(String message) {
+            System.err.println(message);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.nccgroup.loggerplusplus.fake;
+
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.HighlightColor;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.handler.RequestAction;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import burp.api.montoya.http.handler.ResponseAction;
+import burp.api.montoya.http.handler.ResponseReceivedAction;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.params.HttpParameter;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+import burp.api.montoya.proxy.MessageReceivedAction;
+import burp.api.montoya.proxy.MessageToBeSentAction;
+import burp.api.montoya.proxy.http.ProxyResponseReceivedAction;
+import burp.api.montoya.proxy.http.ProxyResponseToBeSentAction;
+
+/**
+ * Creates the fakes when Logger++ uses Montoya's static factory methods, such as {@link HttpRequest#httpRequest}
+ * or {@link RequestToBeSentAction#continueWith}, which Burp would otherwise provide.
+ */
+public class FakeObjectFactory {
+
+    /**
+     * Use the fakes for Montoya's factory methods, unless Burp's own factory is already in place.
+     */
+    public static synchronized void install() {
+        if (ObjectFactoryLocator.FACTORY == null) {
+            ObjectFactoryLocator.FACTORY = Fakes.implement(MontoyaObjectFactory.class, new FakeObjectFactory());
+        }
+    }
+
+    public ByteArray byteArray(byte[] bytes) {
+        return FakeByteArray.of(bytes);
+    }
+
+    public ByteArray byteArray(String string) {
+        return FakeByteArray.of(string);
+    }
+
+    public ByteArray byteArray(int[] values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) bytes[i] = (byte) values[i];
+        return FakeByteArray.of(bytes);
+    }
+
+    public ByteArray byteArrayOfLength(int length) {
+        return FakeByteArray.of(new byte[length]);
+    }
+
+    public HttpService httpService(String baseUrl) {
+        return FakeHttpRequest.fromUrl(baseUrl).httpService();
+    }
+
+    public HttpService httpService(String host, boolean secure) {
+        return FakeValues.service(host, secure ? 443 : 80, secure);
+    }
+
+    public HttpService httpService(String host, int port, boolean secure) {
+        return FakeValues.service(host, port, secure);
+    }
+
+    public HttpHeader httpHeader(String name, String value) {
+        return FakeValues.header(name, value);
+    }
+
+    public HttpHeader httpHeader(String header) {
+        int colon = header.indexOf(':');
+        return colon < 0 ? FakeValues.header(header, "") : FakeValues.header(header.substring(0, colon).trim(), header.substring(colon + 1).trim());
+    }
+
+    public HttpParameter parameter(String name, String value, HttpParameterType type) {
+        return FakeValues.parameter(name, value, type);
+    }
+
+    public HttpParameter urlParameter(String name, String value) {
+        return FakeValues.parameter(name, value, HttpParameterType.URL);
+    }
+
+    public HttpParameter bodyParameter(String name, String value) {
+        return FakeValues.parameter(name, value, HttpParameterType.BODY);
+    }
+
+    public HttpParameter cookieParameter(String name, String value) {
+        return FakeValues.parameter(name, value, HttpParameterType.COOKIE);
+    }
+
+    public HttpRequest httpRequest() {
+        return FakeHttpRequest.of(null, "GET / HTTP/1.1\r\n\r\n");
+    }
+
+    public HttpRequest httpRequest(ByteArray request) {
+        return FakeHttpRequest.of(null, FakeByteArray.bytesOf(request));
+    }
+
+    public HttpRequest httpRequest(String request) {
+        return FakeHttpRequest.of(null, request);
+    }
+
+    public HttpRequest httpRequest(HttpService service, ByteArray request) {
+        return FakeHttpRequest.of(service, FakeByteArray.bytesOf(request));
+    }
+
+    public HttpRequest httpRequest(HttpService service, String request) {
+        return FakeHttpRequest.of(service, request);
+    }
+
+    public HttpRequest httpRequestFromUrl(String url) {
+        return FakeHttpRequest.fromUrl(url);
+    }
+
+    public HttpResponse httpResponse() {
+        return FakeHttpResponse.of("HTTP/1.1 200 OK\r\n\r\n");
+    }
+
+    public HttpResponse httpResponse(String response) {
+        return FakeHttpResponse.of(response);
+    }
+
+    public HttpResponse httpResponse(ByteArray response) {
+        return FakeHttpResponse.of(FakeByteArray.bytesOf(response));
+    }
+
+    public HttpRequestResponse httpRequestResponse(HttpRequest request, HttpResponse response) {
+        return httpRequestResponse(request, response, annotations());
+    }
+
+    public HttpRequestResponse httpRequestResponse(HttpRequest request, HttpResponse response, Annotations annotations) {
+        return Fakes.implement(HttpRequestResponse.class, new FakeMontoya.RequestResponse(request, response, annotations));
+    }
+
+    public Annotations annotations() {
+        return FakeValues.annotations(null, HighlightColor.NONE);
+    }
+
+    public Annotations annotations(String notes) {
+        return FakeValues.annotations(notes, HighlightColor.NONE);
+    }
+
+    public Annotations annotations(HighlightColor highlightColor) {
+        return FakeValues.annotations(null, highlightColor);
+    }
+
+    public Annotations annotations(String notes, HighlightColor highlightColor) {
+        return FakeValues.annotations(notes, highlightColor);
+    }
+
+    public RequestToBeSentAction requestResult(HttpRequest request) {
+        return requestResult(request, annotationsOf(request));
+    }
+
+    public RequestToBeSentAction requestResult(HttpRequest request, Annotations annotations) {
+        return FakeValues.action(RequestToBeSentAction.class, request, null, annotations, RequestAction.CONTINUE);
+    }
+
+    public ResponseReceivedAction responseResult(HttpResponse response) {
+        return responseResult(response, annotationsOf(response));
+    }
+
+    public ResponseReceivedAction responseResult(HttpResponse response, Annotations annotations) {
+        return FakeValues.action(ResponseReceivedAction.class, null, response, annotations, ResponseAction.CONTINUE);
+    }
+
+    public ProxyResponseReceivedAction responseInitialInterceptResultFollowUserRules(HttpResponse response) {
+        return responseInitialInterceptResultFollowUserRules(response, annotationsOf(response));
+    }
+
+    public ProxyResponseReceivedAction responseInitialInterceptResultFollowUserRules(HttpResponse response, Annotations annotations) {
+        return FakeValues.action(ProxyResponseReceivedAction.class, null, response, annotations, MessageReceivedAction.CONTINUE);
+    }
+
+    public ProxyResponseToBeSentAction responseFinalInterceptResultContinueWith(HttpResponse response) {
+        return responseFinalInterceptResultContinueWith(response, annotationsOf(response));
+    }
+
+    public ProxyResponseToBeSentAction responseFinalInterceptResultContinueWith(HttpResponse response, Annotations annotations) {
+        return FakeValues.action(ProxyResponseToBeSentAction.class, null, response, annotations, MessageToBeSentAction.CONTINUE);
+    }
+
+    /**
+     * Messages continued without new annotations keep those they were given to the handler with.
+     */
+    private static Annotations annotationsOf(HttpRequest request) {
+        FakeHttpRequest.ToBeSent toBeSent = Fakes.unwrap(request, FakeHttpRequest.ToBeSent.class);
+        return toBeSent != null ? toBeSent.annotations() : null;
+    }
+
+    private static Annotations annotationsOf(HttpResponse response) {
+        FakeHttpResponse.Received received = Fakes.unwrap(response, FakeHttpResponse.Received.class);
+        return received != null ? received.annotations() : null;
+    }
+}
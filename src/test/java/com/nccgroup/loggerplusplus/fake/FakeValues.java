@@ -0,0 +1,121 @@
+package com.nccgroup.loggerplusplus.fake;
+
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.HighlightColor;
+import burp.api.montoya.core.ToolSource;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.Cookie;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The small values passed around with HTTP messages: headers, services, parameters, cookies, annotations
+ * and the actions returned by handlers.
+ */
+public final class FakeValues {
+
+    private FakeValues() {}
+
+    public static HttpHeader header(String name, String value) {
+        return Fakes.implement(HttpHeader.class, new Header(name, value));
+    }
+
+    public static HttpService service(String host, int port, boolean secure) {
+        return Fakes.implement(HttpService.class, new Service(host, port, secure));
+    }
+
+    public static ParsedHttpParameter parameter(String name, String value, HttpParameterType type) {
+        return Fakes.implement(ParsedHttpParameter.class, new Parameter(name, value, type));
+    }
+
+    public static Cookie cookie(String name, String value, String domain, String path) {
+        return Fakes.implement(Cookie.class, new CookieValue(name, value, domain, path));
+    }
+
+    public static Annotations annotations(String notes, HighlightColor highlightColor) {
+        return Fakes.implement(Annotations.class, new AnnotationValues(notes, highlightColor));
+    }
+
+    public static ToolSource toolSource(ToolType toolType) {
+        return Fakes.implement(ToolSource.class, new Source(toolType));
+    }
+
+    /**
+     * The result of a handler, whichever kind of action it is returned as.
+     */
+    public static <T> T action(Class<T> type, HttpRequest request, HttpResponse response, Annotations annotations, Object action) {
+        return Fakes.implement(type, new Action(request, response, annotations != null ? annotations : annotations(null, HighlightColor.NONE), action));
+    }
+
+    public record Header(String name, String value) {
+        @Override
+        public String toString() {
+            return name + ": " + value;
+        }
+    }
+
+    public record Service(String host, int port, boolean secure) {
+        @Override
+        public String toString() {
+            return (secure ? "https://" : "http://") + host + ":" + port;
+        }
+    }
+
+    public record Parameter(String name, String value, HttpParameterType type) {}
+
+    public record CookieValue(String name, String value, String domain, String path) {
+        public Optional<ZonedDateTime> expiration() {
+            return Optional.empty();
+        }
+    }
+
+    public record Source(ToolType toolType) {
+        public boolean isFromTool(ToolType... toolTypes) {
+            return Arrays.asList(toolTypes).contains(toolType);
+        }
+    }
+
+    public record Action(HttpRequest request, HttpResponse response, Annotations annotations, Object action) {}
+
+    public static class AnnotationValues {
+        private String notes;
+        private HighlightColor highlightColor;
+
+        private AnnotationValues(String notes, HighlightColor highlightColor) {
+            this.notes = notes;
+            this.highlightColor = highlightColor;
+        }
+
+        public String notes() {
+            return notes;
+        }
+
+        public void setNotes(String notes) {
+            this.notes = notes;
+        }
+
+        public HighlightColor highlightColor() {
+            return highlightColor;
+        }
+
+        public void setHighlightColor(HighlightColor highlightColor) {
+            this.highlightColor = highlightColor;
+        }
+
+        public Annotations withNotes(String notes) {
+            return annotations(notes, highlightColor);
+        }
+
+        public Annotations withHighlightColor(HighlightColor highlightColor) {
+            return annotations(notes, highlightColor);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.nccgroup.loggerplusplus.fake;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implements Montoya's interfaces with plain objects, so the fakes only need the methods Logger++ uses.
+ * <p>
+ * A call to the interface is passed to the target's public method of the same name and parameter types.
+ * Calls the target doesn't implement fall back to the interface's default method, or fail with an
+ * {@link UnsupportedOperationException} naming the method, so a missing method is obvious.
+ */
+public final class Fakes {
+
+    private static final Map<Class<?>, Map<Method, Method>> targetMethods = new ConcurrentHashMap<>();
+    private static final Method MISSING;
+
+    static {
+        try {
+            MISSING = Object.class.getMethod("hashCode");
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Fakes() {}
+
+    @SuppressWarnings("unchecked")
+    public static <T> T implement(Class<T> type, Object target) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new TargetHandler(target));
+    }
+
+    /**
+     * @return The object the fake passes calls to, or the fake itself if it isn't one.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T unwrap(Object fake, Class<T> targetType) {
+        if (fake != null && Proxy.isProxyClass(fake.getClass())
+                && Proxy.getInvocationHandler(fake) instanceof TargetHandler handler
+                && targetType.isInstance(handler.target)) {
+            return (T) handler.target;
+        }
+        return targetType.isInstance(fake) ? (T) fake : null;
+    }
+
+    /**
+     * A persisted object or preference store held in memory. Values are kept by type and key, following the
+     * naming of Montoya's persistence methods: getString, setString, deleteString, stringKeys and so on.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T persisted(Class<T> type) {
+        Map<String, Object> values = new ConcurrentHashMap<>();
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class) return invokeObjectMethod(proxy, method, args);
+            if (name.startsWith("get") && args != null && args.length == 1) {
+                return values.get(name.substring(3) + ":" + args[0]);
+            }
+            if (name.startsWith("set") && args != null && args.length == 2) {
+                if (args[1] == null) values.remove(name.substring(3) + ":" + args[0]);
+                else values.put(name.substring(3) + ":" + args[0], args[1]);
+                return null;
+            }
+            if (name.startsWith("delete") && args != null && args.length == 1) {
+                values.remove(name.substring(6) + ":" + args[0]);
+                return null;
+            }
+            if (name.endsWith("Keys") && (args == null || args.length == 0)) {
+                String prefix = Character.toUpperCase(name.charAt(0)) + name.substring(1, name.length() - 4) + ":";
+                Set<String> keys = new TreeSet<>();
+                for (String key : values.keySet()) {
+                    if (key.startsWith(prefix)) keys.add(key.substring(prefix.length()));
+                }
+                return keys;
+            }
+            throw new UnsupportedOperationException(type.getSimpleName() + "." + name);
+        });
+    }
+
+    /**
+     * An object whose methods do nothing, returning null, false or zero.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T inert(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) return invokeObjectMethod(proxy, method, args);
+            return defaultValue(method.getReturnType());
+        });
+    }
+
+    private static Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals": return proxy == args[0];
+            case "hashCode": return System.identityHashCode(proxy);
+            default: return proxy.getClass().getInterfaces()[0].getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0f;
+        if (type == double.class) return 0d;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        return 0;
+    }
+
+    private static Method findTargetMethod(Class<?> targetClass, Method method) {
+        Map<Method, Method> methods = targetMethods.computeIfAbsent(targetClass, c -> new ConcurrentHashMap<>());
+        Method found = methods.get(method);
+        if (found == null) {
+            try {
+                found = targetClass.getMethod(method.getName(), method.getParameterTypes());
+                found.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                found = MISSING;
+            }
+            methods.put(method, found);
+        }
+        return found == MISSING ? null : found;
+    }
+
+    private static class TargetHandler implements InvocationHandler {
+        private final Object target;
+
+        private TargetHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                if (method.getName().equals("equals")) return proxy == args[0] || target.equals(unwrap(args[0], Object.class));
+                if (method.getName().equals("hashCode")) return target.hashCode();
+                return target.toString();
+            }
+            Method targetMethod = findTargetMethod(target.getClass(), method);
+            if (targetMethod != null) {
+                try {
+                    return targetMethod.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            if (method.isDefault()) return InvocationHandler.invokeDefault(proxy, method, args);
+            throw new UnsupportedOperationException(method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                    + " is not implemented by " + target.getClass().getSimpleName());
+        }
+    }
+}
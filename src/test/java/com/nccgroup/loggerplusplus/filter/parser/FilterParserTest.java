@@ -0,0 +1,98 @@
+package com.nccgroup.loggerplusplus.filter.parser;
+
+import com.nccgroup.loggerplusplus.HeadlessLogger;
+import com.nccgroup.loggerplusplus.filter.FilterExpression;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilterParserTest {
+
+    private HeadlessLogger logger;
+
+    @BeforeEach
+    void setUp() {
+        //Filter expressions check their aliases against the extension's library.
+        logger = new HeadlessLogger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.shutdown();
+    }
+
+    @Test
+    void acceptsComparisons() {
+        assertAccepted("Response.Status == 503");
+        assertAccepted("Request.Method != \"GET\"");
+        assertAccepted("Request.Path CONTAINS \"admin\"");
+        assertAccepted("Response.Body == /error\\d+/");
+        assertAccepted("Request.URL MATCHES \"https?://.*\"");
+        assertAccepted("Response.Status MATCHES \"50\\d\"");
+        assertAccepted("Response.Status IN [200, 302, 500]");
+        assertAccepted("Response.Status > 400 AND Response.Status < 500");
+        assertAccepted("!(Request.Method == \"POST\")");
+        assertAccepted("Request.IsSSL");
+    }
+
+    @Test
+    void acceptsContainsOnAnyField() {
+        //CONTAINS compares the string form of the field, which saved filters rely on.
+        assertAccepted("Request.Time CONTAINS \"1970\"");
+        assertAccepted("Request.IsSSL CONTAINS \"true\"");
+        assertAccepted("Response.Status CONTAINS \"50\"");
+    }
+
+    @Test
+    void rejectsPatternsOnFieldsWhichAreNotStrings() {
+        assertRejected("Response.Status == /5\\d\\d/", "Regex patterns can only be used on fields which can be converted to a string");
+        assertRejected("Request.IsSSL == /true/", "Regex patterns can only be used on fields which can be converted to a string");
+    }
+
+    @Test
+    void rejectsInvalidComparisons() {
+        assertRejected("Request.Method > 3", "Numeric operators cannot be used for field");
+        assertRejected("Response.Status IN 200", "The in operator must be used on an array");
+        assertRejected("Request.Method MATCHES 5", "The matches operator must have a pattern as its right hand value");
+        assertRejected("Request.Method", "cannot be evaluated as a boolean");
+        assertRejected("Entry.Number == 1", "is ephemeral and cannot be used in filters");
+        assertRejected("Request.Nope == 1", "Invalid field \"Nope\"");
+    }
+
+    @Test
+    void rejectsMalformedFilters() {
+        assertRejected("Request.Method == \"GET\" AND Response.Status == 200 OR Request.Path == \"/\"",
+                "Cannot mix operators AND, OR");
+        assertRejected("(Request.Method == \"GET\"", "Unbalanced brackets");
+        assertRejected("Request.Method == \"GET", "Invalid right hand value for comparison");
+    }
+
+    @Test
+    void filterExpressionsRejectPatternsWhichMayBacktrack() throws ParseException {
+        //The parser accepts them, but the lookahead means they are matched by backtracking, which may not finish in time.
+        assertAccepted("Request.Body == /(?=a)(a+)+b/");
+        ParseException e = assertThrows(ParseException.class, () -> new FilterExpression("Request.Body == /(?=a)(a+)+b/"));
+        assertTrue(e.getMessage().contains("may take exponential time to match"), e.getMessage());
+        assertNotNull(new FilterExpression("Request.Body == /(?=a)(a++)+b/"));
+        //Without the lookahead the pattern is matched in linear time, so it can't backtrack.
+        assertNotNull(new FilterExpression("Request.Body == /(a+)+b/"));
+    }
+
+    @Test
+    void filterExpressionsDontCheckTypesBeyondTheParser() throws ParseException {
+        assertNotNull(new FilterExpression("Request.Time CONTAINS \"1970\" OR Response.Status == 503"));
+        assertNotNull(new FilterExpression("Request.IsSSL CONTAINS \"true\" OR Request.Method == \"GET\""));
+        assertThrows(ParseException.class, () -> new FilterExpression("Response.Status == /5\\d\\d/"));
+    }
+
+    private static void assertAccepted(String filter) {
+        assertDoesNotThrow(() -> FilterParser.parseFilter(filter), filter);
+    }
+
+    private static void assertRejected(String filter, String message) {
+        ParseException e = assertThrows(ParseException.class, () -> FilterParser.parseFilter(filter), filter);
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+}
@@ -0,0 +1,206 @@
+package com.nccgroup.loggerplusplus.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedBitmapTest {
+
+    //A partition holds more than 4096 values as a bitset, and returns to an array once it falls to 2048.
+    private static final int DENSE = 6000;
+    private static final int SPARSE = 100;
+
+    @Test
+    void addRemoveAndContainsMatchASet() {
+        Random random = new Random(1);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            //Mostly within a few partitions, so they fill past the array limit and empty back below it.
+            int value = random.nextInt(4) << 16 | random.nextInt(8192);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), bitmap.remove(value));
+            } else {
+                assertEquals(expected.add(value), bitmap.add(value));
+            }
+        }
+        assertSame(expected, bitmap);
+        for (int value = 0; value < 4 << 16; value += 7) {
+            assertEquals(expected.contains(value), bitmap.contains(value));
+        }
+    }
+
+    @Test
+    void valuesAtPartitionBoundariesAreKeptApart() {
+        CompressedBitmap bitmap = of(0, 65535, 65536, 131071, Integer.MAX_VALUE);
+        assertArrayEquals(new int[]{0, 65535, 65536, 131071, Integer.MAX_VALUE}, bitmap.toArray());
+        assertFalse(bitmap.contains(1));
+        assertFalse(bitmap.contains(131072));
+    }
+
+    @Test
+    void removingEveryValueEmptiesTheBitmap() {
+        CompressedBitmap bitmap = range(0, DENSE);
+        for (int value = 0; value < DENSE; value++) {
+            assertTrue(bitmap.remove(value));
+        }
+        assertTrue(bitmap.isEmpty());
+        assertEquals(0, bitmap.getCardinality());
+        assertFalse(bitmap.remove(0));
+    }
+
+    @Test
+    void bitsetPartitionsShrinkBackToArrays() {
+        CompressedBitmap bitmap = range(0, DENSE);
+        long dense = bitmap.getSizeInBytes();
+        for (int value = 100; value < DENSE; value++) {
+            bitmap.remove(value);
+        }
+        assertTrue(bitmap.getSizeInBytes() < dense);
+        assertSame(range(0, 100), bitmap);
+    }
+
+    @Test
+    void combinesArrayPartitions() {
+        checkOperations(every(0, SPARSE * 3, 3), every(0, SPARSE * 2, 2));
+    }
+
+    @Test
+    void combinesArrayAndBitsetPartitions() {
+        checkOperations(every(0, SPARSE * 3, 3), range(0, DENSE));
+        checkOperations(range(0, DENSE), every(0, SPARSE * 3, 3));
+    }
+
+    @Test
+    void combinesBitsetPartitions() {
+        checkOperations(range(0, DENSE), range(DENSE / 2, DENSE * 2));
+        checkOperations(every(0, DENSE * 2, 2), every(0, DENSE * 3, 3));
+    }
+
+    @Test
+    void bitsetResultsSmallEnoughBecomeArrays() {
+        //Two dense partitions which overlap on only a few values.
+        CompressedBitmap a = range(0, DENSE);
+        CompressedBitmap b = range(DENSE - 10, DENSE * 2);
+        CompressedBitmap and = a.and(b);
+        assertSame(range(DENSE - 10, DENSE), and);
+        assertTrue(and.getSizeInBytes() < 8192);
+
+        CompressedBitmap andNot = a.andNot(range(10, DENSE));
+        assertSame(range(0, 10), andNot);
+        assertTrue(andNot.getSizeInBytes() < 8192);
+    }
+
+    @Test
+    void combinesBitmapsWithDisjointPartitions() {
+        CompressedBitmap low = range(0, DENSE);
+        CompressedBitmap high = every(5 << 16, (5 << 16) + SPARSE, 1);
+        checkOperations(low, high);
+        assertTrue(low.and(high).isEmpty());
+        assertSame(low, low.andNot(high));
+    }
+
+    @Test
+    void combinesWithEmptyBitmaps() {
+        CompressedBitmap empty = new CompressedBitmap();
+        CompressedBitmap values = range(0, DENSE);
+        assertTrue(values.and(empty).isEmpty());
+        assertSame(values, values.or(empty));
+        assertSame(values, empty.or(values));
+        assertSame(values, values.andNot(empty));
+        assertTrue(empty.andNot(values).isEmpty());
+    }
+
+    @Test
+    void operationsLeaveTheirOperandsUnchanged() {
+        CompressedBitmap a = range(0, DENSE);
+        CompressedBitmap b = every(0, DENSE, 2);
+        a.and(b);
+        a.or(b);
+        a.andNot(b);
+        assertSame(range(0, DENSE), a);
+        assertSame(every(0, DENSE, 2), b);
+    }
+
+    @Test
+    void resultsAreIndependentOfTheirOperands() {
+        CompressedBitmap a = range(0, DENSE);
+        CompressedBitmap b = range(DENSE, DENSE * 2);
+        CompressedBitmap union = a.or(b);
+        a.remove(0);
+        b.remove(DENSE);
+        assertTrue(union.contains(0));
+        assertTrue(union.contains(DENSE));
+    }
+
+    @Test
+    void randomOperationsMatchSets() {
+        Random random = new Random(2);
+        for (int round = 0; round < 50; round++) {
+            checkOperations(random(random), random(random));
+        }
+    }
+
+    private static CompressedBitmap random(Random random) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int partition = 0; partition < 3; partition++) {
+            //Each partition may be missing, sparse or dense.
+            int count = new int[]{0, SPARSE, DENSE}[random.nextInt(3)];
+            for (int i = 0; i < count; i++) {
+                bitmap.add(partition << 16 | random.nextInt(8192));
+            }
+        }
+        return bitmap;
+    }
+
+    private static void checkOperations(CompressedBitmap a, CompressedBitmap b) {
+        TreeSet<Integer> and = toSet(a), or = toSet(a), andNot = toSet(a);
+        and.retainAll(toSet(b));
+        or.addAll(toSet(b));
+        andNot.removeAll(toSet(b));
+        assertSame(and, a.and(b));
+        assertSame(and, b.and(a));
+        assertSame(or, a.or(b));
+        assertSame(or, b.or(a));
+        assertSame(andNot, a.andNot(b));
+    }
+
+    private static void assertSame(CompressedBitmap expected, CompressedBitmap actual) {
+        assertSame(toSet(expected), actual);
+    }
+
+    private static void assertSame(TreeSet<Integer> expected, CompressedBitmap actual) {
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), actual.toArray());
+        assertEquals(expected.size(), actual.getCardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+    }
+
+    private static TreeSet<Integer> toSet(CompressedBitmap bitmap) {
+        TreeSet<Integer> set = new TreeSet<>();
+        bitmap.forEach(set::add);
+        return set;
+    }
+
+    private static CompressedBitmap of(int... values) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    private static CompressedBitmap range(int from, int to) {
+        return every(from, to, 1);
+    }
+
+    private static CompressedBitmap every(int from, int to, int step) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value = from; value < to; value += step) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+}
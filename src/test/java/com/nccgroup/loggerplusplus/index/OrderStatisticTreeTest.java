@@ -0,0 +1,152 @@
+package com.nccgroup.loggerplusplus.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStatisticTreeTest {
+
+    @Test
+    void ranksAndSelectsInSortedOrder() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        for (int value : new int[]{50, 10, 40, 20, 30}) tree.add(value);
+
+        assertEquals(5, tree.size());
+        assertEquals(List.of(10, 20, 30, 40, 50), values(tree));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(10 * (i + 1), tree.get(i));
+            assertEquals(i, tree.indexOf(10 * (i + 1)));
+        }
+        assertEquals(-1, tree.indexOf(25));
+        assertEquals(-1, tree.indexOf(60));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.get(5));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.get(-1));
+    }
+
+    @Test
+    void respectsTheComparator() {
+        OrderStatisticTree<String> tree = new OrderStatisticTree<>(Comparator.comparing(String::length).reversed());
+        for (String value : new String[]{"a", "ccc", "bb", "dddd"}) tree.add(value);
+        assertEquals(List.of("dddd", "ccc", "bb", "a"), values(tree));
+        assertEquals(2, tree.indexOf("bb"));
+        //Values are located by comparison, so an equal value stands in for the one in the tree.
+        assertEquals(1, tree.indexOf("xxx"));
+    }
+
+    @Test
+    void removesOnlyValuesInTheTree() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        for (int value = 0; value < 10; value++) tree.add(value);
+
+        assertTrue(tree.remove(0));
+        assertTrue(tree.remove(5));
+        assertTrue(tree.remove(9));
+        assertFalse(tree.remove(5));
+        assertFalse(tree.remove(42));
+        assertEquals(List.of(1, 2, 3, 4, 6, 7, 8), values(tree));
+        assertEquals(4, tree.indexOf(6));
+        assertEquals(-1, tree.indexOf(5));
+
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertFalse(tree.remove(1));
+        assertEquals(List.of(), values(tree));
+    }
+
+    @Test
+    void buildsFromSortedValues() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        tree.add(-1);
+        List<Integer> sorted = IntStream.range(0, 1000).map(i -> i * 2).boxed().collect(Collectors.toList());
+        tree.build(sorted);
+
+        //The previous contents are replaced.
+        assertEquals(sorted, values(tree));
+        assertEquals(-1, tree.indexOf(-1));
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(sorted.get(i), tree.get(i));
+            assertEquals(i, tree.indexOf(sorted.get(i)));
+        }
+        //A built tree can be changed as any other.
+        tree.add(501);
+        assertTrue(tree.remove(0));
+        assertEquals(250, tree.indexOf(501));
+
+        tree.build(List.of());
+        assertEquals(0, tree.size());
+    }
+
+    @Test
+    void randomChangesMatchASortedList() {
+        //Adding a value splits the tree around it where its priority is greater, and removing one merges its
+        //children, so random changes exercise both at every depth.
+        Random random = new Random(7);
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20000; i++) {
+            int value = random.nextInt(2000);
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                if (expected.add(value)) tree.add(value);
+            } else if (operation < 9) {
+                assertEquals(expected.remove(value), tree.remove(value), "Removing " + value);
+            } else {
+                List<Integer> sorted = new ArrayList<>(expected);
+                tree.build(sorted);
+            }
+            assertEquals(expected.size(), tree.size());
+
+            if (i % 500 == 0) assertSameContents(expected, tree);
+            if (!expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                Integer atIndex = tree.get(index);
+                assertEquals(index, expected.headSet(atIndex).size());
+                assertEquals(index, tree.indexOf(atIndex));
+            }
+            assertEquals(expected.contains(value) ? expected.headSet(value).size() : -1, tree.indexOf(value));
+        }
+        assertSameContents(expected, tree);
+    }
+
+    @Test
+    void staysShallowWhenValuesAreAddedInOrder() {
+        //Recursion in the tree is as deep as the tree, which would overflow the stack were it a list.
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        for (int value = 0; value < 200000; value++) tree.add(value);
+        for (int value = 0; value < 200000; value += 2) assertTrue(tree.remove(value));
+        assertEquals(100000, tree.size());
+        assertEquals(199999, tree.get(99999));
+        assertEquals(50000, tree.indexOf(100001));
+
+        List<Integer> descending = new ArrayList<>(values(tree));
+        Collections.reverse(descending);
+        OrderStatisticTree<Integer> reversed = new OrderStatisticTree<>(Comparator.reverseOrder());
+        reversed.build(descending);
+        assertEquals(199999, reversed.get(0));
+        assertEquals(99999, reversed.indexOf(1));
+    }
+
+    private static void assertSameContents(TreeSet<Integer> expected, OrderStatisticTree<Integer> tree) {
+        List<Integer> sorted = new ArrayList<>(expected);
+        assertEquals(sorted, values(tree));
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(sorted.get(i), tree.get(i));
+            assertEquals(i, tree.indexOf(sorted.get(i)));
+        }
+    }
+
+    private static <T> List<T> values(OrderStatisticTree<T> tree) {
+        List<T> values = new ArrayList<>();
+        tree.forEach(values::add);
+        return values;
+    }
+}
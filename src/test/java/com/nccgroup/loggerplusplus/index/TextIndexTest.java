@@ -0,0 +1,160 @@
+package com.nccgroup.loggerplusplus.index;
+
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.HttpService;
+import com.nccgroup.loggerplusplus.HeadlessLogger;
+import com.nccgroup.loggerplusplus.fake.FakeHttpRequest;
+import com.nccgroup.loggerplusplus.fake.FakeHttpResponse;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import com.nccgroup.loggerplusplus.logentry.LogEntryField;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextIndexTest {
+
+    private static final HttpService SERVICE = FakeHttpRequest.fromUrl("https://example.com/").httpService();
+    private static final String[] WORDS = {"alpha", "beta", "gamma", "token_42", "Session", "USER", "id", "x",
+            "json", "<html>", "{\"key\":", "value\"}", "a-b", "café", "KELVIN", "Kelvin",
+            "averyveryveryveryveryverylongtokenindeed_1234567890"};
+
+    private HeadlessLogger logger;
+    private List<LogEntry> entries;
+    private TextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        //Entries are processed against the extension's context.
+        logger = new HeadlessLogger();
+        entries = new ArrayList<>();
+        index = new TextIndex(Long.MAX_VALUE, () -> entries);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+        logger.shutdown();
+    }
+
+    @Test
+    void excludesEntriesWithoutAWholeTerm() {
+        LogEntry hello = add("hello world", "");
+        LogEntry goodbye = add("goodbye world", "");
+        CompressedBitmap exclusions = index.findExclusions(LogEntryField.REQUEST_BODY, " hello ");
+        assertFalse(exclusions.contains(hello.getSequence()));
+        assertTrue(exclusions.contains(goodbye.getSequence()));
+    }
+
+    @Test
+    void matchesPrefixesSuffixesAndInfixesOfTerms() {
+        LogEntry entry = add("", "{\"session_token\":\"abc\"}");
+        assertNotExcluded(entry, LogEntryField.RESPONSE_BODY, "\"sess");
+        assertNotExcluded(entry, LogEntryField.RESPONSE_BODY, "token\"");
+        assertNotExcluded(entry, LogEntryField.RESPONSE_BODY, "ion_tok");
+        assertTrue(index.findExclusions(LogEntryField.RESPONSE_BODY, "\"token").contains(entry.getSequence()));
+    }
+
+    @Test
+    void foldsCaseAsFiltersDo() {
+        LogEntry entry = add("", "Temperature in KELVIN");
+        assertNotExcluded(entry, LogEntryField.RESPONSE_BODY, " kelvin");
+        //The Kelvin sign matches K when compared case-insensitively.
+        assertNotExcluded(entry, LogEntryField.RESPONSE_BODY, " Kelvin");
+    }
+
+    @Test
+    void keepsEntriesWithTruncatedTerms() {
+        String longToken = "x".repeat(TextIndex.MAX_TOKEN_LENGTH * 2) + "tail";
+        LogEntry entry = add("", "before " + longToken + " after");
+        assertNotExcluded(entry, LogEntryField.RESPONSE_BODY, " " + longToken + " ");
+        assertNotExcluded(entry, LogEntryField.RESPONSE_BODY, "tail ");
+        assertNotExcluded(entry, LogEntryField.RESPONSE_BODY, "xtai");
+    }
+
+    @Test
+    void textWithoutTermsExcludesNothing() {
+        add("hello", "");
+        assertNull(index.findExclusions(LogEntryField.REQUEST_BODY, "<>{}"));
+        assertNull(index.findExclusions(LogEntryField.METHOD, "hello"));
+    }
+
+    @Test
+    void unindexedAndRemovedEntriesAreNotExcluded() {
+        LogEntry indexed = add("hello", "");
+        LogEntry unindexed = entry("hello", "");
+        assertTrue(index.findExclusions(LogEntryField.REQUEST_BODY, "absent").contains(indexed.getSequence()));
+        assertFalse(index.findExclusions(LogEntryField.REQUEST_BODY, "absent").contains(unindexed.getSequence()));
+
+        index.removeEntry(indexed);
+        entries.remove(indexed);
+        assertTrue(index.findExclusions(LogEntryField.REQUEST_BODY, "absent").isEmpty());
+    }
+
+    @Test
+    void neverExcludesAnEntryContainingTheText() {
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            add(randomText(random), randomText(random));
+        }
+        for (int i = 0; i < 2000; i++) {
+            LogEntry source = entries.get(random.nextInt(entries.size()));
+            boolean request = random.nextBoolean();
+            LogEntryField field = request ? LogEntryField.REQUEST_BODY : LogEntryField.RESPONSE_BODY;
+            String content = String.valueOf(source.getValueByKey(field));
+            if (content.isEmpty()) continue;
+            int start = random.nextInt(content.length());
+            String text = content.substring(start, start + 1 + random.nextInt(Math.min(30, content.length() - start)));
+
+            CompressedBitmap exclusions = index.findExclusions(field, text);
+            if (exclusions == null) continue;
+            for (LogEntry entry : entries) {
+                if (contains(String.valueOf(entry.getValueByKey(field)), text)) {
+                    assertFalse(exclusions.contains(entry.getSequence()), () -> "Excluded an entry containing " + text);
+                }
+            }
+        }
+    }
+
+    private void assertNotExcluded(LogEntry entry, LogEntryField field, String text) {
+        assertTrue(contains(String.valueOf(entry.getValueByKey(field)), text));
+        CompressedBitmap exclusions = index.findExclusions(field, text);
+        assertTrue(exclusions == null || !exclusions.contains(entry.getSequence()), () -> "Excluded by " + text);
+    }
+
+    //The comparison used when evaluating CONTAINS.
+    private static boolean contains(String value, String text) {
+        return StringUtils.containsIgnoreCase(value, text);
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        int words = random.nextInt(12);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) text.append(" ,=/\n".charAt(random.nextInt(5)));
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private LogEntry add(String requestBody, String responseBody) {
+        LogEntry entry = entry(requestBody, responseBody);
+        entries.add(entry);
+        index.index(entry);
+        return entry;
+    }
+
+    private static LogEntry entry(String requestBody, String responseBody) {
+        LogEntry entry = new LogEntry(ToolType.PROXY,
+                FakeHttpRequest.of(SERVICE, "POST /submit HTTP/1.1\r\nHost: example.com\r\n\r\n" + requestBody),
+                FakeHttpResponse.of("HTTP/1.1 200 OK\r\nContent-Type: text/html\r\n\r\n" + responseBody));
+        entry.process();
+        return entry;
+    }
+}
@@ -0,0 +1,138 @@
+package com.nccgroup.loggerplusplus.index;
+
+import burp.api.montoya.core.ToolType;
+import com.nccgroup.loggerplusplus.fake.FakeHttpRequest;
+import com.nccgroup.loggerplusplus.logentry.LogEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    //Fragments of patterns, chosen to exercise how literal runs are found: quantifiers, groups, classes and escapes.
+    private static final String[] PATTERN_PARTS = {"a", "b", "c", "ab", "abc", "Tok", "en", "_", "-", "1", "9",
+            "?", "*", "+", "{2}", "{0,3}", "+?", "*+", ".", "\\d", "\\w+", "\\s", "\\.", "\\-", "\\\\",
+            "[abc]", "[^a]", "[a-c]+", "(ab)", "(?:bc)?", "(a|b)", "|", "^", "$", "\\b", "\\Qa.b\\E", "\\x41",
+            "\\u0062", "\\t", "(?=ab)", "(?i)", "é", "\\p{L}"};
+    private static final String[] TEXT_PARTS = {"a", "b", "c", "A", "B", "C", "abc", "ABC", "token", "TOKEN",
+            "Tok", "en", "_", "-", "1", "9", ".", "\\", " ", "\t", "\n", "é", "É", "€", "aab", "bca"};
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex(Long.MAX_VALUE, Collections::emptyList);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    void requiresTheTrigramsOfLiteralRuns() {
+        assertEquals(1, TrigramIndex.requiredTrigrams(Pattern.compile("abc")).size());
+        assertEquals(2, TrigramIndex.requiredTrigrams(Pattern.compile("abcd")).size());
+        assertEquals(TrigramIndex.requiredTrigrams(Pattern.compile("abc")), TrigramIndex.requiredTrigrams(Pattern.compile("ABC")));
+        //The last character before an optional quantifier is not required.
+        assertEquals(TrigramIndex.requiredTrigrams(Pattern.compile("abc")), TrigramIndex.requiredTrigrams(Pattern.compile("abcd?")));
+        assertTrue(TrigramIndex.requiredTrigrams(Pattern.compile("a.b")).isEmpty());
+        assertEquals(1, TrigramIndex.requiredTrigrams(Pattern.compile("a.b", Pattern.LITERAL)).size());
+    }
+
+    @Test
+    void requiresNothingWhenThePatternCannotBeDecomposed() {
+        assertTrue(TrigramIndex.requiredTrigrams(Pattern.compile("abc|def")).isEmpty());
+        assertTrue(TrigramIndex.requiredTrigrams(Pattern.compile("(?i)abc")).isEmpty());
+        assertTrue(TrigramIndex.requiredTrigrams(Pattern.compile("abc", Pattern.UNICODE_CASE | Pattern.CASE_INSENSITIVE)).isEmpty());
+        assertTrue(TrigramIndex.requiredTrigrams(Pattern.compile("abc # comment", Pattern.COMMENTS)).isEmpty());
+        assertTrue(TrigramIndex.requiredTrigrams(Pattern.compile("ab")).isEmpty());
+        assertTrue(TrigramIndex.requiredTrigrams(Pattern.compile("aéb")).isEmpty());
+    }
+
+    @Test
+    void excludesOnlyEntriesMissingARequiredTrigram() {
+        index.index(TrigramIndex.Section.RESPONSE, 1, bytes("the session token"));
+        index.index(TrigramIndex.Section.RESPONSE, 2, bytes("nothing here"));
+        index.index(TrigramIndex.Section.REQUEST, 3, bytes("SESSION"));
+
+        CompressedBitmap exclusions = index.findExclusions(TrigramIndex.Section.RESPONSE, Pattern.compile("Session"));
+        assertFalse(exclusions.contains(1));
+        assertTrue(exclusions.contains(2));
+        //Entries are only excluded from the section they were indexed in.
+        assertFalse(exclusions.contains(3));
+        assertNull(index.findExclusions(TrigramIndex.Section.RESPONSE, Pattern.compile("se|to")));
+    }
+
+    @Test
+    void removedEntriesAreNotExcluded() {
+        LogEntry entry = new LogEntry(ToolType.PROXY, FakeHttpRequest.fromUrl("https://example.com/"));
+        index.index(TrigramIndex.Section.RESPONSE, entry.getSequence(), bytes("nothing here"));
+        index.removeEntry(entry);
+        assertTrue(index.findExclusions(TrigramIndex.Section.RESPONSE, Pattern.compile("token")).isEmpty());
+    }
+
+    @Test
+    void neverExcludesAnEntryWithAMatch() {
+        Random random = new Random(4);
+        List<byte[]> contents = new ArrayList<>();
+        for (int sequence = 0; sequence < 300; sequence++) {
+            StringBuilder text = new StringBuilder();
+            int parts = random.nextInt(20);
+            for (int i = 0; i < parts; i++) text.append(TEXT_PARTS[random.nextInt(TEXT_PARTS.length)]);
+            //Messages may be read as UTF-8 or Latin-1, so both encodings are indexed.
+            byte[] content = text.toString().getBytes(random.nextBoolean() ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+            contents.add(content);
+            index.index(TrigramIndex.Section.RESPONSE, sequence, content);
+        }
+
+        int checked = 0, narrowed = 0;
+        while (checked < 500) {
+            Pattern pattern = randomPattern(random);
+            if (pattern == null) continue;
+            checked++;
+            CompressedBitmap exclusions = index.findExclusions(TrigramIndex.Section.RESPONSE, pattern);
+            if (exclusions == null) continue;
+            if (!exclusions.isEmpty()) narrowed++;
+            for (int sequence = 0; sequence < contents.size(); sequence++) {
+                byte[] content = contents.get(sequence);
+                boolean matches = pattern.matcher(new String(content, StandardCharsets.UTF_8)).find()
+                        || pattern.matcher(new String(content, StandardCharsets.ISO_8859_1)).find();
+                if (matches) {
+                    int excluded = sequence;
+                    assertFalse(exclusions.contains(sequence), () -> "Excluded a match for " + pattern + " in "
+                            + new String(contents.get(excluded), StandardCharsets.ISO_8859_1));
+                }
+            }
+        }
+        //Enough patterns must have excluded something for the check to mean anything.
+        assertTrue(narrowed > 50, "Only " + narrowed + " patterns excluded entries");
+    }
+
+    private static Pattern randomPattern(Random random) {
+        StringBuilder regex = new StringBuilder();
+        int parts = 1 + random.nextInt(6);
+        for (int i = 0; i < parts; i++) regex.append(PATTERN_PARTS[random.nextInt(PATTERN_PARTS.length)]);
+        int flags = random.nextBoolean() ? Pattern.CASE_INSENSITIVE : 0;
+        if (random.nextInt(10) == 0) flags |= Pattern.LITERAL;
+        try {
+            return Pattern.compile(regex.toString(), flags);
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,204 @@
+package com.nccgroup.loggerplusplus.regex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinearRegexTest {
+
+    //Fragments of patterns, covering each construct the engine supports, joined at random.
+    private static final String[] PATTERN_PARTS = {"a", "b", "ab", "A", "é", "É", "_", "1", "-", " ", "😀",
+            ".", "\\d", "\\D", "\\w", "\\W", "\\s", "\\S", "\\.", "\\n", "\\r", "\\x41", "\\u00e9", "\\x{1F600}", "\\0101",
+            "\\t", "\\cJ", "\\Qa.\\E", "[abc]", "[^a]", "[a-c]", "[^\\d]", "[A-Z_]", "[^\\sb]", "[é-ë]", "[^😀]", "[-a]",
+            "(a|b)", "(?:ab)*", "(?<name>a)", "|", "^", "$", "\\b", "\\B", "\\A", "\\z", "\\Z",
+            "*", "+", "?", "{2}", "{1,3}", "{0,}", "*?", "+?", "(", ")"};
+    //Fragments of text, including line terminators, surrogate pairs and characters which Pattern treats specially.
+    private static final String[] TEXT_PARTS = {"a", "b", "ab", "A", "B", "é", "É", "ë", "_", "1", "9", "-", " ",
+            ".", "\t", "\n", "\r", "\r\n", "\u0085", "\u2028", "😀", "\u0301", "z"};
+    private static final int[] FLAGS = {0, Pattern.CASE_INSENSITIVE, Pattern.DOTALL,
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL, Pattern.LITERAL, Pattern.LITERAL | Pattern.CASE_INSENSITIVE};
+
+    @Test
+    void randomPatternsMatchAsPatternDoes() {
+        Random random = new Random(5);
+        int compiled = 0, decided = 0;
+        for (int i = 0; i < 4000; i++) {
+            Pattern pattern = randomPattern(random);
+            if (pattern == null) continue;
+            LinearRegex regex = LinearRegex.compile(pattern);
+            if (regex == null) continue;
+            compiled++;
+            for (int j = 0; j < 20; j++) {
+                if (assertSameResults(regex, randomText(random))) decided++;
+            }
+        }
+        //Enough patterns and texts must be supported for the comparison to mean anything.
+        assertTrue(compiled > 1500, "Only " + compiled + " patterns compiled");
+        assertTrue(decided > 20000, "Only " + decided + " results decided");
+    }
+
+    @Test
+    void caseInsensitiveFoldsOnlyAscii() {
+        assertSameResults("abc", Pattern.CASE_INSENSITIVE, "ABC", "aBc", "abd");
+        assertSameResults("é", Pattern.CASE_INSENSITIVE, "é", "É");
+        assertSameResults("[a-c]x", Pattern.CASE_INSENSITIVE, "BX", "dX");
+        assertSameResults("[^a-c]", Pattern.CASE_INSENSITIVE, "A", "C", "d");
+        assertSameResults("K", Pattern.CASE_INSENSITIVE, "k", "K");
+        assertNull(LinearRegex.compile(Pattern.compile("abc", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)));
+    }
+
+    @Test
+    void dotMatchesLineTerminatorsOnlyWithDotAll() {
+        String[] texts = {"\n", "\r", "\r\n", "\u0085", "\u2028", "\u2029", "x"};
+        assertSameResults("^.$", 0, texts);
+        assertSameResults("^.$", Pattern.DOTALL, texts);
+        assertSameResults("a.b", 0, "a\nb", "a\rb", "axb");
+        assertSameResults("a.b", Pattern.DOTALL, "a\nb", "a\rb", "axb");
+    }
+
+    @Test
+    void multilineIsNotSupported() {
+        assertNull(LinearRegex.compile(Pattern.compile("^a$", Pattern.MULTILINE)));
+        assertNull(LinearRegex.compile(Pattern.compile("(?m)^a$")));
+    }
+
+    @Test
+    void dollarMatchesBeforeAFinalLineTerminator() {
+        String[] texts = {"a", "a\n", "a\r\n", "a\r", "a\u0085", "a\u2028", "a\n\n", "a\r\n\n", "a\nb", "\n", "a\n\r"};
+        assertSameResults("a$", 0, texts);
+        assertSameResults("a\\Z", 0, texts);
+        assertSameResults("a\\z", 0, texts);
+        assertSameResults("a$\\n", 0, texts);
+        assertSameResults("a\\n$", 0, texts);
+        assertSameResults("$", 0, texts);
+        assertSameResults("a$", Pattern.DOTALL, texts);
+    }
+
+    @Test
+    void wordBoundariesMatchAsPatternDoes() {
+        String[] texts = {"a b", "ab", "a_b", "a-b", "1a", " a ", "é", "aé", "é a", "", "_", "a\u0301b", "😀a"};
+        assertSameResults("\\b", 0, texts);
+        assertSameResults("\\B", 0, texts);
+        assertSameResults("\\ba", 0, texts);
+        assertSameResults("a\\b", 0, texts);
+        assertSameResults("a\\B", 0, texts);
+        assertSameResults("\\Bb\\b", 0, texts);
+        assertSameResults("\\b.\\b", 0, texts);
+    }
+
+    @Test
+    void negatedClassesMatchAsPatternDoes() {
+        String[] texts = {"a", "b", "z", "A", "1", " ", "\n", "é", "😀", "_", ""};
+        for (String regex : new String[]{"[^a]", "[^abc]", "[^a-z]", "[^\\d]", "[^\\s]", "[^\\w]", "[^\\W]", "[^\\S\\d]",
+                "[^-a]", "[^😀]", "\\D", "\\S", "\\W", "^[^a]$"}) {
+            assertSameResults(regex, 0, texts);
+            assertSameResults(regex, Pattern.CASE_INSENSITIVE, texts);
+        }
+    }
+
+    @Test
+    void nestedClassesAreNotSupported() {
+        assertNull(LinearRegex.compile(Pattern.compile("[a[bc]]")));
+        assertNull(LinearRegex.compile(Pattern.compile("[^a[^b]]")));
+        assertNull(LinearRegex.compile(Pattern.compile("[a-z&&[^e]]")));
+        assertNull(LinearRegex.compile(Pattern.compile("[a-z&&b]")));
+    }
+
+    @Test
+    void surrogatePairsAreSingleCharacters() {
+        String[] texts = {"😀", "a😀", "😀b", "😀😀", "\uD83D", "\uDE00", "a\uD83Db", "😁"};
+        for (String regex : new String[]{"😀", "^.$", "^..$", "^😀+$", "[😀]", "^[^😀]$", "^[😀-😂]$", "\\x{1F600}", "a.b",
+                "^\\W$", "😀|b"}) {
+            assertSameResults(regex, 0, texts);
+            assertSameResults(regex, Pattern.DOTALL, texts);
+        }
+        //Whole matches are always decided, even where searching may not be.
+        LinearRegex regex = LinearRegex.compile(Pattern.compile("a.b"));
+        assertEquals(Boolean.TRUE, regex.matches("a😀b"));
+        assertEquals(Boolean.FALSE, regex.matches("a😀😀b"));
+    }
+
+    @Test
+    void unsupportedConstructsAreNotCompiled() {
+        String[] unsupported = {"(a)\\1", "(?<n>a)\\k<n>", "(?=a)", "(?!a)", "(?<=a)b", "(?<!a)b", "(?>a+)", "a*+", "a++",
+                "a?+", "a{2}+", "(?i)a", "a(?i)b", "(?i:a)", "(?s).", "(?m)^", "(?x)a", "\\p{L}", "\\P{L}", "\\h", "\\R", "\\X",
+                "\\G", "\\N{LATIN SMALL LETTER A}", "\\uD83D\\uDE00", "[\\Qa\\E]", "[a-c-e]", "[]a]",
+                "[a[b]]", "[a&&b]", "(?:\\b)*", "(?:^)+", "(?:\\B|a){2,}", "a{1001}"};
+        for (String regex : unsupported) {
+            Pattern pattern = Pattern.compile(regex);
+            assertNull(LinearRegex.compile(pattern), regex);
+        }
+        int[] unsupportedFlags = {Pattern.MULTILINE, Pattern.COMMENTS, Pattern.UNICODE_CASE, Pattern.UNICODE_CHARACTER_CLASS,
+                Pattern.CANON_EQ, Pattern.UNIX_LINES};
+        for (int flags : unsupportedFlags) {
+            assertNull(LinearRegex.compile(Pattern.compile("a", flags)), "Flags " + flags);
+        }
+    }
+
+    @Test
+    void literalPatternsMatchTheirText() {
+        assertSameResults("a.b(", Pattern.LITERAL, "a.b(", "axb(", "A.B(");
+        assertSameResults("a.b(", Pattern.LITERAL | Pattern.CASE_INSENSITIVE, "a.b(", "A.B(", "axb(");
+        assertSameResults("\\Q", Pattern.LITERAL, "\\Q", "Q");
+    }
+
+    @Test
+    void pathologicalPatternsFinishQuickly() {
+        String text = "a".repeat(10000) + "!";
+        LinearRegex regex = LinearRegex.compile(Pattern.compile("(a+)+$"));
+        assertEquals(Boolean.FALSE, regex.find(text));
+        assertEquals(Boolean.FALSE, LinearRegex.compile(Pattern.compile("(a|aa)*b")).find(text));
+    }
+
+    private static void assertSameResults(String regex, int flags, String... texts) {
+        LinearRegex linearRegex = LinearRegex.compile(Pattern.compile(regex, flags));
+        assertNotNull(linearRegex, regex);
+        for (String text : texts) {
+            assertSameResults(linearRegex, text);
+        }
+    }
+
+    /**
+     * @return Whether the engine decided both results, rather than leaving them to Pattern.
+     */
+    private static boolean assertSameResults(LinearRegex regex, String text) {
+        Pattern pattern = regex.getPattern();
+        Boolean found = regex.find(text);
+        Boolean matched = regex.matches(text);
+        if (found != null) {
+            assertEquals(pattern.matcher(text).find(), found, () -> "find /" + pattern + "/ " + pattern.flags() + " in " + escape(text));
+        }
+        if (matched != null) {
+            assertEquals(pattern.matcher(text).matches(), matched, () -> "match /" + pattern + "/ " + pattern.flags() + " to " + escape(text));
+        }
+        return found != null && matched != null;
+    }
+
+    private static Pattern randomPattern(Random random) {
+        StringBuilder regex = new StringBuilder();
+        int parts = 1 + random.nextInt(6);
+        for (int i = 0; i < parts; i++) regex.append(PATTERN_PARTS[random.nextInt(PATTERN_PARTS.length)]);
+        try {
+            return Pattern.compile(regex.toString(), FLAGS[random.nextInt(FLAGS.length)]);
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        int parts = random.nextInt(8);
+        for (int i = 0; i < parts; i++) text.append(TEXT_PARTS[random.nextInt(TEXT_PARTS.length)]);
+        return text.toString();
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        text.chars().forEach(c -> escaped.append(c < 0x20 || c > 0x7E ? String.format("\\u%04x", c) : String.valueOf((char) c)));
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package com.nccgroup.loggerplusplus.regex;
+
+import com.nccgroup.loggerplusplus.fake.FakeByteArray;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiteralMatcherTest {
+
+    //Fragments of text, including Latin-1 letters and characters outside Latin-1 which fold to or from them.
+    private static final String[] TEXT_PARTS = {"a", "b", "A", "B", "ab", "AB", "z", "Z", "é", "É", "ß", "ÿ", "µ",
+            "×", "÷", "ª", "Ÿ", "Μ", "μ", "ſ", "s", "S", "K", "k", "K", "İ",
+            "i", "I", "ı", " ", "-", "\n", "\u0000", "Ā"};
+
+    @Test
+    void asciiFoldsAsStringDoes() {
+        for (char c = 0; c < 0x80; c++) {
+            for (char d = 0; d < 0x80; d++) {
+                assertFolding(c, d);
+            }
+        }
+        assertTrue(LiteralMatcher.compile("Session-Token").equalTo("SESSION-token"));
+        assertFalse(LiteralMatcher.compile("Session-Token").equalTo("Session_Token"));
+    }
+
+    @Test
+    void latin1FoldsAsStringDoes() {
+        for (char c = 0; c < 0x100; c++) {
+            for (char d = 0; d < 0x100; d++) {
+                assertFolding(c, d);
+            }
+        }
+        assertTrue(LiteralMatcher.compile("CAFÉ").equalTo("café"));
+        assertTrue(LiteralMatcher.compile("ÀÖØÞ").equalTo("àöøþ"));
+        //Neither the multiplication nor division sign has a case, though they sit among letters which do.
+        assertFalse(LiteralMatcher.compile("×").equalTo("÷"));
+    }
+
+    @Test
+    void latin1FoldsToCharactersOutsideLatin1AsStringDoes() {
+        //Micro sign and Greek mu, y with diaeresis and its capital, long s and s, Kelvin sign and k.
+        String[][] pairs = {{"µ", "Μ"}, {"µ", "μ"}, {"ÿ", "Ÿ"}, {"s", "ſ"}, {"S", "ſ"},
+                {"k", "K"}, {"K", "K"}, {"i", "İ"}, {"I", "ı"}, {"i", "ı"}};
+        for (String[] pair : pairs) {
+            boolean expected = pair[0].equalsIgnoreCase(pair[1]);
+            assertEquals(expected, LiteralMatcher.compile(pair[0]).equalTo(pair[1]), pair[0] + " " + pair[1]);
+            assertEquals(expected, LiteralMatcher.compile(pair[1]).equalTo(pair[0]), pair[1] + " " + pair[0]);
+        }
+    }
+
+    @Test
+    void bytesFoldAsTheirLatin1Characters() {
+        for (int b = 0; b < 0x100; b++) {
+            byte[] bytes = {(byte) b};
+            String decoded = new String(bytes, StandardCharsets.ISO_8859_1);
+            for (String literal : TEXT_PARTS) {
+                LiteralMatcher matcher = LiteralMatcher.compile(literal);
+                assertEquals(literal.equalsIgnoreCase(decoded), matcher.equalTo(FakeByteArray.of(bytes)), literal + " " + b);
+                assertEquals(StringUtils.containsIgnoreCase(decoded, literal), matcher.containedIn(FakeByteArray.of(bytes)),
+                        literal + " " + b);
+            }
+        }
+    }
+
+    @Test
+    void findsTheFirstOccurrence() {
+        LiteralMatcher matcher = LiteralMatcher.compile("abab");
+        assertEquals(2, matcher.indexIn("xxABABab"));
+        assertEquals(2, matcher.indexIn(FakeByteArray.of("xxABABab")));
+        assertEquals(-1, matcher.indexIn("xxABA"));
+        assertEquals(0, LiteralMatcher.compile("").indexIn(""));
+        assertEquals(0, LiteralMatcher.compile("").indexIn(FakeByteArray.of("abc")));
+        //Characters sharing a low byte share a shift, which mustn't skip past a match.
+        assertEquals(1, LiteralMatcher.compile("ša").indexIn("aša"));
+        assertEquals(1, LiteralMatcher.compile("aš").indexIn("aaš"));
+    }
+
+    @Test
+    void randomSearchesMatchCommonsLang() {
+        Random random = new Random(6);
+        for (int i = 0; i < 20000; i++) {
+            String literal = randomText(random, 1 + random.nextInt(4));
+            String text = randomText(random, random.nextInt(12));
+            LiteralMatcher matcher = LiteralMatcher.compile(literal);
+            assertEquals(StringUtils.indexOfIgnoreCase(text, literal), matcher.indexIn(text), () -> literal + " in " + text);
+            assertEquals(text.equalsIgnoreCase(literal), matcher.equalTo(text), () -> literal + " equal to " + text);
+            if (isLatin1(text)) {
+                byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+                assertEquals(StringUtils.indexOfIgnoreCase(text, literal), matcher.indexIn(FakeByteArray.of(bytes)),
+                        () -> literal + " in bytes of " + text);
+            }
+        }
+    }
+
+    @Test
+    void surrogatesAreNotCompiled() {
+        assertNull(LiteralMatcher.compile("a😀"));
+        assertNull(LiteralMatcher.compile("\uD801"));
+        assertNotNull(LiteralMatcher.compile("aéK"));
+    }
+
+    private static void assertFolding(char c, char d) {
+        String literal = String.valueOf(c), text = String.valueOf(d);
+        assertEquals(literal.equalsIgnoreCase(text), LiteralMatcher.compile(literal).equalTo(text),
+                () -> String.format("\\u%04x and \\u%04x", (int) c, (int) d));
+    }
+
+    private static String randomText(Random random, int parts) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < parts; i++) text.append(TEXT_PARTS[random.nextInt(TEXT_PARTS.length)]);
+        return text.toString();
+    }
+
+    private static boolean isLatin1(String text) {
+        return text.chars().allMatch(c -> c < 0x100);
+    }
+}
@@ -0,0 +1,116 @@
+package com.nccgroup.loggerplusplus.util;
+
+import com.nccgroup.loggerplusplus.fake.FakeByteArray;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteArrayCharSequenceTest {
+
+    //Characters of each UTF-8 length: one, two, three and four bytes.
+    private static final String[] CHARACTERS = {"a", "Z", "\n", "é", "ß", "€", "中", "😀", "𝄞"};
+
+    @Test
+    void readsAsciiAndInvalidUtf8AsLatin1() {
+        assertSameText("plain ascii", StandardCharsets.ISO_8859_1);
+        assertSameText("", StandardCharsets.ISO_8859_1);
+        //Overlong forms, surrogates, code points past U+10FFFF, stray continuations and sequences cut short.
+        byte[][] invalid = {{(byte) 0xC0, (byte) 0x80}, {(byte) 0xE0, (byte) 0x80, (byte) 0x80},
+                {(byte) 0xED, (byte) 0xA0, (byte) 0x80}, {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80},
+                {(byte) 0x80}, {'a', (byte) 0xC3}, {'a', (byte) 0xE2, (byte) 0x82}, {(byte) 0xE9, 'a'},
+                {(byte) 0xC3, (byte) 0xA9, (byte) 0xFF}};
+        for (byte[] bytes : invalid) {
+            ByteArrayCharSequence text = ByteArrayCharSequence.of(FakeByteArray.of(bytes));
+            assertEquals(new String(bytes, StandardCharsets.ISO_8859_1), text.toString());
+            for (int i = 0; i <= bytes.length; i++) assertEquals(i, text.byteOffset(i));
+        }
+    }
+
+    @Test
+    void readsMultibyteUtf8AsUtf8() {
+        assertSameText("é", StandardCharsets.UTF_8);
+        assertSameText("café €5 中文", StandardCharsets.UTF_8);
+        assertSameText("😀", StandardCharsets.UTF_8);
+        assertSameText("a😀b𝄞c", StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void readsAcrossCheckpoints() {
+        //Checkpoints fall every 64 characters, so place each kind of character on, before and after them.
+        for (String character : CHARACTERS) {
+            for (int prefix = 60; prefix <= 68; prefix++) {
+                assertSameText("a".repeat(prefix) + character + "b".repeat(70), StandardCharsets.UTF_8);
+                assertSameText("é".repeat(prefix) + character + "😀".repeat(70), StandardCharsets.UTF_8);
+            }
+        }
+        //The first multi-byte character may come after several checkpoints of single bytes.
+        assertSameText("a".repeat(1000) + "é" + "a".repeat(1000), StandardCharsets.UTF_8);
+        assertSameText("a".repeat(128) + "😀", StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void readsRandomTextInAnyOrder() {
+        Random random = new Random(9);
+        for (int i = 0; i < 200; i++) {
+            StringBuilder text = new StringBuilder();
+            int characters = random.nextInt(400);
+            for (int c = 0; c < characters; c++) text.append(CHARACTERS[random.nextInt(CHARACTERS.length)]);
+            String expected = text.toString();
+            byte[] bytes = expected.getBytes(StandardCharsets.UTF_8);
+            ByteArrayCharSequence sequence = ByteArrayCharSequence.of(FakeByteArray.of(bytes));
+            assertEquals(expected.length(), sequence.length());
+
+            //Reads jump about as a matcher backtracks, so the cursor must be moved back and forth.
+            for (int read = 0; read < 500 && expected.length() > 0; read++) {
+                int index = random.nextInt(expected.length());
+                assertEquals(expected.charAt(index), sequence.charAt(index), "Character " + index);
+                int start = random.nextInt(expected.length() + 1);
+                int end = start + random.nextInt(expected.length() - start + 1);
+                assertEquals(expected.substring(start, end), sequence.subSequence(start, end).toString());
+            }
+            assertByteOffsets(expected, sequence);
+        }
+    }
+
+    @Test
+    void rejectsIndexesOutOfBounds() {
+        ByteArrayCharSequence utf8 = ByteArrayCharSequence.of(FakeByteArray.of("a😀".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IndexOutOfBoundsException.class, () -> utf8.charAt(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> utf8.charAt(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> utf8.subSequence(2, 4));
+        assertThrows(IndexOutOfBoundsException.class, () -> utf8.subSequence(2, 1));
+    }
+
+    private static void assertSameText(String expected, Charset charset) {
+        byte[] bytes = expected.getBytes(charset);
+        ByteArrayCharSequence text = ByteArrayCharSequence.of(FakeByteArray.of(bytes));
+        assertEquals(expected.length(), text.length());
+        for (int i = 0; i < expected.length(); i++) {
+            assertEquals(expected.charAt(i), text.charAt(i), "Character " + i);
+        }
+        //And again from the end, so each read moves the cursor back.
+        for (int i = expected.length() - 1; i >= 0; i--) {
+            assertEquals(expected.charAt(i), text.charAt(i), "Character " + i);
+        }
+        for (int start = 0; start <= expected.length(); start += 7) {
+            for (int end = start; end <= expected.length(); end += 13) {
+                assertEquals(expected.substring(start, end), text.subSequence(start, end).toString());
+            }
+        }
+        assertEquals(expected, text.toString());
+        assertByteOffsets(expected, text);
+    }
+
+    private static void assertByteOffsets(String expected, ByteArrayCharSequence text) {
+        for (int i = 0; i <= expected.length(); i++) {
+            //An index between the halves of a surrogate pair is after the character they make up.
+            int end = i < expected.length() && Character.isLowSurrogate(expected.charAt(i)) ? i + 1 : i;
+            int offset = expected.substring(0, end).getBytes(StandardCharsets.UTF_8).length;
+            assertEquals(offset, text.byteOffset(i), "Offset of character " + i);
+        }
+    }
+}